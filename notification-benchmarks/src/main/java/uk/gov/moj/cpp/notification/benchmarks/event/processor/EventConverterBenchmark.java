@@ -0,0 +1,55 @@
+package uk.gov.moj.cpp.notification.benchmarks.event.processor;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the conversion of a public event into an event cache row, for a small event and for
+ * payloads of the sizes of the larger case and hearing events. Run with {@code -prof gc} to see
+ * the bytes allocated per event ({@code gc.alloc.rate.norm}); this is the allocation budget of
+ * the ingest path, which {@code PublicEventProcessorBenchmark} should not exceed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+public class EventConverterBenchmark {
+
+    /**
+     * Approximate size of the event payload in bytes; 0 for the small event of
+     * {@link PublicEvents#publicEvent()}.
+     */
+    @Param({"0", "4096", "65536"})
+    public int payloadBytes;
+
+    private EventConverter eventConverter;
+    private JsonEnvelope event;
+
+    @Setup
+    public void setUp() {
+        eventConverter = PublicEvents.eventConverter();
+        event = payloadBytes == 0 ? PublicEvents.publicEvent() : PublicEvents.publicEvent(payloadBytes);
+    }
+
+    @Benchmark
+    public EventCache convert() {
+        return eventConverter.convert(event);
+    }
+}
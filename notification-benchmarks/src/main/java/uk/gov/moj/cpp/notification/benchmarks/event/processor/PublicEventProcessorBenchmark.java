@@ -0,0 +1,74 @@
+package uk.gov.moj.cpp.notification.benchmarks.event.processor;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static uk.gov.moj.cpp.notification.event.processor.PublicEventProcessors.processorOf;
+import static uk.gov.moj.cpp.notification.event.processor.registry.SubscriptionRegistries.registryOf;
+
+import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.notification.event.processor.EventCacheWriter;
+import uk.gov.moj.cpp.notification.event.processor.PublicEventMetrics;
+import uk.gov.moj.cpp.notification.event.processor.PublicEventProcessor;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link PublicEventProcessor#handle(JsonEnvelope)} up to the point where the event is
+ * handed to the {@link EventCacheWriter}, so the cost of the database is left out. With
+ * {@code -prof gc} the bytes allocated per event should stay close to those of
+ * {@link EventConverterBenchmark}: each event is converted once, and matching it against an
+ * empty subscription registry only allocates the result. Recording the event in the
+ * {@link PublicEventMetrics} allocates nothing, as only the time taken is recorded. The event carries
+ * the time it was created, as those on the topic do, and it is handed on with the event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+public class PublicEventProcessorBenchmark {
+
+    private static final int MAX_NAMES = 500;
+
+    private PublicEventProcessor publicEventProcessor;
+    private JsonEnvelope event;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp() {
+        publicEventProcessor = processorOf(
+                PublicEvents.eventConverter(),
+                new BlackholeEventCacheWriter(),
+                registryOf(emptyList()),
+                new PublicEventMetrics(MAX_NAMES));
+
+        event = PublicEvents.publicEvent();
+    }
+
+    @Benchmark
+    public void handle(final Blackhole blackhole) {
+        this.blackhole = blackhole;
+        publicEventProcessor.handle(event);
+    }
+
+    private class BlackholeEventCacheWriter extends EventCacheWriter {
+
+        @Override
+        public void write(final EventCacheMatched matchedEvent) {
+            blackhole.consume(matchedEvent);
+        }
+    }
+}
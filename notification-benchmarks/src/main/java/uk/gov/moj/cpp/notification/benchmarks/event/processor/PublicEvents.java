@@ -0,0 +1,92 @@
+package uk.gov.moj.cpp.notification.benchmarks.event.processor;
+
+import static java.util.UUID.randomUUID;
+import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
+import static uk.gov.justice.services.messaging.JsonEnvelope.metadataBuilder;
+import static uk.gov.justice.services.messaging.JsonObjects.createArrayBuilder;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.notification.event.processor.converter.EventConverter;
+import uk.gov.moj.cpp.notification.event.processor.converter.EventConverters;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+public final class PublicEvents {
+
+    private static final String EVENT_NAME = "public.listing.hearing-changes-saved";
+
+    private PublicEvents() {
+    }
+
+    /**
+     * A public event with all the metadata the event cache stores and the time it was created,
+     * and a small payload, similar in size to the events on the public.event topic.
+     */
+    public static JsonEnvelope publicEvent() {
+        return envelopeFrom(
+                metadataBuilder()
+                        .withId(randomUUID())
+                        .withName(EVENT_NAME)
+                        .createdAt(new UtcClock().now())
+                        .withClientCorrelationId(randomUUID().toString())
+                        .withSessionId(randomUUID().toString())
+                        .withUserId(randomUUID().toString())
+                        .withStreamId(randomUUID())
+                        .build(),
+                createObjectBuilder()
+                        .add("hearingId", randomUUID().toString())
+                        .add("courtCentreName", "Lavender Hill Magistrates' Court")
+                        .add("listedDurationMinutes", 30)
+                        .build());
+    }
+
+    /**
+     * A public event whose payload is a list of defendants, repeated until the payload is about
+     * the given size in bytes, as the larger case and hearing events on the public.event topic.
+     */
+    public static JsonEnvelope publicEvent(final int payloadBytes) {
+        final JsonArrayBuilder defendants = createArrayBuilder();
+        int size = 0;
+        for (int i = 0; size < payloadBytes; i++) {
+            final JsonObject defendant = createObjectBuilder()
+                    .add("defendantId", randomUUID().toString())
+                    .add("personDetails", createObjectBuilder()
+                            .add("firstName", "Firstname" + i)
+                            .add("lastName", "Lastname" + i)
+                            .add("dateOfBirth", "1980-01-01"))
+                    .add("offences", createArrayBuilder()
+                            .add(createObjectBuilder()
+                                    .add("offenceId", randomUUID().toString())
+                                    .add("offenceCode", "TH68001")
+                                    .add("wording", "Stole goods to the value of 100 pounds belonging to another")))
+                    .build();
+            defendants.add(defendant);
+            size += defendant.toString().length();
+        }
+
+        return envelopeFrom(
+                metadataBuilder()
+                        .withId(randomUUID())
+                        .withName(EVENT_NAME)
+                        .withClientCorrelationId(randomUUID().toString())
+                        .withSessionId(randomUUID().toString())
+                        .withUserId(randomUUID().toString())
+                        .withStreamId(randomUUID())
+                        .build(),
+                createObjectBuilder()
+                        .add("hearingId", randomUUID().toString())
+                        .add("courtCentreName", "Lavender Hill Magistrates' Court")
+                        .add("defendants", defendants)
+                        .build());
+    }
+
+    /**
+     * @return an event converter with the collaborators the container would inject
+     */
+    public static EventConverter eventConverter() {
+        return EventConverters.eventConverter();
+    }
+}
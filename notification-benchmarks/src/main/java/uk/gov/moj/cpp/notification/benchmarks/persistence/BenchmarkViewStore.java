@@ -0,0 +1,131 @@
+package uk.gov.moj.cpp.notification.benchmarks.persistence;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepositoryConfig;
+import uk.gov.moj.cpp.notification.persistence.EventJsonFormat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.postgresql.ds.PGSimpleDataSource;
+
+/**
+ * The Postgres view store the persistence benchmarks run against, given by the
+ * benchmark.jdbc.url, benchmark.jdbc.user and benchmark.jdbc.password system properties and
+ * migrated with the view store liquibase.
+ */
+final class BenchmarkViewStore {
+
+    private BenchmarkViewStore() {
+    }
+
+    static DataSource dataSource() {
+        final PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setURL(System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/notificationbenchmark"));
+        dataSource.setUser(System.getProperty("benchmark.jdbc.user", "notification"));
+        dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "notification"));
+        return dataSource;
+    }
+
+    /**
+     * An event cache repository on the data source with the default configuration of the view
+     * store, storing event json in the given format.
+     */
+    static EventCacheJdbcRepository eventCacheJdbcRepository(final DataSource dataSource, final EventJsonFormat eventJsonFormat) {
+        return new EventCacheJdbcRepository(
+                new BenchmarkConfig(eventJsonFormat),
+                new BenchmarkDataSourceProvider(dataSource),
+                new PreparedStatementWrapperFactory(),
+                getLogger(EventCacheJdbcRepository.class));
+    }
+
+    static void execute(final DataSource dataSource, final String sql) throws SQLException {
+        try (final Connection connection = dataSource.getConnection();
+             final Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Runs the statement with EXPLAIN (ANALYZE, BUFFERS) in a transaction that is rolled back, so
+     * that the plan of a DELETE can be captured without removing anything.
+     *
+     * @return the plan, one line per node
+     */
+    static String explainAnalyze(final DataSource dataSource, final String sql, final Object... parameters) throws SQLException {
+        final StringBuilder plan = new StringBuilder();
+
+        try (final Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (final PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                int parameterIndex = 1;
+                for (final Object parameter : parameters) {
+                    preparedStatement.setObject(parameterIndex++, parameter);
+                }
+
+                try (final ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+
+        return plan.toString();
+    }
+
+    private static class BenchmarkConfig extends EventCacheJdbcRepositoryConfig {
+
+        private final EventJsonFormat eventJsonFormat;
+
+        private BenchmarkConfig(final EventJsonFormat eventJsonFormat) {
+            this.eventJsonFormat = eventJsonFormat;
+        }
+
+        @Override
+        public int getBatchSize() {
+            return 100;
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return 10000;
+        }
+
+        @Override
+        public long getTargetBatchMillis() {
+            return 200;
+        }
+
+        @Override
+        public EventJsonFormat getEventJsonFormat() {
+            return eventJsonFormat;
+        }
+    }
+
+    private static class BenchmarkDataSourceProvider extends ViewStoreJdbcDataSourceProvider {
+
+        private final DataSource dataSource;
+
+        private BenchmarkDataSourceProvider(final DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package uk.gov.moj.cpp.notification.benchmarks.persistence;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.fromSqlTimestamp;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.benchmarks.event.processor.PublicEvents;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+/**
+ * Bulk-loads the event_cache table of a benchmark view store with generated events, inside
+ * Postgres from generate_series, so that millions of rows load in minutes rather than hours.
+ *
+ * The users, streams, event names and client correlation ids of the events are drawn from pools
+ * of the given sizes, picking key {@code floor(size * random() ^ skew)} of a pool: a skew of 1
+ * spreads the events evenly, a larger skew gives the low keys most of the events, as the busiest
+ * users and streams have in production. The key of a value is its position in the pool, so that
+ * a benchmark can query the same values with {@link #userId(long)}, {@link #streamId(long)},
+ * {@link #name(long)} and {@link #clientCorrelationId(long)}. Events are created at random over
+ * the given number of hours up to the time of the load, are stored 50 ms after they were
+ * created, and all share the json of one public event, stored in the format of the repository.
+ *
+ * The distribution loaded is recorded as the comment of the event_cache table, and a load of the
+ * same distribution is skipped, as loading ten million events takes a while.
+ */
+class EventCacheDataGenerator {
+
+    private static final long CHUNK_SIZE = 1_000_000;
+
+    private static final String INSERT_GENERATED_EVENTS = "INSERT INTO event_cache (" +
+            "id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name, event_json_compressed, metadata_json, stored) " +
+            "SELECT id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name, event_json_compressed, metadata_json, " +
+            "created + interval '50 milliseconds' " +
+            "FROM (SELECT md5('event-' || i)::uuid AS id, " +
+            "md5('user-' || %1$s)::uuid AS user_id, " +
+            "md5(random()::text)::uuid AS session_id, " +
+            "md5('correlation-' || %2$s)::uuid::text AS client_correlation_id, " +
+            "md5('stream-' || %3$s)::uuid AS stream_id, " +
+            "t.event_json, " +
+            "CAST(? AS TIMESTAMP WITH TIME ZONE) - CAST(? AS INTEGER) * random() * interval '1 hour' AS created, " +
+            "'public.benchmark.event-' || %4$s AS name, " +
+            "t.event_json_compressed, t.metadata_json " +
+            "FROM generate_series(CAST(? AS BIGINT), CAST(? AS BIGINT)) i, " +
+            "(SELECT event_json, event_json_compressed, metadata_json FROM event_cache WHERE id = ?) t) generated";
+
+    private static final String KEY = "floor(CAST(%d AS BIGINT) * (random() ^ CAST(%s AS DOUBLE PRECISION)))::bigint";
+
+    private final long rows;
+    private final long users;
+    private final long streams;
+    private final long names;
+    private final long clientCorrelationIds;
+    private final double skew;
+    private final int hours;
+
+    EventCacheDataGenerator(final long rows,
+                            final long users,
+                            final long streams,
+                            final long names,
+                            final long clientCorrelationIds,
+                            final double skew,
+                            final int hours) {
+        this.rows = rows;
+        this.users = users;
+        this.streams = streams;
+        this.names = names;
+        this.clientCorrelationIds = clientCorrelationIds;
+        this.skew = skew;
+        this.hours = hours;
+    }
+
+    /**
+     * Replaces the events of the event cache with the generated events, unless it already holds
+     * events generated with the same distribution, and analyzes the table.
+     */
+    void load(final DataSource dataSource, final EventCacheJdbcRepository eventCacheJdbcRepository) throws SQLException {
+        final String description = toString();
+
+        if (description.equals(loadedDescription(dataSource))) {
+            System.out.printf("%nReusing the event cache of %s%n", description);
+            return;
+        }
+
+        System.out.printf("%nLoading the event cache with %s%n", description);
+
+        markChanged(dataSource);
+        BenchmarkViewStore.execute(dataSource, "TRUNCATE event_cache");
+
+        final ZonedDateTime loadedAt = new UtcClock().now();
+        final EventCache template = templateEvent(loadedAt);
+        eventCacheJdbcRepository.insertBatch(singletonList(template));
+
+        final String insert = format(INSERT_GENERATED_EVENTS,
+                key(users), key(clientCorrelationIds), key(streams), key(names));
+
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement(insert)) {
+            for (long first = 0; first < rows; first += CHUNK_SIZE) {
+                final long start = System.nanoTime();
+                final long last = min(first + CHUNK_SIZE, rows) - 1;
+
+                preparedStatement.setTimestamp(1, toSqlTimestamp(loadedAt));
+                preparedStatement.setInt(2, hours);
+                preparedStatement.setLong(3, first);
+                preparedStatement.setLong(4, last);
+                preparedStatement.setObject(5, template.getId());
+                preparedStatement.executeUpdate();
+
+                System.out.printf("Loaded %d of %d events in %d ms%n", last + 1, rows, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM event_cache WHERE id = ?")) {
+            preparedStatement.setObject(1, template.getId());
+            preparedStatement.executeUpdate();
+        }
+
+        BenchmarkViewStore.execute(dataSource, "VACUUM ANALYZE event_cache");
+        BenchmarkViewStore.execute(dataSource, format("COMMENT ON TABLE event_cache IS '%s'", description));
+    }
+
+    /**
+     * Forgets the distribution loaded, so that the next load replaces the events. Called by
+     * benchmarks that remove or add events.
+     */
+    static void markChanged(final DataSource dataSource) throws SQLException {
+        BenchmarkViewStore.execute(dataSource, "COMMENT ON TABLE event_cache IS NULL");
+    }
+
+    static ZonedDateTime oldestCreated(final DataSource dataSource) throws SQLException {
+        return created(dataSource, "MIN");
+    }
+
+    static ZonedDateTime newestCreated(final DataSource dataSource) throws SQLException {
+        return created(dataSource, "MAX");
+    }
+
+    /**
+     * @return the key of a pool of the given size drawn with the skew of the generated events
+     */
+    long keyOf(final Random random, final long size) {
+        return (long) (size * Math.pow(random.nextDouble(), skew));
+    }
+
+    long users() {
+        return users;
+    }
+
+    long streams() {
+        return streams;
+    }
+
+    long names() {
+        return names;
+    }
+
+    long clientCorrelationIds() {
+        return clientCorrelationIds;
+    }
+
+    static UUID userId(final long key) {
+        return md5Uuid("user-" + key);
+    }
+
+    static UUID streamId(final long key) {
+        return md5Uuid("stream-" + key);
+    }
+
+    static String name(final long key) {
+        return "public.benchmark.event-" + key;
+    }
+
+    static String clientCorrelationId(final long key) {
+        return md5Uuid("correlation-" + key).toString();
+    }
+
+    @Override
+    public String toString() {
+        return format("%d events of %d users, %d streams, %d names and %d client correlation ids with skew %s over %d hours",
+                rows, users, streams, names, clientCorrelationIds, skew, hours);
+    }
+
+    private String key(final long size) {
+        return format(KEY, size, skew);
+    }
+
+    private static EventCache templateEvent(final ZonedDateTime loadedAt) {
+        final EventCache event = PublicEvents.eventConverter().convert(PublicEvents.publicEvent());
+        return new EventCache(md5Uuid("template"), event.getUserId(), event.getSessionId(), event.getClientCorrelationId(),
+                event.getStreamId(), event.getEventJson(), loadedAt, event.getName(), event.getMetadataJson());
+    }
+
+    private static ZonedDateTime created(final DataSource dataSource, final String aggregate) throws SQLException {
+        try (final Connection connection = dataSource.getConnection();
+             final Statement statement = connection.createStatement();
+             final ResultSet resultSet = statement.executeQuery(format("SELECT %s(created) FROM event_cache", aggregate))) {
+            resultSet.next();
+            return fromSqlTimestamp(resultSet.getTimestamp(1));
+        }
+    }
+
+    private static String loadedDescription(final DataSource dataSource) throws SQLException {
+        try (final Connection connection = dataSource.getConnection();
+             final Statement statement = connection.createStatement();
+             final ResultSet resultSet = statement.executeQuery("SELECT obj_description('event_cache'::regclass, 'pg_class')")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    /**
+     * The uuid Postgres gives {@code md5(value)::uuid}.
+     */
+    private static UUID md5Uuid(final String value) {
+        try {
+            final ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("MD5").digest(value.getBytes(UTF_8)));
+            return new UUID(digest.getLong(), digest.getLong());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package uk.gov.moj.cpp.notification.benchmarks.persistence;
+
+import static java.lang.Double.parseDouble;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventJsonFormat;
+import uk.gov.moj.cpp.notification.persistence.ExpiredEventCacheRemoval;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the passes of the event cache cleaner at production cardinalities. Each pass removes the
+ * events of the next {@value #SLICES}th of the hours the events were created over, oldest first,
+ * with {@link EventCacheJdbcRepository#removeExpiredEventCaches}, as the cleaner does as events
+ * expire. The rows and batches of each pass are printed after it, and the plan of the batch
+ * delete at the end of the trial, run with EXPLAIN (ANALYZE, BUFFERS) and rolled back.
+ *
+ * The event cache is loaded by the {@link EventCacheDataGenerator} with the scale and distribution
+ * of the parameters at the start of each trial, as the passes remove events. Runs against the
+ * {@link BenchmarkViewStore}. Its event_cache table is replaced, so it must not be a view store
+ * in use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 8)
+@Fork(1)
+public class EventCacheExpiryBenchmark {
+
+    private static final int SLICES = 20;
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private static final String DELETE_EXPIRED_BATCH = "DELETE FROM event_cache WHERE id IN ( " +
+            "SELECT id FROM event_cache " +
+            "WHERE created < ? LIMIT ?) ";
+
+    @Param({"1000000", "10000000"})
+    public String rows;
+
+    @Param({"5000"})
+    public String users;
+
+    @Param({"100000"})
+    public String streams;
+
+    @Param({"300"})
+    public String names;
+
+    @Param({"1000000"})
+    public String clientCorrelationIds;
+
+    @Param({"2"})
+    public String skew;
+
+    @Param({"48"})
+    public String hours;
+
+    private DataSource dataSource;
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+    private ZonedDateTime oldest;
+    private Duration slice;
+    private int passes;
+    private ExpiredEventCacheRemoval lastRemoval;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = BenchmarkViewStore.dataSource();
+        eventCacheJdbcRepository = BenchmarkViewStore.eventCacheJdbcRepository(dataSource, EventJsonFormat.TEXT);
+
+        new EventCacheDataGenerator(parseLong(rows), parseLong(users), parseLong(streams),
+                parseLong(names), parseLong(clientCorrelationIds), parseDouble(skew), parseInt(hours))
+                .load(dataSource, eventCacheJdbcRepository);
+        EventCacheDataGenerator.markChanged(dataSource);
+
+        oldest = EventCacheDataGenerator.oldestCreated(dataSource);
+        slice = Duration.ofHours(parseInt(hours)).dividedBy(SLICES);
+        passes = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPass() {
+        System.out.printf("%nRemoved %d expired events in %d batches in %d ms%n",
+                lastRemoval.getRowsDeleted(), lastRemoval.getBatches(), lastRemoval.getDuration().toMillis());
+    }
+
+    @TearDown(Level.Trial)
+    public void printDeletePlan() throws SQLException {
+        System.out.printf("%nBatch delete of expired events from %s events:%n%s", rows,
+                BenchmarkViewStore.explainAnalyze(dataSource, DELETE_EXPIRED_BATCH, toSqlTimestamp(expiryOfPass(passes + 1)), MAX_BATCH_SIZE));
+    }
+
+    @Benchmark
+    public ExpiredEventCacheRemoval removeExpiredEventCaches() {
+        lastRemoval = eventCacheJdbcRepository.removeExpiredEventCaches(expiryOfPass(++passes));
+        return lastRemoval;
+    }
+
+    private ZonedDateTime expiryOfPass(final int pass) {
+        return oldest.plus(slice.multipliedBy(pass));
+    }
+}
@@ -0,0 +1,197 @@
+package uk.gov.moj.cpp.notification.benchmarks.persistence;
+
+import static java.lang.Double.parseDouble;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+import static uk.gov.moj.cpp.notification.benchmarks.persistence.EventCacheDataGenerator.clientCorrelationId;
+import static uk.gov.moj.cpp.notification.benchmarks.persistence.EventCacheDataGenerator.name;
+import static uk.gov.moj.cpp.notification.benchmarks.persistence.EventCacheDataGenerator.streamId;
+import static uk.gov.moj.cpp.notification.benchmarks.persistence.EventCacheDataGenerator.userId;
+
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventJsonFormat;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the event cache queries of the common filter shapes at production cardinalities: a page
+ * of the newest events of a user, a stream, a stream and event name, an event name, a user or a
+ * stream and a user with a client correlation id, and a poll of the events of a user since a
+ * position. The filter values are drawn with the distribution of the generated events, so the
+ * busiest users and streams are queried the most, as they are in production.
+ *
+ * The event cache is loaded by the {@link EventCacheDataGenerator} with the scale and distribution
+ * of the parameters, which can be overridden with -p, for example -p rows=10000000 -p skew=1.
+ * At the end of each trial the plan of each query for the busiest values is printed with
+ * EXPLAIN (ANALYZE, BUFFERS), so that index changes can be judged on the plans as well as on the
+ * times.
+ *
+ * Runs against the {@link BenchmarkViewStore}. Its event_cache table is replaced, so it must not
+ * be a view store in use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = SECONDS)
+@Fork(1)
+public class EventCacheQueryBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final long SINCE_LAST_POLL_LAG_MILLIS = 2000;
+
+    private static final String PAGED_SELECT = "SELECT id, user_id, session_id, client_correlation_id, stream_id, " +
+            "event_json, event_json_compressed, created, name, metadata_json " +
+            "FROM event_cache " +
+            "WHERE (%s) " +
+            "ORDER BY created DESC, id DESC LIMIT " + PAGE_SIZE;
+
+    private static final String SINCE_SELECT = "SELECT id, user_id, session_id, client_correlation_id, stream_id, " +
+            "event_json, event_json_compressed, created, name, metadata_json, stored " +
+            "FROM event_cache " +
+            "WHERE (user_id = ?) and stored < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' and (stored > ? or (stored = ? and id > ?)) " +
+            "ORDER BY stored ASC, id ASC LIMIT " + PAGE_SIZE;
+
+    @Param({"1000000", "10000000"})
+    public String rows;
+
+    @Param({"5000"})
+    public String users;
+
+    @Param({"100000"})
+    public String streams;
+
+    @Param({"300"})
+    public String names;
+
+    @Param({"1000000"})
+    public String clientCorrelationIds;
+
+    @Param({"2"})
+    public String skew;
+
+    @Param({"48"})
+    public String hours;
+
+    private final Random random = new Random(42);
+
+    private DataSource dataSource;
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+    private EventCacheDataGenerator eventCacheDataGenerator;
+    private ZonedDateTime lastHour;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = BenchmarkViewStore.dataSource();
+        eventCacheJdbcRepository = BenchmarkViewStore.eventCacheJdbcRepository(dataSource, EventJsonFormat.TEXT);
+        eventCacheDataGenerator = new EventCacheDataGenerator(parseLong(rows), parseLong(users), parseLong(streams),
+                parseLong(names), parseLong(clientCorrelationIds), parseDouble(skew), parseInt(hours));
+
+        eventCacheDataGenerator.load(dataSource, eventCacheJdbcRepository);
+        lastHour = EventCacheDataGenerator.newestCreated(dataSource).minusHours(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void printQueryPlans() throws SQLException {
+        printPagePlan("user_id = ?", userId(0));
+        printPagePlan("stream_id = ?", streamId(0));
+        printPagePlan("stream_id = ? AND name = ?", streamId(0), name(0));
+        printPagePlan("name = ?", name(0));
+        printPagePlan("user_id = ? OR stream_id = ?", userId(0), streamId(0));
+        printPagePlan("user_id = ? AND client_correlation_id = ?", userId(0), clientCorrelationId(0));
+        printPlan("user_id = ? over the last hour", SINCE_SELECT,
+                userId(0), SINCE_LAST_POLL_LAG_MILLIS, toSqlTimestamp(lastHour), toSqlTimestamp(lastHour), randomUUID());
+    }
+
+    @Benchmark
+    public List<EventCache> pageOfUser() {
+        return page(new FilterClause("user_id = ?", singletonList(nextUserId())), Optional.empty());
+    }
+
+    @Benchmark
+    public List<EventCache> pageOfStream() {
+        return page(new FilterClause("stream_id = ?", singletonList(nextStreamId())), Optional.empty());
+    }
+
+    @Benchmark
+    public List<EventCache> pageOfStreamAndName() {
+        return page(new FilterClause("stream_id = ? AND name = ?", asList(nextStreamId(), nextName())), Optional.empty());
+    }
+
+    @Benchmark
+    public List<EventCache> pageOfName() {
+        return page(new FilterClause("name = ?", singletonList(nextName())), Optional.empty());
+    }
+
+    @Benchmark
+    public List<EventCache> pageOfUserOrStream() {
+        return page(new FilterClause("user_id = ? OR stream_id = ?", asList(nextUserId(), nextStreamId())), Optional.empty());
+    }
+
+    @Benchmark
+    public List<EventCache> pageOfUserWithClientCorrelationId() {
+        final String clientCorrelationId = clientCorrelationId(eventCacheDataGenerator.keyOf(random, eventCacheDataGenerator.clientCorrelationIds()));
+
+        return page(new FilterClause("user_id = ?", singletonList(nextUserId())), Optional.of(clientCorrelationId));
+    }
+
+    @Benchmark
+    public List<EventCache> pollOfUserOverTheLastHour() {
+        return eventCacheJdbcRepository.queryByFilterSince(new FilterClause("user_id = ?", singletonList(nextUserId())),
+                Optional.of(new PageCursor(lastHour, randomUUID())), SINCE_LAST_POLL_LAG_MILLIS, PAGE_SIZE);
+    }
+
+    private List<EventCache> page(final FilterClause filterClause, final Optional<String> clientCorrelationId) {
+        return eventCacheJdbcRepository.queryByFilter(filterClause, clientCorrelationId, Optional.empty(), PAGE_SIZE);
+    }
+
+    private Object nextUserId() {
+        return userId(eventCacheDataGenerator.keyOf(random, eventCacheDataGenerator.users()));
+    }
+
+    private Object nextStreamId() {
+        return streamId(eventCacheDataGenerator.keyOf(random, eventCacheDataGenerator.streams()));
+    }
+
+    private Object nextName() {
+        return name(eventCacheDataGenerator.keyOf(random, eventCacheDataGenerator.names()));
+    }
+
+    private void printPagePlan(final String filter, final Object... parameters) throws SQLException {
+        printPlan(filter, format(PAGED_SELECT, filter), parameters);
+    }
+
+    private void printPlan(final String filter, final String sql, final Object... parameters) throws SQLException {
+        System.out.printf("%n%s of %s events:%n%s", filter, rows, BenchmarkViewStore.explainAnalyze(dataSource, sql, parameters));
+    }
+}
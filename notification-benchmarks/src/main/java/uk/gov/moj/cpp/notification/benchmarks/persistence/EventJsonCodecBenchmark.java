@@ -0,0 +1,52 @@
+package uk.gov.moj.cpp.notification.benchmarks.persistence;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import uk.gov.moj.cpp.notification.benchmarks.event.processor.PublicEvents;
+import uk.gov.moj.cpp.notification.persistence.EventJsonCodec;
+import uk.gov.moj.cpp.notification.persistence.EventJsonFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link EventJsonCodec} on one event, which {@link EventJsonFormat#DEFLATE}
+ * adds to each event inserted and each event read. {@code EventJsonStorageBenchmark} measures
+ * what it saves in the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+public class EventJsonCodecBenchmark {
+
+    private String eventJson;
+    private byte[] deflated;
+
+    @Setup
+    public void setUp() {
+        eventJson = PublicEvents.eventConverter().convert(PublicEvents.publicEvent()).getEventJson();
+        deflated = EventJsonCodec.deflate(eventJson);
+    }
+
+    @Benchmark
+    public byte[] deflate() {
+        return EventJsonCodec.deflate(eventJson);
+    }
+
+    @Benchmark
+    public String inflate() {
+        return EventJsonCodec.inflate(deflated);
+    }
+}
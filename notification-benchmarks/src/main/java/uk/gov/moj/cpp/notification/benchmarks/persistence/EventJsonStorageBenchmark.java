@@ -0,0 +1,136 @@
+package uk.gov.moj.cpp.notification.benchmarks.persistence;
+
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.benchmarks.event.processor.PublicEvents;
+import uk.gov.moj.cpp.notification.event.processor.converter.EventConverter;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventJsonFormat;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link EventJsonFormat}s on a Postgres view store: events inserted per second in
+ * batches, events queried and decoded per second a page at a time, and, printed at the end of
+ * each trial, the bytes of event json and of table and indexes taken by each stored event.
+ *
+ * Runs against the {@link BenchmarkViewStore}. Its event_cache table is emptied, so it must not be
+ * a view store in use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = SECONDS)
+@Fork(1)
+public class EventJsonStorageBenchmark {
+
+    private static final int PRELOADED_EVENTS = 10000;
+    private static final int BATCH_SIZE = 100;
+    private static final int PAGE_SIZE = 100;
+    private static final int USERS = PRELOADED_EVENTS / PAGE_SIZE;
+    private static final int EVENT_JSONS = 1000;
+
+    @Param({"TEXT", "DEFLATE"})
+    public String eventJsonFormat;
+
+    private final List<UUID> userIds = new ArrayList<>();
+    private final List<String> eventJsons = new ArrayList<>();
+    private final UtcClock clock = new UtcClock();
+
+    private DataSource dataSource;
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+    private int nextEvent;
+    private int nextUser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = BenchmarkViewStore.dataSource();
+        eventCacheJdbcRepository = BenchmarkViewStore.eventCacheJdbcRepository(dataSource, EventJsonFormat.valueOf(eventJsonFormat));
+
+        final EventConverter eventConverter = PublicEvents.eventConverter();
+        for (int i = 0; i < EVENT_JSONS; i++) {
+            eventJsons.add(eventConverter.convert(PublicEvents.publicEvent()).getEventJson());
+        }
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(randomUUID());
+        }
+
+        execute("TRUNCATE event_cache");
+        for (int i = 0; i < PRELOADED_EVENTS / BATCH_SIZE; i++) {
+            eventCacheJdbcRepository.insertBatch(nextBatch());
+        }
+        execute("ANALYZE event_cache");
+    }
+
+    @TearDown(Level.Trial)
+    public void printFootprint() throws SQLException {
+        try (final Connection connection = dataSource.getConnection();
+             final Statement statement = connection.createStatement();
+             final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*), " +
+                     "COALESCE(SUM(pg_column_size(event_json)), 0) + COALESCE(SUM(pg_column_size(event_json_compressed)), 0), " +
+                     "pg_total_relation_size('event_cache') FROM event_cache")) {
+            resultSet.next();
+            final long events = resultSet.getLong(1);
+            System.out.printf("%n%s: %d events, %d bytes of event json and %d bytes on disk per event%n",
+                    eventJsonFormat, events, resultSet.getLong(2) / events, resultSet.getLong(3) / events);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() {
+        eventCacheJdbcRepository.insertBatch(nextBatch());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public List<EventCache> queryAndDecodePage() {
+        final UUID userId = userIds.get(nextUser++ % USERS);
+
+        return eventCacheJdbcRepository.queryByFilter(new FilterClause("user_id = ?", singletonList(userId)),
+                Optional.empty(), Optional.empty(), PAGE_SIZE);
+    }
+
+    private List<EventCache> nextBatch() {
+        final List<EventCache> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++, nextEvent++) {
+            batch.add(new EventCache(randomUUID(), userIds.get(nextEvent % USERS), randomUUID(), randomUUID().toString(), randomUUID(),
+                    eventJsons.get(nextEvent % EVENT_JSONS), clock.now(), "public.listing.hearing-changes-saved"));
+        }
+        return batch;
+    }
+
+    private void execute(final String sql) throws SQLException {
+        BenchmarkViewStore.execute(dataSource, sql);
+    }
+}
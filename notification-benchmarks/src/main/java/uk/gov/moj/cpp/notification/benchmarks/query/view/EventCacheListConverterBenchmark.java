@@ -0,0 +1,59 @@
+package uk.gov.moj.cpp.notification.benchmarks.query.view;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.query.view.EventCacheListConverter;
+import uk.gov.moj.cpp.notification.query.view.EventCacheListConverters;
+
+import java.util.List;
+
+import javax.json.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the response of a get-events query from a page of the event cache, which
+ * parses the json of every event of the page. Throughput is in pages per second; with
+ * {@code -prof gc} the bytes allocated per page should grow with the page and payload sizes and
+ * nothing else.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+public class EventCacheListConverterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    @Param({"1024", "16384"})
+    public int payloadBytes;
+
+    private EventCacheListConverter eventCacheListConverter;
+    private List<EventCache> events;
+
+    @Setup
+    public void setUp() {
+        eventCacheListConverter = EventCacheListConverters.eventCacheListConverter();
+
+        events = EventCaches.page(pageSize, payloadBytes);
+    }
+
+    @Benchmark
+    public JsonObject convert() {
+        return eventCacheListConverter.convert(events);
+    }
+}
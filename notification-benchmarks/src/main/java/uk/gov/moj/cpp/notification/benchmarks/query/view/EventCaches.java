@@ -0,0 +1,29 @@
+package uk.gov.moj.cpp.notification.benchmarks.query.view;
+
+import uk.gov.moj.cpp.notification.benchmarks.event.processor.PublicEvents;
+import uk.gov.moj.cpp.notification.event.processor.converter.EventConverter;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class EventCaches {
+
+    private EventCaches() {
+    }
+
+    /**
+     * @return a page of event cache rows converted from public events with payloads of about the
+     * given size, as read from the event cache by a query
+     */
+    public static List<EventCache> page(final int pageSize, final int payloadBytes) {
+        final EventConverter eventConverter = PublicEvents.eventConverter();
+        final List<EventCache> events = new ArrayList<>(pageSize);
+
+        for (int i = 0; i < pageSize; i++) {
+            events.add(eventConverter.convert(PublicEvents.publicEvent(payloadBytes)));
+        }
+
+        return events;
+    }
+}
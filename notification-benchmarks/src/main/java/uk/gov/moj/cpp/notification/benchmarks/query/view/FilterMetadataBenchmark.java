@@ -0,0 +1,55 @@
+package uk.gov.moj.cpp.notification.benchmarks.query.view;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.query.view.EventMetadata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reducing an event of a get-events-metadata page to its metadata, both for an event
+ * read with its metadata column and for one stored before that column, whose metadata is taken
+ * from the event json. The first should not depend on the payload size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+public class FilterMetadataBenchmark {
+
+    @Param({"METADATA_COLUMN", "EVENT_JSON"})
+    public String metadataSource;
+
+    @Param({"1024", "16384"})
+    public int payloadBytes;
+
+    private EventCache event;
+
+    @Setup
+    public void setUp() {
+        final EventCache converted = EventCaches.page(1, payloadBytes).get(0);
+        event = "METADATA_COLUMN".equals(metadataSource)
+                ? converted
+                : new EventCache(converted.getId(), converted.getUserId(), converted.getSessionId(), converted.getClientCorrelationId(),
+                converted.getStreamId(), converted.getEventJson(), converted.getCreated(), converted.getName());
+    }
+
+    @Benchmark
+    public EventCache metadataOnly() {
+        return EventMetadata.metadataOnly(event);
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.moj.cpp.notification.benchmarks.query.view;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import uk.gov.moj.cpp.notification.common.Filter;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.query.view.CompiledFilterCache;
+import uk.gov.moj.cpp.notification.query.view.FilterParser;
+
+import javax.json.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures turning a subscription filter into the SQL the event cache is queried with: the
+ * parameterised clause of {@link FilterParser#compile(JsonObject)}, and its two steps on their
+ * own. The {@link CompiledFilterCache} only repeats them when a subscription changes, so a
+ * regression here shows on subscription changes rather than on every poll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(1)
+public class FilterParserBenchmark {
+
+    @Param({"FIELD", "AND", "NESTED_AND_OR"})
+    public Filters shape;
+
+    private JsonObject filterJson;
+    private Filter filter;
+
+    @Setup
+    public void setUp() {
+        filterJson = shape.json();
+        filter = Filter.fromJson(filterJson);
+    }
+
+    @Benchmark
+    public FilterClause compileJson() {
+        return FilterParser.compile(filterJson);
+    }
+
+    @Benchmark
+    public Filter fromJson() {
+        return Filter.fromJson(filterJson);
+    }
+
+    @Benchmark
+    public FilterClause compileFilter() {
+        return FilterParser.compile(filter);
+    }
+}
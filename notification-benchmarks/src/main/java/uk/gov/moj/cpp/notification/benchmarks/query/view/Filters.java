@@ -0,0 +1,71 @@
+package uk.gov.moj.cpp.notification.benchmarks.query.view;
+
+import static java.util.UUID.randomUUID;
+import static uk.gov.justice.services.messaging.JsonObjects.createArrayBuilder;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+/**
+ * Subscription filters of the shapes clients send, from a single field to AND and OR filters
+ * nested three deep.
+ */
+public enum Filters {
+
+    FIELD {
+        @Override
+        public JsonObject json() {
+            return field("USER_ID", randomUUID().toString());
+        }
+    },
+
+    AND {
+        @Override
+        public JsonObject json() {
+            return combined("AND",
+                    field("STREAM_ID", randomUUID().toString()),
+                    field("NAME", "public.listing.hearing-changes-saved"));
+        }
+    },
+
+    NESTED_AND_OR {
+        @Override
+        public JsonObject json() {
+            return combined("OR",
+                    combined("AND",
+                            field("USER_ID", randomUUID().toString()),
+                            field("NAME", "public.listing.hearing-changes-saved")),
+                    combined("AND",
+                            field("STREAM_ID", randomUUID().toString()),
+                            combined("OR",
+                                    field("NAME", "public.progression.case-added"),
+                                    field("NAME", "public.progression.defendant-added"),
+                                    field("NAME", "public.progression.hearing-resulted"))),
+                    field("STREAM_ID", randomUUID().toString()));
+        }
+    };
+
+    public abstract JsonObject json();
+
+    private static JsonObject field(final String name, final String value) {
+        return createObjectBuilder()
+                .add("type", "FIELD")
+                .add("name", name)
+                .add("value", value)
+                .add("operation", "EQUALS")
+                .build();
+    }
+
+    private static JsonObject combined(final String type, final JsonObject... filters) {
+        final JsonArrayBuilder value = createArrayBuilder();
+        for (final JsonObject filter : filters) {
+            value.add(filter);
+        }
+
+        return createObjectBuilder()
+                .add("type", type)
+                .add("value", value)
+                .build();
+    }
+}
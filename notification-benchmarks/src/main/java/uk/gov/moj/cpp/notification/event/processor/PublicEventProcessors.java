@@ -0,0 +1,34 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import uk.gov.justice.services.common.converter.Converter;
+import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.notification.event.processor.registry.SubscriptionRegistry;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import org.slf4j.helpers.NOPLogger;
+
+/**
+ * Creates public event processors for the benchmarks. It is in the package of the processor so
+ * that it can set the fields the container would inject.
+ */
+public final class PublicEventProcessors {
+
+    private PublicEventProcessors() {
+    }
+
+    /**
+     * @return a processor with the given collaborators, which logs nothing
+     */
+    public static PublicEventProcessor processorOf(final Converter<JsonEnvelope, EventCache> converter,
+                                                   final EventCacheWriter eventCacheWriter,
+                                                   final SubscriptionRegistry subscriptionRegistry,
+                                                   final PublicEventMetrics publicEventMetrics) {
+        final PublicEventProcessor publicEventProcessor = new PublicEventProcessor();
+        publicEventProcessor.converter = converter;
+        publicEventProcessor.eventCacheWriter = eventCacheWriter;
+        publicEventProcessor.logger = NOPLogger.NOP_LOGGER;
+        publicEventProcessor.subscriptionRegistry = subscriptionRegistry;
+        publicEventProcessor.publicEventMetrics = publicEventMetrics;
+        return publicEventProcessor;
+    }
+}
@@ -0,0 +1,24 @@
+package uk.gov.moj.cpp.notification.event.processor.converter;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.messaging.JsonObjectEnvelopeConverter;
+
+/**
+ * Creates event converters for the benchmarks. It is in the package of the converter so that it
+ * can set the fields the container would inject.
+ */
+public final class EventConverters {
+
+    private EventConverters() {
+    }
+
+    /**
+     * @return an event converter with the collaborators the container would inject
+     */
+    public static EventConverter eventConverter() {
+        final EventConverter eventConverter = new EventConverter();
+        eventConverter.jsonObjectEnvelopeConverter = new JsonObjectEnvelopeConverter();
+        eventConverter.clock = new UtcClock();
+        return eventConverter;
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.moj.cpp.notification.event.processor.registry;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.util.List;
+
+import org.slf4j.helpers.NOPLogger;
+
+/**
+ * Creates subscription registries for the benchmarks. It is in the package of the registry so
+ * that it can set the fields the container would inject.
+ */
+public final class SubscriptionRegistries {
+
+    private SubscriptionRegistries() {
+    }
+
+    /**
+     * @return a registry holding the given subscriptions, without a view store to load from
+     */
+    public static SubscriptionRegistry registryOf(final List<Subscription> subscriptions) {
+        final SubscriptionRegistry subscriptionRegistry = new SubscriptionRegistry();
+        subscriptionRegistry.converter = new StringToJsonObjectConverter();
+        subscriptionRegistry.logger = NOPLogger.NOP_LOGGER;
+        subscriptionRegistry.loaded = true;
+
+        subscriptions.forEach(subscriptionRegistry::register);
+
+        return subscriptionRegistry;
+    }
+}
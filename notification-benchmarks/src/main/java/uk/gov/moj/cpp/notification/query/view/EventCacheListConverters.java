@@ -0,0 +1,22 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+
+/**
+ * Creates event cache list converters for the benchmarks. It is in the package of the converter
+ * so that it can set the field the container would inject.
+ */
+public final class EventCacheListConverters {
+
+    private EventCacheListConverters() {
+    }
+
+    /**
+     * @return an event cache list converter with the collaborator the container would inject
+     */
+    public static EventCacheListConverter eventCacheListConverter() {
+        final EventCacheListConverter eventCacheListConverter = new EventCacheListConverter();
+        eventCacheListConverter.stringToJsonObjectConverter = new StringToJsonObjectConverter();
+        return eventCacheListConverter;
+    }
+}
@@ -82,6 +82,16 @@ public class NotificationCommandApi {
         sender.send(command);
     }
 
+    @Handles("notification.unsubscribe-batch")
+    public void unsubscribeBatch(final JsonEnvelope command) {
+        sender.send(command);
+    }
+
+    @Handles("notification.acknowledge-events")
+    public void acknowledgeEvents(final JsonEnvelope command) {
+        sender.send(command);
+    }
+
     @Handles("notification.subscription-filter")
     public void subscribeWithFilter(final Envelope<JsonObject> command) {
 
@@ -6,18 +6,25 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
+import static uk.gov.justice.services.messaging.JsonObjects.createArrayBuilder;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
 import static uk.gov.justice.services.test.utils.core.messaging.JsonEnvelopeBuilder.envelope;
 import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithDefaults;
 
 import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.justice.services.messaging.MetadataBuilder;
 import uk.gov.moj.cpp.accesscontrol.common.providers.UserAndGroupProvider;
 import uk.gov.moj.cpp.accesscontrol.drools.Action;
 import uk.gov.moj.cpp.accesscontrol.test.utils.BaseDroolsAccessControlTest;
 import uk.gov.moj.cpp.notification.common.accesscontrol.SubscriptionProvider;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import javax.json.JsonObject;
+
 import com.google.common.collect.ImmutableMap;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -207,4 +214,114 @@ public class NotificationCommandApiAccessControlTest extends BaseDroolsAccessCon
 
         verify(subscriptionProvider).isSubscriptionOwner(eq(action));
     }
+
+    @Test
+    public void shouldAllowSystemUserToUnsubscribeABatch() throws Exception {
+
+        when(userAndGroupProvider.isSystemUser(any(Action.class))).thenReturn(true);
+
+        final Action action = new Action(unsubscribeBatch(randomUUID()));
+        final ExecutionResults results = executeRulesWith(action);
+
+        assertSuccessfulOutcome(results);
+
+        verify(userAndGroupProvider).isSystemUser(eq(action));
+
+        verifyNoInteractions(subscriptionProvider);
+    }
+
+    @Test
+    public void shouldNotAllowOtherUsersToUnsubscribeABatch() throws Exception {
+
+        when(userAndGroupProvider.isSystemUser(any(Action.class))).thenReturn(false);
+
+        final Action action = new Action(unsubscribeBatch(randomUUID()));
+        final ExecutionResults results = executeRulesWith(action);
+
+        assertFailureOutcome(results);
+
+        verify(userAndGroupProvider).isSystemUser(eq(action));
+
+        verifyNoInteractions(subscriptionProvider);
+    }
+
+    @Test
+    public void shouldNotAllowToUnsubscribeABatchIfUserIdIsMissing() throws Exception {
+
+        final JsonEnvelope command = envelopeFrom(
+                metadataWithDefaults()
+                        .withName("notification.unsubscribe-batch"),
+                subscriptionIds());
+
+        final Action action = new Action(command);
+        final ExecutionResults results = executeRulesWith(action);
+
+        assertFailureOutcome(results);
+
+        verifyNoInteractions(userAndGroupProvider);
+    }
+
+    @Test
+    public void shouldAllowSubscriptionOwnerToAcknowledgeEvents() throws Exception {
+
+        when(subscriptionProvider.isSubscriptionOwner(any(Action.class))).thenReturn(true);
+
+        final Action action = new Action(acknowledgeEvents(Optional.of(randomUUID())));
+        final ExecutionResults results = executeRulesWith(action);
+
+        assertSuccessfulOutcome(results);
+
+        verify(subscriptionProvider).isSubscriptionOwner(eq(action));
+    }
+
+    @Test
+    public void shouldNotAllowToAcknowledgeEventsOfOtherUsersSubscription() throws Exception {
+
+        when(subscriptionProvider.isSubscriptionOwner(any(Action.class))).thenReturn(false);
+
+        final Action action = new Action(acknowledgeEvents(Optional.of(randomUUID())));
+        final ExecutionResults results = executeRulesWith(action);
+
+        assertFailureOutcome(results);
+
+        verify(subscriptionProvider).isSubscriptionOwner(eq(action));
+    }
+
+    @Test
+    public void shouldNotAllowToAcknowledgeEventsIfUserIdIsMissing() throws Exception {
+
+        final Action action = new Action(acknowledgeEvents(Optional.empty()));
+        final ExecutionResults results = executeRulesWith(action);
+
+        assertFailureOutcome(results);
+
+        verifyNoInteractions(subscriptionProvider);
+    }
+
+    private JsonEnvelope acknowledgeEvents(final Optional<UUID> userId) {
+        final MetadataBuilder metadata = metadataWithDefaults()
+                .withName("notification.acknowledge-events");
+        userId.ifPresent(id -> metadata.withUserId(id.toString()));
+
+        return envelopeFrom(metadata, createObjectBuilder()
+                .add("subscriptionId", randomUUID().toString())
+                .add("position", "MjAyNi0xMC0xOFQxMDoxNTozMC4xMjNafGQwNmY2NTM5LTJhN2MtNGJjOC1iY2EzLWYxYjE3ZWJjZmE0Nw")
+                .build());
+    }
+
+    private JsonEnvelope unsubscribeBatch(final UUID userId) {
+        return envelopeFrom(
+                metadataWithDefaults()
+                        .withUserId(userId.toString())
+                        .withName("notification.unsubscribe-batch"),
+                subscriptionIds());
+    }
+
+    private JsonObject subscriptionIds() {
+        return createObjectBuilder()
+                .add("subscriptionIds", createArrayBuilder()
+                        .add(randomUUID().toString())
+                        .add(randomUUID().toString()))
+                .build();
+    }
 }
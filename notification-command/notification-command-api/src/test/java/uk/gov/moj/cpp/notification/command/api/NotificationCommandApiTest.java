@@ -199,4 +199,20 @@ public class NotificationCommandApiTest {
                         .thatHandles("notification.unsubscribe")
                         .withSenderPassThrough()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldPassThroughForUnsubscribeBatch() throws Exception {
+        assertThat(NotificationCommandApi.class, isHandlerClass(COMMAND_API)
+                .with(method("unsubscribeBatch")
+                        .thatHandles("notification.unsubscribe-batch")
+                        .withSenderPassThrough()));
+    }
+
+    @Test
+    public void shouldPassThroughForAcknowledgeEvents() throws Exception {
+        assertThat(NotificationCommandApi.class, isHandlerClass(COMMAND_API)
+                .with(method("acknowledgeEvents")
+                        .thatHandles("notification.acknowledge-events")
+                        .withSenderPassThrough()));
+    }
+}
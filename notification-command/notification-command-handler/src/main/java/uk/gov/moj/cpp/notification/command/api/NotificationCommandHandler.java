@@ -14,18 +14,22 @@ import uk.gov.justice.services.messaging.JsonEnvelope;
 import uk.gov.moj.cpp.notification.aggregate.Subscription;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.json.JsonObject;
+import javax.json.JsonString;
 
 @ServiceComponent(COMMAND_HANDLER)
 public class NotificationCommandHandler {
 
     private static final String SUBSCRIPTION_ID_FIELD_NAME = "subscriptionId";
+    private static final String SUBSCRIPTION_IDS_FIELD_NAME = "subscriptionIds";
     private static final String OWNER_ID_FIELD_NAME = "ownerId";
     private static final String FILTER_FIELD_NAME = "filter";
+    private static final String POSITION_FIELD_NAME = "position";
 
     @Inject
     AggregateService aggregateService;
@@ -65,6 +69,45 @@ public class NotificationCommandHandler {
     public void unsubscribe(final JsonEnvelope command) throws EventStreamException {
         final UUID subscriptionId = UUID.fromString(command.payloadAsJsonObject().getString(SUBSCRIPTION_ID_FIELD_NAME));
 
+        cancel(subscriptionId, command);
+    }
+
+    /**
+     * Cancels each subscription of the batch in the one transaction of the command, so that a page
+     * of expired subscriptions costs one message and one commit rather than one of each per
+     * subscription. The schema bounds the size of a batch; subscriptions already cancelled or
+     * never created are skipped, as they are by notification.unsubscribe.
+     */
+    @Handles("notification.unsubscribe-batch")
+    public void unsubscribeBatch(final JsonEnvelope command) throws EventStreamException {
+        final List<JsonString> subscriptionIds = command.payloadAsJsonObject()
+                .getJsonArray(SUBSCRIPTION_IDS_FIELD_NAME)
+                .getValuesAs(JsonString.class);
+
+        for (final JsonString subscriptionId : subscriptionIds) {
+            cancel(UUID.fromString(subscriptionId.getString()), command);
+        }
+    }
+
+    /**
+     * Records the position up to which the owner of the subscription has processed the events
+     * delivered by sinceLastPoll. The owner is checked by the command API before the command is
+     * sent, so the query that delivers the events never writes.
+     */
+    @Handles("notification.acknowledge-events")
+    public void acknowledgeEvents(final JsonEnvelope command) throws EventStreamException {
+        final JsonObject payload = command.payloadAsJsonObject();
+        final UUID subscriptionId = UUID.fromString(payload.getString(SUBSCRIPTION_ID_FIELD_NAME));
+
+        final EventStream eventStream = eventSource.getStreamById(subscriptionId);
+        final Subscription aggregate = aggregateService.get(eventStream, Subscription.class);
+
+        final Stream<Object> events = aggregate.acknowledgeEvents(payload.getString(POSITION_FIELD_NAME));
+
+        eventStream.append(events.map(enveloper.withMetadataFrom(command)));
+    }
+
+    private void cancel(final UUID subscriptionId, final JsonEnvelope command) throws EventStreamException {
         final EventStream eventStream = eventSource.getStreamById(subscriptionId);
         final Subscription aggregate = aggregateService.get(eventStream, Subscription.class);
 
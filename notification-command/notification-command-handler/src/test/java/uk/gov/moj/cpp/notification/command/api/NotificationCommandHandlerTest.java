@@ -7,6 +7,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.AllOf.allOf;
 import static org.mockito.Mockito.when;
 import static uk.gov.justice.services.common.converter.ZonedDateTimes.fromString;
+import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
 import static uk.gov.justice.services.test.utils.core.enveloper.EnveloperFactory.createEnveloperWithEvents;
 import static uk.gov.justice.services.test.utils.core.helper.EventStreamMockHelper.verifyAppendAndGetArgumentFrom;
 import static uk.gov.justice.services.test.utils.core.matchers.JsonEnvelopeMatcher.jsonEnvelope;
@@ -17,6 +18,7 @@ import static uk.gov.justice.services.test.utils.core.messaging.JsonEnvelopeBuil
 import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithRandomUUID;
 import static uk.gov.moj.cpp.notification.test.utils.builder.FilterJsonBuilder.randomFilterJsonBuilder;
 
+import uk.gov.justice.json.schemas.domains.notification.EventsAcknowledged;
 import uk.gov.justice.json.schemas.domains.notification.FilterUpdated;
 import uk.gov.justice.json.schemas.domains.notification.Subscribed;
 import uk.gov.justice.json.schemas.domains.notification.Unsubscribed;
@@ -27,6 +29,7 @@ import uk.gov.justice.services.core.enveloper.Enveloper;
 import uk.gov.justice.services.eventsourcing.source.core.EventSource;
 import uk.gov.justice.services.eventsourcing.source.core.EventStream;
 import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.justice.services.messaging.JsonObjects;
 import uk.gov.justice.services.test.utils.common.helper.StoppedClock;
 import uk.gov.moj.cpp.notification.aggregate.Subscription;
 
@@ -48,6 +51,10 @@ public class NotificationCommandHandlerTest {
     private static final String SUBSCRIBED_EVENT_NAME = "notification.subscribed";
     private static final String UNSUBSCRIBED_EVENT_NAME = "notification.unsubscribed";
     private static final String UPDATE_FILTER_EVENT_NAME = "notification.filter-updated";
+    private static final String UNSUBSCRIBE_BATCH_COMMAND_NAME = "notification.unsubscribe-batch";
+    private static final String ACKNOWLEDGE_EVENTS_COMMAND_NAME = "notification.acknowledge-events";
+    private static final String EVENTS_ACKNOWLEDGED_EVENT_NAME = "notification.events-acknowledged";
+    private static final String POSITION = "MjAyNi0xMC0xOFQxMDoxNTozMC4xMjNafGQwNmY2NTM5LTJhN2MtNGJjOC1iY2EzLWYxYjE3ZWJjZmE0Nw";
 
     private static final UUID subscriptionId = randomUUID();
     private static final UUID ownerId = randomUUID();
@@ -63,6 +70,9 @@ public class NotificationCommandHandlerTest {
     @Mock
     private EventStream eventStream;
 
+    @Mock
+    private EventStream otherEventStream;
+
     @Mock
     private Subscription aggregate;
 
@@ -73,7 +83,7 @@ public class NotificationCommandHandlerTest {
     private Stream<JsonEnvelope> jsonEnvelopes;
 
     @Spy
-    private Enveloper enveloper = createEnveloperWithEvents(Subscribed.class, Unsubscribed.class, FilterUpdated.class);
+    private Enveloper enveloper = createEnveloperWithEvents(Subscribed.class, Unsubscribed.class, FilterUpdated.class, EventsAcknowledged.class);
 
     @Spy
     private Clock clock = new StoppedClock(fromString("2016-10-11T17:05:10.151Z"));
@@ -140,6 +150,47 @@ public class NotificationCommandHandlerTest {
         ));
     }
 
+    @Test
+    public void shouldProduceUnSubscribedEventForEachSubscriptionOfABatch() throws Exception {
+
+        final UUID otherSubscriptionId = randomUUID();
+        when(eventSource.getStreamById(subscriptionId)).thenReturn(eventStream);
+        when(eventSource.getStreamById(otherSubscriptionId)).thenReturn(otherEventStream);
+        when(aggregateService.get(eventStream, Subscription.class)).thenReturn(subscribedAggregate(subscriptionId));
+        when(aggregateService.get(otherEventStream, Subscription.class)).thenReturn(subscribedAggregate(otherSubscriptionId));
+
+        final JsonEnvelope command = envelopeFrom(
+                metadataWithRandomUUID(UNSUBSCRIBE_BATCH_COMMAND_NAME),
+                JsonObjects.createObjectBuilder()
+                        .add("subscriptionIds", JsonObjects.createArrayBuilder()
+                                .add(subscriptionId.toString())
+                                .add(otherSubscriptionId.toString()))
+                        .build());
+
+        notificationCommandHandler.unsubscribeBatch(command);
+
+        assertThat(verifyAppendAndGetArgumentFrom(eventStream), streamContaining(
+                jsonEnvelope(
+                        withMetadataEnvelopedFrom(command)
+                                .withName(UNSUBSCRIBED_EVENT_NAME),
+                        payload()
+                                .isJson(
+                                        withJsonPath("$.subscriptionId", equalTo(subscriptionId.toString()))
+                                )
+                )
+        ));
+        assertThat(verifyAppendAndGetArgumentFrom(otherEventStream), streamContaining(
+                jsonEnvelope(
+                        withMetadataEnvelopedFrom(command)
+                                .withName(UNSUBSCRIBED_EVENT_NAME),
+                        payload()
+                                .isJson(
+                                        withJsonPath("$.subscriptionId", equalTo(otherSubscriptionId.toString()))
+                                )
+                )
+        ));
+    }
+
     @Test
     public void shouldUpdateFilter() throws Exception {
 
@@ -173,6 +224,43 @@ public class NotificationCommandHandlerTest {
 
     }
 
+    @Test
+    public void shouldProduceEventsAcknowledgedEvent() throws Exception {
+
+        when(eventSource.getStreamById(subscriptionId)).thenReturn(eventStream);
+        when(aggregateService.get(eventStream, Subscription.class)).thenReturn(subscribedAggregate(subscriptionId));
+
+        final JsonEnvelope command = envelope()
+                .with(metadataWithRandomUUID(ACKNOWLEDGE_EVENTS_COMMAND_NAME))
+                .withPayloadOf(subscriptionId, "subscriptionId")
+                .withPayloadOf(POSITION, "position")
+                .build();
+
+        notificationCommandHandler.acknowledgeEvents(command);
+
+        assertThat(verifyAppendAndGetArgumentFrom(eventStream), streamContaining(
+                jsonEnvelope(
+                        withMetadataEnvelopedFrom(command)
+                                .withName(EVENTS_ACKNOWLEDGED_EVENT_NAME),
+                        payload()
+                                .isJson(allOf(
+                                        withJsonPath("$.subscriptionId", equalTo(subscriptionId.toString())),
+                                        withJsonPath("$.position", equalTo(POSITION))
+                                ))
+                )
+        ));
+    }
+
+    private Subscription subscribedAggregate(final UUID subscriptionId) {
+        final Subscription subscription = new Subscription();
+        subscription.apply(Subscribed.subscribed().withCreated(clock.now())
+                .withFilter(filter)
+                .withOwnerId(ownerId)
+                .withSubscriptionId(subscriptionId)
+                .build());
+        return subscription;
+    }
+
     private JsonEnvelope createSubscribeCommand() {
         return envelope()
                 .with(metadataWithRandomUUID(SUBSCRIBED_EVENT_NAME))
@@ -0,0 +1,32 @@
+package uk.gov.moj.cpp.notification.command.api.json.schema;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static uk.gov.justice.services.test.utils.core.matchers.JsonSchemaValidationMatcher.failsValidationForAnyMissingField;
+import static uk.gov.justice.services.test.utils.core.matchers.JsonSchemaValidationMatcher.failsValidationWithMessage;
+import static uk.gov.justice.services.test.utils.core.matchers.JsonSchemaValidationMatcher.isValidForSchema;
+
+import org.junit.jupiter.api.Test;
+
+public class NotificationAcknowledgeEventsCommandHandlerJsonSchemaTest {
+
+    private static final String JSON_SCHEMA = "json/schema/notification.acknowledge-events.json";
+
+    private static final String VALID_JSON = "raml/json/notification.acknowledge-events.valid.json";
+    private static final String INVALID_POSITION_JSON = "raml/json/notification.acknowledge-events.invalid.position.json";
+
+    @Test
+    public void shouldNotFailForValidJsonContent() throws Exception {
+        assertThat(VALID_JSON, isValidForSchema(JSON_SCHEMA));
+    }
+
+    @Test
+    public void shouldFailWhenThePositionIsNotACursor() throws Exception {
+        assertThat(INVALID_POSITION_JSON, failsValidationWithMessage(JSON_SCHEMA,
+                "#/position: string [not a cursor] does not match pattern ^[A-Za-z0-9_-]+$"));
+    }
+
+    @Test
+    public void shouldFailWhenOneOfTheFieldIsMissingFromJsonRoot() throws Exception {
+        assertThat(VALID_JSON, failsValidationForAnyMissingField(JSON_SCHEMA));
+    }
+}
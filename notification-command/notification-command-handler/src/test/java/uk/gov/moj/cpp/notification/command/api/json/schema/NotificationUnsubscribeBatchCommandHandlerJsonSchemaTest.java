@@ -0,0 +1,39 @@
+package uk.gov.moj.cpp.notification.command.api.json.schema;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static uk.gov.justice.services.test.utils.core.matchers.JsonSchemaValidationMatcher.failsValidationForAnyMissingField;
+import static uk.gov.justice.services.test.utils.core.matchers.JsonSchemaValidationMatcher.failsValidationWithMessage;
+import static uk.gov.justice.services.test.utils.core.matchers.JsonSchemaValidationMatcher.isValidForSchema;
+
+import org.junit.jupiter.api.Test;
+
+public class NotificationUnsubscribeBatchCommandHandlerJsonSchemaTest {
+
+    private static final String JSON_SCHEMA = "json/schema/notification.unsubscribe-batch.json";
+
+    private static final String VALID_JSON = "raml/json/notification.unsubscribe-batch.valid.json";
+    private static final String INVALID_SUBSCRIPTION_ID_JSON = "raml/json/notification.unsubscribe-batch.invalid.subscription.id.json";
+    private static final String INVALID_EMPTY_JSON = "raml/json/notification.unsubscribe-batch.invalid.empty.json";
+
+    @Test
+    public void shouldNotFailForValidJsonContent() throws Exception {
+        assertThat(VALID_JSON, isValidForSchema(JSON_SCHEMA));
+    }
+
+    @Test
+    public void shouldFailWhenASubscriptionIdIsNotAValidUUID() throws Exception {
+        assertThat(INVALID_SUBSCRIPTION_ID_JSON, failsValidationWithMessage(JSON_SCHEMA,
+                "#/subscriptionIds/1: string [d06f6539-2a7c-bca3-f1b17ebcfa47] does not match pattern ^[a-fA-F0-9]{8}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{12}$"));
+    }
+
+    @Test
+    public void shouldFailWhenThereAreNoSubscriptionIds() throws Exception {
+        assertThat(INVALID_EMPTY_JSON, failsValidationWithMessage(JSON_SCHEMA,
+                "#/subscriptionIds: expected minimum item count: 1, found: 0"));
+    }
+
+    @Test
+    public void shouldFailWhenOneOfTheFieldIsMissingFromJsonRoot() throws Exception {
+        assertThat(VALID_JSON, failsValidationForAnyMissingField(JSON_SCHEMA));
+    }
+}
@@ -4,6 +4,7 @@ import static uk.gov.justice.domain.aggregate.matcher.EventSwitcher.match;
 import static uk.gov.justice.domain.aggregate.matcher.EventSwitcher.when;
 
 import uk.gov.justice.domain.aggregate.Aggregate;
+import uk.gov.justice.json.schemas.domains.notification.EventsAcknowledged;
 import uk.gov.justice.json.schemas.domains.notification.FilterUpdated;
 import uk.gov.justice.json.schemas.domains.notification.Subscribed;
 import uk.gov.justice.json.schemas.domains.notification.Unsubscribed;
@@ -57,6 +58,23 @@ public class Subscription implements Aggregate {
         }
     }
 
+    /**
+     * Acknowledges the events delivered to the subscription by sinceLastPoll up to the given
+     * position. Nothing is recorded for a subscription that does not exist or was cancelled.
+     */
+    public Stream<Object> acknowledgeEvents(final String position) {
+        if (subscriptionId != null && !cancelled) {
+            final EventsAcknowledged eventsAcknowledged = EventsAcknowledged.eventsAcknowledged()
+                    .withSubscriptionId(subscriptionId)
+                    .withPosition(position)
+                    .build();
+            return apply(Stream.of(eventsAcknowledged));
+        }
+        else {
+            return Stream.empty();
+        }
+    }
+
     @Override
     public Object apply(final Object event) {
         return match(event).with(
@@ -68,7 +86,8 @@ public class Subscription implements Aggregate {
                     cancelled = true;
                     exists = false;
                 }),
-                when(FilterUpdated.class).apply(filterUpdated -> doNothing()));
+                when(FilterUpdated.class).apply(filterUpdated -> doNothing()),
+                when(EventsAcknowledged.class).apply(eventsAcknowledged -> doNothing()));
     }
 
     public boolean exists() {
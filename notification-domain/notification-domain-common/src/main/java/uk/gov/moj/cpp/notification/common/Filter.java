@@ -0,0 +1,158 @@
+package uk.gov.moj.cpp.notification.common;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.moj.cpp.notification.common.FilterType.AND;
+import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
+import static uk.gov.moj.cpp.notification.common.FilterType.OR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.json.JsonObject;
+
+/**
+ * The filter of a subscription as a tree: a FIELD filter matches the events with a value of one
+ * of their fields, and an AND or OR filter combines the filters below it. Filters are immutable,
+ * so a filter parsed once can be shared by every request for the subscription. The query view
+ * compiles filters to SQL and the event processor matches events against them in memory.
+ */
+public class Filter {
+
+    private final FilterType type;
+    private final String name;
+    private final String value;
+    private final OperationType operation;
+    private final List<Filter> filters;
+
+    public Filter(
+            final FilterType type,
+            final String name,
+            final String value,
+            final OperationType operation) {
+        this(type, name, value, operation, emptyList());
+    }
+
+    private Filter(
+            final FilterType type,
+            final String name,
+            final String value,
+            final OperationType operation,
+            final List<Filter> filters) {
+        this.type = type;
+        this.name = name;
+        this.value = value;
+        this.operation = operation;
+        this.filters = unmodifiableList(new ArrayList<>(filters));
+    }
+
+    public static Filter field(final String name, final String value, final OperationType operation) {
+        return new Filter(FIELD, name, value, operation);
+    }
+
+    public static Filter and(final List<Filter> filters) {
+        return new Filter(AND, null, null, null, filters);
+    }
+
+    public static Filter or(final List<Filter> filters) {
+        return new Filter(OR, null, null, null, filters);
+    }
+
+    /**
+     * Parses the filter json of a subscription, in which the value of an AND or OR filter is the
+     * array of the filters it combines.
+     *
+     * @throws IllegalArgumentException if the filter has an unknown type or operation
+     */
+    public static Filter fromJson(final JsonObject filter) {
+
+        final FilterType filterType = FilterType.valueOf(filter.getString("type"));
+
+        if (filterType == FIELD) {
+            final OperationType operation = filter.containsKey("operation")
+                    ? OperationType.valueOf(filter.getString("operation"))
+                    : null;
+
+            return field(filter.getString("name"), filter.getString("value"), operation);
+        }
+
+        final List<Filter> filters = filter.getJsonArray("value").getValuesAs(JsonObject.class).stream()
+                .map(Filter::fromJson)
+                .collect(toList());
+
+        return new Filter(filterType, null, null, null, filters);
+    }
+
+    public FilterType getType() {
+        return type;
+    }
+
+    /**
+     * @return the field of a FIELD filter, null for AND and OR filters
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the field of a FIELD filter
+     * @throws IllegalArgumentException if the filter names an unknown field
+     */
+    public FieldNames getField() {
+        return FieldNames.valueOf(name);
+    }
+
+    /**
+     * @return the value of a FIELD filter, null for AND and OR filters
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public OperationType getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the filters combined by an AND or OR filter, empty for FIELD filters
+     */
+    public List<Filter> getFilters() {
+        return filters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof Filter)) {
+            return false;
+        }
+
+        Filter filter = (Filter) o;
+        return getType() == filter.getType() &&
+                Objects.equals(getName(), filter.getName()) &&
+                Objects.equals(getValue(), filter.getValue()) &&
+                Objects.equals(getOperation(), filter.getOperation()) &&
+                Objects.equals(getFilters(), filter.getFilters());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getType(), getName(), getValue(), getOperation(), getFilters());
+    }
+
+    @Override
+    public String toString() {
+        return "Filter{" +
+                "type=" + type +
+                ", name='" + name + '\'' +
+                ", value='" + value + '\'' +
+                ", operation='" + operation + '\'' +
+                ", filters=" + filters +
+                '}';
+    }
+}
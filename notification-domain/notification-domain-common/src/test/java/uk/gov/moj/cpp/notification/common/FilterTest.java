@@ -0,0 +1,99 @@
+package uk.gov.moj.cpp.notification.common;
+
+import static java.util.Arrays.asList;
+import static java.util.UUID.randomUUID;
+import static javax.json.Json.createArrayBuilder;
+import static javax.json.Json.createObjectBuilder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.gov.moj.cpp.notification.common.FieldNames.NAME;
+import static uk.gov.moj.cpp.notification.common.FieldNames.STREAM_ID;
+import static uk.gov.moj.cpp.notification.common.FieldNames.USER_ID;
+import static uk.gov.moj.cpp.notification.common.FilterType.AND;
+import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
+import static uk.gov.moj.cpp.notification.common.FilterType.OR;
+import static uk.gov.moj.cpp.notification.common.OperationType.EQUALS;
+
+import java.util.UUID;
+
+import javax.json.JsonObject;
+
+import org.junit.jupiter.api.Test;
+
+public class FilterTest {
+
+    private final UUID userId = randomUUID();
+    private final UUID streamId = randomUUID();
+
+    @Test
+    public void shouldParseAFieldFilter() {
+        final Filter filter = Filter.fromJson(fieldFilter(USER_ID.name(), userId.toString()));
+
+        assertThat(filter.getType(), is(FIELD));
+        assertThat(filter.getName(), is(USER_ID.name()));
+        assertThat(filter.getValue(), is(userId.toString()));
+        assertThat(filter.getOperation(), is(EQUALS));
+        assertThat(filter.getFilters().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldParseNestedAndAndOrFiltersIntoATree() {
+        final JsonObject json = createObjectBuilder()
+                .add("type", OR.name())
+                .add("value", createArrayBuilder()
+                        .add(fieldFilter(USER_ID.name(), userId.toString()))
+                        .add(createObjectBuilder()
+                                .add("type", AND.name())
+                                .add("value", createArrayBuilder()
+                                        .add(fieldFilter(STREAM_ID.name(), streamId.toString()))
+                                        .add(fieldFilter(NAME.name(), "public.event")))))
+                .build();
+
+        final Filter filter = Filter.fromJson(json);
+
+        assertThat(filter, is(Filter.or(asList(
+                Filter.field(USER_ID.name(), userId.toString(), EQUALS),
+                Filter.and(asList(
+                        Filter.field(STREAM_ID.name(), streamId.toString(), EQUALS),
+                        Filter.field(NAME.name(), "public.event", EQUALS)))))));
+    }
+
+    @Test
+    public void shouldGiveTheFieldOfAFieldFilter() {
+        assertThat(Filter.field(STREAM_ID.name(), streamId.toString(), EQUALS).getField(), is(STREAM_ID));
+    }
+
+    @Test
+    public void shouldRejectAnUnknownField() {
+        final Filter filter = Filter.field("CREATED", "2019-01-01", EQUALS);
+
+        assertThrows(IllegalArgumentException.class, filter::getField);
+    }
+
+    @Test
+    public void shouldNotBeChangedThroughItsFilters() {
+        final Filter filter = Filter.and(asList(Filter.field(NAME.name(), "public.event", EQUALS)));
+
+        assertThrows(UnsupportedOperationException.class, () -> filter.getFilters().clear());
+    }
+
+    @Test
+    public void shouldRejectAnUnknownFilterType() {
+        final JsonObject json = createObjectBuilder()
+                .add("type", "XOR")
+                .add("value", createArrayBuilder())
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> Filter.fromJson(json));
+    }
+
+    private JsonObject fieldFilter(final String name, final String value) {
+        return createObjectBuilder()
+                .add("type", FIELD.name())
+                .add("name", name)
+                .add("value", value)
+                .add("operation", EQUALS.name())
+                .build();
+    }
+}
@@ -3,18 +3,24 @@ package uk.gov.moj.cpp.notification.event.listener;
 
 import static uk.gov.justice.services.core.annotation.Component.EVENT_LISTENER;
 
+import uk.gov.justice.json.schemas.domains.notification.EventsAcknowledged;
 import uk.gov.justice.json.schemas.domains.notification.FilterUpdated;
 import uk.gov.justice.json.schemas.domains.notification.Subscribed;
 import uk.gov.justice.json.schemas.domains.notification.Unsubscribed;
+import uk.gov.justice.services.common.util.Clock;
 import uk.gov.justice.services.core.annotation.Handles;
 import uk.gov.justice.services.core.annotation.ServiceComponent;
 import uk.gov.justice.services.messaging.Envelope;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionPositionJdbcRepository;
 import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
 
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 @ServiceComponent(EVENT_LISTENER)
@@ -23,6 +29,15 @@ public class SubscriptionEventListener {
     @Inject
     SubscriptionRepository subscriptionRepository;
 
+    @Inject
+    SubscriptionPositionJdbcRepository subscriptionPositionJdbcRepository;
+
+    @Inject
+    Event<SubscriptionChanged> subscriptionChangedEvent;
+
+    @Inject
+    Clock clock;
+
     @Handles("notification.subscribed")
     public void subscribed(final Envelope<Subscribed> event) {
         final Subscribed payload = event.payload();
@@ -33,6 +48,7 @@ public class SubscriptionEventListener {
         final ZonedDateTime created = payload.getCreated();
 
         subscriptionRepository.save(new Subscription(subscriptionId, ownerId, filter, created));
+        subscriptionChangedEvent.fire(new SubscriptionChanged(subscriptionId));
     }
 
     @Handles("notification.unsubscribed")
@@ -40,6 +56,7 @@ public class SubscriptionEventListener {
         final UUID subscriptionId = event.payload().getSubscriptionId();
 
         subscriptionRepository.removeByPrimaryKey(subscriptionId);
+        subscriptionChangedEvent.fire(new SubscriptionChanged(subscriptionId));
     }
 
     @Handles("notification.filter-updated")
@@ -53,6 +70,16 @@ public class SubscriptionEventListener {
         subscription.setFilter(payload.getFilter().toString());
 
         subscriptionRepository.save(subscription);
+        subscriptionChangedEvent.fire(new SubscriptionChanged(subscriptionId));
     }
 
+    @Handles("notification.events-acknowledged")
+    public void eventsAcknowledged(final Envelope<EventsAcknowledged> event) {
+        final EventsAcknowledged payload = event.payload();
+
+        subscriptionPositionJdbcRepository.advancePosition(
+                payload.getSubscriptionId(),
+                PageCursor.fromToken(payload.getPosition()),
+                clock.now());
+    }
 }
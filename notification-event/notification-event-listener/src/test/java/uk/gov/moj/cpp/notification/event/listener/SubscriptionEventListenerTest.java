@@ -10,16 +10,22 @@ import static uk.gov.justice.services.messaging.Envelope.envelopeFrom;
 import static uk.gov.justice.services.test.utils.core.random.RandomGenerator.PAST_LOCAL_DATE;
 import static uk.gov.moj.cpp.notification.test.utils.builder.FilterJsonBuilder.randomFilterJsonBuilder;
 
+import uk.gov.justice.json.schemas.domains.notification.EventsAcknowledged;
 import uk.gov.justice.json.schemas.domains.notification.FilterUpdated;
 import uk.gov.justice.json.schemas.domains.notification.Subscribed;
 import uk.gov.justice.json.schemas.domains.notification.Unsubscribed;
+import uk.gov.justice.services.common.util.Clock;
 import uk.gov.justice.services.messaging.Envelope;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionPositionJdbcRepository;
 import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
 
+import javax.enterprise.event.Event;
 import javax.json.JsonObject;
 
 import org.junit.jupiter.api.Test;
@@ -44,9 +50,21 @@ public class SubscriptionEventListenerTest {
     @Mock
     private SubscriptionRepository subscriptionRepository;
 
+    @Mock
+    private SubscriptionPositionJdbcRepository subscriptionPositionJdbcRepository;
+
+    @Mock
+    private Event<SubscriptionChanged> subscriptionChangedEvent;
+
+    @Mock
+    private Clock clock;
+
     @Captor
     private ArgumentCaptor<Subscription> subscriptionCaptor;
 
+    @Captor
+    private ArgumentCaptor<SubscriptionChanged> subscriptionChangedCaptor;
+
     @InjectMocks
     private SubscriptionEventListener subscriptionEventListener;
 
@@ -63,6 +81,7 @@ public class SubscriptionEventListenerTest {
         assertThat(subscriptionCaptor.getValue().getOwnerId(), is(ownerId));
         assertThat(subscriptionCaptor.getValue().getId(), is(subscriptionId));
         assertThat(subscriptionCaptor.getValue().getFilter(), is(filter.toString()));
+        verifySubscriptionChangedFired();
     }
 
     @Test
@@ -74,6 +93,7 @@ public class SubscriptionEventListenerTest {
         subscriptionEventListener.unsubscribed(envelope);
 
         verify(subscriptionRepository).removeByPrimaryKey(subscriptionId);
+        verifySubscriptionChangedFired();
     }
 
     @Test
@@ -90,6 +110,29 @@ public class SubscriptionEventListenerTest {
         verify(subscription).setFilter(updatedFilter.toString());
         verify(subscription).setModified(modifiedDate);
         verify(subscriptionRepository).save(subscription);
+        verifySubscriptionChangedFired();
+    }
+
+    @Test
+    public void shouldAdvanceThePositionOfTheSubscriptionToTheAcknowledgedCursor() {
+        final PageCursor position = new PageCursor(createdDate, randomUUID());
+        when(clock.now()).thenReturn(modifiedDate);
+
+        final Envelope<EventsAcknowledged> envelope = getEnvelope(
+                "notification.events-acknowledged",
+                EventsAcknowledged.eventsAcknowledged()
+                        .withSubscriptionId(subscriptionId)
+                        .withPosition(position.toToken())
+                        .build());
+
+        subscriptionEventListener.eventsAcknowledged(envelope);
+
+        verify(subscriptionPositionJdbcRepository).advancePosition(subscriptionId, position, modifiedDate);
+    }
+
+    private void verifySubscriptionChangedFired() {
+        verify(subscriptionChangedEvent).fire(subscriptionChangedCaptor.capture());
+        assertThat(subscriptionChangedCaptor.getValue().getSubscriptionId(), is(subscriptionId));
     }
 
     private <T> Envelope<T> getEnvelope(final String name, final T payload) {
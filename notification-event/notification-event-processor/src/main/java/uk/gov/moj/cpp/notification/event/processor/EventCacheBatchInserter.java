@@ -0,0 +1,60 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static javax.transaction.Transactional.TxType.REQUIRES_NEW;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.moj.cpp.notification.event.processor.cluster.ClusterNotifications;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+/**
+ * Inserts buffered event caches, each call in its own transaction so that a failed batch does
+ * not roll back the work of the thread that happened to flush it. The subscriptions each event
+ * matched are recorded when eventQuerySubscriptionEventsEnabled is set, and the other nodes of the cluster notified, in the same transaction, so
+ * the notification is delivered when the events are committed rather than with the transaction
+ * of the caller.
+ */
+public class EventCacheBatchInserter {
+
+    @Inject
+    @Value(key = "eventQuerySubscriptionEventsEnabled", defaultValue = "false")
+    String eventQuerySubscriptionEventsEnabled;
+
+    @Inject
+    EventCacheJdbcRepository eventCacheJdbcRepository;
+
+    @Inject
+    SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Inject
+    ClusterNotifications clusterNotifications;
+
+    @Transactional(REQUIRES_NEW)
+    public void insertBatch(final List<EventCacheMatched> matchedEvents) {
+        eventCacheJdbcRepository.insertBatch(matchedEvents.stream().map(EventCacheMatched::getEventCache).collect(toList()));
+        insertSubscriptionEvents(matchedEvents);
+        clusterNotifications.eventsStored(matchedEvents);
+    }
+
+    @Transactional(REQUIRES_NEW)
+    public void insert(final EventCacheMatched matchedEvent) {
+        eventCacheJdbcRepository.insertBatch(singletonList(matchedEvent.getEventCache()));
+        insertSubscriptionEvents(singletonList(matchedEvent));
+        clusterNotifications.eventsStored(singletonList(matchedEvent));
+    }
+
+    private void insertSubscriptionEvents(final List<EventCacheMatched> matchedEvents) {
+        if (parseBoolean(eventQuerySubscriptionEventsEnabled)) {
+            subscriptionEventJdbcRepository.insert(matchedEvents);
+        }
+    }
+}
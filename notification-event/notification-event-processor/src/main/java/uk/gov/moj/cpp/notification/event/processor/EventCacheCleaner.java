@@ -1,18 +1,35 @@
 package uk.gov.moj.cpp.notification.event.processor;
 
+import static java.lang.Integer.parseInt;
 import static java.lang.Long.parseLong;
+import static java.util.stream.Collectors.toSet;
+import static uk.gov.moj.cpp.notification.event.processor.EventCacheCleanerMode.PARTITION_DROP;
 
 import uk.gov.justice.services.common.configuration.Value;
 import uk.gov.justice.services.common.util.Clock;
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
 import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCachePartition;
+import uk.gov.moj.cpp.notification.persistence.EventCachePartitionJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.ExpiredEventCacheRemoval;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
 
+/**
+ * Removes the events of the event cache, and their subscription_event rows, once they have
+ * expired. It is run by the {@link EventCacheCleanerScheduler} outside a transaction, so that each
+ * partition created or dropped, and each batch of rows deleted, is committed on its own and the
+ * lock taken by a drop is not held while the rest is removed.
+ */
 @ApplicationScoped
 public class EventCacheCleaner {
 
@@ -20,21 +37,91 @@ public class EventCacheCleaner {
     @Value(key = "eventCacheCleanerTimeToLiveSeconds", defaultValue = "3600")
     String eventCacheCleanerTimeToLiveSeconds;
 
+    @Inject
+    @Value(key = "eventCacheCleanerMode", defaultValue = "DELETE")
+    String eventCacheCleanerMode;
+
+    @Inject
+    @Value(key = "eventCachePartitionsAheadHours", defaultValue = "24")
+    String eventCachePartitionsAheadHours;
+
     @Inject
     Logger logger;
 
     @Inject
     EventCacheJdbcRepository eventCacheJdbcRepository;
 
+    @Inject
+    EventCachePartitionJdbcRepository eventCachePartitionJdbcRepository;
+
+    @Inject
+    SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Inject
+    EventCacheCleanerMetrics eventCacheCleanerMetrics;
+
     @Inject
     Clock clock;
 
     public void removeExpiredEventCaches() {
         logger.info("Started removing expired EventCaches");
-        eventCacheJdbcRepository.removeExpiredEventCaches(beforeDateTime());
+
+        final ZonedDateTime now = clock.now();
+        final ZonedDateTime before = beforeDateTime(now);
+        if (EventCacheCleanerMode.valueOf(eventCacheCleanerMode) == PARTITION_DROP) {
+            createPartitionsAhead(now);
+            eventCacheCleanerMetrics.recordRemoval(dropExpiredPartitions(before));
+        } else {
+            eventCacheCleanerMetrics.recordRemoval(eventCacheJdbcRepository.removeExpiredEventCaches(before));
+        }
+
+        logger.info("Removed {} expired subscription events", subscriptionEventJdbcRepository.removeExpired(before));
+    }
+
+    private void createPartitionsAhead(final ZonedDateTime now) {
+        final Set<EventCachePartition> existingPartitions = eventCachePartitionJdbcRepository.findPartitions().stream().collect(toSet());
+
+        EventCachePartition partition = EventCachePartition.partitionOf(now);
+        for (int hour = 0; hour <= parseInt(eventCachePartitionsAheadHours); hour++) {
+            if (!existingPartitions.contains(partition)) {
+                createPartition(partition);
+            }
+            partition = partition.next();
+        }
+    }
+
+    private void createPartition(final EventCachePartition partition) {
+        try {
+            eventCachePartitionJdbcRepository.createPartition(partition);
+            logger.info("Created event cache partition {}", partition);
+        } catch (final JdbcRepositoryException e) {
+            logger.warn("Could not create event cache partition " + partition + ", its events will be stored in the default partition", e);
+        }
+    }
+
+    private ExpiredEventCacheRemoval dropExpiredPartitions(final ZonedDateTime before) {
+        final long start = System.nanoTime();
+        final List<EventCachePartition> partitions = eventCachePartitionJdbcRepository.findPartitions();
+
+        int batches = 0;
+        for (final EventCachePartition partition : partitions) {
+            if (!partition.getEnd().isAfter(before)) {
+                eventCachePartitionJdbcRepository.dropPartition(partition);
+                eventCacheCleanerMetrics.recordPartitionDropped();
+                logger.info("Dropped expired event cache partition {}", partition);
+                batches++;
+            }
+        }
+
+        final int rowsDeleted = eventCachePartitionJdbcRepository.removeExpiredFromDefaultPartition(before);
+        if (rowsDeleted > 0) {
+            batches++;
+        }
+
+        return new ExpiredEventCacheRemoval(rowsDeleted, batches, Duration.ofNanos(System.nanoTime() - start));
     }
 
-    private ZonedDateTime beforeDateTime() {
-        return clock.now().minusSeconds(parseLong(eventCacheCleanerTimeToLiveSeconds));
+    private ZonedDateTime beforeDateTime(final ZonedDateTime now) {
+        return now.minusSeconds(parseLong(eventCacheCleanerTimeToLiveSeconds));
     }
 }
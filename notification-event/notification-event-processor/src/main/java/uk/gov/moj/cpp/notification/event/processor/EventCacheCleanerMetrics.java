@@ -0,0 +1,105 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+
+import uk.gov.moj.cpp.notification.persistence.ExpiredEventCacheRemoval;
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+import uk.gov.moj.cpp.notification.persistence.MBeanRegistration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+@ApplicationScoped
+public class EventCacheCleanerMetrics implements EventCacheCleanerMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=EventCacheCleaner";
+
+    @Inject
+    Logger logger;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong rowsDeleted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong partitionsDropped = new AtomicLong();
+    private final AtomicLong totalDurationMillis = new AtomicLong();
+    private final AtomicLong lastRunDurationMillis = new AtomicLong();
+    private final AtomicLong lastRunRowsDeleted = new AtomicLong();
+    private final Histogram rowsDeletedPerRun = Histogram.size();
+    private final Histogram runMillis = Histogram.latency();
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    public void recordRemoval(final ExpiredEventCacheRemoval removal) {
+        runs.incrementAndGet();
+        rowsDeleted.addAndGet(removal.getRowsDeleted());
+        batches.addAndGet(removal.getBatches());
+        totalDurationMillis.addAndGet(removal.getDuration().toMillis());
+        lastRunDurationMillis.set(removal.getDuration().toMillis());
+        lastRunRowsDeleted.set(removal.getRowsDeleted());
+        rowsDeletedPerRun.record(removal.getRowsDeleted());
+        runMillis.record(removal.getDuration().toMillis());
+    }
+
+    public void recordPartitionDropped() {
+        partitionsDropped.incrementAndGet();
+    }
+
+    @Override
+    public long getRuns() {
+        return runs.get();
+    }
+
+    @Override
+    public long getRowsDeleted() {
+        return rowsDeleted.get();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public long getPartitionsDropped() {
+        return partitionsDropped.get();
+    }
+
+    @Override
+    public long getTotalDurationMillis() {
+        return totalDurationMillis.get();
+    }
+
+    @Override
+    public long getLastRunDurationMillis() {
+        return lastRunDurationMillis.get();
+    }
+
+    @Override
+    public long getLastRunRowsDeleted() {
+        return lastRunRowsDeleted.get();
+    }
+
+    @Override
+    public HistogramSnapshot getRowsDeletedPerRun() {
+        return rowsDeletedPerRun.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getRunMillis() {
+        return runMillis.snapshot();
+    }
+}
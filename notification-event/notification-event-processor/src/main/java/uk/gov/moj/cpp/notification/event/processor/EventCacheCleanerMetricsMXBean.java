@@ -0,0 +1,34 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+/**
+ * Progress of the event cache cleaner, published over JMX as
+ * {@value EventCacheCleanerMetrics#OBJECT_NAME}. Counts are totals since the server started.
+ */
+public interface EventCacheCleanerMetricsMXBean {
+
+    @Counter
+    long getRuns();
+
+    @Counter
+    long getRowsDeleted();
+
+    @Counter
+    long getBatches();
+
+    @Counter
+    long getPartitionsDropped();
+
+    @Counter
+    long getTotalDurationMillis();
+
+    long getLastRunDurationMillis();
+
+    long getLastRunRowsDeleted();
+
+    HistogramSnapshot getRowsDeletedPerRun();
+
+    HistogramSnapshot getRunMillis();
+}
@@ -0,0 +1,21 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+/**
+ * How the {@link EventCacheCleaner} expires events, set with the eventCacheCleanerMode
+ * property.
+ */
+public enum EventCacheCleanerMode {
+
+    /**
+     * Deletes expired events in batches. Works with any event_cache table.
+     */
+    DELETE,
+
+    /**
+     * Drops the hourly partitions whose events have all expired and creates the partitions for
+     * the hours ahead. Requires the event_cache table to be partitioned, by running the view
+     * store liquibase with eventCachePartitioning=true. Events are kept for up to an hour longer
+     * than their time to live, until the whole of their partition has expired.
+     */
+    PARTITION_DROP
+}
@@ -1,6 +1,7 @@
 package uk.gov.moj.cpp.notification.event.processor;
 
 import static java.lang.Long.parseLong;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
 
 import uk.gov.justice.services.common.configuration.Value;
 
@@ -12,6 +13,7 @@ import javax.ejb.Timeout;
 import javax.ejb.Timer;
 import javax.ejb.TimerConfig;
 import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
@@ -52,6 +54,7 @@ public class EventCacheCleanerScheduler {
     }
 
     @Timeout
+    @TransactionAttribute(NOT_SUPPORTED)
     public void removeExpiredEventCaches() {
         logger.info("Started cleaning expired EventCaches");
         eventCacheCleaner.removeExpiredEventCaches();
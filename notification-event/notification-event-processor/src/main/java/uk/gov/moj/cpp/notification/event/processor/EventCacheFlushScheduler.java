@@ -0,0 +1,55 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.Long.parseLong;
+
+import uk.gov.justice.services.common.configuration.Value;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+/**
+ * Flushes the write-behind buffer of the {@link EventCacheWriter} at a fixed interval, so that
+ * events are stored even when too few arrive to fill a batch.
+ */
+@Singleton
+@Startup
+public class EventCacheFlushScheduler {
+
+    static final String TIMER_TIMEOUT_INFO = "EventCacheFlushScheduler timer triggered.";
+
+    @Inject
+    @Value(key = "eventCacheWriteBehindFlushIntervalMillis", defaultValue = "1000")
+    String eventCacheWriteBehindFlushIntervalMillis;
+
+    @Inject
+    EventCacheWriter eventCacheWriter;
+
+    @Resource
+    TimerService timerService;
+
+    @PostConstruct
+    public void init() {
+
+        timerService.getTimers()
+                .stream()
+                .filter(timer -> timer.getInfo().equals(TIMER_TIMEOUT_INFO) && timer.isPersistent())
+                .forEach(Timer::cancel);
+
+        if (eventCacheWriter.isWriteBehindEnabled()) {
+            final long interval = parseLong(eventCacheWriteBehindFlushIntervalMillis);
+            timerService.createIntervalTimer(interval, interval, new TimerConfig(TIMER_TIMEOUT_INFO, false));
+        }
+    }
+
+    @Timeout
+    public void flush() {
+        eventCacheWriter.flush();
+    }
+}
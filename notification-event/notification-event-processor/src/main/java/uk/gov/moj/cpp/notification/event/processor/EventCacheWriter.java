@@ -0,0 +1,176 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.util.Collections.singletonList;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.moj.cpp.notification.event.processor.cluster.ClusterNotifications;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Stores public events in the event cache, either one row per event or, with write-behind
+ * enabled, by buffering them and inserting them in JDBC batches, together with the
+ * subscriptions each one matched when eventQuerySubscriptionEventsEnabled is set. The {@link EventCacheMatched}
+ * event of each public event is fired once it has been stored, so that nothing woken by it
+ * looks for the event before it can be read, and each write or batch is announced to the other
+ * nodes of the cluster through {@link ClusterNotifications} in the transaction that stored it.
+ *
+ * In write-behind mode the buffer is flushed by the handler thread that fills a batch, by
+ * {@link EventCacheFlushScheduler} at a fixed interval and on shutdown. When the buffer is full
+ * the handler thread flushes before adding its event, which holds back the consumption of
+ * further messages until the database catches up. Events still in the buffer when the server
+ * stops abnormally are lost, as their messages have already been consumed.
+ */
+@ApplicationScoped
+public class EventCacheWriter {
+
+    @Inject
+    @Value(key = "eventCacheWriteBehindEnabled", defaultValue = "false")
+    String eventCacheWriteBehindEnabled;
+
+    @Inject
+    @Value(key = "eventCacheWriteBehindBatchSize", defaultValue = "500")
+    String eventCacheWriteBehindBatchSize;
+
+    @Inject
+    @Value(key = "eventCacheWriteBehindBufferSize", defaultValue = "10000")
+    String eventCacheWriteBehindBufferSize;
+
+    @Inject
+    @Value(key = "eventQuerySubscriptionEventsEnabled", defaultValue = "false")
+    String eventQuerySubscriptionEventsEnabled;
+
+    @Inject
+    EventCacheJdbcRepository eventCacheJdbcRepository;
+
+    @Inject
+    SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Inject
+    EventCacheBatchInserter eventCacheBatchInserter;
+
+    @Inject
+    Event<EventCacheMatched> eventCacheMatchedEvent;
+
+    @Inject
+    ClusterNotifications clusterNotifications;
+
+    @Inject
+    PublicEventMetrics publicEventMetrics;
+
+    @Inject
+    Logger logger;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private BlockingQueue<EventCacheMatched> buffer;
+
+    @PostConstruct
+    public void init() {
+        buffer = new ArrayBlockingQueue<>(parseInt(eventCacheWriteBehindBufferSize));
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return parseBoolean(eventCacheWriteBehindEnabled);
+    }
+
+    public void write(final EventCacheMatched matchedEvent) {
+
+        if (!isWriteBehindEnabled()) {
+            eventCacheJdbcRepository.insertBatch(singletonList(matchedEvent.getEventCache()));
+            if (parseBoolean(eventQuerySubscriptionEventsEnabled)) {
+                subscriptionEventJdbcRepository.insert(singletonList(matchedEvent));
+            }
+            eventCacheMatchedEvent.fire(matchedEvent);
+            clusterNotifications.eventsStored(singletonList(matchedEvent));
+            return;
+        }
+
+        while (!buffer.offer(matchedEvent)) {
+            flush();
+        }
+
+        if (buffer.size() >= batchSize()) {
+            flush();
+        }
+    }
+
+    /**
+     * Inserts the events buffered when the flush starts in batches. Events buffered while it runs
+     * are left for the next flush, so that a flush cannot be kept going, holding the lock, by
+     * handler threads that keep filling the buffer. If a batch fails its events are inserted one
+     * at a time, so that only the events that cannot be stored are dropped.
+     */
+    public void flush() {
+
+        flushLock.lock();
+        try {
+            int remaining = buffer.size();
+
+            while (remaining > 0) {
+                final List<EventCacheMatched> batch = new ArrayList<>(batchSize());
+                if (buffer.drainTo(batch, Math.min(batchSize(), remaining)) == 0) {
+                    return;
+                }
+                remaining -= batch.size();
+                insert(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (isWriteBehindEnabled()) {
+            logger.info("Flushing {} buffered public events to event cache on shutdown", buffer.size());
+            flush();
+        }
+    }
+
+    private void insert(final List<EventCacheMatched> batch) {
+        try {
+            eventCacheBatchInserter.insertBatch(batch);
+        } catch (final RuntimeException e) {
+            logger.warn("Could not save batch of " + batch.size() + " public events to event cache, saving individually", e);
+            batch.stream().filter(this::insertIndividually).forEach(eventCacheMatchedEvent::fire);
+            return;
+        }
+
+        batch.forEach(eventCacheMatchedEvent::fire);
+    }
+
+    private boolean insertIndividually(final EventCacheMatched matchedEvent) {
+        final EventCache eventCache = matchedEvent.getEventCache();
+        try {
+            eventCacheBatchInserter.insert(matchedEvent);
+            return true;
+        } catch (final RuntimeException e) {
+            logger.error("Could not save public event to event cache: " + eventCache.getId(), e);
+            publicEventMetrics.recordFailure();
+            return false;
+        }
+    }
+
+    private int batchSize() {
+        return parseInt(eventCacheWriteBehindBatchSize);
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.Integer.parseInt;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+import uk.gov.moj.cpp.notification.persistence.MBeanRegistration;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Records the public events handled by the {@link PublicEventProcessor}: how many of each name
+ * were stored, how many carried a client correlation id, how many could not be stored and how
+ * long each took to convert, match and write. Once the configured number of event names has been
+ * seen, any further names are counted together under {@value #OTHER_NAMES}.
+ *
+ * An event is counted as stored once the {@link EventCacheMatched} event fired for it is observed
+ * after the transaction that stored it has succeeded, so that events still in the write-behind
+ * buffer, or in a batch that is rolled back, are not counted. An event that cannot be stored is
+ * counted as a failure by whoever tried to store it: the processor when it is written directly,
+ * and the {@link EventCacheWriter} for each event of the buffer it could not insert.
+ */
+@ApplicationScoped
+public class PublicEventMetrics implements PublicEventMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=PublicEvents";
+    static final String OTHER_NAMES = "other";
+
+    private final Map<String, LongAdder> eventsByName = new ConcurrentHashMap<>();
+    private final LongAdder eventsWithClientCorrelationId = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Histogram handleMicros = Histogram.latency();
+
+    @Inject
+    Logger logger;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "publicEventMetricsMaxNames", defaultValue = "500")
+    String maxNames;
+
+    public PublicEventMetrics() {
+    }
+
+    /**
+     * Creates metrics that record the given number of event names before recording the rest
+     * together, for use outside the container, where the setting is not injected.
+     */
+    public PublicEventMetrics(final int maxNames) {
+        this.maxNames = String.valueOf(maxNames);
+    }
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    void onEventCacheMatched(@Observes(during = AFTER_SUCCESS) final EventCacheMatched eventCacheMatched) {
+        final EventCache eventCache = eventCacheMatched.getEventCache();
+        recordStored(eventCache.getName(), eventCache.getClientCorrelationId() != null);
+    }
+
+    public void recordStored(final String name, final boolean withClientCorrelationId) {
+        final String counted = eventsByName.containsKey(name) || eventsByName.size() < parseInt(maxNames)
+                ? name
+                : OTHER_NAMES;
+
+        eventsByName.computeIfAbsent(counted, key -> new LongAdder()).increment();
+        if (withClientCorrelationId) {
+            eventsWithClientCorrelationId.increment();
+        }
+    }
+
+    /**
+     * @param durationNanos how long the processor took to convert, match and write the event,
+     *                      which in write-behind mode is only until it was buffered
+     */
+    public void recordHandled(final long durationNanos) {
+        handleMicros.record(NANOSECONDS.toMicros(durationNanos));
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    @Override
+    public long getEvents() {
+        return eventsByName.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public Map<String, Long> getEventsByName() {
+        final Map<String, Long> events = new TreeMap<>();
+        eventsByName.forEach((name, count) -> events.put(name, count.sum()));
+        return events;
+    }
+
+    @Override
+    public long getEventsWithClientCorrelationId() {
+        return eventsWithClientCorrelationId.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getHandleMicros() {
+        return handleMicros.snapshot();
+    }
+}
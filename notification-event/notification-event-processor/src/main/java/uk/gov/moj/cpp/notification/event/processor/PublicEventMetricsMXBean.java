@@ -0,0 +1,30 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+import java.util.Map;
+
+/**
+ * The public events handled, published over JMX as {@value PublicEventMetrics#OBJECT_NAME}.
+ * Counts are totals since the server started.
+ */
+public interface PublicEventMetricsMXBean {
+
+    @Counter
+    long getEvents();
+
+    @Counter
+    Map<String, Long> getEventsByName();
+
+    @Counter
+    long getEventsWithClientCorrelationId();
+
+    @Counter
+    long getFailures();
+
+    /**
+     * @return the microseconds taken to convert, match and write each event stored
+     */
+    HistogramSnapshot getHandleMicros();
+}
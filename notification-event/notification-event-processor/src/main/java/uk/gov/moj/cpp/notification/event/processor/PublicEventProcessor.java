@@ -6,7 +6,8 @@ import uk.gov.justice.services.common.converter.Converter;
 import uk.gov.justice.services.core.annotation.Handles;
 import uk.gov.justice.services.core.annotation.ServiceComponent;
 import uk.gov.justice.services.messaging.JsonEnvelope;
-import uk.gov.moj.cpp.notification.persistence.EventCacheRepository;
+import uk.gov.moj.cpp.notification.event.processor.registry.SubscriptionRegistry;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 
 import java.util.Objects;
@@ -26,24 +27,39 @@ public class PublicEventProcessor {
     Logger logger;
 
     @Inject
-    EventCacheRepository eventCacheRepository;
+    EventCacheWriter eventCacheWriter;
+
+    @Inject
+    SubscriptionRegistry subscriptionRegistry;
+
+    @Inject
+    PublicEventMetrics publicEventMetrics;
 
     /**
-     * Handles all events on the public.event topic and stores in the database.
+     * Handles all events on the public.event topic and stores in the database, either directly
+     * or through the write-behind buffer of the {@link EventCacheWriter}. The event is matched
+     * against the filters of all subscriptions once, here, and the ids of the subscriptions it
+     * matched are published with an {@link EventCacheMatched} event once it has been stored,
+     * together with the time the event was created. The time taken to handle each event, and each
+     * event that could not be handled, is recorded in the {@link PublicEventMetrics}, which counts
+     * the events stored once they have been committed.
      *
      * @param event - the envelope containing the public event.
      */
     @Handles("*")
     public void handle(final JsonEnvelope event) {
+        final long start = System.nanoTime();
         try {
             final EventCache eventCache = converter.convert(event);
-            eventCacheRepository.save(converter.convert(event));
+            eventCacheWriter.write(new EventCacheMatched(eventCache, subscriptionRegistry.matchingSubscriptionIds(eventCache), event.metadata().createdAt()));
+            publicEventMetrics.recordHandled(System.nanoTime() - start);
 
             if(Objects.nonNull(eventCache.getClientCorrelationId()) && logger.isWarnEnabled()) {
                 logger.warn("saving correlationId: {}" , eventCache.getClientCorrelationId());
             }
         } catch (RuntimeException e) {
             // TODO: Replace RuntimeException with specific exception when framework is updated
+            publicEventMetrics.recordFailure();
             logger.error("Could not save public event to event cache: " + event, e);
         }
     }
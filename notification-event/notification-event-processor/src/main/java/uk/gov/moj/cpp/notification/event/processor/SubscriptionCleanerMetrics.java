@@ -0,0 +1,94 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+import uk.gov.moj.cpp.notification.persistence.MBeanRegistration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+@ApplicationScoped
+public class SubscriptionCleanerMetrics implements SubscriptionCleanerMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=SubscriptionCleaner";
+
+    @Inject
+    Logger logger;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong subscriptionsUnsubscribed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalDurationMillis = new AtomicLong();
+    private final AtomicLong lastRunDurationMillis = new AtomicLong();
+    private final AtomicLong lastRunSubscriptionsUnsubscribed = new AtomicLong();
+    private final Histogram subscriptionsUnsubscribedPerRun = Histogram.size();
+    private final Histogram runMillis = Histogram.latency();
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    public void recordRun(final long unsubscribed, final int batchesSent, final long durationMillis) {
+        runs.incrementAndGet();
+        subscriptionsUnsubscribed.addAndGet(unsubscribed);
+        batches.addAndGet(batchesSent);
+        totalDurationMillis.addAndGet(durationMillis);
+        lastRunDurationMillis.set(durationMillis);
+        lastRunSubscriptionsUnsubscribed.set(unsubscribed);
+        subscriptionsUnsubscribedPerRun.record(unsubscribed);
+        runMillis.record(durationMillis);
+    }
+
+    @Override
+    public long getRuns() {
+        return runs.get();
+    }
+
+    @Override
+    public long getSubscriptionsUnsubscribed() {
+        return subscriptionsUnsubscribed.get();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public long getTotalDurationMillis() {
+        return totalDurationMillis.get();
+    }
+
+    @Override
+    public long getLastRunDurationMillis() {
+        return lastRunDurationMillis.get();
+    }
+
+    @Override
+    public long getLastRunSubscriptionsUnsubscribed() {
+        return lastRunSubscriptionsUnsubscribed.get();
+    }
+
+    @Override
+    public HistogramSnapshot getSubscriptionsUnsubscribedPerRun() {
+        return subscriptionsUnsubscribedPerRun.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getRunMillis() {
+        return runMillis.snapshot();
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+/**
+ * Progress of the subscription cleaner, published over JMX as
+ * {@value SubscriptionCleanerMetrics#OBJECT_NAME}. Counts are totals since the server started,
+ * and count the expired subscriptions sent to be unsubscribed.
+ */
+public interface SubscriptionCleanerMetricsMXBean {
+
+    @Counter
+    long getRuns();
+
+    @Counter
+    long getSubscriptionsUnsubscribed();
+
+    @Counter
+    long getBatches();
+
+    @Counter
+    long getTotalDurationMillis();
+
+    long getLastRunDurationMillis();
+
+    long getLastRunSubscriptionsUnsubscribed();
+
+    HistogramSnapshot getSubscriptionsUnsubscribedPerRun();
+
+    HistogramSnapshot getRunMillis();
+}
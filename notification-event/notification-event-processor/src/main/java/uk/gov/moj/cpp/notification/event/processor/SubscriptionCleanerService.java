@@ -1,20 +1,26 @@
 package uk.gov.moj.cpp.notification.event.processor;
 
-import static java.util.UUID.fromString;
+import static java.lang.Integer.parseInt;
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
 import static uk.gov.justice.services.messaging.JsonEnvelope.metadataBuilder;
 
+import uk.gov.justice.services.common.configuration.Value;
 import uk.gov.justice.services.core.annotation.FrameworkComponent;
 import uk.gov.justice.services.core.requester.Requester;
 import uk.gov.justice.services.core.sender.Sender;
 import uk.gov.justice.services.messaging.JsonEnvelope;
 
-import java.util.UUID;
+import java.util.List;
+import java.util.Optional;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 
 import org.slf4j.Logger;
 import uk.gov.justice.services.messaging.JsonObjects;
@@ -33,40 +39,80 @@ public class SubscriptionCleanerService {
     @FrameworkComponent("EVENT_PROCESSOR")
     Sender sender;
 
+    @Inject
+    SubscriptionCleanerMetrics subscriptionCleanerMetrics;
+
     static final String SUBSCRIPTION_QUERY = "notification.find-expired-subscriptions";
-    static final String UNSUBSCRIBE_COMMAND = "notification.unsubscribe";
+    static final String UNSUBSCRIBE_BATCH_COMMAND = "notification.unsubscribe-batch";
 
+    static final String EXPIRED_SUBSCRIPTIONS = "expiredSubscriptions";
+    static final String NEXT_CURSOR = "nextCursor";
+
+    /**
+     * Expired subscriptions read by each page of the query and cancelled by the
+     * notification.unsubscribe-batch command sent for it; at most the 1000 allowed by its schema.
+     */
+    @Inject
+    @Value(key = "subscriptionCleanerBatchSize", defaultValue = "500")
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    String subscriptionCleanerBatchSize;
+
+    /**
+     * Reads the expired subscriptions a page at a time, each after the cursor of the previous
+     * one, and sends one batch command per page, so the expired set is never held in full.
+     */
     public void unsubscribeExpiredSubscriptions() {
         logger.trace("Started getting expired subscriptions");
-        final JsonEnvelope expiredSubscriptionEnvelope = getExpiredSubscriptionEnvelope();
-        final JsonEnvelope subscriptions = requester.requestAsAdmin(expiredSubscriptionEnvelope);
-        final JsonArray subscriptionsToExpire = subscriptions.payloadAsJsonObject().getJsonArray("expiredSubscriptions");
-        if (subscriptionsToExpire != null) {
-            for (int i = 0; i < subscriptionsToExpire.size(); i++) {
-                final JsonEnvelope unsubscribeCommand = getUnsubscribeCommand(
-                        fromString(subscriptionsToExpire.getJsonObject(i).getJsonString("subscriptionId").getString()));
-                sender.sendAsAdmin(unsubscribeCommand);
+        final int batchSize = parseInt(subscriptionCleanerBatchSize);
+        final long start = System.nanoTime();
+
+        int unsubscribed = 0;
+        int batches = 0;
+        Optional<String> after = Optional.empty();
+        do {
+            final JsonObject page = requester.requestAsAdmin(getExpiredSubscriptionEnvelope(after, batchSize)).payloadAsJsonObject();
+            final JsonArray expiredSubscriptions = page.getJsonArray(EXPIRED_SUBSCRIPTIONS);
+
+            if (expiredSubscriptions == null || expiredSubscriptions.isEmpty()) {
+                break;
             }
+
+            sender.sendAsAdmin(getUnsubscribeBatchCommand(expiredSubscriptions.getValuesAs(JsonObject.class)));
+            unsubscribed += expiredSubscriptions.size();
+            batches++;
+
+            after = page.containsKey(NEXT_CURSOR) ? Optional.of(page.getString(NEXT_CURSOR)) : Optional.empty();
+        } while (after.isPresent());
+
+        subscriptionCleanerMetrics.recordRun(unsubscribed, batches, NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (unsubscribed > 0) {
+            logger.info("Sent {} subscriptions to unsubscribe in batches of {}", unsubscribed, batchSize);
         }
         logger.trace("Completed unsubscribing expired subscriptions");
     }
 
-    JsonEnvelope getExpiredSubscriptionEnvelope() {
+    JsonEnvelope getExpiredSubscriptionEnvelope(final Optional<String> after, final int pageSize) {
+        final JsonObjectBuilder payload = JsonObjects.createObjectBuilder()
+                .add("pageSize", pageSize);
+        after.ifPresent(cursor -> payload.add("after", cursor));
+
         return envelopeFrom(
                 metadataBuilder()
                         .withId(randomUUID())
                         .withName(SUBSCRIPTION_QUERY),
-                JsonObjects.createObjectBuilder()
-                        .build());
+                payload.build());
     }
 
-    JsonEnvelope getUnsubscribeCommand(UUID subscriptionId) {
+    JsonEnvelope getUnsubscribeBatchCommand(final List<JsonObject> expiredSubscriptions) {
+        final JsonArrayBuilder subscriptionIds = JsonObjects.createArrayBuilder();
+        expiredSubscriptions.forEach(expiredSubscription -> subscriptionIds.add(expiredSubscription.getString("subscriptionId")));
+
         return envelopeFrom(
                 metadataBuilder()
                         .withId(randomUUID())
-                        .withName(UNSUBSCRIBE_COMMAND),
+                        .withName(UNSUBSCRIBE_BATCH_COMMAND),
                 JsonObjects.createObjectBuilder()
-                        .add("subscriptionId", subscriptionId.toString())
+                        .add("subscriptionIds", subscriptionIds)
                         .build());
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package uk.gov.moj.cpp.notification.event.processor.cluster;
+
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+import uk.gov.moj.cpp.notification.event.processor.registry.SubscriptionRegistry;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationListener;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChangesMissed;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Receives the notifications sent by the other nodes of the cluster and fires them on this
+ * node: a {@link SubscriptionChanged} for each subscription they changed, and the
+ * {@link ClusterNotification} itself for everything that waits on new events.
+ *
+ * Notifications sent while the listener is disconnected are lost, so when it has to listen
+ * again the subscription registry is reloaded from the view store and a
+ * {@link SubscriptionChangesMissed} is fired for the caches of subscriptions to be dropped.
+ */
+@ApplicationScoped
+public class ClusterNotificationReceiver {
+
+    @Inject
+    ClusterNotifications clusterNotifications;
+
+    @Inject
+    ClusterNotificationJdbcRepository clusterNotificationJdbcRepository;
+
+    @Inject
+    SubscriptionRegistry subscriptionRegistry;
+
+    @Inject
+    Event<ClusterNotification> clusterNotificationEvent;
+
+    @Inject
+    Event<SubscriptionChanged> subscriptionChangedEvent;
+
+    @Inject
+    Event<SubscriptionChangesMissed> subscriptionChangesMissedEvent;
+
+    @Inject
+    Logger logger;
+
+    private ClusterNotificationListener listener;
+    private boolean listenerLost = false;
+
+    /**
+     * Waits up to timeoutMillis for notifications from the other nodes and fires those received.
+     */
+    public synchronized void receive(final int timeoutMillis) {
+        try {
+            if (listener == null) {
+                listen();
+            }
+
+            listener.poll(timeoutMillis).stream()
+                    .filter(clusterNotification -> !clusterNotifications.getNodeId().equals(clusterNotification.getNodeId()))
+                    .forEach(this::fire);
+        } catch (final JdbcRepositoryException e) {
+            logger.warn("Lost cluster notification listener, listening again on next poll", e);
+            listenerLost = true;
+            stop();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (listener == null) {
+            return;
+        }
+
+        try {
+            listener.close();
+        } catch (final JdbcRepositoryException e) {
+            logger.warn("Could not close cluster notification listener", e);
+        }
+        listener = null;
+    }
+
+    private void listen() {
+        listener = clusterNotificationJdbcRepository.listen();
+
+        if (listenerLost) {
+            subscriptionRegistry.reload();
+            subscriptionChangesMissedEvent.fire(new SubscriptionChangesMissed());
+            listenerLost = false;
+        }
+    }
+
+    private void fire(final ClusterNotification clusterNotification) {
+        clusterNotification.getChangedSubscriptionIds()
+                .forEach(subscriptionId -> subscriptionChangedEvent.fire(SubscriptionChanged.onOtherNode(subscriptionId)));
+
+        clusterNotificationEvent.fire(clusterNotification);
+    }
+}
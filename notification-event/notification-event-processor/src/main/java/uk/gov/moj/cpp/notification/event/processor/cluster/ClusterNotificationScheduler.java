@@ -0,0 +1,67 @@
+package uk.gov.moj.cpp.notification.event.processor.cluster;
+
+import static java.lang.Long.parseLong;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import uk.gov.justice.services.common.configuration.Value;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.inject.Inject;
+
+/**
+ * Receives the notifications of the other nodes of the cluster when clusterNotificationsEnabled is
+ * set. Each timeout waits on the listener for all but {@value #RECEIVE_MARGIN_MILLIS}ms of the
+ * interval, so notifications are fired as soon as they arrive rather than on the next timeout,
+ * and the listener's connection is held outside of any transaction.
+ */
+@Singleton
+@Startup
+public class ClusterNotificationScheduler {
+
+    static final String TIMER_TIMEOUT_INFO = "ClusterNotificationScheduler timer triggered.";
+    static final long RECEIVE_MARGIN_MILLIS = 50L;
+
+    @Inject
+    @Value(key = "clusterNotificationPollIntervalMillis", defaultValue = "1000")
+    String clusterNotificationPollIntervalMillis;
+
+    @Inject
+    ClusterNotifications clusterNotifications;
+
+    @Inject
+    ClusterNotificationReceiver clusterNotificationReceiver;
+
+    @Resource
+    TimerService timerService;
+
+    private int receiveTimeoutMillis;
+
+    @PostConstruct
+    public void init() {
+
+        timerService.getTimers()
+                .stream()
+                .filter(timer -> timer.getInfo().equals(TIMER_TIMEOUT_INFO) && timer.isPersistent())
+                .forEach(Timer::cancel);
+
+        if (clusterNotifications.isEnabled()) {
+            final long interval = parseLong(clusterNotificationPollIntervalMillis);
+            receiveTimeoutMillis = (int) Math.max(interval - RECEIVE_MARGIN_MILLIS, 0L);
+            timerService.createIntervalTimer(interval, interval, new TimerConfig(TIMER_TIMEOUT_INFO, false));
+        }
+    }
+
+    @Timeout
+    @TransactionAttribute(NOT_SUPPORTED)
+    public void receive() {
+        clusterNotificationReceiver.receive(receiveTimeoutMillis);
+    }
+}
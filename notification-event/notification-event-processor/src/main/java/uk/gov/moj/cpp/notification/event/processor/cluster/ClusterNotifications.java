@@ -0,0 +1,58 @@
+package uk.gov.moj.cpp.notification.event.processor.cluster;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.util.UUID.randomUUID;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Tells the other nodes of the cluster about the public events stored and the subscriptions
+ * changed on this node, when clusterNotificationsEnabled is set. The notifications are sent in
+ * the transaction that made the change, so they are delivered once it has committed.
+ */
+@ApplicationScoped
+public class ClusterNotifications {
+
+    @Inject
+    @Value(key = "clusterNotificationsEnabled", defaultValue = "false")
+    String clusterNotificationsEnabled;
+
+    @Inject
+    ClusterNotificationJdbcRepository clusterNotificationJdbcRepository;
+
+    private final String nodeId = randomUUID().toString();
+
+    public boolean isEnabled() {
+        return parseBoolean(clusterNotificationsEnabled);
+    }
+
+    /**
+     * @return the id this node sends its notifications with, so it can ignore them when they
+     * come back to it
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void eventsStored(final List<EventCacheMatched> matchedEvents) {
+        if (isEnabled() && !matchedEvents.isEmpty()) {
+            clusterNotificationJdbcRepository.publish(ClusterNotification.eventsStored(nodeId, matchedEvents));
+        }
+    }
+
+    void onSubscriptionChanged(@Observes final SubscriptionChanged subscriptionChanged) {
+        if (isEnabled() && !subscriptionChanged.isOnOtherNode()) {
+            clusterNotificationJdbcRepository.publish(ClusterNotification.subscriptionChanged(nodeId, subscriptionChanged.getSubscriptionId()));
+        }
+    }
+}
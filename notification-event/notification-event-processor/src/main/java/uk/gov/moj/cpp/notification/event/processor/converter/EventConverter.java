@@ -14,20 +14,28 @@ import java.util.UUID;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.json.JsonObject;
 
 @ApplicationScoped
 public class EventConverter implements Converter<JsonEnvelope, EventCache> {
 
+    static final String METADATA = "_metadata";
+
     @Inject
     JsonObjectEnvelopeConverter jsonObjectEnvelopeConverter;
 
     @Inject
     Clock clock;
 
+    /**
+     * Converts the envelope to its json once, and stores the metadata object of that json in its
+     * own column, rather than converting the metadata of the envelope again.
+     */
     @Override
     public EventCache convert(final JsonEnvelope event) {
 
-        final String eventJson = jsonObjectEnvelopeConverter.asJsonString(event);
+        final JsonObject envelopeJson = jsonObjectEnvelopeConverter.fromEnvelope(event);
+        final String eventJson = envelopeJson.toString();
         final UUID id = randomUUID();
         final Metadata metadata = event.metadata();
         final UUID userId = metadata.userId()
@@ -38,7 +46,8 @@ public class EventConverter implements Converter<JsonEnvelope, EventCache> {
                 .orElse(null);
         final UUID streamId = metadata.streamId().orElse(null);
         final ZonedDateTime createdAt = clock.now();
-        final String eventName = event.metadata().name();
+        final String eventName = metadata.name();
+        final String metadataJson = envelopeJson.getJsonObject(METADATA).toString();
 
         return new EventCache(
                 id,
@@ -48,6 +57,7 @@ public class EventConverter implements Converter<JsonEnvelope, EventCache> {
                 streamId,
                 eventJson,
                 createdAt,
-                eventName);
+                eventName,
+                metadataJson);
     }
 }
@@ -0,0 +1,92 @@
+package uk.gov.moj.cpp.notification.event.processor.registry;
+
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.moj.cpp.notification.common.FilterType.AND;
+import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
+
+import uk.gov.moj.cpp.notification.common.Filter;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Matches events against the {@link Filter} of a subscription in memory, with the same result as
+ * the SQL that FilterParser compiles it to.
+ */
+final class FilterMatcher {
+
+    private FilterMatcher() {
+    }
+
+    /**
+     * @return a test of the event's fields against the filter, with its ids already parsed
+     * @throws IllegalArgumentException if the filter names an unknown field, has an AND or OR
+     *                                  without filters, which FilterParser cannot compile either,
+     *                                  or an id field is not a UUID
+     */
+    static Predicate<EventCache> matcherOf(final Filter filter) {
+
+        if (filter.getType() == FIELD) {
+            return IndexTerm.of(filter)::matches;
+        }
+
+        if (filter.getFilters().isEmpty()) {
+            throw new IllegalArgumentException(filter.getType() + " filter has no filters to combine");
+        }
+
+        final List<Predicate<EventCache>> children = filter.getFilters().stream()
+                .map(FilterMatcher::matcherOf)
+                .collect(toList());
+
+        if (filter.getType() == AND) {
+            return eventCache -> children.stream().allMatch(child -> child.test(eventCache));
+        }
+
+        return eventCache -> children.stream().anyMatch(child -> child.test(eventCache));
+    }
+
+    /**
+     * An event has to match every child of an AND filter, so the terms of any one child will do,
+     * and the child with the fewest terms is used so that the fewest events are tried. An event
+     * can match any child of an OR filter, so the terms of every child are needed.
+     *
+     * @return terms one of which every event the filter matches has, or empty if the filter can
+     * match an event without any particular term and so has to be tried against every event
+     */
+    static Optional<Set<IndexTerm>> indexTermsOf(final Filter filter) {
+
+        if (filter.getType() == FIELD) {
+            return Optional.of(singleton(IndexTerm.of(filter)));
+        }
+
+        if (filter.getType() == AND) {
+            Optional<Set<IndexTerm>> fewest = Optional.empty();
+
+            for (final Filter child : filter.getFilters()) {
+                final Optional<Set<IndexTerm>> terms = indexTermsOf(child);
+                if (terms.isPresent() && (!fewest.isPresent() || terms.get().size() < fewest.get().size())) {
+                    fewest = terms;
+                }
+            }
+
+            return fewest;
+        }
+
+        final Set<IndexTerm> terms = new HashSet<>();
+
+        for (final Filter child : filter.getFilters()) {
+            final Optional<Set<IndexTerm>> childTerms = indexTermsOf(child);
+            if (!childTerms.isPresent()) {
+                return Optional.empty();
+            }
+            terms.addAll(childTerms.get());
+        }
+
+        return Optional.of(terms);
+    }
+}
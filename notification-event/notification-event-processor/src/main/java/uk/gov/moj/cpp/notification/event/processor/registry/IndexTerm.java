@@ -0,0 +1,86 @@
+package uk.gov.moj.cpp.notification.event.processor.registry;
+
+import static uk.gov.moj.cpp.notification.common.FieldNames.NAME;
+import static uk.gov.moj.cpp.notification.common.FieldNames.STREAM_ID;
+import static uk.gov.moj.cpp.notification.common.FieldNames.USER_ID;
+
+import uk.gov.moj.cpp.notification.common.FieldNames;
+import uk.gov.moj.cpp.notification.common.Filter;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A field and value that a filter can be looked up by in the {@link SubscriptionRegistry}.
+ * Ids are held as UUIDs and names as strings, as they are on the {@link EventCache}.
+ */
+class IndexTerm {
+
+    private final FieldNames field;
+    private final Object value;
+
+    IndexTerm(final FieldNames field, final Object value) {
+        this.field = field;
+        this.value = value;
+    }
+
+    /**
+     * @param filter a FIELD filter
+     * @throws IllegalArgumentException if the filter names an unknown field, or an id field is not
+     *                                  a UUID
+     */
+    static IndexTerm of(final Filter filter) {
+        final FieldNames field = filter.getField();
+        return new IndexTerm(field, field == NAME ? filter.getValue() : UUID.fromString(filter.getValue()));
+    }
+
+    /**
+     * @return the terms of the fields that are set on the event
+     */
+    static List<IndexTerm> termsOf(final EventCache eventCache) {
+        final List<IndexTerm> terms = new ArrayList<>(FieldNames.values().length);
+
+        if (eventCache.getStreamId() != null) {
+            terms.add(new IndexTerm(STREAM_ID, eventCache.getStreamId()));
+        }
+        if (eventCache.getUserId() != null) {
+            terms.add(new IndexTerm(USER_ID, eventCache.getUserId()));
+        }
+        if (eventCache.getName() != null) {
+            terms.add(new IndexTerm(NAME, eventCache.getName()));
+        }
+
+        return terms;
+    }
+
+    boolean matches(final EventCache eventCache) {
+        switch (field) {
+            case STREAM_ID:
+                return value.equals(eventCache.getStreamId());
+            case USER_ID:
+                return value.equals(eventCache.getUserId());
+            default:
+                return value.equals(eventCache.getName());
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IndexTerm that = (IndexTerm) o;
+        return field == that.field && Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, value);
+    }
+}
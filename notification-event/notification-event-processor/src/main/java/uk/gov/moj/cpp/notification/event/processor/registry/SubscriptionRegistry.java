@@ -0,0 +1,245 @@
+package uk.gov.moj.cpp.notification.event.processor.registry;
+
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.moj.cpp.notification.common.Filter;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Holds the filter of every subscription in memory, so that each public event can be matched
+ * against all subscriptions once, as it is received, rather than every subscription's filter
+ * being run as SQL over the whole event cache on every poll.
+ *
+ * Filters are indexed by the stream ids, user ids and names they test for, so an event is only
+ * tried against the subscriptions that name one of its values, and against the few whose
+ * filters cannot be indexed. The subscriptions are loaded from the view store on first use and
+ * kept up to date from the {@link SubscriptionChanged} events fired by the event listener, once
+ * their changes have committed. A subscription changed while the registry is loading keeps its
+ * changed filter rather than the one read by the load, which may be older.
+ */
+@ApplicationScoped
+public class SubscriptionRegistry {
+
+    @Inject
+    SubscriptionRepository subscriptionRepository;
+
+    @Inject
+    StringToJsonObjectConverter converter;
+
+    @Inject
+    Logger logger;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, RegisteredFilter> filters = new HashMap<>();
+    private final Map<IndexTerm, Set<UUID>> index = new HashMap<>();
+    private final Set<UUID> unindexed = new HashSet<>();
+    private final Set<UUID> changedWhileLoading = new HashSet<>();
+    private boolean loading = false;
+
+    volatile boolean loaded = false;
+
+    /**
+     * @return the ids of the subscriptions whose filters match the event
+     */
+    public Set<UUID> matchingSubscriptionIds(final EventCache eventCache) {
+        loadIfNeeded();
+
+        final Set<UUID> matching = new HashSet<>();
+
+        lock.readLock().lock();
+        try {
+            for (final IndexTerm term : IndexTerm.termsOf(eventCache)) {
+                addMatching(index.get(term), eventCache, matching);
+            }
+            addMatching(unindexed, eventCache, matching);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return matching;
+    }
+
+    /**
+     * Adds the subscription, replacing its previous filter. A subscription whose filter cannot be
+     * parsed is left out, as its events cannot be queried either.
+     */
+    public void register(final Subscription subscription) {
+        update(subscription.getId(), registeredFilterOf(subscription), false);
+    }
+
+    public void deregister(final UUID subscriptionId) {
+        update(subscriptionId, Optional.empty(), false);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return filters.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every filter, so that the subscriptions are loaded again from the view store on next
+     * use, for when changes to them may have been missed.
+     */
+    public void reload() {
+        synchronized (this) {
+            lock.writeLock().lock();
+            try {
+                filters.clear();
+                index.clear();
+                unindexed.clear();
+                loaded = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    void onSubscriptionChanged(@Observes(during = AFTER_SUCCESS) final SubscriptionChanged subscriptionChanged) {
+        final UUID subscriptionId = subscriptionChanged.getSubscriptionId();
+        final Subscription subscription = subscriptionRepository.findBy(subscriptionId);
+
+        if (subscription == null) {
+            deregister(subscriptionId);
+        } else {
+            register(subscription);
+        }
+    }
+
+    private void loadIfNeeded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!loaded) {
+                setLoading(true);
+                try {
+                    subscriptionRepository.findAll().forEach(subscription ->
+                            update(subscription.getId(), registeredFilterOf(subscription), true));
+                } finally {
+                    setLoading(false);
+                }
+                logger.info("Loaded {} subscriptions into the subscription registry", size());
+                loaded = true;
+            }
+        }
+    }
+
+    private void setLoading(final boolean loading) {
+        lock.writeLock().lock();
+        try {
+            this.loading = loading;
+            changedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Optional<RegisteredFilter> registeredFilterOf(final Subscription subscription) {
+        try {
+            final Filter filter = Filter.fromJson(converter.convert(subscription.getFilter()));
+            return Optional.of(new RegisteredFilter(FilterMatcher.matcherOf(filter), FilterMatcher.indexTermsOf(filter)));
+        } catch (final RuntimeException e) {
+            logger.warn("Could not register filter of subscription " + subscription.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the filter of the subscription, or removes it when empty. The filters read by a
+     * load are left out for subscriptions changed since the load began, in the same lock as the
+     * changes are recorded, so that whichever of the two comes last is the newer.
+     */
+    private void update(final UUID subscriptionId, final Optional<RegisteredFilter> registeredFilter, final boolean fromLoad) {
+        lock.writeLock().lock();
+        try {
+            if (fromLoad && changedWhileLoading.contains(subscriptionId)) {
+                return;
+            }
+            if (!fromLoad && loading) {
+                changedWhileLoading.add(subscriptionId);
+            }
+
+            remove(subscriptionId);
+
+            registeredFilter.ifPresent(filter -> {
+                filters.put(subscriptionId, filter);
+
+                if (filter.indexTerms.isPresent()) {
+                    filter.indexTerms.get().forEach(term ->
+                            index.computeIfAbsent(term, key -> new HashSet<>()).add(subscriptionId));
+                } else {
+                    unindexed.add(subscriptionId);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addMatching(final Set<UUID> candidates, final EventCache eventCache, final Set<UUID> matching) {
+        if (candidates == null) {
+            return;
+        }
+
+        for (final UUID subscriptionId : candidates) {
+            if (!matching.contains(subscriptionId) && filters.get(subscriptionId).matcher.test(eventCache)) {
+                matching.add(subscriptionId);
+            }
+        }
+    }
+
+    private void remove(final UUID subscriptionId) {
+        final RegisteredFilter removed = filters.remove(subscriptionId);
+        if (removed == null) {
+            return;
+        }
+
+        if (removed.indexTerms.isPresent()) {
+            removed.indexTerms.get().forEach(term -> {
+                final Set<UUID> subscriptionIds = index.get(term);
+                subscriptionIds.remove(subscriptionId);
+                if (subscriptionIds.isEmpty()) {
+                    index.remove(term);
+                }
+            });
+        } else {
+            unindexed.remove(subscriptionId);
+        }
+    }
+
+    private static class RegisteredFilter {
+
+        private final Predicate<EventCache> matcher;
+        private final Optional<Set<IndexTerm>> indexTerms;
+
+        private RegisteredFilter(final Predicate<EventCache> matcher, final Optional<Set<IndexTerm>> indexTerms) {
+            this.matcher = matcher;
+            this.indexTerms = indexTerms;
+        }
+    }
+}
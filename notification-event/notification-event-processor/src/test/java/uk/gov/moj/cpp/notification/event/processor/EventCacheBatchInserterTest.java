@@ -0,0 +1,77 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import uk.gov.moj.cpp.notification.event.processor.cluster.ClusterNotifications;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class EventCacheBatchInserterTest {
+
+    @Mock
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+
+    @Mock
+    private SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Mock
+    private ClusterNotifications clusterNotifications;
+
+    @InjectMocks
+    private EventCacheBatchInserter eventCacheBatchInserter;
+
+    @Test
+    public void shouldInsertBatchAndItsSubscriptionEventsAndNotifyTheClusterInItsTransaction() {
+        eventCacheBatchInserter.eventQuerySubscriptionEventsEnabled = "true";
+        final EventCache eventCache = mock(EventCache.class);
+        final List<EventCacheMatched> matchedEvents = singletonList(new EventCacheMatched(eventCache, singleton(randomUUID())));
+
+        eventCacheBatchInserter.insertBatch(matchedEvents);
+
+        verify(eventCacheJdbcRepository).insertBatch(singletonList(eventCache));
+        verify(subscriptionEventJdbcRepository).insert(matchedEvents);
+        verify(clusterNotifications).eventsStored(matchedEvents);
+    }
+
+    @Test
+    public void shouldInsertSingleEventAndItsSubscriptionEventsAndNotifyTheClusterInItsTransaction() {
+        eventCacheBatchInserter.eventQuerySubscriptionEventsEnabled = "true";
+        final EventCache eventCache = mock(EventCache.class);
+        final EventCacheMatched matchedEvent = new EventCacheMatched(eventCache, singleton(randomUUID()));
+
+        eventCacheBatchInserter.insert(matchedEvent);
+
+        verify(eventCacheJdbcRepository).insertBatch(singletonList(eventCache));
+        verify(subscriptionEventJdbcRepository).insert(singletonList(matchedEvent));
+        verify(clusterNotifications).eventsStored(singletonList(matchedEvent));
+    }
+
+    @Test
+    public void shouldNotRecordSubscriptionEventsWhenTheyAreDisabled() {
+        eventCacheBatchInserter.eventQuerySubscriptionEventsEnabled = "false";
+        final EventCache eventCache = mock(EventCache.class);
+        final List<EventCacheMatched> matchedEvents = singletonList(new EventCacheMatched(eventCache, singleton(randomUUID())));
+
+        eventCacheBatchInserter.insertBatch(matchedEvents);
+
+        verify(eventCacheJdbcRepository).insertBatch(singletonList(eventCache));
+        verify(clusterNotifications).eventsStored(matchedEvents);
+        verifyNoInteractions(subscriptionEventJdbcRepository);
+    }
+}
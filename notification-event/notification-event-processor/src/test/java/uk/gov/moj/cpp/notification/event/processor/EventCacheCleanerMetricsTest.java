@@ -0,0 +1,69 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import uk.gov.moj.cpp.notification.persistence.ExpiredEventCacheRemoval;
+
+import java.time.Duration;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class EventCacheCleanerMetricsTest {
+
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private EventCacheCleanerMetrics eventCacheCleanerMetrics;
+
+    @AfterEach
+    public void unregister() {
+        eventCacheCleanerMetrics.unregister();
+    }
+
+    @Test
+    public void shouldAddUpTheRemovalsOfEachRun() {
+        eventCacheCleanerMetrics.recordRemoval(new ExpiredEventCacheRemoval(100L, 2, Duration.ofMillis(30L)));
+        eventCacheCleanerMetrics.recordRemoval(new ExpiredEventCacheRemoval(5L, 1, Duration.ofMillis(10L)));
+        eventCacheCleanerMetrics.recordPartitionDropped();
+
+        assertThat(eventCacheCleanerMetrics.getRuns(), is(2L));
+        assertThat(eventCacheCleanerMetrics.getRowsDeleted(), is(105L));
+        assertThat(eventCacheCleanerMetrics.getBatches(), is(3L));
+        assertThat(eventCacheCleanerMetrics.getTotalDurationMillis(), is(40L));
+        assertThat(eventCacheCleanerMetrics.getLastRunDurationMillis(), is(10L));
+        assertThat(eventCacheCleanerMetrics.getLastRunRowsDeleted(), is(5L));
+        assertThat(eventCacheCleanerMetrics.getPartitionsDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordTheRowsDeletedAndDurationOfEachRunInHistograms() {
+        eventCacheCleanerMetrics.recordRemoval(new ExpiredEventCacheRemoval(100L, 2, Duration.ofMillis(30L)));
+        eventCacheCleanerMetrics.recordRemoval(new ExpiredEventCacheRemoval(5L, 1, Duration.ofMillis(10L)));
+
+        assertThat(eventCacheCleanerMetrics.getRowsDeletedPerRun().getCount(), is(2L));
+        assertThat(eventCacheCleanerMetrics.getRowsDeletedPerRun().getSum(), is(105L));
+        assertThat(eventCacheCleanerMetrics.getRunMillis().getP99(), is(50L));
+    }
+
+    @Test
+    public void shouldPublishTheMetricsOverJmx() throws Exception {
+        eventCacheCleanerMetrics.register();
+        eventCacheCleanerMetrics.recordRemoval(new ExpiredEventCacheRemoval(7L, 1, Duration.ofMillis(3L)));
+
+        final Object rowsDeleted = getPlatformMBeanServer().getAttribute(new ObjectName(EventCacheCleanerMetrics.OBJECT_NAME), "RowsDeleted");
+
+        assertThat(rowsDeleted, is(7L));
+    }
+}
@@ -2,6 +2,7 @@ package uk.gov.moj.cpp.notification.event.processor;
 
 import static java.lang.String.valueOf;
 import static java.util.Arrays.asList;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertTrue;
@@ -24,6 +25,7 @@ import javax.ejb.Timeout;
 import javax.ejb.Timer;
 import javax.ejb.TimerConfig;
 import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
 
 import org.apache.openejb.core.timer.TimerImpl;
 import org.junit.jupiter.api.Test;
@@ -64,6 +66,13 @@ public class EventCacheCleanerSchedulerTest {
         verify(eventCacheCleaner).removeExpiredEventCaches();
     }
 
+    @Test
+    public void shouldCleanEventCachesOutsideATransaction() throws Exception {
+        final Method method = EventCacheCleanerScheduler.class.getDeclaredMethod("removeExpiredEventCaches");
+
+        assertThat(method.getAnnotation(TransactionAttribute.class).value(), is(NOT_SUPPORTED));
+    }
+
     @Test
     public void shouldCreateTimerOnInit() {
 
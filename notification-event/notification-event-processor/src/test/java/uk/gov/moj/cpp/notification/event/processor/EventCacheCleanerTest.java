@@ -1,14 +1,29 @@
 package uk.gov.moj.cpp.notification.event.processor;
 
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.gov.moj.cpp.notification.persistence.EventCachePartition.partitionOf;
 
 import uk.gov.justice.services.common.util.Clock;
 import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
 import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCachePartition;
+import uk.gov.moj.cpp.notification.persistence.EventCachePartitionJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.ExpiredEventCacheRemoval;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
 
@@ -27,6 +42,15 @@ public class EventCacheCleanerTest {
     @Mock
     private EventCacheJdbcRepository eventCacheJdbcRepository;
 
+    @Mock
+    private EventCachePartitionJdbcRepository eventCachePartitionJdbcRepository;
+
+    @Mock
+    private SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Mock
+    private EventCacheCleanerMetrics eventCacheCleanerMetrics;
+
     @Mock
     private Logger logger;
 
@@ -42,14 +66,86 @@ public class EventCacheCleanerTest {
     @Test
     public void shouldRemoveEventCaches() {
         eventCacheCleaner.eventCacheCleanerTimeToLiveSeconds = String.valueOf(ONE_HOUR_IN_SECONDS);
+        eventCacheCleaner.eventCacheCleanerMode = "DELETE";
 
         final ZonedDateTime currentDateTime = new UtcClock().now();
         final ZonedDateTime expectedBeforeDateTime = currentDateTime.minusSeconds(ONE_HOUR_IN_SECONDS);
 
+        final ExpiredEventCacheRemoval removal = new ExpiredEventCacheRemoval(25L, 3, Duration.ofMillis(40L));
+
         when(clock.now()).thenReturn(currentDateTime);
+        when(eventCacheJdbcRepository.removeExpiredEventCaches(expectedBeforeDateTime)).thenReturn(removal);
 
         eventCacheCleaner.removeExpiredEventCaches();
         verify(eventCacheJdbcRepository).removeExpiredEventCaches(expectedBeforeDateTime);
+        verify(eventCacheCleanerMetrics).recordRemoval(removal);
+        verify(subscriptionEventJdbcRepository).removeExpired(expectedBeforeDateTime);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldDropPartitionsWhoseEventsHaveAllExpiredInPartitionDropMode() {
+        givenPartitionDropMode(2);
+
+        final ZonedDateTime currentDateTime = ZonedDateTime.parse("2026-10-18T12:30:00Z");
+        final ZonedDateTime expectedBeforeDateTime = currentDateTime.minusSeconds(ONE_HOUR_IN_SECONDS);
+        final EventCachePartition expired = partitionOf(currentDateTime.minusHours(2));
+        final EventCachePartition partlyExpired = partitionOf(currentDateTime.minusHours(1));
+        final EventCachePartition current = partitionOf(currentDateTime);
+
+        when(clock.now()).thenReturn(currentDateTime);
+        when(eventCachePartitionJdbcRepository.findPartitions()).thenReturn(asList(expired, partlyExpired, current));
+        when(eventCachePartitionJdbcRepository.removeExpiredFromDefaultPartition(expectedBeforeDateTime)).thenReturn(2);
+
+        eventCacheCleaner.removeExpiredEventCaches();
+
+        verify(eventCachePartitionJdbcRepository).dropPartition(expired);
+        verify(eventCacheCleanerMetrics).recordPartitionDropped();
+        verify(eventCacheCleanerMetrics).recordRemoval(argThat(removal -> removal.getRowsDeleted() == 2L && removal.getBatches() == 2));
+        verify(eventCachePartitionJdbcRepository, never()).dropPartition(partlyExpired);
+        verify(eventCachePartitionJdbcRepository, never()).dropPartition(current);
+        verify(eventCachePartitionJdbcRepository).removeExpiredFromDefaultPartition(expectedBeforeDateTime);
+        verify(eventCacheJdbcRepository, never()).removeExpiredEventCaches(any(ZonedDateTime.class));
+        verify(subscriptionEventJdbcRepository).removeExpired(expectedBeforeDateTime);
+    }
+
+    @Test
+    public void shouldCreateTheMissingPartitionsAheadInPartitionDropMode() {
+        givenPartitionDropMode(2);
+
+        final ZonedDateTime currentDateTime = ZonedDateTime.parse("2026-10-18T12:30:00Z");
+        final EventCachePartition current = partitionOf(currentDateTime);
+
+        when(clock.now()).thenReturn(currentDateTime);
+        when(eventCachePartitionJdbcRepository.findPartitions()).thenReturn(singletonList(current));
+
+        eventCacheCleaner.removeExpiredEventCaches();
+
+        verify(eventCachePartitionJdbcRepository, never()).createPartition(current);
+        verify(eventCachePartitionJdbcRepository).createPartition(current.next());
+        verify(eventCachePartitionJdbcRepository).createPartition(current.next().next());
+        verify(eventCachePartitionJdbcRepository, times(2)).createPartition(any(EventCachePartition.class));
+    }
+
+    @Test
+    public void shouldCarryOnDroppingPartitionsWhenAPartitionCannotBeCreated() {
+        givenPartitionDropMode(0);
+
+        final ZonedDateTime currentDateTime = ZonedDateTime.parse("2026-10-18T12:30:00Z");
+        final EventCachePartition current = partitionOf(currentDateTime);
+        final EventCachePartition expired = partitionOf(currentDateTime.minusHours(2));
+
+        when(clock.now()).thenReturn(currentDateTime);
+        when(eventCachePartitionJdbcRepository.findPartitions()).thenReturn(singletonList(expired));
+        doThrow(new JdbcRepositoryException("Ooops", new SQLException())).when(eventCachePartitionJdbcRepository).createPartition(current);
+
+        eventCacheCleaner.removeExpiredEventCaches();
+
+        verify(eventCachePartitionJdbcRepository).dropPartition(expired);
+    }
+
+    private void givenPartitionDropMode(final int partitionsAheadHours) {
+        eventCacheCleaner.eventCacheCleanerTimeToLiveSeconds = String.valueOf(ONE_HOUR_IN_SECONDS);
+        eventCacheCleaner.eventCacheCleanerMode = "PARTITION_DROP";
+        eventCacheCleaner.eventCachePartitionsAheadHours = String.valueOf(partitionsAheadHours);
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.moj.cpp.notification.event.processor.EventCacheFlushScheduler.TIMER_TIMEOUT_INFO;
+
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class EventCacheFlushSchedulerTest {
+
+    @Mock
+    private EventCacheWriter eventCacheWriter;
+
+    @Mock
+    private TimerService timerService;
+
+    @InjectMocks
+    private EventCacheFlushScheduler eventCacheFlushScheduler;
+
+    @Captor
+    private ArgumentCaptor<TimerConfig> timerConfigArgumentCaptor;
+
+    @Test
+    public void shouldFlushTheWriterOnTimeout() {
+        eventCacheFlushScheduler.flush();
+
+        verify(eventCacheWriter).flush();
+    }
+
+    @Test
+    public void shouldCreateTimerOnInitWhenWriteBehindIsEnabled() {
+        eventCacheFlushScheduler.eventCacheWriteBehindFlushIntervalMillis = "2000";
+        when(eventCacheWriter.isWriteBehindEnabled()).thenReturn(true);
+
+        eventCacheFlushScheduler.init();
+
+        verify(timerService).createIntervalTimer(eq(2000L), eq(2000L), timerConfigArgumentCaptor.capture());
+        assertThat(timerConfigArgumentCaptor.getValue().isPersistent(), is(false));
+        assertThat(timerConfigArgumentCaptor.getValue().getInfo(), is(TIMER_TIMEOUT_INFO));
+    }
+
+    @Test
+    public void shouldNotCreateTimerWhenWriteBehindIsDisabled() {
+        when(eventCacheWriter.isWriteBehindEnabled()).thenReturn(false);
+
+        eventCacheFlushScheduler.init();
+
+        verify(timerService, never()).createIntervalTimer(anyLong(), anyLong(), any(TimerConfig.class));
+    }
+
+    @Test
+    public void shouldRemoveAnyCurrentPersistentTimersOfTheSameType() {
+        final Timer timer = mock(Timer.class);
+        when(timerService.getTimers()).thenReturn(singletonList(timer));
+        when(timer.getInfo()).thenReturn(TIMER_TIMEOUT_INFO);
+        when(timer.isPersistent()).thenReturn(true);
+
+        eventCacheFlushScheduler.init();
+
+        verify(timer).cancel();
+    }
+}
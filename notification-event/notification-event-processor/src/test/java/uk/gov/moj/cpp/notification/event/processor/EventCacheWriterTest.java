@@ -0,0 +1,209 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.event.processor.cluster.ClusterNotifications;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import javax.enterprise.event.Event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class EventCacheWriterTest {
+
+    @Mock
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+
+    @Mock
+    private SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Mock
+    private EventCacheBatchInserter eventCacheBatchInserter;
+
+    @Mock
+    private Event<EventCacheMatched> eventCacheMatchedEvent;
+
+    @Mock
+    private ClusterNotifications clusterNotifications;
+
+    @Mock
+    private PublicEventMetrics publicEventMetrics;
+
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private EventCacheWriter eventCacheWriter;
+
+    @Test
+    public void shouldSaveEachEventDirectlyWhenWriteBehindIsDisabled() {
+        givenWriter("false", "2", "10");
+        eventCacheWriter.eventQuerySubscriptionEventsEnabled = "true";
+        final EventCacheMatched matchedEvent = matched();
+
+        eventCacheWriter.write(matchedEvent);
+
+        verify(eventCacheJdbcRepository).insertBatch(singletonList(matchedEvent.getEventCache()));
+        verify(subscriptionEventJdbcRepository).insert(singletonList(matchedEvent));
+        verify(eventCacheMatchedEvent).fire(any(EventCacheMatched.class));
+        verify(clusterNotifications).eventsStored(anyList());
+        verifyNoInteractions(eventCacheBatchInserter);
+    }
+
+    @Test
+    public void shouldNotRecordSubscriptionEventsWhenTheyAreDisabled() {
+        givenWriter("false", "2", "10");
+        eventCacheWriter.eventQuerySubscriptionEventsEnabled = "false";
+        final EventCacheMatched matchedEvent = matched();
+
+        eventCacheWriter.write(matchedEvent);
+
+        verify(eventCacheJdbcRepository).insertBatch(singletonList(matchedEvent.getEventCache()));
+        verify(eventCacheMatchedEvent).fire(matchedEvent);
+        verifyNoInteractions(subscriptionEventJdbcRepository);
+    }
+
+    @Test
+    public void shouldBufferEventsUntilABatchIsFull() {
+        givenWriter("true", "3", "10");
+        final EventCacheMatched first = matched();
+        final EventCacheMatched second = matched();
+        final EventCacheMatched third = matched();
+
+        eventCacheWriter.write(first);
+        eventCacheWriter.write(second);
+
+        verify(eventCacheBatchInserter, never()).insertBatch(anyList());
+        verifyNoInteractions(eventCacheMatchedEvent);
+
+        eventCacheWriter.write(third);
+
+        verify(eventCacheBatchInserter).insertBatch(asList(first, second, third));
+        verify(eventCacheMatchedEvent, times(3)).fire(any(EventCacheMatched.class));
+        verifyNoInteractions(clusterNotifications);
+        verifyNoInteractions(eventCacheJdbcRepository, subscriptionEventJdbcRepository);
+    }
+
+    @Test
+    public void shouldInsertPartialBatchWhenFlushed() {
+        givenWriter("true", "3", "10");
+        final EventCacheMatched matchedEvent = matched();
+
+        eventCacheWriter.write(matchedEvent);
+        eventCacheWriter.flush();
+
+        verify(eventCacheBatchInserter).insertBatch(singletonList(matchedEvent));
+    }
+
+    @Test
+    public void shouldFlushOnTheCallingThreadWhenTheBufferIsFull() {
+        givenWriter("true", "5", "2");
+        final EventCacheMatched first = matched();
+        final EventCacheMatched second = matched();
+        final EventCacheMatched third = matched();
+
+        eventCacheWriter.write(first);
+        eventCacheWriter.write(second);
+        eventCacheWriter.write(third);
+
+        verify(eventCacheBatchInserter).insertBatch(asList(first, second));
+
+        eventCacheWriter.flush();
+
+        verify(eventCacheBatchInserter).insertBatch(singletonList(third));
+    }
+
+    @Test
+    public void shouldInsertEventsIndividuallyWhenTheBatchFails() {
+        givenWriter("true", "2", "10");
+        final EventCacheMatched first = matched();
+        final EventCacheMatched second = matched();
+        final RuntimeException batchFailure = new RuntimeException();
+        final RuntimeException rowFailure = new RuntimeException();
+        doThrow(batchFailure).when(eventCacheBatchInserter).insertBatch(anyList());
+        doThrow(rowFailure).when(eventCacheBatchInserter).insert(second);
+
+        eventCacheWriter.write(first);
+        eventCacheWriter.write(second);
+
+        verify(eventCacheBatchInserter).insert(first);
+        verify(eventCacheBatchInserter).insert(second);
+        verify(logger).error("Could not save public event to event cache: " + second.getEventCache().getId(), rowFailure);
+        verify(eventCacheMatchedEvent).fire(argThat(matchedEvent -> matchedEvent == first));
+        verify(eventCacheMatchedEvent, times(1)).fire(any(EventCacheMatched.class));
+        verify(publicEventMetrics, times(1)).recordFailure();
+    }
+
+    @Test
+    public void shouldOnlyFlushTheEventsBufferedWhenTheFlushStarted() {
+        givenWriter("true", "3", "10");
+        final EventCacheMatched first = matched();
+        final EventCacheMatched bufferedDuringFlush = matched();
+        doAnswer(invocation -> {
+            eventCacheWriter.write(bufferedDuringFlush);
+            return null;
+        }).when(eventCacheBatchInserter).insertBatch(singletonList(first));
+
+        eventCacheWriter.write(first);
+
+        eventCacheWriter.flush();
+
+        verify(eventCacheBatchInserter).insertBatch(singletonList(first));
+        verify(eventCacheBatchInserter, never()).insertBatch(singletonList(bufferedDuringFlush));
+    }
+
+    @Test
+    public void shouldFlushOnShutdownWhenWriteBehindIsEnabled() {
+        givenWriter("true", "3", "10");
+        final EventCacheMatched matchedEvent = matched();
+
+        eventCacheWriter.write(matchedEvent);
+        eventCacheWriter.flushOnShutdown();
+
+        verify(eventCacheBatchInserter, times(1)).insertBatch(singletonList(matchedEvent));
+    }
+
+    @Test
+    public void shouldNotFlushOnShutdownWhenWriteBehindIsDisabled() {
+        givenWriter("false", "3", "10");
+
+        eventCacheWriter.flushOnShutdown();
+
+        verify(eventCacheBatchInserter, never()).insertBatch(anyList());
+        verify(eventCacheBatchInserter, never()).insert(any(EventCacheMatched.class));
+    }
+
+    private void givenWriter(final String writeBehindEnabled, final String batchSize, final String bufferSize) {
+        eventCacheWriter.eventCacheWriteBehindEnabled = writeBehindEnabled;
+        eventCacheWriter.eventCacheWriteBehindBatchSize = batchSize;
+        eventCacheWriter.eventCacheWriteBehindBufferSize = bufferSize;
+        eventCacheWriter.init();
+    }
+
+    private EventCacheMatched matched() {
+        final EventCache eventCache = new EventCache(randomUUID(), randomUUID(), randomUUID(), "correlationId", randomUUID(), "{}", new UtcClock().now(), "name");
+        return new EventCacheMatched(eventCache, singleton(randomUUID()));
+    }
+}
@@ -0,0 +1,114 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.util.Collections.emptySet;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.Map;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class PublicEventMetricsTest {
+
+    private static final String HEARING_UPDATED = "public.hearing.updated";
+    private static final String CASE_CREATED = "public.case.created";
+
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private PublicEventMetrics publicEventMetrics;
+
+    @BeforeEach
+    public void setMaxNames() {
+        publicEventMetrics.maxNames = "2";
+    }
+
+    @AfterEach
+    public void unregister() {
+        publicEventMetrics.unregister();
+    }
+
+    @Test
+    public void shouldCountTheEventsStoredByName() {
+        publicEventMetrics.recordStored(HEARING_UPDATED, true);
+        publicEventMetrics.recordStored(HEARING_UPDATED, false);
+        publicEventMetrics.recordStored(CASE_CREATED, false);
+        publicEventMetrics.recordFailure();
+
+        final Map<String, Long> eventsByName = publicEventMetrics.getEventsByName();
+
+        assertThat(eventsByName.size(), is(2));
+        assertThat(eventsByName, hasEntry(HEARING_UPDATED, 2L));
+        assertThat(eventsByName, hasEntry(CASE_CREATED, 1L));
+        assertThat(publicEventMetrics.getEvents(), is(3L));
+        assertThat(publicEventMetrics.getEventsWithClientCorrelationId(), is(1L));
+        assertThat(publicEventMetrics.getFailures(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordTheTimeEachEventTookToHandle() {
+        publicEventMetrics.recordHandled(MILLISECONDS.toNanos(2));
+        publicEventMetrics.recordHandled(MILLISECONDS.toNanos(4));
+
+        assertThat(publicEventMetrics.getHandleMicros().getCount(), is(2L));
+        assertThat(publicEventMetrics.getHandleMicros().getSum(), is(6000L));
+        assertThat(publicEventMetrics.getEvents(), is(0L));
+    }
+
+    @Test
+    public void shouldCountAnEventAsStoredWhenItsMatchedEventIsObservedAfterItsTransaction() {
+        final EventCache eventCache = new EventCache(randomUUID(), randomUUID(), randomUUID(), "correlationId", randomUUID(), "{}", new UtcClock().now(), HEARING_UPDATED);
+
+        publicEventMetrics.onEventCacheMatched(new EventCacheMatched(eventCache, emptySet()));
+
+        assertThat(publicEventMetrics.getEventsByName(), hasEntry(HEARING_UPDATED, 1L));
+        assertThat(publicEventMetrics.getEventsWithClientCorrelationId(), is(1L));
+    }
+
+    @Test
+    public void shouldCountNamesBeyondTheMaximumTogether() {
+        publicEventMetrics.recordStored(HEARING_UPDATED, false);
+        publicEventMetrics.recordStored(CASE_CREATED, false);
+        publicEventMetrics.recordStored("public.defendant.added", false);
+        publicEventMetrics.recordStored("public.defendant.removed", false);
+
+        final Map<String, Long> eventsByName = publicEventMetrics.getEventsByName();
+
+        assertThat(eventsByName.size(), is(3));
+        assertThat(eventsByName, hasEntry(PublicEventMetrics.OTHER_NAMES, 2L));
+    }
+
+    @Test
+    public void shouldPublishTheMetricsOverJmx() throws Exception {
+        publicEventMetrics.register();
+        publicEventMetrics.recordStored(HEARING_UPDATED, false);
+        publicEventMetrics.recordHandled(MILLISECONDS.toNanos(3));
+
+        final ObjectName objectName = new ObjectName(PublicEventMetrics.OBJECT_NAME);
+        final Object events = getPlatformMBeanServer().getAttribute(objectName, "Events");
+        final CompositeData handleMicros = (CompositeData) getPlatformMBeanServer().getAttribute(objectName, "HandleMicros");
+
+        assertThat(events, is(1L));
+        assertThat(handleMicros.get("count"), is(1L));
+    }
+}
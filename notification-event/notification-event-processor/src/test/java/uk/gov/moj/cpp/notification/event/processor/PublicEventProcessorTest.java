@@ -1,20 +1,33 @@
 package uk.gov.moj.cpp.notification.event.processor;
 
+import static java.util.Collections.singleton;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.justice.services.messaging.Metadata;
 import uk.gov.moj.cpp.notification.event.processor.converter.EventConverter;
-import uk.gov.moj.cpp.notification.persistence.EventCacheRepository;
+import uk.gov.moj.cpp.notification.event.processor.registry.SubscriptionRegistry;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 
 import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -30,7 +43,10 @@ public class PublicEventProcessorTest {
     private JsonEnvelope event;
 
     @Mock
-    private EventCacheRepository publicEventRepository;
+    private Metadata metadata;
+
+    @Mock
+    private EventCacheWriter eventCacheWriter;
 
     @Mock
     private EventCache eventCache;
@@ -38,6 +54,15 @@ public class PublicEventProcessorTest {
     @Mock
     private Logger logger;
 
+    @Mock
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Mock
+    private PublicEventMetrics publicEventMetrics;
+
+    @Captor
+    private ArgumentCaptor<EventCacheMatched> eventCacheMatchedCaptor;
+
     @InjectMocks
     private PublicEventProcessor publicEventProcessor;
 
@@ -50,10 +75,54 @@ public class PublicEventProcessorTest {
     public void shouldPersistNewPublicEvent() {
 
         when(converter.convert(event)).thenReturn(eventCache);
+        when(event.metadata()).thenReturn(metadata);
 
         publicEventProcessor.handle(event);
 
-        verify(publicEventRepository).save(eventCache);
+        verify(eventCacheWriter).write(eventCacheMatchedCaptor.capture());
+        assertThat(eventCacheMatchedCaptor.getValue().getEventCache(), is(eventCache));
+    }
+
+    @Test
+    public void shouldRecordTheTimeTakenToHandleEachPublicEventButLeaveCountingItStoredToTheCommit() {
+
+        when(converter.convert(event)).thenReturn(eventCache);
+        when(event.metadata()).thenReturn(metadata);
+
+        publicEventProcessor.handle(event);
+
+        verify(publicEventMetrics).recordHandled(anyLong());
+        verify(publicEventMetrics, never()).recordStored(any(), anyBoolean());
+    }
+
+    @Test
+    public void shouldWriteThePublicEventWithTheTimeItWasCreated() {
+        final Optional<ZonedDateTime> createdAt = Optional.of(ZonedDateTime.now().minusSeconds(1));
+
+        when(converter.convert(event)).thenReturn(eventCache);
+        when(event.metadata()).thenReturn(metadata);
+        when(metadata.createdAt()).thenReturn(createdAt);
+
+        publicEventProcessor.handle(event);
+
+        verify(eventCacheWriter).write(eventCacheMatchedCaptor.capture());
+        assertThat(eventCacheMatchedCaptor.getValue().getPublishedAt(), is(createdAt));
+    }
+
+    @Test
+    public void shouldConvertEachPublicEventOnlyOnce() {
+
+        final EventCache correlatedEventCache = new EventCache(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), "correlationId", UUID.randomUUID(), "{}", ZonedDateTime.now(), "name");
+        when(converter.convert(event)).thenReturn(correlatedEventCache);
+        when(event.metadata()).thenReturn(metadata);
+        when(logger.isWarnEnabled()).thenReturn(true);
+
+        publicEventProcessor.handle(event);
+
+        verify(converter, times(1)).convert(event);
+        verify(eventCacheWriter).write(eventCacheMatchedCaptor.capture());
+        assertThat(eventCacheMatchedCaptor.getValue().getEventCache(), is(correlatedEventCache));
+        verify(logger).warn("saving correlationId: {}", "correlationId");
     }
 
     @Test
@@ -65,8 +134,23 @@ public class PublicEventProcessorTest {
 
         publicEventProcessor.handle(event);
 
-        verify(publicEventRepository, times(0)).save(eventCache);
+        verify(eventCacheWriter, times(0)).write(any(EventCacheMatched.class));
+        verify(publicEventMetrics).recordFailure();
         verify(logger).error("Could not save public event to event cache: envelope-json", runtimeException);
     }
 
+    @Test
+    public void shouldWriteThePublicEventWithTheSubscriptionsItMatched() {
+        final Set<UUID> subscriptionIds = singleton(UUID.randomUUID());
+
+        when(converter.convert(event)).thenReturn(eventCache);
+        when(event.metadata()).thenReturn(metadata);
+        when(subscriptionRegistry.matchingSubscriptionIds(eventCache)).thenReturn(subscriptionIds);
+
+        publicEventProcessor.handle(event);
+
+        verify(eventCacheWriter).write(eventCacheMatchedCaptor.capture());
+        assertThat(eventCacheMatchedCaptor.getValue().getEventCache(), is(eventCache));
+        assertThat(eventCacheMatchedCaptor.getValue().getSubscriptionIds(), is(subscriptionIds));
+    }
 }
@@ -0,0 +1,55 @@
+package uk.gov.moj.cpp.notification.event.processor;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionCleanerMetricsTest {
+
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private SubscriptionCleanerMetrics subscriptionCleanerMetrics;
+
+    @AfterEach
+    public void unregister() {
+        subscriptionCleanerMetrics.unregister();
+    }
+
+    @Test
+    public void shouldAddUpTheSubscriptionsUnsubscribedByEachRun() {
+        subscriptionCleanerMetrics.recordRun(1000L, 2, 40L);
+        subscriptionCleanerMetrics.recordRun(3L, 1, 5L);
+
+        assertThat(subscriptionCleanerMetrics.getRuns(), is(2L));
+        assertThat(subscriptionCleanerMetrics.getSubscriptionsUnsubscribed(), is(1003L));
+        assertThat(subscriptionCleanerMetrics.getBatches(), is(3L));
+        assertThat(subscriptionCleanerMetrics.getTotalDurationMillis(), is(45L));
+        assertThat(subscriptionCleanerMetrics.getLastRunDurationMillis(), is(5L));
+        assertThat(subscriptionCleanerMetrics.getLastRunSubscriptionsUnsubscribed(), is(3L));
+        assertThat(subscriptionCleanerMetrics.getSubscriptionsUnsubscribedPerRun().getCount(), is(2L));
+        assertThat(subscriptionCleanerMetrics.getRunMillis().getSum(), is(45L));
+    }
+
+    @Test
+    public void shouldPublishTheMetricsOverJmx() throws Exception {
+        subscriptionCleanerMetrics.register();
+        subscriptionCleanerMetrics.recordRun(7L, 1, 3L);
+
+        final Object subscriptionsUnsubscribed = getPlatformMBeanServer().getAttribute(new ObjectName(SubscriptionCleanerMetrics.OBJECT_NAME), "SubscriptionsUnsubscribed");
+
+        assertThat(subscriptionsUnsubscribed, is(7L));
+    }
+}
@@ -1,31 +1,45 @@
 package uk.gov.moj.cpp.notification.event.processor;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
-import static uk.gov.justice.services.test.utils.core.messaging.JsonEnvelopeBuilder.envelope;
 import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithRandomUUID;
 import static uk.gov.moj.cpp.notification.event.processor.SubscriptionCleanerService.SUBSCRIPTION_QUERY;
-import static uk.gov.moj.cpp.notification.event.processor.SubscriptionCleanerService.UNSUBSCRIBE_COMMAND;
+import static uk.gov.moj.cpp.notification.event.processor.SubscriptionCleanerService.UNSUBSCRIBE_BATCH_COMMAND;
 
 import uk.gov.justice.services.core.requester.Requester;
 import uk.gov.justice.services.core.sender.Sender;
 import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.justice.services.messaging.JsonObjects;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-import uk.gov.justice.services.messaging.JsonObjects;
+import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
-import uk.gov.justice.services.messaging.JsonObjects;
 
 @ExtendWith(MockitoExtension.class)
 public class SubscriptionCleanerServiceTest {
@@ -40,60 +54,74 @@ public class SubscriptionCleanerServiceTest {
     Sender sender;
 
     @Mock
-    JsonEnvelope expiredSubscriptionsQuery;
+    SubscriptionCleanerMetrics subscriptionCleanerMetrics;
+
+    @Captor
+    ArgumentCaptor<JsonEnvelope> queryCaptor;
+
+    @Captor
+    ArgumentCaptor<JsonEnvelope> commandCaptor;
 
     @InjectMocks
-    @Spy
     private SubscriptionCleanerService subscriptionCleanerService;
 
-    @Test
-    public void shouldUnSubscribeExpiredSubscriptions() {
-        final JsonEnvelope expiredSubscriptionsQuery = envelope()
-                .with(metadataWithRandomUUID(SUBSCRIPTION_QUERY))
-                .build();
+    @BeforeEach
+    public void setUp() {
+        subscriptionCleanerService.subscriptionCleanerBatchSize = "2";
+    }
 
-        when(subscriptionCleanerService.getExpiredSubscriptionEnvelope()).thenReturn(expiredSubscriptionsQuery);
+    @Test
+    public void shouldUnSubscribeEachPageOfExpiredSubscriptionsInABatch() {
+        final List<UUID> subscriptionIds = asList(randomUUID(), randomUUID(), randomUUID());
 
-        final UUID subscriptionId1 = randomUUID();
+        when(requester.requestAsAdmin(any(JsonEnvelope.class))).thenReturn(
+                expiredSubscriptionsResponse(subscriptionIds.subList(0, 2), Optional.of("cursor-1")),
+                expiredSubscriptionsResponse(subscriptionIds.subList(2, 3), Optional.empty()));
 
-        final UUID subscriptionId2 = randomUUID();
+        subscriptionCleanerService.unsubscribeExpiredSubscriptions();
 
-        final JsonObjectBuilder json1 = JsonObjects.createObjectBuilder();
-        json1.add("subscriptionId", subscriptionId1.toString());
+        verify(requester, times(2)).requestAsAdmin(queryCaptor.capture());
+        verify(sender, times(2)).sendAsAdmin(commandCaptor.capture());
 
-        final JsonObjectBuilder json2 = JsonObjects.createObjectBuilder();
-        json2.add("subscriptionId", subscriptionId2.toString());
+        final List<JsonEnvelope> queries = queryCaptor.getAllValues();
+        queries.forEach(query -> assertThat(query.metadata().name(), is(SUBSCRIPTION_QUERY)));
+        queries.forEach(query -> assertThat(query.payloadAsJsonObject().getInt("pageSize"), is(2)));
+        assertThat(queries.get(0).payloadAsJsonObject().containsKey("after"), is(false));
+        assertThat(queries.get(1).payloadAsJsonObject().getString("after"), is("cursor-1"));
 
-        final JsonArrayBuilder jsonArrayBuilder = JsonObjects.createArrayBuilder();
-        jsonArrayBuilder.add(json1);
-        jsonArrayBuilder.add(json2);
+        final List<JsonEnvelope> commands = commandCaptor.getAllValues();
+        commands.forEach(command -> assertThat(command.metadata().name(), is(UNSUBSCRIBE_BATCH_COMMAND)));
+        assertThat(subscriptionIdsOf(commands.get(0)), is(subscriptionIds.subList(0, 2)));
+        assertThat(subscriptionIdsOf(commands.get(1)), is(subscriptionIds.subList(2, 3)));
 
-        final JsonEnvelope expiredSubscriptionsResponse = JsonEnvelope.envelopeFrom(
-                metadataWithRandomUUID("notification.query.findExpired"),
-                JsonObjects.createObjectBuilder()
-                        .add("expiredSubscriptions", jsonArrayBuilder.build())
-                        .build());
+        verify(subscriptionCleanerMetrics).recordRun(eq(3L), eq(2), anyLong());
+    }
 
-        when(requester.requestAsAdmin(expiredSubscriptionsQuery)).thenReturn(expiredSubscriptionsResponse);
+    @Test
+    public void shouldSendNothingWhenThereAreNoExpiredSubscriptions() {
+        when(requester.requestAsAdmin(any(JsonEnvelope.class))).thenReturn(expiredSubscriptionsResponse(emptyList(), Optional.empty()));
 
-        final JsonEnvelope unSubscribeCommand1 = envelope()
-                .with(metadataWithRandomUUID(UNSUBSCRIBE_COMMAND))
-                .withPayloadOf(subscriptionId1, "subscriptionId")
-                .build();
+        subscriptionCleanerService.unsubscribeExpiredSubscriptions();
 
-        final JsonEnvelope unSubscribeCommand2 = envelope()
-                .with(metadataWithRandomUUID(UNSUBSCRIBE_COMMAND))
-                .withPayloadOf(subscriptionId2, "subscriptionId")
-                .build();
+        verifyNoInteractions(sender);
+        verify(subscriptionCleanerMetrics).recordRun(eq(0L), eq(0), anyLong());
+    }
 
-        when(subscriptionCleanerService.getUnsubscribeCommand(subscriptionId1)).thenReturn(unSubscribeCommand1);
-        when(subscriptionCleanerService.getUnsubscribeCommand(subscriptionId2)).thenReturn(unSubscribeCommand2);
+    private JsonEnvelope expiredSubscriptionsResponse(final List<UUID> subscriptionIds, final Optional<String> nextCursor) {
+        final JsonArrayBuilder expiredSubscriptions = JsonObjects.createArrayBuilder();
+        subscriptionIds.forEach(subscriptionId -> expiredSubscriptions.add(JsonObjects.createObjectBuilder().add("subscriptionId", subscriptionId.toString())));
 
-        subscriptionCleanerService.unsubscribeExpiredSubscriptions();
+        final JsonObjectBuilder payload = JsonObjects.createObjectBuilder()
+                .add("expiredSubscriptions", expiredSubscriptions);
+        nextCursor.ifPresent(cursor -> payload.add("nextCursor", cursor));
 
-        verify(requester).requestAsAdmin(expiredSubscriptionsQuery);
+        return JsonEnvelope.envelopeFrom(metadataWithRandomUUID("notification.expired.subscription"), payload.build());
+    }
 
-        verify(sender).sendAsAdmin(unSubscribeCommand1);
-        verify(sender).sendAsAdmin(unSubscribeCommand2);
+    private List<UUID> subscriptionIdsOf(final JsonEnvelope command) {
+        final JsonArray subscriptionIds = command.payloadAsJsonObject().getJsonArray("subscriptionIds");
+        final List<UUID> ids = new ArrayList<>();
+        subscriptionIds.getValuesAs(JsonString.class).forEach(id -> ids.add(UUID.fromString(id.getString())));
+        return ids;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package uk.gov.moj.cpp.notification.event.processor.cluster;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+import uk.gov.moj.cpp.notification.event.processor.registry.SubscriptionRegistry;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationListener;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChangesMissed;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import javax.enterprise.event.Event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class ClusterNotificationReceiverTest {
+
+    private static final String THIS_NODE = "this-node";
+    private static final int TIMEOUT_MILLIS = 10;
+
+    @Mock
+    private ClusterNotifications clusterNotifications;
+
+    @Mock
+    private ClusterNotificationJdbcRepository clusterNotificationJdbcRepository;
+
+    @Mock
+    private SubscriptionRegistry subscriptionRegistry;
+
+    @Mock
+    private Event<ClusterNotification> clusterNotificationEvent;
+
+    @Mock
+    private Event<SubscriptionChanged> subscriptionChangedEvent;
+
+    @Mock
+    private Event<SubscriptionChangesMissed> subscriptionChangesMissedEvent;
+
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private ClusterNotificationReceiver clusterNotificationReceiver;
+
+    @Captor
+    private ArgumentCaptor<SubscriptionChanged> subscriptionChangedCaptor;
+
+    private final ClusterNotificationListener listener = mock(ClusterNotificationListener.class);
+
+    @BeforeEach
+    public void listen() {
+        when(clusterNotificationJdbcRepository.listen()).thenReturn(listener);
+    }
+
+    @Test
+    public void shouldFireTheNotificationsOfOtherNodes() {
+        final UUID changedSubscriptionId = randomUUID();
+        final ClusterNotification eventsStored = new ClusterNotification("other-node", singleton(randomUUID()), singleton("public.event"), singleton(randomUUID()), emptySet());
+        final ClusterNotification subscriptionChanged = ClusterNotification.subscriptionChanged("other-node", changedSubscriptionId);
+        final ClusterNotification fromThisNode = ClusterNotification.subscriptionChanged(THIS_NODE, randomUUID());
+
+        when(clusterNotifications.getNodeId()).thenReturn(THIS_NODE);
+        when(listener.poll(TIMEOUT_MILLIS)).thenReturn(asList(eventsStored, subscriptionChanged, fromThisNode));
+
+        clusterNotificationReceiver.receive(TIMEOUT_MILLIS);
+
+        verify(clusterNotificationEvent).fire(eventsStored);
+        verify(clusterNotificationEvent).fire(subscriptionChanged);
+        verify(clusterNotificationEvent, never()).fire(fromThisNode);
+
+        verify(subscriptionChangedEvent).fire(subscriptionChangedCaptor.capture());
+        assertThat(subscriptionChangedCaptor.getValue().getSubscriptionId(), is(changedSubscriptionId));
+        assertThat(subscriptionChangedCaptor.getValue().isOnOtherNode(), is(true));
+    }
+
+    @Test
+    public void shouldKeepListeningOnTheSameConnection() {
+        when(listener.poll(TIMEOUT_MILLIS)).thenReturn(emptyList());
+
+        clusterNotificationReceiver.receive(TIMEOUT_MILLIS);
+        clusterNotificationReceiver.receive(TIMEOUT_MILLIS);
+
+        verify(clusterNotificationJdbcRepository, times(1)).listen();
+        verify(subscriptionRegistry, never()).reload();
+        verify(subscriptionChangesMissedEvent, never()).fire(any(SubscriptionChangesMissed.class));
+    }
+
+    @Test
+    public void shouldListenAgainAndDropWhatIsCachedForSubscriptionsAfterLosingTheListener() {
+        final JdbcRepositoryException failure = new JdbcRepositoryException("Exception while receiving cluster notifications", new SQLException());
+        when(listener.poll(TIMEOUT_MILLIS)).thenThrow(failure).thenReturn(emptyList());
+
+        clusterNotificationReceiver.receive(TIMEOUT_MILLIS);
+
+        verify(listener).close();
+        verify(logger).warn("Lost cluster notification listener, listening again on next poll", failure);
+
+        clusterNotificationReceiver.receive(TIMEOUT_MILLIS);
+
+        verify(clusterNotificationJdbcRepository, times(2)).listen();
+        verify(subscriptionRegistry).reload();
+        verify(subscriptionChangesMissedEvent).fire(any(SubscriptionChangesMissed.class));
+        verify(clusterNotificationEvent, never()).fire(any(ClusterNotification.class));
+    }
+}
@@ -0,0 +1,73 @@
+package uk.gov.moj.cpp.notification.event.processor.cluster;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.moj.cpp.notification.event.processor.cluster.ClusterNotificationScheduler.TIMER_TIMEOUT_INFO;
+
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ClusterNotificationSchedulerTest {
+
+    @Mock
+    private ClusterNotifications clusterNotifications;
+
+    @Mock
+    private ClusterNotificationReceiver clusterNotificationReceiver;
+
+    @Mock
+    private TimerService timerService;
+
+    @InjectMocks
+    private ClusterNotificationScheduler clusterNotificationScheduler;
+
+    @Captor
+    private ArgumentCaptor<TimerConfig> timerConfigArgumentCaptor;
+
+    @Test
+    public void shouldWaitForNotificationsForAllButAMarginOfTheIntervalOnTimeout() {
+        clusterNotificationScheduler.clusterNotificationPollIntervalMillis = "1000";
+        when(clusterNotifications.isEnabled()).thenReturn(true);
+
+        clusterNotificationScheduler.init();
+        clusterNotificationScheduler.receive();
+
+        verify(clusterNotificationReceiver).receive(950);
+    }
+
+    @Test
+    public void shouldCreateTimerOnInitWhenClusterNotificationsAreEnabled() {
+        clusterNotificationScheduler.clusterNotificationPollIntervalMillis = "250";
+        when(clusterNotifications.isEnabled()).thenReturn(true);
+
+        clusterNotificationScheduler.init();
+
+        verify(timerService).createIntervalTimer(eq(250L), eq(250L), timerConfigArgumentCaptor.capture());
+        assertThat(timerConfigArgumentCaptor.getValue().isPersistent(), is(false));
+        assertThat(timerConfigArgumentCaptor.getValue().getInfo(), is(TIMER_TIMEOUT_INFO));
+    }
+
+    @Test
+    public void shouldNotCreateTimerWhenClusterNotificationsAreDisabled() {
+        when(clusterNotifications.isEnabled()).thenReturn(false);
+
+        clusterNotificationScheduler.init();
+
+        verify(timerService, never()).createIntervalTimer(anyLong(), anyLong(), any(TimerConfig.class));
+    }
+}
@@ -0,0 +1,94 @@
+package uk.gov.moj.cpp.notification.event.processor.cluster;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ClusterNotificationsTest {
+
+    @Mock
+    private ClusterNotificationJdbcRepository clusterNotificationJdbcRepository;
+
+    @InjectMocks
+    private ClusterNotifications clusterNotifications;
+
+    @Captor
+    private ArgumentCaptor<ClusterNotification> clusterNotificationCaptor;
+
+    @Test
+    public void shouldPublishTheStreamsNamesAndSubscriptionsOfTheEventsStored() {
+        clusterNotifications.clusterNotificationsEnabled = "true";
+        final UUID streamId = randomUUID();
+        final UUID subscriptionId = randomUUID();
+        final EventCache eventCache = new EventCache(randomUUID(), randomUUID(), randomUUID(), "correlationId", streamId, "{}", new UtcClock().now(), "public.event");
+
+        clusterNotifications.eventsStored(singletonList(new EventCacheMatched(eventCache, singleton(subscriptionId))));
+
+        verify(clusterNotificationJdbcRepository).publish(clusterNotificationCaptor.capture());
+        assertThat(clusterNotificationCaptor.getValue(), is(new ClusterNotification(
+                clusterNotifications.getNodeId(), singleton(streamId), singleton("public.event"), singleton(subscriptionId), emptySet())));
+    }
+
+    @Test
+    public void shouldNotPublishAnEmptyBatch() {
+        clusterNotifications.clusterNotificationsEnabled = "true";
+
+        clusterNotifications.eventsStored(emptyList());
+
+        verifyNoInteractions(clusterNotificationJdbcRepository);
+    }
+
+    @Test
+    public void shouldPublishSubscriptionsChangedOnThisNode() {
+        clusterNotifications.clusterNotificationsEnabled = "true";
+        final UUID subscriptionId = randomUUID();
+
+        clusterNotifications.onSubscriptionChanged(new SubscriptionChanged(subscriptionId));
+
+        verify(clusterNotificationJdbcRepository).publish(ClusterNotification.subscriptionChanged(clusterNotifications.getNodeId(), subscriptionId));
+    }
+
+    @Test
+    public void shouldNotPublishSubscriptionsChangedOnOtherNodesAgain() {
+        clusterNotifications.clusterNotificationsEnabled = "true";
+
+        clusterNotifications.onSubscriptionChanged(SubscriptionChanged.onOtherNode(randomUUID()));
+
+        verifyNoInteractions(clusterNotificationJdbcRepository);
+    }
+
+    @Test
+    public void shouldNotPublishWhenDisabled() {
+        clusterNotifications.clusterNotificationsEnabled = "false";
+
+        clusterNotifications.onSubscriptionChanged(new SubscriptionChanged(randomUUID()));
+        clusterNotifications.eventsStored(singletonList(new EventCacheMatched(
+                new EventCache(randomUUID(), randomUUID(), randomUUID(), "correlationId", randomUUID(), "{}", new UtcClock().now(), "public.event"), emptySet())));
+
+        verifyNoInteractions(clusterNotificationJdbcRepository);
+    }
+}
@@ -11,6 +11,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
 import static uk.gov.justice.services.test.utils.core.random.RandomGenerator.STRING;
 
 import uk.gov.justice.services.messaging.JsonEnvelope;
@@ -21,6 +22,8 @@ import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 
 import java.util.UUID;
 
+import javax.json.JsonObject;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -49,15 +52,16 @@ public class EventConverterTest {
 
         final JsonEnvelope jsonEnvelope = mock(JsonEnvelope.class);
 
-        final String eventJson = "event json";
         final Metadata metadata = mock(Metadata.class);
+        final JsonObject metadataJson = createObjectBuilder().add("name", "public.event").build();
+        final JsonObject envelopeJson = createObjectBuilder().add("_metadata", metadataJson).build();
         final UUID userId = randomUUID();
         final UUID sessionId = randomUUID();
         final String clientCorrelationId = STRING.next();
         final UUID streamId = randomUUID();
         final String eventName = STRING.next();
 
-        when(jsonObjectEnvelopeConverter.asJsonString(jsonEnvelope)).thenReturn(eventJson);
+        when(jsonObjectEnvelopeConverter.fromEnvelope(jsonEnvelope)).thenReturn(envelopeJson);
         when(jsonEnvelope.metadata()).thenReturn(metadata);
         when(metadata.userId()).thenReturn(of(userId.toString()));
         when(metadata.sessionId()).thenReturn(of(sessionId.toString()));
@@ -73,8 +77,9 @@ public class EventConverterTest {
         assertThat(eventCache.getClientCorrelationId(), is(clientCorrelationId));
         assertThat(eventCache.getStreamId(), is(streamId));
         assertThat(eventCache.getCreated(), is(clock.now()));
-        assertThat(eventCache.getEventJson(), is(eventJson));
+        assertThat(eventCache.getEventJson(), is(envelopeJson.toString()));
         assertThat(eventCache.getName(), is(eventName));
+        assertThat(eventCache.getMetadataJson(), is(metadataJson.toString()));
     }
 
     @Test
@@ -82,14 +87,15 @@ public class EventConverterTest {
 
         final JsonEnvelope jsonEnvelope = mock(JsonEnvelope.class);
 
-        final String eventJson = "event json";
         final Metadata metadata = mock(Metadata.class);
+        final JsonObject metadataJson = createObjectBuilder().add("name", "public.event").build();
+        final JsonObject envelopeJson = createObjectBuilder().add("_metadata", metadataJson).build();
         final UUID sessionId = randomUUID();
         final String clientCorrelationId = STRING.next();
         final String eventName = STRING.next();
         final UUID streamId = randomUUID();
 
-        when(jsonObjectEnvelopeConverter.asJsonString(jsonEnvelope)).thenReturn(eventJson);
+        when(jsonObjectEnvelopeConverter.fromEnvelope(jsonEnvelope)).thenReturn(envelopeJson);
         when(jsonEnvelope.metadata()).thenReturn(metadata);
         when(metadata.userId()).thenReturn(empty());
         when(metadata.sessionId()).thenReturn(of(sessionId.toString()));
@@ -107,7 +113,7 @@ public class EventConverterTest {
         assertThat(eventCache.getName(), is(eventName));
         assertThat(eventCache.getStreamId(), is(streamId));
         assertThat(eventCache.getCreated(), is(clock.now()));
-        assertThat(eventCache.getEventJson(), is(eventJson));
+        assertThat(eventCache.getEventJson(), is(envelopeJson.toString()));
     }
 
     @Test
@@ -115,14 +121,15 @@ public class EventConverterTest {
 
         final JsonEnvelope jsonEnvelope = mock(JsonEnvelope.class);
 
-        final String eventJson = "event json";
         final Metadata metadata = mock(Metadata.class);
+        final JsonObject metadataJson = createObjectBuilder().add("name", "public.event").build();
+        final JsonObject envelopeJson = createObjectBuilder().add("_metadata", metadataJson).build();
         final UUID userId = randomUUID();
         final String clientCorrelationId = STRING.next();
         final String eventName = STRING.next();
         final UUID streamId = randomUUID();
 
-        when(jsonObjectEnvelopeConverter.asJsonString(jsonEnvelope)).thenReturn(eventJson);
+        when(jsonObjectEnvelopeConverter.fromEnvelope(jsonEnvelope)).thenReturn(envelopeJson);
         when(jsonEnvelope.metadata()).thenReturn(metadata);
         when(metadata.userId()).thenReturn(of(userId.toString()));
         when(metadata.sessionId()).thenReturn(empty());
@@ -140,7 +147,7 @@ public class EventConverterTest {
         assertThat(eventCache.getName(), is(eventName));
         assertThat(eventCache.getStreamId(), is(streamId));
         assertThat(eventCache.getCreated(), is(clock.now()));
-        assertThat(eventCache.getEventJson(), is(eventJson));
+        assertThat(eventCache.getEventJson(), is(envelopeJson.toString()));
     }
 
     @Test
@@ -148,14 +155,15 @@ public class EventConverterTest {
 
         final JsonEnvelope jsonEnvelope = mock(JsonEnvelope.class);
 
-        final String eventJson = "event json";
         final Metadata metadata = mock(Metadata.class);
+        final JsonObject metadataJson = createObjectBuilder().add("name", "public.event").build();
+        final JsonObject envelopeJson = createObjectBuilder().add("_metadata", metadataJson).build();
         final UUID userId = randomUUID();
         final UUID sessionId = randomUUID();
         final UUID streamId = randomUUID();
         final String eventName = STRING.next();
 
-        when(jsonObjectEnvelopeConverter.asJsonString(jsonEnvelope)).thenReturn(eventJson);
+        when(jsonObjectEnvelopeConverter.fromEnvelope(jsonEnvelope)).thenReturn(envelopeJson);
         when(jsonEnvelope.metadata()).thenReturn(metadata);
         when(metadata.userId()).thenReturn(of(userId.toString()));
         when(metadata.sessionId()).thenReturn(of(sessionId.toString()));
@@ -172,7 +180,7 @@ public class EventConverterTest {
         assertThat(eventCache.getSessionId(), is(sessionId));
         assertThat(eventCache.getStreamId(), is(streamId));
         assertThat(eventCache.getCreated(), is(clock.now()));
-        assertThat(eventCache.getEventJson(), is(eventJson));
+        assertThat(eventCache.getEventJson(), is(envelopeJson.toString()));
         assertThat(eventCache.getName(), is(eventName));
     }
 
@@ -181,14 +189,15 @@ public class EventConverterTest {
 
         final JsonEnvelope jsonEnvelope = mock(JsonEnvelope.class);
 
-        final String eventJson = "event json";
         final Metadata metadata = mock(Metadata.class);
+        final JsonObject metadataJson = createObjectBuilder().add("name", "public.event").build();
+        final JsonObject envelopeJson = createObjectBuilder().add("_metadata", metadataJson).build();
         final UUID userId = randomUUID();
         final UUID sessionId = randomUUID();
         final String clientCorrelationId = STRING.next();
         final String eventName = STRING.next();
 
-        when(jsonObjectEnvelopeConverter.asJsonString(jsonEnvelope)).thenReturn(eventJson);
+        when(jsonObjectEnvelopeConverter.fromEnvelope(jsonEnvelope)).thenReturn(envelopeJson);
         when(jsonEnvelope.metadata()).thenReturn(metadata);
         when(metadata.userId()).thenReturn(of(userId.toString()));
         when(metadata.sessionId()).thenReturn(of(sessionId.toString()));
@@ -206,7 +215,7 @@ public class EventConverterTest {
         assertThat(eventCache.getClientCorrelationId(), is(clientCorrelationId));
         assertThat(eventCache.getName(), is(eventName));
         assertThat(eventCache.getCreated(), is(clock.now()));
-        assertThat(eventCache.getEventJson(), is(eventJson));
+        assertThat(eventCache.getEventJson(), is(envelopeJson.toString()));
     }
 
     @Test
@@ -216,7 +225,7 @@ public class EventConverterTest {
 
         final RuntimeException runtimeException = new RuntimeException("Ooops");
 
-        when(jsonObjectEnvelopeConverter.asJsonString(jsonEnvelope)).thenThrow(runtimeException);
+        when(jsonObjectEnvelopeConverter.fromEnvelope(jsonEnvelope)).thenThrow(runtimeException);
 
         assertThrows(RuntimeException.class, () -> eventConverter.convert(jsonEnvelope));
     }
@@ -0,0 +1,184 @@
+package uk.gov.moj.cpp.notification.event.processor.registry;
+
+import static java.lang.String.format;
+import static java.time.ZoneOffset.UTC;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionRegistryTest {
+
+    private static final String FIELD_FILTER_PATTERN =
+            "{\"type\": \"FIELD\", \"name\": \"%s\", \"value\": \"%s\", \"operation\": \"EQUALS\"}";
+
+    private static final ZonedDateTime CREATED = ZonedDateTime.of(2026, 10, 18, 10, 0, 0, 0, UTC);
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private Logger logger;
+
+    @Spy
+    private StringToJsonObjectConverter converter = new StringToJsonObjectConverter();
+
+    @InjectMocks
+    private SubscriptionRegistry subscriptionRegistry;
+
+    private final UUID streamId = randomUUID();
+    private final UUID userId = randomUUID();
+
+    @Test
+    public void shouldMatchTheSubscriptionsWhoseFieldFiltersNameAValueOfTheEvent() {
+        final Subscription byStream = subscriptionWith(field("STREAM_ID", streamId));
+        final Subscription byUser = subscriptionWith(field("USER_ID", userId));
+        final Subscription byName = subscriptionWith(field("NAME", "public.event-name"));
+        final Subscription byOtherUser = subscriptionWith(field("USER_ID", randomUUID()));
+        when(subscriptionRepository.findAll()).thenReturn(asList(byStream, byUser, byName, byOtherUser));
+
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")),
+                containsInAnyOrder(byStream.getId(), byUser.getId(), byName.getId()));
+    }
+
+    @Test
+    public void shouldMatchAndAndOrFiltersLikeTheirSql() {
+        final Subscription streamAndName = subscriptionWith(composite("AND", field("STREAM_ID", streamId), field("NAME", "public.event-name")));
+        final Subscription streamAndOtherName = subscriptionWith(composite("AND", field("STREAM_ID", streamId), field("NAME", "public.other-name")));
+        final Subscription otherUserOrName = subscriptionWith(composite("OR", field("USER_ID", randomUUID()), field("NAME", "public.event-name")));
+        when(subscriptionRepository.findAll()).thenReturn(asList(streamAndName, streamAndOtherName, otherUserOrName));
+
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")),
+                containsInAnyOrder(streamAndName.getId(), otherUserOrName.getId()));
+    }
+
+    @Test
+    public void shouldLeaveOutSubscriptionsWithAnEmptyGroupAsTheirSqlCannotBeCompiledEither() {
+        final Subscription emptyAnd = subscriptionWith(composite("AND"));
+        final Subscription orWithEmptyAnd = subscriptionWith(composite("OR", field("STREAM_ID", streamId), composite("AND")));
+        when(subscriptionRepository.findAll()).thenReturn(asList(emptyAnd, orWithEmptyAnd));
+
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(emptySet()));
+        assertThat(subscriptionRegistry.size(), is(0));
+    }
+
+    @Test
+    public void shouldLeaveOutSubscriptionsWhoseFilterCannotBeParsed() {
+        final Subscription invalid = subscriptionWith(field("STREAM_ID", "not-a-uuid"));
+        when(subscriptionRepository.findAll()).thenReturn(singletonList(invalid));
+
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(emptySet()));
+        assertThat(subscriptionRegistry.size(), is(0));
+    }
+
+    @Test
+    public void shouldLoadTheSubscriptionsOnlyOnce() {
+        when(subscriptionRepository.findAll()).thenReturn(singletonList(subscriptionWith(field("STREAM_ID", streamId))));
+
+        subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name"));
+        subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name"));
+
+        verify(subscriptionRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void shouldLoadTheSubscriptionsAgainAfterReloading() {
+        final Subscription subscription = subscriptionWith(field("STREAM_ID", streamId));
+        when(subscriptionRepository.findAll()).thenReturn(singletonList(subscription));
+
+        subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name"));
+        subscriptionRegistry.reload();
+
+        assertThat(subscriptionRegistry.size(), is(0));
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(singleton(subscription.getId())));
+        verify(subscriptionRepository, times(2)).findAll();
+    }
+
+    @Test
+    public void shouldFollowChangesToSubscriptions() {
+        final Subscription subscription = subscriptionWith(field("STREAM_ID", streamId));
+        when(subscriptionRepository.findAll()).thenReturn(singletonList(subscription));
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(singleton(subscription.getId())));
+
+        subscription.setFilter(field("STREAM_ID", randomUUID()));
+        when(subscriptionRepository.findBy(subscription.getId())).thenReturn(subscription);
+        subscriptionRegistry.onSubscriptionChanged(new SubscriptionChanged(subscription.getId()));
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(emptySet()));
+
+        subscription.setFilter(field("USER_ID", userId));
+        subscriptionRegistry.onSubscriptionChanged(new SubscriptionChanged(subscription.getId()));
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(singleton(subscription.getId())));
+
+        when(subscriptionRepository.findBy(subscription.getId())).thenReturn(null);
+        subscriptionRegistry.onSubscriptionChanged(new SubscriptionChanged(subscription.getId()));
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(emptySet()));
+        assertThat(subscriptionRegistry.size(), is(0));
+    }
+
+    @Test
+    public void shouldKeepTheFilterOfASubscriptionChangedWhileLoadingRatherThanTheOneLoaded() {
+        final Subscription loaded = subscriptionWith(field("USER_ID", randomUUID()));
+        final Subscription changed = new Subscription(loaded.getId(), loaded.getOwnerId(), field("STREAM_ID", streamId), CREATED);
+        when(subscriptionRepository.findBy(loaded.getId())).thenReturn(changed);
+        when(subscriptionRepository.findAll()).thenAnswer(invocation -> {
+            subscriptionRegistry.onSubscriptionChanged(new SubscriptionChanged(loaded.getId()));
+            return singletonList(loaded);
+        });
+
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(singleton(loaded.getId())));
+    }
+
+    @Test
+    public void shouldNotLoadASubscriptionRemovedWhileLoading() {
+        final Subscription loaded = subscriptionWith(field("STREAM_ID", streamId));
+        when(subscriptionRepository.findBy(loaded.getId())).thenReturn(null);
+        when(subscriptionRepository.findAll()).thenAnswer(invocation -> {
+            subscriptionRegistry.onSubscriptionChanged(new SubscriptionChanged(loaded.getId()));
+            return singletonList(loaded);
+        });
+
+        assertThat(subscriptionRegistry.matchingSubscriptionIds(eventCache("public.event-name")), is(emptySet()));
+        assertThat(subscriptionRegistry.size(), is(0));
+    }
+
+    private EventCache eventCache(final String name) {
+        return new EventCache(randomUUID(), userId, randomUUID(), null, streamId, "{}", CREATED, name);
+    }
+
+    private Subscription subscriptionWith(final String filter) {
+        return new Subscription(randomUUID(), randomUUID(), filter, CREATED);
+    }
+
+    private static String field(final String name, final Object value) {
+        return format(FIELD_FILTER_PATTERN, name, value);
+    }
+
+    private static String composite(final String type, final String... filters) {
+        return format("{\"type\": \"%s\", \"value\": [%s]}", type, String.join(",", filters));
+    }
+}
@@ -0,0 +1,112 @@
+package uk.gov.moj.cpp.notification.integration.test;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static uk.gov.moj.cpp.notification.persistence.ClusterNotification.CHANNEL;
+import static uk.gov.moj.cpp.notification.persistence.ClusterNotification.MAX_PAYLOAD_BYTES;
+
+import uk.gov.justice.services.test.utils.persistence.TestJdbcConnectionProvider;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotificationListener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sends cluster notifications through the view store Postgres, as one node would, and receives
+ * them on the connection of another node's listener.
+ */
+public class ClusterNotificationIntegrationTest {
+
+    private static final String CONTEXT_NAME = "notification";
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private final TestJdbcConnectionProvider testJdbcConnectionProvider = new TestJdbcConnectionProvider();
+
+    @Test
+    public void shouldDeliverNotificationsToListenersOnlyOnceTheirTransactionHasCommitted() throws Exception {
+        final ClusterNotification clusterNotification = new ClusterNotification(randomUUID().toString(),
+                singleton(randomUUID()), singleton("public.event"), singleton(randomUUID()), emptySet());
+
+        try (final ClusterNotificationListener listener = new ClusterNotificationListener(testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME));
+             final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME)) {
+
+            connection.setAutoCommit(false);
+            publish(connection, clusterNotification);
+
+            assertThat(listener.poll(100).isEmpty(), is(true));
+
+            connection.commit();
+
+            assertThat(listener.poll(TIMEOUT_MILLIS), is(singletonList(clusterNotification)));
+        }
+    }
+
+    @Test
+    public void shouldNotDeliverNotificationsOfTransactionsRolledBack() throws Exception {
+        final ClusterNotification clusterNotification = ClusterNotification.subscriptionChanged(randomUUID().toString(), randomUUID());
+
+        try (final ClusterNotificationListener listener = new ClusterNotificationListener(testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME));
+             final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME)) {
+
+            connection.setAutoCommit(false);
+            publish(connection, clusterNotification);
+            connection.rollback();
+
+            assertThat(listener.poll(500).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldDeliverEveryPartOfANotificationTooLargeForOnePayload() throws Exception {
+        final List<ClusterNotification> received = new ArrayList<>();
+        final ClusterNotification clusterNotification = new ClusterNotification(randomUUID().toString(),
+                emptySet(), emptySet(), randomUuids(1000), emptySet());
+
+        try (final ClusterNotificationListener listener = new ClusterNotificationListener(testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME));
+             final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME)) {
+
+            publish(connection, clusterNotification);
+
+            final int parts = clusterNotification.toPayloads(MAX_PAYLOAD_BYTES).size();
+            while (received.size() < parts) {
+                final List<ClusterNotification> polled = listener.poll(TIMEOUT_MILLIS);
+                assertThat(polled.isEmpty(), is(false));
+                received.addAll(polled);
+            }
+        }
+
+        final Set<UUID> matchedSubscriptionIds = new HashSet<>();
+        received.forEach(part -> matchedSubscriptionIds.addAll(part.getMatchedSubscriptionIds()));
+        assertThat(matchedSubscriptionIds, is(clusterNotification.getMatchedSubscriptionIds()));
+    }
+
+    private void publish(final Connection connection, final ClusterNotification clusterNotification) throws Exception {
+        for (final String payload : clusterNotification.toPayloads(MAX_PAYLOAD_BYTES)) {
+            try (final PreparedStatement preparedStatement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                preparedStatement.setString(1, CHANNEL);
+                preparedStatement.setString(2, payload);
+                preparedStatement.executeQuery();
+            }
+        }
+    }
+
+    private Set<UUID> randomUuids(final int count) {
+        final Set<UUID> uuids = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            uuids.add(randomUUID());
+        }
+        return uuids;
+    }
+}
@@ -0,0 +1,190 @@
+package uk.gov.moj.cpp.notification.integration.test;
+
+import static java.lang.String.format;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.test.utils.persistence.DatabaseCleaner;
+import uk.gov.justice.services.test.utils.persistence.TestJdbcConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that the planner reads the event cache through the composite filter indexes for the
+ * common filter shapes, in the form the event cache repository queries them: newest first by
+ * (created, id) with a limit, or oldest first after a position.
+ */
+public class EventCacheIndexIntegrationTest {
+
+    private static final String CONTEXT_NAME = "notification";
+
+    private static final int EVENT_COUNT = 20000;
+    private static final int USERS = 2000;
+    private static final int STREAMS = 2000;
+    private static final int NAMES = 200;
+    private static final int LIMIT = 100;
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO event_cache(" +
+                    "id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name" +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXPLAIN_PAGED_SELECT = "EXPLAIN SELECT " +
+            "id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name " +
+            "FROM event_cache " +
+            "WHERE (%s) " +
+            "ORDER BY created DESC, id DESC LIMIT ?";
+
+    private static final String EXPLAIN_SINCE_SELECT = "EXPLAIN SELECT " +
+            "id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name " +
+            "FROM event_cache " +
+            "WHERE (%s) and (created > ? or (created = ? and id > ?)) " +
+            "ORDER BY created ASC, id ASC LIMIT ?";
+
+    private final TestJdbcConnectionProvider testJdbcConnectionProvider = new TestJdbcConnectionProvider();
+    private final DatabaseCleaner databaseCleaner = new DatabaseCleaner();
+
+    private final List<UUID> userIds = randomUuids(USERS);
+    private final List<UUID> streamIds = randomUuids(STREAMS);
+
+    @BeforeEach
+    public void insertEvents() throws Exception {
+        databaseCleaner.cleanViewStoreTables(CONTEXT_NAME, "event_cache");
+
+        final ZonedDateTime now = new UtcClock().now();
+
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME)) {
+            connection.setAutoCommit(false);
+
+            try (final PreparedStatement preparedStatement = connection.prepareStatement(INSERT_EVENT_SQL)) {
+                for (int i = 0; i < EVENT_COUNT; i++) {
+                    preparedStatement.setObject(1, randomUUID());
+                    preparedStatement.setObject(2, userIds.get(i % USERS));
+                    preparedStatement.setObject(3, randomUUID());
+                    preparedStatement.setString(4, randomUUID().toString());
+                    preparedStatement.setObject(5, streamIds.get(i % STREAMS));
+                    preparedStatement.setString(6, "{}");
+                    preparedStatement.setTimestamp(7, toSqlTimestamp(now.minusSeconds(i)));
+                    preparedStatement.setString(8, nameOf(i));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            connection.commit();
+
+            try (final Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE event_cache");
+            }
+            connection.commit();
+        }
+    }
+
+    @AfterEach
+    public void cleanTheDatabase() {
+        databaseCleaner.cleanViewStoreTables(CONTEXT_NAME, "event_cache");
+    }
+
+    @Test
+    public void shouldPageEventsOfAUserThroughTheUserIdIndex() throws Exception {
+        final String plan = explainPaged("user_id = ?", userIds.get(0));
+
+        assertThat(plan, allOf(containsString("user_id_created_id_idx"), not(containsString("Seq Scan"))));
+    }
+
+    @Test
+    public void shouldPageEventsOfAStreamThroughTheStreamIdIndex() throws Exception {
+        final String plan = explainPaged("stream_id = ?", streamIds.get(0));
+
+        assertThat(plan, allOf(containsString("stream_id_"), not(containsString("Seq Scan"))));
+    }
+
+    @Test
+    public void shouldPageEventsOfAStreamWithANameThroughTheStreamIdAndNameIndex() throws Exception {
+        final String plan = explainPaged("stream_id = ? AND name = ?", streamIds.get(0), nameOf(0));
+
+        assertThat(plan, allOf(containsString("stream_id_name_created_id_idx"), not(containsString("Seq Scan"))));
+    }
+
+    @Test
+    public void shouldPageEventsWithANameThroughTheNameIndex() throws Exception {
+        final String plan = explainPaged("name = ?", nameOf(0));
+
+        assertThat(plan, allOf(containsString("name_created_id_idx"), not(containsString("Seq Scan"))));
+    }
+
+    @Test
+    public void shouldPageEventsOfAUserOrAStreamThroughBothIndexes() throws Exception {
+        final String plan = explainPaged("user_id = ? OR stream_id = ?", userIds.get(0), streamIds.get(1));
+
+        assertThat(plan, allOf(containsString("user_id_created_id_idx"), containsString("stream_id_"), not(containsString("Seq Scan"))));
+    }
+
+    @Test
+    public void shouldPollEventsOfAUserSinceLastPositionThroughTheUserIdIndex() throws Exception {
+        final ZonedDateTime position = new UtcClock().now().minusHours(1);
+
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME);
+             final PreparedStatement preparedStatement = connection.prepareStatement(format(EXPLAIN_SINCE_SELECT, "user_id = ?"))) {
+            preparedStatement.setObject(1, userIds.get(0));
+            preparedStatement.setTimestamp(2, toSqlTimestamp(position));
+            preparedStatement.setTimestamp(3, toSqlTimestamp(position));
+            preparedStatement.setObject(4, randomUUID());
+            preparedStatement.setInt(5, LIMIT);
+
+            assertThat(planOf(preparedStatement), allOf(containsString("user_id_created_id_idx"), not(containsString("Seq Scan"))));
+        }
+    }
+
+    private String explainPaged(final String filterClause, final Object... parameters) throws Exception {
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME);
+             final PreparedStatement preparedStatement = connection.prepareStatement(format(EXPLAIN_PAGED_SELECT, filterClause))) {
+            int parameterIndex = 1;
+            for (final Object parameter : parameters) {
+                preparedStatement.setObject(parameterIndex++, parameter);
+            }
+            preparedStatement.setInt(parameterIndex, LIMIT);
+
+            return planOf(preparedStatement);
+        }
+    }
+
+    private String planOf(final PreparedStatement preparedStatement) throws Exception {
+        final StringBuilder plan = new StringBuilder();
+
+        try (final ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+        }
+
+        return plan.toString();
+    }
+
+    private static String nameOf(final int i) {
+        return "public.event-" + i % NAMES;
+    }
+
+    private static List<UUID> randomUuids(final int count) {
+        final List<UUID> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(randomUUID());
+        }
+        return uuids;
+    }
+}
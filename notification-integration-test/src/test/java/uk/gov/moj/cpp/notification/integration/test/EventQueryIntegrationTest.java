@@ -42,6 +42,7 @@ public class EventQueryIntegrationTest {
     private static final String CONTEXT_NAME = "notification";
     private static final String QUERY_EVENTS_PATH = "/notification-query-api/query/api/rest/notifications/subscriptions/%s/events";
     private static final String QUERY_EVENTS_PATH_WITH_CLIENT_CORRELATION_ID = QUERY_EVENTS_PATH + "?clientCorrelationId=%s";
+    private static final String QUERY_EVENTS_PATH_WITH_PAGE_SIZE = QUERY_EVENTS_PATH + "?pageSize=%d";
     private final DatabaseCleaner databaseCleaner = new DatabaseCleaner();
     private final EventJdbcInserter eventJdbcInserter = new EventJdbcInserter();
     private final SubscriptionJdbcInserter subscriptionJdbcInserter = new SubscriptionJdbcInserter();
@@ -116,6 +117,24 @@ public class EventQueryIntegrationTest {
                         )));
     }
 
+    @Test
+    public void shouldGetAPageOfEventsWithANextCursorWhenPageSizeIsSupplied() {
+
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        stubUserWithPermission(userId.toString());
+
+        createUserSubscriptionAndEvents(subscriptionId, userId, true);
+
+        poll(getEventPageFor(subscriptionId, userId, 1))
+                .until(
+                        status().is(OK),
+                        payload().isJson(allOf(
+                                withJsonPath("$.events", hasSize(1)),
+                                withJsonPath("$.nextCursor", notNullValue())
+                        )));
+    }
+
     @Test
     public void shouldGetAnEmptyListOfEventsBySubscriptionIdWhenNoEventsPresentForValidSubscription() {
 
@@ -144,6 +163,38 @@ public class EventQueryIntegrationTest {
                         status().is(FORBIDDEN));
     }
 
+    @Test
+    public void shouldGetOwnedEventsForTheSubscriptionOwner() {
+
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        stubUserWithNoPermission(userId.toString());
+
+        createUserSubscriptionAndEvents(subscriptionId, userId, true);
+
+        poll(getOwnedEventsFor(subscriptionId, userId))
+                .until(
+                        status().is(OK),
+                        payload().isJson(allOf(
+                                withJsonPath("$.events", hasSize(2))
+                        )));
+    }
+
+    @Test
+    public void shouldForbidOwnedEventsForUserWhoIsNotTheSubscriptionOwner() {
+
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final UUID otherUserId = randomUUID();
+        stubUserWithNoPermission(otherUserId.toString());
+
+        createUserSubscriptionAndEvents(subscriptionId, ownerId, true);
+
+        poll(getOwnedEventsFor(subscriptionId, otherUserId))
+                .until(
+                        status().is(FORBIDDEN));
+    }
+
     private void createUserSubscriptionAndEvents(final UUID subscriptionId, final UUID userId, final boolean addEvents) {
         subscriptionJdbcInserter.insertUserIdSubscription(subscriptionId, userId);
         if (addEvents) {
@@ -197,4 +248,22 @@ public class EventQueryIntegrationTest {
                 .withHeader(USER_ID, userId)
                 .build();
     }
+
+    private RequestParams getEventPageFor(final UUID subscriptionId, final UUID userId, final int pageSize) {
+        final String url = getBaseUri() + format(QUERY_EVENTS_PATH_WITH_PAGE_SIZE, subscriptionId, pageSize);
+        final String mediaType = "application/vnd.notification.events+json";
+
+        return requestParams(url, mediaType)
+                .withHeader(USER_ID, userId)
+                .build();
+    }
+
+    private RequestParams getOwnedEventsFor(final UUID subscriptionId, final UUID userId) {
+        final String url = getBaseUri() + format(QUERY_EVENTS_PATH, subscriptionId);
+        final String mediaType = "application/vnd.notification.owned-events+json";
+
+        return requestParams(url, mediaType)
+                .withHeader(USER_ID, userId)
+                .build();
+    }
 }
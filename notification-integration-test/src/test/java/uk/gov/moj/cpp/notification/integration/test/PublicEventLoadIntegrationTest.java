@@ -0,0 +1,135 @@
+package uk.gov.moj.cpp.notification.integration.test;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.moj.cpp.notification.integration.test.dataaccess.WireMockStubUtils.stubUserWithPermission;
+
+import uk.gov.justice.services.test.utils.persistence.DatabaseCleaner;
+import uk.gov.moj.cpp.notification.integration.test.dataaccess.SubscriptionJdbcPoller;
+import uk.gov.moj.cpp.notification.integration.test.load.LatencyRecorder;
+import uk.gov.moj.cpp.notification.integration.test.load.LoadPopulation;
+import uk.gov.moj.cpp.notification.integration.test.load.LoadSettings;
+import uk.gov.moj.cpp.notification.integration.test.load.PollingSubscriber;
+import uk.gov.moj.cpp.notification.integration.test.load.PublicEventLoadGenerator;
+import uk.gov.moj.cpp.notification.integration.test.load.ViewStoreStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Puts the deployed service under a synthetic load: producers send public events onto the
+ * public.event topic at a steady rate while subscribers with a mix of filters poll
+ * notification.get-events for the events added since their last poll. It reports the ingest
+ * throughput, the percentiles of the time from sending an event to a subscriber receiving it and
+ * of the poll requests, and the time the view store database spent running statements.
+ *
+ * Only runs when a rate is given, against the same environment as the other integration tests:
+ * {@code mvn verify -Pnotification-integration-test -Dit.test=PublicEventLoadIntegrationTest
+ * -Dload.eventsPerSecond=200}, with the other settings of {@link LoadSettings}.
+ */
+@EnabledIfSystemProperty(named = LoadSettings.EVENTS_PER_SECOND, matches = "\\d+")
+public class PublicEventLoadIntegrationTest extends BaseIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublicEventLoadIntegrationTest.class);
+
+    private static final int DRAIN_TIMEOUT_SECONDS = 60;
+
+    private final DatabaseCleaner databaseCleaner = new DatabaseCleaner();
+    private final SubscriptionJdbcPoller subscriptionJdbcPoller = new SubscriptionJdbcPoller();
+    private final ViewStoreStatistics viewStoreStatistics = new ViewStoreStatistics();
+
+    private final LoadSettings loadSettings = new LoadSettings();
+    private final LoadPopulation loadPopulation = new LoadPopulation(loadSettings);
+
+    @BeforeEach
+    public void cleanTheDatabase() {
+        databaseCleaner.cleanViewStoreTables(CONTEXT_NAME, "event_cache", "subscription_event", "subscription_position", "subscription");
+    }
+
+    @Test
+    public void shouldDeliverPublicEventsToPollingSubscribersUnderLoad() throws Exception {
+        final LatencyRecorder deliveryLatency = new LatencyRecorder();
+        final LatencyRecorder pollLatency = new LatencyRecorder();
+        final AtomicLong failedPolls = new AtomicLong();
+
+        final List<PollingSubscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < loadSettings.getSubscribers(); i++) {
+            stubUserWithPermission(loadPopulation.ownerOf(i).toString());
+            final PollingSubscriber subscriber = new PollingSubscriber(randomUUID(), loadPopulation.ownerOf(i), loadPopulation.filterOf(i),
+                    loadSettings.getPollIntervalMillis(), deliveryLatency, pollLatency, failedPolls);
+            subscriber.subscribe();
+            subscribers.add(subscriber);
+        }
+        subscribers.forEach(subscriber -> subscriptionJdbcPoller.pollUntilFound(subscriber.getSubscriptionId()));
+
+        final ExecutorService subscriberExecutor = Executors.newFixedThreadPool(subscribers.size());
+        subscribers.forEach(subscriberExecutor::submit);
+
+        final AtomicLong sequence = new AtomicLong();
+        final List<PublicEventLoadGenerator> producers = new ArrayList<>();
+        for (int i = 0; i < loadSettings.getProducers(); i++) {
+            producers.add(new PublicEventLoadGenerator(loadPopulation, sequence,
+                    (double) loadSettings.getEventsPerSecond() / loadSettings.getProducers(), loadSettings.getDurationSeconds()));
+        }
+
+        final OptionalDouble activeTimeBefore = viewStoreStatistics.activeTimeMillis();
+        final long start = currentTimeMillis();
+
+        final ExecutorService producerExecutor = Executors.newFixedThreadPool(producers.size());
+        producers.forEach(producerExecutor::submit);
+        producerExecutor.shutdown();
+        producerExecutor.awaitTermination(loadSettings.getDurationSeconds() + DRAIN_TIMEOUT_SECONDS, SECONDS);
+
+        final long sent = producers.stream().mapToLong(PublicEventLoadGenerator::getSent).sum();
+        final long ingestEnd = awaitStored(sent);
+        final long stored = viewStoreStatistics.storedEvents();
+
+        MILLISECONDS.sleep(Math.max(5000, 4L * loadSettings.getPollIntervalMillis()));
+        subscribers.forEach(PollingSubscriber::stop);
+        subscriberExecutor.shutdown();
+        subscriberExecutor.awaitTermination(30, SECONDS);
+
+        final OptionalDouble activeTimeAfter = viewStoreStatistics.activeTimeMillis();
+
+        LOGGER.info("Load run {}", loadSettings);
+        LOGGER.info("Events sent {}, stored {}, ingest throughput {} events/s",
+                sent, stored, format("%.1f", stored * 1000.0 / Math.max(ingestEnd - start, 1)));
+        LOGGER.info("Send to delivery latency {}", deliveryLatency.summary());
+        LOGGER.info("Poll request latency {}, failed polls {}", pollLatency.summary(), failedPolls.get());
+        LOGGER.info("View store database time {}", activeTimeBefore.isPresent() && activeTimeAfter.isPresent()
+                ? format("%.0fms", activeTimeAfter.getAsDouble() - activeTimeBefore.getAsDouble())
+                : "not recorded before Postgres 14");
+
+        assertThat(stored, is(sent));
+        assertThat(deliveryLatency.count(), greaterThan(0));
+    }
+
+    /**
+     * @return the time the last of the sent events was stored, or the time of giving up waiting
+     */
+    private long awaitStored(final long sent) throws InterruptedException {
+        final long deadline = currentTimeMillis() + SECONDS.toMillis(DRAIN_TIMEOUT_SECONDS);
+
+        while (viewStoreStatistics.storedEvents() < sent && currentTimeMillis() < deadline) {
+            MILLISECONDS.sleep(100);
+        }
+
+        return currentTimeMillis();
+    }
+}
@@ -0,0 +1,207 @@
+package uk.gov.moj.cpp.notification.integration.test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.slf4j.LoggerFactory.getLogger;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+import static uk.gov.justice.services.test.utils.core.reflection.ReflectionUtil.setField;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+import uk.gov.justice.services.test.utils.persistence.DatabaseCleaner;
+import uk.gov.justice.services.test.utils.persistence.TestJdbcConnectionProvider;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepositoryConfig;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionPositionJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reads events since the last poll and stores the positions of subscriptions against the view
+ * store Postgres, as the cutoff is taken from the database clock and positions are upserted, which
+ * the in-memory database of the repository tests does not support.
+ */
+public class SinceLastPollIntegrationTest {
+
+    private static final String CONTEXT_NAME = "notification";
+    private static final long LAG_MILLIS = 2000L;
+
+    private static final String INSERT_SUBSCRIPTION_SQL =
+            "INSERT INTO subscription(id, owner_id, filter, created, modified) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_STORED_SQL = "UPDATE event_cache SET stored = ? WHERE id = ?";
+
+    private final TestJdbcConnectionProvider testJdbcConnectionProvider = new TestJdbcConnectionProvider();
+    private final DatabaseCleaner databaseCleaner = new DatabaseCleaner();
+
+    private final SubscriptionPositionJdbcRepository subscriptionPositionJdbcRepository = new SubscriptionPositionJdbcRepository();
+    private final SubscriptionEventJdbcRepository subscriptionEventJdbcRepository = new SubscriptionEventJdbcRepository();
+
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+
+    @BeforeEach
+    public void initializeDependencies() throws Exception {
+        databaseCleaner.cleanViewStoreTables(CONTEXT_NAME, "subscription_position", "subscription_event", "event_cache", "subscription");
+
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME));
+
+        final ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider = mock(ViewStoreJdbcDataSourceProvider.class);
+        when(viewStoreJdbcDataSourceProvider.getDataSource()).thenReturn(dataSource);
+
+        setField(subscriptionPositionJdbcRepository, "viewStoreJdbcDataSourceProvider", viewStoreJdbcDataSourceProvider);
+        setField(subscriptionPositionJdbcRepository, "preparedStatementWrapperFactory", new PreparedStatementWrapperFactory());
+        setField(subscriptionEventJdbcRepository, "viewStoreJdbcDataSourceProvider", viewStoreJdbcDataSourceProvider);
+        setField(subscriptionEventJdbcRepository, "preparedStatementWrapperFactory", new PreparedStatementWrapperFactory());
+
+        eventCacheJdbcRepository = new EventCacheJdbcRepository(
+                mock(EventCacheJdbcRepositoryConfig.class),
+                viewStoreJdbcDataSourceProvider,
+                new PreparedStatementWrapperFactory(),
+                getLogger(EventCacheJdbcRepository.class));
+    }
+
+    @Test
+    public void shouldHaveNoPositionForSubscriptionNeverPolled() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        insertSubscription(subscriptionId);
+
+        assertThat(subscriptionPositionJdbcRepository.findPosition(subscriptionId), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldStoreAndAdvanceThePosition() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        insertSubscription(subscriptionId);
+
+        final ZonedDateTime now = new UtcClock().now();
+        final PageCursor first = new PageCursor(now.minusMinutes(2), randomUUID());
+        final PageCursor second = new PageCursor(now.minusMinutes(1), randomUUID());
+
+        subscriptionPositionJdbcRepository.advancePosition(subscriptionId, first, now);
+        assertThat(subscriptionPositionJdbcRepository.findPosition(subscriptionId), is(Optional.of(first)));
+
+        subscriptionPositionJdbcRepository.advancePosition(subscriptionId, second, now);
+        assertThat(subscriptionPositionJdbcRepository.findPosition(subscriptionId), is(Optional.of(second)));
+    }
+
+    @Test
+    public void shouldNotMoveThePositionBackwards() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        insertSubscription(subscriptionId);
+
+        final ZonedDateTime now = new UtcClock().now();
+        final PageCursor newer = new PageCursor(now.minusMinutes(1), randomUUID());
+        final PageCursor older = new PageCursor(now.minusMinutes(2), randomUUID());
+
+        subscriptionPositionJdbcRepository.advancePosition(subscriptionId, newer, now);
+        subscriptionPositionJdbcRepository.advancePosition(subscriptionId, older, now);
+
+        assertThat(subscriptionPositionJdbcRepository.findPosition(subscriptionId), is(Optional.of(newer)));
+    }
+
+    @Test
+    public void shouldNotStorePositionForUnknownSubscription() throws Exception {
+        final UUID subscriptionId = randomUUID();
+
+        subscriptionPositionJdbcRepository.advancePosition(subscriptionId, new PageCursor(new UtcClock().now(), randomUUID()), new UtcClock().now());
+
+        assertThat(subscriptionPositionJdbcRepository.findPosition(subscriptionId), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldReadTheEventsRecordedForASubscriptionSinceAPositionInTheOrderTheyWereStored() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache first = eventCacheFor(randomUUID(), now.minusMinutes(1));
+        final EventCache second = eventCacheFor(randomUUID(), now.minusMinutes(2));
+        final EventCache third = eventCacheFor(randomUUID(), now.minusMinutes(3));
+        final EventCache withinLag = eventCacheFor(randomUUID(), now.minusMinutes(4));
+
+        eventCacheJdbcRepository.insertBatch(asList(first, second, third, withinLag));
+        subscriptionEventJdbcRepository.insert(asList(
+                new EventCacheMatched(first, singleton(subscriptionId)),
+                new EventCacheMatched(second, singleton(subscriptionId)),
+                new EventCacheMatched(third, singleton(subscriptionId)),
+                new EventCacheMatched(withinLag, singleton(subscriptionId))));
+        updateStored(first, now.minusSeconds(30));
+        updateStored(second, now.minusSeconds(20));
+        updateStored(third, now.minusSeconds(10));
+
+        final List<EventCache> since = eventCacheJdbcRepository.queryBySubscriptionEventsSince(subscriptionId,
+                Optional.of(new PageCursor(now.minusSeconds(30), first.getId())), LAG_MILLIS, 10);
+
+        assertThat(idsOf(since), is(asList(second.getId(), third.getId())));
+    }
+
+    @Test
+    public void shouldReadTheEventsMatchingAFilterSinceAPositionInTheOrderTheyWereStored() throws Exception {
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache first = eventCacheFor(userId, now.minusMinutes(1));
+        final EventCache second = eventCacheFor(userId, now.minusMinutes(2));
+        final EventCache otherUser = eventCacheFor(randomUUID(), now.minusMinutes(3));
+        final EventCache withinLag = eventCacheFor(userId, now.minusMinutes(4));
+
+        eventCacheJdbcRepository.insertBatch(asList(first, second, otherUser, withinLag));
+        updateStored(first, now.minusSeconds(30));
+        updateStored(second, now.minusSeconds(20));
+        updateStored(otherUser, now.minusSeconds(10));
+
+        final List<EventCache> since = eventCacheJdbcRepository.queryByFilterSince(new FilterClause("user_id = ?", singletonList(userId)),
+                Optional.empty(), LAG_MILLIS, 10);
+
+        assertThat(idsOf(since), is(asList(first.getId(), second.getId())));
+    }
+
+    private void insertSubscription(final UUID subscriptionId) throws Exception {
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME);
+             final PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SUBSCRIPTION_SQL)) {
+            preparedStatement.setObject(1, subscriptionId);
+            preparedStatement.setObject(2, randomUUID());
+            preparedStatement.setString(3, "{}");
+            preparedStatement.setTimestamp(4, toSqlTimestamp(new UtcClock().now()));
+            preparedStatement.setTimestamp(5, toSqlTimestamp(new UtcClock().now()));
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void updateStored(final EventCache eventCache, final ZonedDateTime stored) throws Exception {
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME);
+             final PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_STORED_SQL)) {
+            preparedStatement.setTimestamp(1, toSqlTimestamp(stored));
+            preparedStatement.setObject(2, eventCache.getId());
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private List<UUID> idsOf(final List<EventCache> events) {
+        return events.stream().map(EventCache::getId).collect(toList());
+    }
+
+    private EventCache eventCacheFor(final UUID userId, final ZonedDateTime created) {
+        return new EventCache(randomUUID(), userId, randomUUID(), "correlationId", randomUUID(), "{}", created, "public.event");
+    }
+}
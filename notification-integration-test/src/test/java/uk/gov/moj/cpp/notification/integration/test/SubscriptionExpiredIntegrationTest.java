@@ -13,6 +13,7 @@ import uk.gov.justice.services.test.utils.core.messaging.Poller;
 import uk.gov.justice.services.test.utils.core.random.RandomGenerator;
 import uk.gov.justice.services.test.utils.core.rest.RestClient;
 import uk.gov.justice.services.test.utils.persistence.DatabaseCleaner;
+import uk.gov.moj.cpp.notification.integration.test.dataaccess.SubscriptionJdbcFinder;
 import uk.gov.moj.cpp.notification.integration.test.dataaccess.SubscriptionJdbcInserter;
 import uk.gov.moj.cpp.notification.integration.test.dataaccess.SubscriptionJdbcPoller;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
@@ -30,6 +31,7 @@ import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.UUID.randomUUID;
 import static javax.ws.rs.core.Response.Status.ACCEPTED;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -43,6 +45,7 @@ import static uk.gov.justice.services.test.utils.core.http.BaseUriProvider.getBa
 import static uk.gov.justice.services.test.utils.core.http.RequestParamsBuilder.requestParams;
 import static uk.gov.justice.services.test.utils.core.http.RestPoller.poll;
 import static uk.gov.justice.services.test.utils.core.matchers.ResponsePayloadMatcher.payload;
+import static uk.gov.moj.cpp.notification.integration.test.dataaccess.WireMockStubUtils.setupUserAsNormalUser;
 import static uk.gov.moj.cpp.notification.integration.test.dataaccess.WireMockStubUtils.setupUserAsSystemUser;
 import static uk.gov.moj.cpp.notification.system.management.commands.subscriptions.clean.CleanSubscriptionsCommand.CLEAN_SUBSCRIPTIONS;
 
@@ -51,6 +54,7 @@ public class SubscriptionExpiredIntegrationTest {
 
     private static final String CONTEXT_NAME = "notification";
     private static final String SUBSCRIPTIONS_COMMAND_URI = "/notification-command-api/command/api/rest/notification/subscriptions/%s";
+    private static final String UNSUBSCRIBE_BATCH_COMMAND_URI = "/notification-command-api/command/api/rest/notification/subscriptions";
     private static final String QUERY_API_PATH = "/notification-query-api/query/api/rest/notifications/subscriptions/expired-subscriptions";
     private static final int MILLI_SECONDS_IN_8_HOURS = 28800000;
     private static final int TOTAL_SUBSCRIPTION_COUNT = 10;
@@ -65,6 +69,7 @@ public class SubscriptionExpiredIntegrationTest {
     private final SubscriptionJdbcInserter subscriptionJdbcInserter = new SubscriptionJdbcInserter();
     private final String SYSTEM_USER_ID = "0dac8d08-c5e4-427c-81e5-870b4c57984a";
     private final SubscriptionJdbcPoller subscriptionJdbcPoller = new SubscriptionJdbcPoller();
+    private final SubscriptionJdbcFinder subscriptionJdbcFinder = new SubscriptionJdbcFinder();
 
     private final TestSystemCommanderClientFactory systemCommanderClientFactory = new TestSystemCommanderClientFactory();
 
@@ -152,6 +157,49 @@ public class SubscriptionExpiredIntegrationTest {
 
     }
 
+    @Test
+    public void shouldUnsubscribeExpiredSubscriptionsThroughTheCommandApi() throws Exception {
+
+        final UUID userId = randomUUID();
+        final UUID expiredSubscriptionId_1 = randomUUID();
+        final UUID expiredSubscriptionId_2 = randomUUID();
+        final UUID activeSubscriptionId = randomUUID();
+
+        createSubscription(expiredSubscriptionId_1, userId.toString());
+        createSubscription(expiredSubscriptionId_2, userId.toString());
+        createSubscription(activeSubscriptionId, userId.toString());
+
+        assertThat(subscriptionJdbcPoller.pollUntilFound(expiredSubscriptionId_1).isPresent(), is(true));
+        assertThat(subscriptionJdbcPoller.pollUntilFound(expiredSubscriptionId_2).isPresent(), is(true));
+        assertThat(subscriptionJdbcPoller.pollUntilFound(activeSubscriptionId).isPresent(), is(true));
+
+        subscriptionJdbcInserter.rollbackModificationDate(expiredSubscriptionId_1, 8);
+        subscriptionJdbcInserter.rollbackModificationDate(expiredSubscriptionId_2, 8);
+
+        runCleanSubscriptions();
+
+        subscriptionJdbcPoller.pollUntilNotFound(expiredSubscriptionId_1);
+        subscriptionJdbcPoller.pollUntilNotFound(expiredSubscriptionId_2);
+
+        assertThat(subscriptionJdbcFinder.findSubscription(activeSubscriptionId).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldNotAllowAUserWhoIsNotASystemUserToUnsubscribeABatch() throws Exception {
+
+        final String userId = randomUUID().toString();
+        setupUserAsNormalUser(userId);
+
+        final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(USER_ID, userId);
+
+        final Response response = restClient.postCommand(
+                getBaseUri() + UNSUBSCRIBE_BATCH_COMMAND_URI, "application/vnd.notification.unsubscribe-batch+json",
+                format("{\"subscriptionIds\": [\"%s\"]}", randomUUID()), headers);
+
+        assertThat(response.getStatus(), is(FORBIDDEN.getStatusCode()));
+    }
+
     private void createSubscription(final UUID subscriptionId, final String userId) {
         final String subscribeCommandUrl = getBaseUri() + format(SUBSCRIPTIONS_COMMAND_URI, subscriptionId.toString());
 
@@ -0,0 +1,46 @@
+package uk.gov.moj.cpp.notification.integration.test.load;
+
+import static java.lang.String.format;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies in milliseconds from any number of threads and reports their percentiles.
+ */
+public class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+
+    public synchronized void record(final long latencyMillis) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyMillis;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @return the latency below which the given percentage of the recorded latencies fall, or 0
+     * if none have been recorded
+     */
+    public synchronized long percentile(final double percentage) {
+        if (count == 0) {
+            return 0;
+        }
+
+        final long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+
+        final int index = (int) Math.ceil(percentage / 100 * count) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    public String summary() {
+        return format("count=%d p50=%dms p90=%dms p99=%dms max=%dms",
+                count(), percentile(50), percentile(90), percentile(99), percentile(100));
+    }
+}
@@ -0,0 +1,97 @@
+package uk.gov.moj.cpp.notification.integration.test.load;
+
+import static java.util.UUID.randomUUID;
+import static uk.gov.justice.services.messaging.JsonObjects.createArrayBuilder;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
+import static uk.gov.moj.cpp.notification.common.FieldNames.NAME;
+import static uk.gov.moj.cpp.notification.common.FieldNames.STREAM_ID;
+import static uk.gov.moj.cpp.notification.common.FieldNames.USER_ID;
+import static uk.gov.moj.cpp.notification.common.FilterType.AND;
+import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
+import static uk.gov.moj.cpp.notification.common.FilterType.OR;
+import static uk.gov.moj.cpp.notification.common.OperationType.EQUALS;
+
+import uk.gov.moj.cpp.notification.common.FieldNames;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.json.JsonObject;
+
+/**
+ * The users, streams and event names of a load run. Each simulated subscriber owns one of the
+ * users and subscribes with one of three filter shapes, in turn: the events of its user, the
+ * events of a stream with a given name, or the events with either of two names. Events are
+ * spread evenly over the users, streams and names, so that every subscriber receives a share.
+ */
+public class LoadPopulation {
+
+    private static final String[] EVENT_NAMES = {
+            "public.listing.hearing-changes-saved",
+            "public.progression.case-added",
+            "public.progression.defendant-added",
+            "public.progression.hearing-resulted",
+            "public.hearing.resulted",
+            "public.sjp.case-completed"
+    };
+
+    private final List<UUID> users = new ArrayList<>();
+    private final List<UUID> streams = new ArrayList<>();
+
+    public LoadPopulation(final LoadSettings loadSettings) {
+        for (int i = 0; i < loadSettings.getSubscribers(); i++) {
+            users.add(randomUUID());
+        }
+        for (int i = 0; i < loadSettings.getStreams(); i++) {
+            streams.add(randomUUID());
+        }
+    }
+
+    public UUID ownerOf(final int subscriber) {
+        return users.get(subscriber);
+    }
+
+    public JsonObject filterOf(final int subscriber) {
+        switch (subscriber % 3) {
+            case 0:
+                return field(USER_ID, users.get(subscriber).toString());
+            case 1:
+                return combined(AND.name(),
+                        field(STREAM_ID, streams.get(subscriber % streams.size()).toString()),
+                        field(NAME, eventNameOf(subscriber)));
+            default:
+                return combined(OR.name(),
+                        field(NAME, eventNameOf(subscriber)),
+                        field(NAME, eventNameOf(subscriber + 1)));
+        }
+    }
+
+    public UUID userOf(final long event) {
+        return users.get((int) (event % users.size()));
+    }
+
+    public UUID streamOf(final long event) {
+        return streams.get((int) (event % streams.size()));
+    }
+
+    public String eventNameOf(final long event) {
+        return EVENT_NAMES[(int) (event % EVENT_NAMES.length)];
+    }
+
+    private static JsonObject field(final FieldNames name, final String value) {
+        return createObjectBuilder()
+                .add("type", FIELD.name())
+                .add("name", name.name())
+                .add("value", value)
+                .add("operation", EQUALS.name())
+                .build();
+    }
+
+    private static JsonObject combined(final String type, final JsonObject first, final JsonObject second) {
+        return createObjectBuilder()
+                .add("type", type)
+                .add("value", createArrayBuilder().add(first).add(second))
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package uk.gov.moj.cpp.notification.integration.test.load;
+
+import static java.lang.Integer.getInteger;
+
+/**
+ * Settings of a load run, read from system properties so that a run can be sized on the maven
+ * command line, e.g. {@code -Dload.eventsPerSecond=500 -Dload.subscribers=200}.
+ */
+public class LoadSettings {
+
+    public static final String EVENTS_PER_SECOND = "load.eventsPerSecond";
+
+    private final int eventsPerSecond;
+    private final int producers;
+    private final int durationSeconds;
+    private final int subscribers;
+    private final int pollIntervalMillis;
+    private final int streams;
+
+    public LoadSettings() {
+        this.eventsPerSecond = getInteger(EVENTS_PER_SECOND, 100);
+        this.producers = getInteger("load.producers", 1);
+        this.durationSeconds = getInteger("load.durationSeconds", 60);
+        this.subscribers = getInteger("load.subscribers", 50);
+        this.pollIntervalMillis = getInteger("load.pollIntervalMillis", 500);
+        this.streams = getInteger("load.streams", 100);
+    }
+
+    public int getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public int getProducers() {
+        return producers;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getSubscribers() {
+        return subscribers;
+    }
+
+    public int getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    public int getStreams() {
+        return streams;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadSettings{" +
+                "eventsPerSecond=" + eventsPerSecond +
+                ", producers=" + producers +
+                ", durationSeconds=" + durationSeconds +
+                ", subscribers=" + subscribers +
+                ", pollIntervalMillis=" + pollIntervalMillis +
+                ", streams=" + streams +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+package uk.gov.moj.cpp.notification.integration.test.load;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
+import static javax.ws.rs.core.Response.Status.OK;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
+import static uk.gov.justice.services.test.utils.core.http.BaseUriProvider.getBaseUri;
+import static uk.gov.moj.cpp.notification.integration.test.load.PublicEventLoadGenerator.SENT_AT_MILLIS;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.justice.services.common.http.HeaderConstants;
+import uk.gov.justice.services.test.utils.core.rest.RestClient;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.json.JsonObject;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+/**
+ * A subscriber of a load run. It subscribes through the command api, then polls
+ * notification.get-events for the events added since its last poll until it is stopped,
+ * acknowledging the events of each poll through the command api, and records the time from
+ * sending each event it receives to receiving it. Acknowledgements are applied asynchronously, so
+ * an event may be received again by the poll straight after.
+ */
+public class PollingSubscriber implements Runnable {
+
+    private static final String SUBSCRIPTION_COMMAND_API_PATH = "/notification-command-api/command/api/rest/notification/subscriptions/%s";
+    private static final String EVENTS_SINCE_LAST_POLL_PATH = "/notification-query-api/query/api/rest/notifications/subscriptions/%s/events?sinceLastPoll=true";
+    private static final String FILTER_MEDIA_TYPE = "application/vnd.notification.filter+json";
+    private static final String ACKNOWLEDGE_EVENTS_MEDIA_TYPE = "application/vnd.notification.acknowledge-events+json";
+    private static final String EVENTS_MEDIA_TYPE = "application/vnd.notification.events+json";
+
+    private final RestClient restClient = new RestClient();
+    private final StringToJsonObjectConverter stringToJsonObjectConverter = new StringToJsonObjectConverter();
+
+    private final UUID subscriptionId;
+    private final UUID ownerId;
+    private final JsonObject filter;
+    private final int pollIntervalMillis;
+    private final LatencyRecorder deliveryLatency;
+    private final LatencyRecorder pollLatency;
+    private final AtomicLong failedPolls;
+
+    private volatile boolean stopped;
+
+    public PollingSubscriber(final UUID subscriptionId,
+                             final UUID ownerId,
+                             final JsonObject filter,
+                             final int pollIntervalMillis,
+                             final LatencyRecorder deliveryLatency,
+                             final LatencyRecorder pollLatency,
+                             final AtomicLong failedPolls) {
+        this.subscriptionId = subscriptionId;
+        this.ownerId = ownerId;
+        this.filter = filter;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.deliveryLatency = deliveryLatency;
+        this.pollLatency = pollLatency;
+        this.failedPolls = failedPolls;
+    }
+
+    public void subscribe() {
+        final String url = getBaseUri() + format(SUBSCRIPTION_COMMAND_API_PATH, subscriptionId);
+
+        try (final Response response = restClient.postCommand(url, FILTER_MEDIA_TYPE, filter.toString(), headers())) {
+            if (response.getStatus() != ACCEPTED.getStatusCode()) {
+                throw new IllegalStateException(format("Subscription '%s' failed with status %d", subscriptionId, response.getStatus()));
+            }
+        }
+    }
+
+    public UUID getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void run() {
+        while (!stopped && !Thread.currentThread().isInterrupted()) {
+            poll();
+
+            try {
+                MILLISECONDS.sleep(pollIntervalMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void poll() {
+        final String url = getBaseUri() + format(EVENTS_SINCE_LAST_POLL_PATH, subscriptionId);
+        final long start = currentTimeMillis();
+
+        try (final Response response = restClient.query(url, EVENTS_MEDIA_TYPE, headers())) {
+            final String body = response.readEntity(String.class);
+            final long received = currentTimeMillis();
+            pollLatency.record(received - start);
+
+            if (response.getStatus() != OK.getStatusCode()) {
+                failedPolls.incrementAndGet();
+                return;
+            }
+
+            final JsonObject payload = stringToJsonObjectConverter.convert(body);
+
+            payload.getJsonArray("events")
+                    .getValuesAs(JsonObject.class)
+                    .stream()
+                    .filter(event -> event.containsKey(SENT_AT_MILLIS))
+                    .forEach(event -> deliveryLatency.record(received - event.getJsonNumber(SENT_AT_MILLIS).longValue()));
+
+            if (payload.containsKey("nextCursor")) {
+                acknowledge(payload.getString("nextCursor"));
+            }
+        } catch (final RuntimeException e) {
+            failedPolls.incrementAndGet();
+        }
+    }
+
+    private void acknowledge(final String nextCursor) {
+        final String url = getBaseUri() + format(SUBSCRIPTION_COMMAND_API_PATH, subscriptionId);
+        final String acknowledgement = createObjectBuilder().add("position", nextCursor).build().toString();
+
+        try (final Response response = restClient.postCommand(url, ACKNOWLEDGE_EVENTS_MEDIA_TYPE, acknowledgement, headers())) {
+            if (response.getStatus() != ACCEPTED.getStatusCode()) {
+                failedPolls.incrementAndGet();
+            }
+        }
+    }
+
+    private MultivaluedMap<String, Object> headers() {
+        final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(HeaderConstants.USER_ID, ownerId);
+        return headers;
+    }
+}
@@ -0,0 +1,91 @@
+package uk.gov.moj.cpp.notification.integration.test.load;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static uk.gov.justice.services.integrationtest.utils.jms.JmsMessageProducerClientProvider.newPublicJmsMessageProducerClientProvider;
+import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
+import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithRandomUUID;
+
+import uk.gov.justice.services.integrationtest.utils.jms.JmsMessageProducerClient;
+import uk.gov.justice.services.messaging.JsonEnvelope;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends public events onto the public.event topic at a steady rate for a fixed time, as one
+ * producer of a load run. Every event carries the time it was sent in its payload, so that the
+ * subscribers can measure how long it took to reach them.
+ */
+public class PublicEventLoadGenerator implements Runnable {
+
+    public static final String SENT_AT_MILLIS = "sentAtMillis";
+
+    private final LoadPopulation loadPopulation;
+    private final AtomicLong sequence;
+    private final double eventsPerSecond;
+    private final int durationSeconds;
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * @param sequence shared by the producers of a run, so that their events are spread over the
+     *                 population together
+     */
+    public PublicEventLoadGenerator(final LoadPopulation loadPopulation,
+                                    final AtomicLong sequence,
+                                    final double eventsPerSecond,
+                                    final int durationSeconds) {
+        this.loadPopulation = loadPopulation;
+        this.sequence = sequence;
+        this.eventsPerSecond = eventsPerSecond;
+        this.durationSeconds = durationSeconds;
+    }
+
+    @Override
+    public void run() {
+        final JmsMessageProducerClient publicMessageProducerClient = newPublicJmsMessageProducerClientProvider()
+                .getMessageProducerClient();
+
+        final long intervalNanos = (long) (SECONDS.toNanos(1) / eventsPerSecond);
+        final long start = nanoTime();
+        final long end = start + SECONDS.toNanos(durationSeconds);
+
+        for (long next = start; next < end && !Thread.currentThread().isInterrupted(); next += intervalNanos) {
+            final long wait = next - nanoTime();
+            if (wait > 0) {
+                try {
+                    NANOSECONDS.sleep(wait);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            final JsonEnvelope event = eventOf(sequence.getAndIncrement());
+            publicMessageProducerClient.sendMessage(event.metadata().name(), event);
+            sent.incrementAndGet();
+        }
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    private JsonEnvelope eventOf(final long event) {
+        return envelopeFrom(
+                metadataWithRandomUUID(loadPopulation.eventNameOf(event))
+                        .withClientCorrelationId(randomUUID().toString())
+                        .withSessionId(randomUUID().toString())
+                        .withUserId(loadPopulation.userOf(event).toString())
+                        .withStreamId(loadPopulation.streamOf(event))
+                        .build(),
+                createObjectBuilder()
+                        .add("hearingId", randomUUID().toString())
+                        .add("courtCentreName", "Lavender Hill Magistrates' Court")
+                        .add(SENT_AT_MILLIS, currentTimeMillis())
+                        .build());
+    }
+}
@@ -0,0 +1,49 @@
+package uk.gov.moj.cpp.notification.integration.test.load;
+
+import uk.gov.justice.services.jdbc.persistence.DataAccessException;
+import uk.gov.justice.services.test.utils.persistence.TestJdbcConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.OptionalDouble;
+
+/**
+ * Reads the view store figures a load run reports: the events stored in the event cache, and the
+ * time Postgres has spent running statements in the view store database.
+ */
+public class ViewStoreStatistics {
+
+    private static final String CONTEXT_NAME = "notification";
+
+    private static final String COUNT_EVENTS_SQL = "SELECT count(*) FROM event_cache";
+    private static final String ACTIVE_TIME_SQL = "SELECT active_time FROM pg_stat_database WHERE datname = current_database()";
+
+    private final TestJdbcConnectionProvider testJdbcConnectionProvider = new TestJdbcConnectionProvider();
+
+    public long storedEvents() {
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME);
+             final PreparedStatement preparedStatement = connection.prepareStatement(COUNT_EVENTS_SQL);
+             final ResultSet resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (final SQLException e) {
+            throw new DataAccessException("Failed to count the events of the event_cache table", e);
+        }
+    }
+
+    /**
+     * @return the milliseconds spent executing statements in the view store database since its
+     * statistics were last reset, or empty before Postgres 14, which does not record them
+     */
+    public OptionalDouble activeTimeMillis() {
+        try (final Connection connection = testJdbcConnectionProvider.getViewStoreConnection(CONTEXT_NAME);
+             final PreparedStatement preparedStatement = connection.prepareStatement(ACTIVE_TIME_SQL);
+             final ResultSet resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next() ? OptionalDouble.of(resultSet.getDouble(1)) : OptionalDouble.empty();
+        } catch (final SQLException e) {
+            return OptionalDouble.empty();
+        }
+    }
+}
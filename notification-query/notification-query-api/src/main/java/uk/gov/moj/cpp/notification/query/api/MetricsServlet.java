@@ -0,0 +1,71 @@
+package uk.gov.moj.cpp.notification.query.api;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.UUID.randomUUID;
+import static javax.json.JsonValue.NULL;
+import static javax.servlet.http.HttpServletResponse.SC_FORBIDDEN;
+import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
+import static uk.gov.justice.services.messaging.JsonEnvelope.metadataBuilder;
+
+import uk.gov.justice.services.common.http.HeaderConstants;
+import uk.gov.moj.cpp.accesscontrol.common.providers.UserAndGroupProvider;
+import uk.gov.moj.cpp.accesscontrol.drools.Action;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the metrics of the notification context in the Prometheus text format, for scraping.
+ * The same metrics are published over JMX.
+ *
+ * The servlet is deployed with the rest of the query API, so like the other system queries it is
+ * only served to a system user, given by the user id header of the request.
+ */
+@WebServlet(urlPatterns = MetricsServlet.URL_PATTERN)
+public class MetricsServlet extends HttpServlet {
+
+    static final String URL_PATTERN = "/internal/metrics";
+    static final String ACTION_NAME = "notification.get-metrics";
+
+    private static final long serialVersionUID = 1L;
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    @Inject
+    transient PrometheusMetricsWriter prometheusMetricsWriter;
+
+    @Inject
+    transient UserAndGroupProvider userAndGroupProvider;
+
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        if (!isSystemUser(request.getHeader(HeaderConstants.USER_ID))) {
+            response.sendError(SC_FORBIDDEN);
+            return;
+        }
+
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(UTF_8.name());
+
+        prometheusMetricsWriter.write(response.getWriter());
+    }
+
+    private boolean isSystemUser(final String userId) {
+        if (userId == null) {
+            return false;
+        }
+
+        final Action action = new Action(envelopeFrom(
+                metadataBuilder()
+                        .withId(randomUUID())
+                        .withName(ACTION_NAME)
+                        .withUserId(userId),
+                NULL));
+
+        return userAndGroupProvider.isSystemUser(action);
+    }
+}
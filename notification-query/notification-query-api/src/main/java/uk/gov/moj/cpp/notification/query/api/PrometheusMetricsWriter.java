@@ -0,0 +1,276 @@
+package uk.gov.moj.cpp.notification.query.api;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.management.Descriptor;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * Writes the metrics the notification context publishes over JMX, the MBeans of the
+ * {@value #DOMAIN} domain, in the Prometheus text format, so that they can be scraped without a
+ * JMX agent. Each attribute becomes a metric named after the type of its MBean and the attribute,
+ * for example notification_event_cache_cleaner_rows_deleted:
+ *
+ * <ul>
+ *     <li>numbers are written as they are</li>
+ *     <li>histograms are written as Prometheus histograms, with cumulative buckets</li>
+ *     <li>maps of an attribute named ...ByX are written as one metric labelled x per entry</li>
+ *     <li>lists of composites, such as the filter shapes, are written as one metric per numeric
+ *     item, labelled with their text items</li>
+ * </ul>
+ *
+ * Attributes, and items of lists of composites, marked as a {@link Counter} are written as
+ * Prometheus counters, with the suffix _total.
+ *
+ * Attributes are only read when scraped, so the metrics cost nothing between scrapes.
+ */
+@ApplicationScoped
+public class PrometheusMetricsWriter {
+
+    static final String DOMAIN = "uk.gov.moj.cpp.notification";
+
+    private static final String PREFIX = "notification_";
+    private static final String BY = "_by_";
+    private static final String TOTAL = "_total";
+    private static final String COUNTER = "counter";
+    private static final String HISTOGRAM = "histogram";
+
+    MBeanServer mBeanServer = getPlatformMBeanServer();
+
+    public void write(final Writer writer) throws IOException {
+        final Map<String, Family> families = new TreeMap<>();
+
+        for (final ObjectName objectName : notificationMBeans()) {
+            final String type = objectName.getKeyProperty("type");
+            if (type == null) {
+                continue;
+            }
+
+            for (final MBeanAttributeInfo attribute : attributesOf(objectName)) {
+                final Object value = attributeOf(objectName, attribute);
+                if (value != null) {
+                    final String metric = PREFIX + snakeCase(type) + "_" + snakeCase(attribute.getName());
+                    final Set<String> counterItems = counterItemsOf(attribute);
+                    addSamples(families, metric, "", value, counterItems.isEmpty() && isCounter(attribute), counterItems);
+                }
+            }
+        }
+
+        for (final Family family : families.values()) {
+            family.write(writer);
+        }
+        writer.flush();
+    }
+
+    private void addSamples(
+            final Map<String, Family> families,
+            final String metric,
+            final String labels,
+            final Object value,
+            final boolean counter,
+            final Set<String> counterItems) {
+
+        if (value instanceof Number) {
+            addSample(families, metric, labels, value.toString(), counter);
+        } else if (value instanceof Boolean) {
+            addSample(families, metric, labels, (Boolean) value ? "1" : "0", false);
+        } else if (value instanceof CompositeData) {
+            addCompositeSamples(families, metric, labels, (CompositeData) value, counterItems);
+        } else if (value instanceof TabularData) {
+            addMapSamples(families, metric, labels, (TabularData) value, counter);
+        } else if (value instanceof CompositeData[]) {
+            for (final CompositeData compositeData : (CompositeData[]) value) {
+                addCompositeSamples(families, metric, labels + textLabelsOf(compositeData), compositeData, counterItems);
+            }
+        }
+    }
+
+    private void addSample(final Map<String, Family> families, final String metric, final String labels, final String value, final boolean counter) {
+        if (counter) {
+            familyOf(families, metric + TOTAL, COUNTER).add(metric + TOTAL, labels, value);
+        } else {
+            familyOf(families, metric, null).add(metric, labels, value);
+        }
+    }
+
+    private void addCompositeSamples(
+            final Map<String, Family> families,
+            final String metric,
+            final String labels,
+            final CompositeData compositeData,
+            final Set<String> counterItems) {
+
+        final Set<String> keys = compositeData.getCompositeType().keySet();
+
+        if (keys.contains("upperBounds") && keys.contains("bucketCounts") && keys.contains("sum")) {
+            addHistogramSamples(familyOf(families, metric, HISTOGRAM), metric, labels, compositeData);
+            return;
+        }
+
+        for (final String key : keys) {
+            final Object item = compositeData.get(key);
+            if (!(item instanceof String)) {
+                addSamples(families, metric + "_" + snakeCase(key), labels, item, counterItems.contains(key), emptySet());
+            }
+        }
+    }
+
+    private void addMapSamples(
+            final Map<String, Family> families,
+            final String metric,
+            final String labels,
+            final TabularData tabularData,
+            final boolean counter) {
+
+        final int by = metric.lastIndexOf(BY);
+        final String name = by < 0 ? metric : metric.substring(0, by);
+        final String labelName = by < 0 ? "key" : metric.substring(by + BY.length());
+
+        final Map<String, Object> entries = new TreeMap<>();
+        for (final Object row : tabularData.values()) {
+            final CompositeData entry = (CompositeData) row;
+            entries.put(String.valueOf(entry.get("key")), entry.get("value"));
+        }
+
+        entries.forEach((key, entryValue) -> addSamples(families, name, labels + label(labelName, key), entryValue, counter, emptySet()));
+    }
+
+    private void addHistogramSamples(final Family family, final String metric, final String labels, final CompositeData histogram) {
+        final long[] upperBounds = (long[]) histogram.get("upperBounds");
+        final long[] bucketCounts = (long[]) histogram.get("bucketCounts");
+
+        long cumulative = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            cumulative += bucketCounts[i];
+            final String le = i < upperBounds.length ? Long.toString(upperBounds[i]) : "+Inf";
+            family.add(metric + "_bucket", labels + label("le", le), Long.toString(cumulative));
+        }
+        family.add(metric + "_sum", labels, histogram.get("sum").toString());
+        family.add(metric + "_count", labels, Long.toString(cumulative));
+    }
+
+    private String textLabelsOf(final CompositeData compositeData) {
+        final StringBuilder labels = new StringBuilder();
+        for (final String key : compositeData.getCompositeType().keySet()) {
+            final Object item = compositeData.get(key);
+            if (item instanceof String) {
+                labels.append(label(snakeCase(key), (String) item));
+            }
+        }
+        return labels.toString();
+    }
+
+    private Set<ObjectName> notificationMBeans() throws IOException {
+        try {
+            return mBeanServer.queryNames(new ObjectName(DOMAIN + ":*"), null);
+        } catch (final JMException e) {
+            throw new IOException("Could not query the MBeans of " + DOMAIN, e);
+        }
+    }
+
+    private List<MBeanAttributeInfo> attributesOf(final ObjectName objectName) {
+        final List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        try {
+            for (final MBeanAttributeInfo attribute : mBeanServer.getMBeanInfo(objectName).getAttributes()) {
+                if (attribute.isReadable()) {
+                    attributes.add(attribute);
+                }
+            }
+        } catch (final JMException e) {
+            // unregistered since it was queried
+        }
+        return attributes;
+    }
+
+    private Object attributeOf(final ObjectName objectName, final MBeanAttributeInfo attribute) {
+        try {
+            return mBeanServer.getAttribute(objectName, attribute.getName());
+        } catch (final JMException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCounter(final MBeanAttributeInfo attribute) {
+        final Descriptor descriptor = attribute.getDescriptor();
+        return descriptor != null && Boolean.TRUE.equals(descriptor.getFieldValue(Counter.COUNTER_FIELD));
+    }
+
+    private static Set<String> counterItemsOf(final MBeanAttributeInfo attribute) {
+        final Descriptor descriptor = attribute.getDescriptor();
+        final Object items = descriptor == null ? null : descriptor.getFieldValue(Counter.COUNTER_ITEMS_FIELD);
+        return items instanceof String[] ? new HashSet<>(asList((String[]) items)) : emptySet();
+    }
+
+    private static Family familyOf(final Map<String, Family> families, final String metric, final String type) {
+        return families.computeIfAbsent(metric, name -> new Family(name, type));
+    }
+
+    private static String label(final String name, final String value) {
+        final String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return "," + name + "=\"" + escaped + "\"";
+    }
+
+    static String snakeCase(final String camelCase) {
+        final StringBuilder snakeCase = new StringBuilder();
+        for (int i = 0; i < camelCase.length(); i++) {
+            final char c = camelCase.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(camelCase.charAt(i - 1))) {
+                snakeCase.append('_');
+            }
+            snakeCase.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : '_');
+        }
+        return snakeCase.toString();
+    }
+
+    /**
+     * The samples of one metric, written together as the format requires.
+     */
+    private static class Family {
+
+        private final String name;
+        private final String type;
+        private final List<String> samples = new ArrayList<>();
+
+        /**
+         * @param type the Prometheus type of the metric, or null for an untyped metric
+         */
+        private Family(final String name, final String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        private void add(final String metric, final String labels, final String value) {
+            final String labelSet = labels.isEmpty() ? "" : "{" + labels.substring(1) + "}";
+            samples.add(metric + labelSet + " " + value);
+        }
+
+        private void write(final Writer writer) throws IOException {
+            if (type != null) {
+                writer.write("# TYPE " + name + " " + type + "\n");
+            }
+            for (final String sample : samples) {
+                writer.write(sample);
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -24,6 +24,12 @@ public class ResponseServiceQueryApi {
     public JsonEnvelope findEventsMetadata(final JsonEnvelope query) {
         return notificationQueryView.findEventsMetadata(query);
     }
+
+    @Handles("notification.get-owned-events")
+    public JsonEnvelope findOwnedEvents(final JsonEnvelope query) {
+        return notificationQueryView.findOwnedEvents(query);
+    }
+
     @Handles("notification.get-subscription")
     public JsonEnvelope getSubscription(final JsonEnvelope query) {
         return notificationQueryView.getSubscription(query);
@@ -0,0 +1,74 @@
+package uk.gov.moj.cpp.notification.query.api;
+
+import static java.util.UUID.randomUUID;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.gov.justice.services.test.utils.core.messaging.JsonEnvelopeBuilder.envelope;
+import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithDefaults;
+import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithRandomUUID;
+
+import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.accesscontrol.common.providers.UserAndGroupProvider;
+import uk.gov.moj.cpp.accesscontrol.drools.Action;
+import uk.gov.moj.cpp.accesscontrol.test.utils.BaseDroolsAccessControlTest;
+import uk.gov.moj.cpp.notification.common.accesscontrol.SubscriptionOwnerProvider;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kie.api.runtime.ExecutionResults;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class GetOwnedEventsAccessControlTest extends BaseDroolsAccessControlTest {
+
+    @Mock
+    private SubscriptionOwnerProvider subscriptionOwnerProvider;
+
+    @Mock
+    private UserAndGroupProvider userAndGroupProvider;
+
+    public GetOwnedEventsAccessControlTest() {
+        super("QUERY_API_SESSION");
+    }
+
+    @Override
+    protected Map<Class<?>, Object> getProviderMocks() {
+        return ImmutableMap.<Class<?>, Object>builder()
+                .put(SubscriptionOwnerProvider.class, subscriptionOwnerProvider)
+                .put(UserAndGroupProvider.class, userAndGroupProvider)
+                .build();
+    }
+
+    @Test
+    public void shouldAllowLoggedInUserWithoutLookingUpTheSubscriptionOwner() throws Exception {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithRandomUUID("notification.get-owned-events")
+                        .withUserId(randomUUID().toString()))
+                .withPayloadOf(randomUUID().toString(), "subscriptionId")
+                .build();
+
+        final ExecutionResults results = executeRulesWith(new Action(query));
+
+        assertSuccessfulOutcome(results);
+        verifyNoInteractions(subscriptionOwnerProvider);
+    }
+
+    @Test
+    public void shouldFailTheUserIdIsMissing() throws Exception {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults()
+                        .withName("notification.get-owned-events")
+                )
+                .withPayloadOf(randomUUID().toString(), "subscriptionId")
+                .build();
+
+        final ExecutionResults results = executeRulesWith(new Action(query));
+
+        assertFailureOutcome(results);
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.moj.cpp.notification.query.api;
+
+import static java.util.UUID.randomUUID;
+import static javax.servlet.http.HttpServletResponse.SC_FORBIDDEN;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import uk.gov.justice.services.common.http.HeaderConstants;
+import uk.gov.moj.cpp.accesscontrol.common.providers.UserAndGroupProvider;
+import uk.gov.moj.cpp.accesscontrol.drools.Action;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class MetricsServletTest {
+
+    @Mock
+    private PrometheusMetricsWriter prometheusMetricsWriter;
+
+    @Mock
+    private UserAndGroupProvider userAndGroupProvider;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private PrintWriter writer;
+
+    @Captor
+    private ArgumentCaptor<Action> actionCaptor;
+
+    @InjectMocks
+    private MetricsServlet metricsServlet;
+
+    @Test
+    public void shouldWriteTheMetricsForASystemUser() throws Exception {
+        final String userId = randomUUID().toString();
+        when(request.getHeader(HeaderConstants.USER_ID)).thenReturn(userId);
+        when(userAndGroupProvider.isSystemUser(actionCaptor.capture())).thenReturn(true);
+        when(response.getWriter()).thenReturn(writer);
+
+        metricsServlet.doGet(request, response);
+
+        verify(prometheusMetricsWriter).write(writer);
+        assertThat(actionCaptor.getValue().userId().get(), is(userId));
+        assertThat(actionCaptor.getValue().envelope().metadata().name(), is(MetricsServlet.ACTION_NAME));
+    }
+
+    @Test
+    public void shouldForbidAUserWhoIsNotASystemUser() throws Exception {
+        when(request.getHeader(HeaderConstants.USER_ID)).thenReturn(randomUUID().toString());
+        when(userAndGroupProvider.isSystemUser(any(Action.class))).thenReturn(false);
+
+        metricsServlet.doGet(request, response);
+
+        verify(response).sendError(SC_FORBIDDEN);
+        verify(prometheusMetricsWriter, never()).write(any(Writer.class));
+    }
+
+    @Test
+    public void shouldForbidARequestWithoutAUser() throws Exception {
+        metricsServlet.doGet(request, response);
+
+        verify(response).sendError(SC_FORBIDDEN);
+        verify(userAndGroupProvider, never()).isSystemUser(any(Action.class));
+        verify(prometheusMetricsWriter, never()).write(any(Writer.class));
+    }
+}
@@ -0,0 +1,194 @@
+package uk.gov.moj.cpp.notification.query.api;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+import java.beans.ConstructorProperties;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PrometheusMetricsWriterTest {
+
+    private final PrometheusMetricsWriter prometheusMetricsWriter = new PrometheusMetricsWriter();
+    private final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+
+    @BeforeEach
+    public void registerMetrics() throws Exception {
+        prometheusMetricsWriter.mBeanServer = mBeanServer;
+        mBeanServer.registerMBean(new TestMetrics(), new ObjectName(PrometheusMetricsWriter.DOMAIN + ":type=TestMetrics"));
+        mBeanServer.registerMBean(new TestMetrics(), new ObjectName("other.domain:type=OtherMetrics"));
+    }
+
+    @Test
+    public void shouldWriteNumbersAsMetricsNamedAfterTheTypeAndAttribute() throws Exception {
+        final String metrics = metrics();
+
+        assertThat(metrics, containsString("notification_test_metrics_size 7\n"));
+        assertThat(metrics, not(containsString("other_metrics")));
+    }
+
+    @Test
+    public void shouldWriteCountersWithTheirTypeAndATotalSuffix() throws Exception {
+        final String metrics = metrics();
+
+        assertThat(metrics, containsString("# TYPE notification_test_metrics_rows_deleted_total counter\n" +
+                "notification_test_metrics_rows_deleted_total 42\n"));
+        assertThat(metrics, not(containsString("# TYPE notification_test_metrics_size")));
+    }
+
+    @Test
+    public void shouldWriteHistogramsWithCumulativeBuckets() throws Exception {
+        final String metrics = metrics();
+
+        assertThat(metrics, containsString("# TYPE notification_test_metrics_run_millis histogram\n" +
+                "notification_test_metrics_run_millis_bucket{le=\"10\"} 1\n" +
+                "notification_test_metrics_run_millis_bucket{le=\"100\"} 2\n" +
+                "notification_test_metrics_run_millis_bucket{le=\"+Inf\"} 3\n" +
+                "notification_test_metrics_run_millis_sum 1055\n" +
+                "notification_test_metrics_run_millis_count 3\n"));
+    }
+
+    @Test
+    public void shouldWriteEachEntryOfAMapByXLabelledX() throws Exception {
+        final String metrics = metrics();
+
+        assertThat(metrics, containsString("# TYPE notification_test_metrics_events_total counter\n" +
+                "notification_test_metrics_events_total{name=\"public.case.created\"} 1\n" +
+                "notification_test_metrics_events_total{name=\"public.hearing.updated\"} 2\n"));
+    }
+
+    @Test
+    public void shouldWriteEachHistogramOfAMapByXLabelledX() throws Exception {
+        final String metrics = metrics();
+
+        assertThat(metrics, containsString("# TYPE notification_test_metrics_latency_millis histogram\n" +
+                "notification_test_metrics_latency_millis_bucket{name=\"public.case.created\",le=\"10\"} 1\n" +
+                "notification_test_metrics_latency_millis_bucket{name=\"public.case.created\",le=\"100\"} 2\n" +
+                "notification_test_metrics_latency_millis_bucket{name=\"public.case.created\",le=\"+Inf\"} 3\n" +
+                "notification_test_metrics_latency_millis_sum{name=\"public.case.created\"} 1055\n" +
+                "notification_test_metrics_latency_millis_count{name=\"public.case.created\"} 3\n"));
+    }
+
+    @Test
+    public void shouldWriteTheNumbersOfEachCompositeOfAListLabelledWithItsText() throws Exception {
+        final String metrics = metrics();
+
+        assertThat(metrics, containsString("# TYPE notification_test_metrics_shapes_count_total counter\n" +
+                "notification_test_metrics_shapes_count_total{shape=\"user_id = \\\"?\\\"\"} 3\n"));
+        assertThat(metrics, containsString("notification_test_metrics_shapes_max_millis{shape=\"user_id = \\\"?\\\"\"} 12\n"));
+    }
+
+    @Test
+    public void shouldConvertAttributeNamesToSnakeCase() {
+        assertThat(PrometheusMetricsWriter.snakeCase("LastRunRowsDeleted"), is("last_run_rows_deleted"));
+        assertThat(PrometheusMetricsWriter.snakeCase("EventCacheCleaner"), is("event_cache_cleaner"));
+    }
+
+    private String metrics() throws Exception {
+        final StringWriter writer = new StringWriter();
+        prometheusMetricsWriter.write(writer);
+        return writer.toString();
+    }
+
+    public interface TestMetricsMXBean {
+
+        @Counter
+        long getRowsDeleted();
+
+        int getSize();
+
+        HistogramSnapshot getRunMillis();
+
+        @Counter
+        Map<String, Long> getEventsByName();
+
+        Map<String, HistogramSnapshot> getLatencyMillisByName();
+
+        @Counter(items = "count")
+        List<TestShape> getShapes();
+    }
+
+    public static class TestMetrics implements TestMetricsMXBean {
+
+        @Override
+        public long getRowsDeleted() {
+            return 42L;
+        }
+
+        @Override
+        public int getSize() {
+            return 7;
+        }
+
+        @Override
+        public HistogramSnapshot getRunMillis() {
+            final Histogram histogram = new Histogram(10L, 100L);
+            histogram.record(5L);
+            histogram.record(50L);
+            histogram.record(1000L);
+            return histogram.snapshot();
+        }
+
+        @Override
+        public Map<String, Long> getEventsByName() {
+            final Map<String, Long> events = new TreeMap<>();
+            events.put("public.hearing.updated", 2L);
+            events.put("public.case.created", 1L);
+            return events;
+        }
+
+        @Override
+        public Map<String, HistogramSnapshot> getLatencyMillisByName() {
+            final Map<String, HistogramSnapshot> latencies = new TreeMap<>();
+            latencies.put("public.case.created", getRunMillis());
+            return latencies;
+        }
+
+        @Override
+        public List<TestShape> getShapes() {
+            return singletonList(new TestShape("user_id = \"?\"", 3L, 12L));
+        }
+    }
+
+    public static class TestShape {
+
+        private final String shape;
+        private final long count;
+        private final long maxMillis;
+
+        @ConstructorProperties({"shape", "count", "maxMillis"})
+        public TestShape(final String shape, final long count, final long maxMillis) {
+            this.shape = shape;
+            this.count = count;
+            this.maxMillis = maxMillis;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+    }
+}
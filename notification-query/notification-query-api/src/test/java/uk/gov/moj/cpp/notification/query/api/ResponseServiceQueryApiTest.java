@@ -38,6 +38,17 @@ public class ResponseServiceQueryApiTest {
                         ));
     }
 
+    @Test
+    public void shouldVerifyFindOwnedEventsIsPassedThroughToTheQueryView() {
+        responseServiceQueryApi.findOwnedEvents(query);
+        verify(notificationQueryView).findOwnedEvents(query);
+        assertThat(responseServiceQueryApi,
+                isHandler(QUERY_API)
+                        .with(method("findOwnedEvents")
+                                .thatHandles("notification.get-owned-events")
+                        ));
+    }
+
     @Test
     public void shouldVerifyGetSubscriptionIsPassedThroughToTheQueryView() {
         responseServiceQueryApi.getSubscription(query);
@@ -0,0 +1,125 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.Integer.parseInt;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.moj.cpp.notification.common.Filter;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChangesMissed;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Holds the filter of each subscription compiled to SQL, keyed by subscription id and checked
+ * against the subscription's modified time, so a filter is only parsed and compiled again after
+ * it has been updated. The least recently used filters are evicted beyond the maximum size.
+ */
+@ApplicationScoped
+public class CompiledFilterCache {
+
+    private final Map<UUID, CompiledFilter> compiledFilters = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Inject
+    StringToJsonObjectConverter converter;
+
+    @Inject
+    FilterMetrics filterMetrics;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "compiledFilterCacheMaxSize", defaultValue = "10000")
+    String maxSize;
+
+    public FilterClause compiledFilterOf(final Subscription subscription) {
+        return compiledOf(subscription).filterClause;
+    }
+
+    /**
+     * Returns the filter last compiled for the subscription without checking that it is still
+     * current, for callers that verify the subscription's modified time themselves.
+     */
+    public synchronized Optional<FilterClause> cachedFilterOf(final UUID subscriptionId) {
+        return Optional.ofNullable(compiledFilters.get(subscriptionId))
+                .map(compiledFilter -> compiledFilter.filterClause);
+    }
+
+    public synchronized void evict(final UUID subscriptionId) {
+        compiledFilters.remove(subscriptionId);
+    }
+
+    void onSubscriptionChanged(@Observes final SubscriptionChanged subscriptionChanged) {
+        evict(subscriptionChanged.getSubscriptionId());
+    }
+
+    void onSubscriptionChangesMissed(@Observes final SubscriptionChangesMissed subscriptionChangesMissed) {
+        clear();
+    }
+
+    private synchronized void clear() {
+        compiledFilters.clear();
+    }
+
+    private CompiledFilter compiledOf(final Subscription subscription) {
+
+        final Instant version = versionOf(subscription.getModified());
+        final CompiledFilter cached = cachedOf(subscription.getId());
+
+        if (cached != null && Objects.equals(cached.version, version)) {
+            return cached;
+        }
+
+        final long start = System.nanoTime();
+        final Filter filter = Filter.fromJson(converter.convert(subscription.getFilter()));
+        final CompiledFilter compiled = new CompiledFilter(version, FilterParser.compile(filter));
+        filterMetrics.recordCompilation(System.nanoTime() - start);
+
+        cache(subscription.getId(), compiled);
+
+        return compiled;
+    }
+
+    private synchronized CompiledFilter cachedOf(final UUID subscriptionId) {
+        return compiledFilters.get(subscriptionId);
+    }
+
+    private synchronized void cache(final UUID subscriptionId, final CompiledFilter compiled) {
+        compiledFilters.put(subscriptionId, compiled);
+
+        final int max = parseInt(maxSize);
+        final Iterator<UUID> leastRecentlyUsed = compiledFilters.keySet().iterator();
+
+        while (compiledFilters.size() > max) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private Instant versionOf(final ZonedDateTime modified) {
+        return modified == null ? null : modified.toInstant();
+    }
+
+    private static class CompiledFilter {
+
+        private final Instant version;
+        private final FilterClause filterClause;
+
+        private CompiledFilter(final Instant version, final FilterClause filterClause) {
+            this.version = version;
+            this.filterClause = filterClause;
+        }
+    }
+}
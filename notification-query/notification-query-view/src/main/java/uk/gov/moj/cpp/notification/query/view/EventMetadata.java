@@ -0,0 +1,40 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
+import static uk.gov.moj.cpp.notification.query.view.NotificationQueryView.METADATA;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import javax.json.JsonObject;
+
+public final class EventMetadata {
+
+    private static final StringToJsonObjectConverter STRING_TO_JSON_OBJECT_CONVERTER = new StringToJsonObjectConverter();
+
+    private EventMetadata() {
+    }
+
+    /**
+     * Wraps the metadata stored with the event as its json. Events stored before the metadata was
+     * kept in its own column are read with their json, and have the metadata taken from it. The
+     * metadata column of the event returned is left as it was read.
+     *
+     * @param eventCache - the event as read for a get-events-metadata query
+     * @return the event with only its metadata as its json
+     */
+    public static EventCache metadataOnly(final EventCache eventCache) {
+        final JsonObject metadata = eventCache.getMetadataJson() != null
+                ? STRING_TO_JSON_OBJECT_CONVERTER.convert(eventCache.getMetadataJson())
+                : metadataOf(eventCache.getEventJson());
+
+        final String jsonWithMetadataOnly = createObjectBuilder().add(METADATA, metadata).build().toString();
+        return new EventCache(eventCache.getId(), eventCache.getUserId(), eventCache.getSessionId(), eventCache.getClientCorrelationId(),
+                eventCache.getStreamId(), jsonWithMetadataOnly, eventCache.getCreated(), eventCache.getName(), eventCache.getMetadataJson());
+    }
+
+    private static JsonObject metadataOf(final String eventJson) {
+        final JsonObject metadata = STRING_TO_JSON_OBJECT_CONVERTER.convert(eventJson).getJsonObject(METADATA);
+        return metadata != null ? metadata : createObjectBuilder().build();
+    }
+}
@@ -0,0 +1,41 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class EventPage {
+
+    private final List<EventCache> events;
+    private final Optional<PageCursor> nextCursor;
+
+    public EventPage(final List<EventCache> events, final Optional<PageCursor> nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the first {@code pageSize} of the events, read newest first with one more than the
+     * page size, and a cursor after the last of them when there are more.
+     */
+    public static EventPage pageOf(final List<EventCache> events, final int pageSize) {
+        if (events.size() > pageSize) {
+            final List<EventCache> page = new ArrayList<>(events.subList(0, pageSize));
+            final EventCache last = page.get(pageSize - 1);
+            return new EventPage(page, Optional.of(new PageCursor(last.getCreated(), last.getId())));
+        }
+
+        return new EventPage(events, Optional.empty());
+    }
+
+    public List<EventCache> getEvents() {
+        return events;
+    }
+
+    public Optional<PageCursor> getNextCursor() {
+        return nextCursor;
+    }
+}
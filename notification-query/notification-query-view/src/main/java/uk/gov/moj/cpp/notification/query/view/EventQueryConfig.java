@@ -0,0 +1,75 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+
+import uk.gov.justice.services.common.configuration.Value;
+
+import javax.inject.Inject;
+
+public class EventQueryConfig {
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventQueryMaxPageSize", defaultValue = "1000")
+    private String maxPageSize;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "subscriptionQueryMaxPageSize", defaultValue = "1000")
+    private String subscriptionQueryMaxPageSize;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventQueryMaxWaitSeconds", defaultValue = "30")
+    private String maxWaitSeconds;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventQuerySinceLastPollLagMillis", defaultValue = "2000")
+    private String sinceLastPollLagMillis;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventQuerySubscriptionEventsEnabled", defaultValue = "false")
+    private String subscriptionEventsEnabled;
+
+    public int getMaxPageSize() {
+        return parseInt(maxPageSize);
+    }
+
+    /**
+     * The most expired subscriptions returned by one page, whatever page size is asked for. It is
+     * set apart from the event page size, as subscription rows are far smaller than events and a
+     * page of them is cancelled by a single notification.unsubscribe-batch command.
+     */
+    public int getSubscriptionQueryMaxPageSize() {
+        return parseInt(subscriptionQueryMaxPageSize);
+    }
+
+    public int getMaxWaitSeconds() {
+        return parseInt(maxWaitSeconds);
+    }
+
+    /**
+     * How long ago an event must have been stored to be delivered by sinceLastPoll. It must be
+     * longer than the transactions that insert events take to commit, plus any difference between
+     * the clocks of the servers and of the database, so that no event is committed behind the
+     * position of a subscription.
+     */
+    public long getSinceLastPollLagMillis() {
+        return parseLong(sinceLastPollLagMillis);
+    }
+
+    /**
+     * Whether events are read from the subscription_event table. On a cluster of several nodes it
+     * should only be enabled with cluster notifications, so that every node matches events
+     * against subscriptions changed on the others. The table only holds the events of existing
+     * subscriptions that were stored since it was created, so it should only be enabled once the
+     * events stored before then have expired from the event cache.
+     */
+    public boolean isSubscriptionEventsEnabled() {
+        return parseBoolean(subscriptionEventsEnabled);
+    }
+}
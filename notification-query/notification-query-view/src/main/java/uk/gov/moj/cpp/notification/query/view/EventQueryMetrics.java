@@ -0,0 +1,72 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+import uk.gov.moj.cpp.notification.persistence.MBeanRegistration;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Records each poll of the events of a subscription answered by the {@link FilteredEventService},
+ * whether by running its filter or from the events recorded for it: how many events it returned
+ * and how long it took.
+ */
+@ApplicationScoped
+public class EventQueryMetrics implements EventQueryMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=EventQueries";
+
+    private final LongAdder emptyPolls = new LongAdder();
+    private final Histogram rowsPerPoll = Histogram.size();
+    private final Histogram pollMillis = Histogram.latency();
+
+    @Inject
+    Logger logger;
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    public void recordPoll(final int rows, final long durationNanos) {
+        if (rows == 0) {
+            emptyPolls.increment();
+        }
+        rowsPerPoll.record(rows);
+        pollMillis.record(NANOSECONDS.toMillis(durationNanos));
+    }
+
+    @Override
+    public long getPolls() {
+        return rowsPerPoll.snapshot().getCount();
+    }
+
+    @Override
+    public long getEmptyPolls() {
+        return emptyPolls.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getRowsPerPoll() {
+        return rowsPerPoll.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getPollMillis() {
+        return pollMillis.snapshot();
+    }
+}
@@ -0,0 +1,24 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+/**
+ * The polls of subscription events, published over JMX as
+ * {@value EventQueryMetrics#OBJECT_NAME}. Counts are totals since the server started.
+ */
+public interface EventQueryMetricsMXBean {
+
+    @Counter
+    long getPolls();
+
+    /**
+     * @return the polls that returned no events
+     */
+    @Counter
+    long getEmptyPolls();
+
+    HistogramSnapshot getRowsPerPoll();
+
+    HistogramSnapshot getPollMillis();
+}
@@ -0,0 +1,74 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+import uk.gov.moj.cpp.notification.persistence.MBeanRegistration;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Records the subscription filters looked up by the {@link FilterService} and those the
+ * {@link CompiledFilterCache} had to parse and compile, with how long compiling took.
+ */
+@ApplicationScoped
+public class FilterMetrics implements FilterMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=Filters";
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder unknownSubscriptions = new LongAdder();
+    private final Histogram compileMicros = Histogram.latency();
+
+    @Inject
+    Logger logger;
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    public void recordLookup(final boolean found) {
+        lookups.increment();
+        if (!found) {
+            unknownSubscriptions.increment();
+        }
+    }
+
+    public void recordCompilation(final long durationNanos) {
+        compileMicros.record(NANOSECONDS.toMicros(durationNanos));
+    }
+
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getUnknownSubscriptions() {
+        return unknownSubscriptions.sum();
+    }
+
+    @Override
+    public long getCompilations() {
+        return compileMicros.snapshot().getCount();
+    }
+
+    @Override
+    public HistogramSnapshot getCompileMicros() {
+        return compileMicros.snapshot();
+    }
+}
@@ -0,0 +1,28 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+/**
+ * The subscription filters looked up and compiled, published over JMX as
+ * {@value FilterMetrics#OBJECT_NAME}. Counts are totals since the server started.
+ */
+public interface FilterMetricsMXBean {
+
+    @Counter
+    long getLookups();
+
+    /**
+     * @return the lookups of subscriptions that do not exist
+     */
+    @Counter
+    long getUnknownSubscriptions();
+
+    /**
+     * @return the filters parsed and compiled because they were not cached or had changed
+     */
+    @Counter
+    long getCompilations();
+
+    HistogramSnapshot getCompileMicros();
+}
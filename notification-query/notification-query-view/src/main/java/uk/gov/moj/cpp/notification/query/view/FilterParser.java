@@ -4,39 +4,84 @@ import static java.lang.String.format;
 import static java.util.stream.Collectors.joining;
 import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
 
+import uk.gov.moj.cpp.notification.common.FieldNames;
+import uk.gov.moj.cpp.notification.common.Filter;
 import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
-import javax.json.JsonArray;
 import javax.json.JsonObject;
 
 public class FilterParser {
 
-    private static final String SPACE = " ";
-    private static final String CLAUSE_PATTERN = "%s = '%s'";
+    private static final String BIND_CLAUSE_PATTERN = "%s = ?";
 
     private FilterParser() {
     }
 
     /**
-     * Returns a SQL query 'WHERE' clause representing the filter
+     * Returns a SQL query 'WHERE' clause representing the filter with a bind parameter in place of
+     * each value. Filters with the same shape compile to the same clause text.
      *
      * @param filter - the filter as specified as a JsonObject
-     * @return a SQL WHERE clause representing the filter for the {@link EventCacheJdbcRepository}
+     * @return the clause and its values for the {@link EventCacheJdbcRepository}
+     * @throws IllegalArgumentException if the filter names an unknown field or type, has an AND
+     *                                  or OR without filters, or an id field is not a UUID
+     */
+    public static FilterClause compile(final JsonObject filter) {
+        return compile(Filter.fromJson(filter));
+    }
+
+    /**
+     * @param filter - the filter already parsed into a tree
+     * @return the clause and its values for the {@link EventCacheJdbcRepository}
+     * @throws IllegalArgumentException if the filter names an unknown field, has an AND or OR
+     *                                  without filters, or an id field is not a UUID
      */
-    public static String parse(final JsonObject filter) {
+    public static FilterClause compile(final Filter filter) {
+        final List<Object> parameters = new ArrayList<>();
+        final String sql = compile(filter, parameters);
+
+        return new FilterClause(sql, parameters);
+    }
+
+    private static String compile(final Filter filter, final List<Object> parameters) {
 
-        final String filterType = filter.getString("type");
+        if (filter.getType() == FIELD) {
+            final FieldNames fieldName = filter.getField();
+            parameters.add(valueOf(fieldName, filter.getValue()));
 
-        if (FIELD.name().equals(filterType)) {
-            return format(CLAUSE_PATTERN, filter.getString("name"), filter.getString("value"));
-        } else {
-            final JsonArray filterArray = filter.getJsonArray("value");
+            return format(BIND_CLAUSE_PATTERN, columnOf(fieldName));
+        }
+
+        if (filter.getFilters().isEmpty()) {
+            throw new IllegalArgumentException(format("%s filter has no filters to combine", filter.getType()));
+        }
+
+        return filter.getFilters().stream()
+                .map(child -> compile(child, parameters))
+                .collect(joining(" " + filter.getType().name() + " ", "(", ")"));
+    }
 
-            final String parsedFilters = filterArray.stream()
-                    .map(jsonValue -> parse((JsonObject) jsonValue))
-                    .collect(joining(SPACE + filterType + SPACE));
+    private static String columnOf(final FieldNames fieldName) {
+        switch (fieldName) {
+            case STREAM_ID:
+                return "stream_id";
+            case USER_ID:
+                return "user_id";
+            default:
+                return "name";
+        }
+    }
 
-            return "(" + parsedFilters + ")";
+    private static Object valueOf(final FieldNames fieldName, final String value) {
+        if (fieldName == FieldNames.NAME) {
+            return value;
         }
+
+        return UUID.fromString(value);
     }
 }
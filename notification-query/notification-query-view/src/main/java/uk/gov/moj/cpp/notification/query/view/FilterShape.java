@@ -0,0 +1,64 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import uk.gov.moj.cpp.notification.persistence.HistogramSnapshot;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * How often the event cache has been queried with filters of one shape, and how long those
+ * queries took. The shape is the clause {@link FilterParser} compiles the filter to, with bind
+ * parameters in place of the values, so it names the columns and the AND/OR structure an index
+ * has to serve. The rows are the events the queries returned.
+ */
+public class FilterShape {
+
+    private final String shape;
+    private final long count;
+    private final long totalMillis;
+    private final long maxMillis;
+    private final long totalRows;
+    private final HistogramSnapshot latencyMillis;
+
+    @ConstructorProperties({"shape", "count", "totalMillis", "maxMillis", "totalRows", "latencyMillis"})
+    public FilterShape(final String shape,
+                       final long count,
+                       final long totalMillis,
+                       final long maxMillis,
+                       final long totalRows,
+                       final HistogramSnapshot latencyMillis) {
+        this.shape = shape;
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.totalRows = totalRows;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public HistogramSnapshot getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getMeanMillis() {
+        return count == 0 ? 0 : totalMillis / count;
+    }
+}
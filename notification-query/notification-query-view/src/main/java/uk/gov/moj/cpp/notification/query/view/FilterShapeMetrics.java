@@ -0,0 +1,98 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.Integer.parseInt;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.Histogram;
+import uk.gov.moj.cpp.notification.persistence.MBeanRegistration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Records the frequency, latency and rows of the event cache queries run for each filter shape,
+ * so that the indexes of event_cache can be chosen for the filters subscriptions actually use.
+ * Once the configured number of shapes has been seen, any further shapes are counted together
+ * under {@value #OTHER_SHAPES}.
+ */
+@ApplicationScoped
+public class FilterShapeMetrics implements FilterShapeMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=FilterShapes";
+    static final String OTHER_SHAPES = "other";
+
+    private final Map<String, ShapeStatistics> shapes = new ConcurrentHashMap<>();
+
+    @Inject
+    Logger logger;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "filterShapeMetricsMaxShapes", defaultValue = "200")
+    String maxShapes;
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    public void record(final FilterClause filter, final long durationNanos, final int rows) {
+        final String shape = shapes.containsKey(filter.getSql()) || shapes.size() < parseInt(maxShapes)
+                ? filter.getSql()
+                : OTHER_SHAPES;
+
+        shapes.computeIfAbsent(shape, key -> new ShapeStatistics()).record(NANOSECONDS.toMillis(durationNanos), rows);
+    }
+
+    @Override
+    public List<FilterShape> getFilterShapes() {
+        return shapes.entrySet().stream()
+                .map(entry -> entry.getValue().toFilterShape(entry.getKey()))
+                .sorted(comparingLong(FilterShape::getCount).reversed())
+                .collect(toList());
+    }
+
+    @Override
+    public void reset() {
+        shapes.clear();
+    }
+
+    private static class ShapeStatistics {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLong totalRows = new AtomicLong();
+        private final Histogram latencyMillis = Histogram.latency();
+
+        private void record(final long millis, final int rows) {
+            count.incrementAndGet();
+            totalMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            totalRows.addAndGet(rows);
+            latencyMillis.record(millis);
+        }
+
+        private FilterShape toFilterShape(final String shape) {
+            return new FilterShape(shape, count.get(), totalMillis.get(), maxMillis.get(), totalRows.get(), latencyMillis.snapshot());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import uk.gov.moj.cpp.notification.persistence.Counter;
+
+import java.util.List;
+
+/**
+ * The shapes of the filters the event cache has been queried with, published over JMX as
+ * {@value FilterShapeMetrics#OBJECT_NAME}, most frequent first. Counts are totals since the
+ * server started or the metrics were last reset.
+ */
+public interface FilterShapeMetricsMXBean {
+
+    @Counter(items = {"count", "totalMillis", "totalRows"})
+    List<FilterShape> getFilterShapes();
+
+    void reset();
+}
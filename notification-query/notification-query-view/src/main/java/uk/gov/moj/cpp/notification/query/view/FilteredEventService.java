@@ -1,22 +1,180 @@
 package uk.gov.moj.cpp.notification.query.view;
 
-import static uk.gov.moj.cpp.notification.query.view.FilterParser.parse;
-
+import uk.gov.justice.services.common.util.Clock;
 import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventLatencyMetrics;
+import uk.gov.moj.cpp.notification.persistence.EventProjection;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEvents;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionPositionJdbcRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 import javax.inject.Inject;
-import javax.json.JsonObject;
 
 public class FilteredEventService {
 
     @Inject
     EventCacheJdbcRepository eventCacheJdbcRepository;
 
-    public List<EventCache> findEventsBy(final JsonObject filter, Optional<String> clientCorrelationId) {
-        return eventCacheJdbcRepository.queryByFilter(parse(filter), clientCorrelationId);
+    @Inject
+    SubscriptionPositionJdbcRepository subscriptionPositionJdbcRepository;
+
+    @Inject
+    CompiledFilterCache compiledFilterCache;
+
+    @Inject
+    FilterService filterService;
+
+    @Inject
+    EventQueryConfig eventQueryConfig;
+
+    @Inject
+    FilterShapeMetrics filterShapeMetrics;
+
+    @Inject
+    EventQueryMetrics eventQueryMetrics;
+
+    @Inject
+    EventLatencyMetrics eventLatencyMetrics;
+
+    @Inject
+    Clock clock;
+
+    /**
+     * Returns a page of the events of the subscription, newest first, with the columns of the
+     * given projection: at most {@code pageSize}, starting strictly after the cursor when given,
+     * with a cursor after the last of them when there are more. With subscription events enabled
+     * they are read from the events recorded for the subscription instead of by running its filter.
+     * The events delivered for the first time are recorded in the {@link EventLatencyMetrics}, as
+     * they are by every other query of events.
+     */
+    public EventPage findEventPageBy(final UUID subscriptionId,
+                                     final FilterClause filter,
+                                     final Optional<String> clientCorrelationId,
+                                     final Optional<PageCursor> after,
+                                     final int pageSize,
+                                     final EventProjection projection) {
+
+        final long start = System.nanoTime();
+        final List<EventCache> events = eventQueryConfig.isSubscriptionEventsEnabled()
+                ? eventCacheJdbcRepository.queryBySubscriptionEvents(subscriptionId, clientCorrelationId, after, Optional.of(pageSize + 1), projection)
+                : timed(filter, () -> eventCacheJdbcRepository.queryByFilter(filter, clientCorrelationId, after, pageSize + 1, projection), List::size);
+
+        eventQueryMetrics.recordPoll(Math.min(events.size(), pageSize), System.nanoTime() - start);
+
+        final EventPage eventPage = EventPage.pageOf(events, pageSize);
+        recordDelivered(eventPage.getEvents());
+        return eventPage;
+    }
+
+    /**
+     * Returns the events stored since the position the subscription last acknowledged, in the
+     * order they were stored, with the position of the last one as the next cursor to acknowledge.
+     * Until it is acknowledged, by the notification.acknowledge-events command, the same events
+     * are returned again, so an event is never lost with a response that does not reach the
+     * subscriber. Only events stored longer ago than the configured lag, by the database clock
+     * that stored them, are returned, so that none is committed behind the position.
+     */
+    public EventPage findEventsSinceLastPoll(final UUID subscriptionId,
+                                             final FilterClause filter,
+                                             final int limit,
+                                             final EventProjection projection) {
+
+        final long start = System.nanoTime();
+        final long lagMillis = eventQueryConfig.getSinceLastPollLagMillis();
+        final Optional<PageCursor> lastPosition = subscriptionPositionJdbcRepository.findPosition(subscriptionId);
+        final List<EventCache> events = eventQueryConfig.isSubscriptionEventsEnabled()
+                ? eventCacheJdbcRepository.queryBySubscriptionEventsSince(subscriptionId, lastPosition, lagMillis, limit, projection)
+                : timed(filter, () -> eventCacheJdbcRepository.queryByFilterSince(filter, lastPosition, lagMillis, limit, projection), List::size);
+
+        eventQueryMetrics.recordPoll(events.size(), System.nanoTime() - start);
+
+        if (events.isEmpty()) {
+            return new EventPage(events, Optional.empty());
+        }
+
+        recordDelivered(events);
+
+        final EventCache last = events.get(events.size() - 1);
+        return new EventPage(events, Optional.of(new PageCursor(last.getStored(), last.getId())));
+    }
+
+    /**
+     * Returns a page of the events of a subscription owned by the given user, from a single
+     * statement that reads the subscription together with its matching events, using the filter
+     * already compiled for the subscription. The subscription is only looked up separately when no
+     * filter has been compiled for it yet, and the events are only queried again when the
+     * subscription returned shows that its filter has since been updated. The events are paged as
+     * those of {@link #findEventPageBy}. Empty if there is no such subscription owned by the user.
+     *
+     * The events are not recorded as delivered, which is left to the caller once it has
+     * authorised the request, with {@link #recordDelivered(List)}.
+     */
+    public Optional<EventPage> findOwnedEventPageBy(final UUID subscriptionId,
+                                                    final UUID ownerId,
+                                                    final Optional<String> clientCorrelationId,
+                                                    final Optional<PageCursor> after,
+                                                    final int pageSize) {
+
+        final long start = System.nanoTime();
+        final Optional<FilterClause> filter = compiledFilterCache.cachedFilterOf(subscriptionId)
+                .map(Optional::of)
+                .orElseGet(() -> filterService.findCompiledFilter(subscriptionId));
+
+        if (!filter.isPresent()) {
+            return Optional.empty();
+        }
+
+        Optional<SubscriptionEvents> subscriptionEvents = timed(filter.get(),
+                () -> eventCacheJdbcRepository.queryBySubscription(subscriptionId, ownerId, filter.get(), clientCorrelationId, after, pageSize + 1), FilteredEventService::rowsOf);
+
+        if (subscriptionEvents.isPresent()) {
+            final FilterClause currentFilter = compiledFilterCache.compiledFilterOf(subscriptionEvents.get().getSubscription());
+
+            if (!currentFilter.equals(filter.get())) {
+                subscriptionEvents = timed(currentFilter,
+                        () -> eventCacheJdbcRepository.queryBySubscription(subscriptionId, ownerId, currentFilter, clientCorrelationId, after, pageSize + 1), FilteredEventService::rowsOf);
+            }
+        }
+
+        if (!subscriptionEvents.isPresent()) {
+            return Optional.empty();
+        }
+
+        eventQueryMetrics.recordPoll(Math.min(rowsOf(subscriptionEvents), pageSize), System.nanoTime() - start);
+
+        return Optional.of(EventPage.pageOf(subscriptionEvents.get().getEvents(), pageSize));
+    }
+
+    /**
+     * Records the events delivered for the first time in the {@link EventLatencyMetrics}.
+     */
+    public void recordDelivered(final List<EventCache> events) {
+        if (!events.isEmpty()) {
+            eventLatencyMetrics.recordDelivered(events, clock.now());
+        }
+    }
+
+    private <T> T timed(final FilterClause filter, final Supplier<T> query, final ToIntFunction<T> rowsOf) {
+        final long start = System.nanoTime();
+        int rows = 0;
+        try {
+            final T result = query.get();
+            rows = rowsOf.applyAsInt(result);
+            return result;
+        } finally {
+            filterShapeMetrics.record(filter, System.nanoTime() - start, rows);
+        }
+    }
+
+    private static int rowsOf(final Optional<SubscriptionEvents> subscriptionEvents) {
+        return subscriptionEvents.map(found -> found.getEvents().size()).orElse(0);
     }
 }
@@ -1,14 +1,31 @@
 package uk.gov.moj.cpp.notification.query.view;
 
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.min;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.json.JsonValue.ValueType.NULL;
+import static javax.json.JsonValue.ValueType.NUMBER;
+import static javax.json.JsonValue.ValueType.STRING;
+import static javax.json.JsonValue.ValueType.TRUE;
 import static uk.gov.justice.services.messaging.JsonObjects.createObjectBuilder;
 import static uk.gov.justice.services.messaging.Envelope.metadataFrom;
 import static uk.gov.justice.services.messaging.JsonEnvelope.envelopeFrom;
+import static uk.gov.moj.cpp.notification.query.view.ExpiredSubscriptionsListConverter.EXPIRED_SUBSCRIPTIONS;
 import static uk.gov.moj.cpp.notification.query.view.FilterService.CLIENT_CORRELATION_ID_PROPERTY_NAME;
 import static uk.gov.moj.cpp.notification.query.view.FilterService.SUBSCRIPTION_ID_PROPERTY_NAME;
 
+import uk.gov.justice.services.adapter.rest.exception.BadRequestException;
+import uk.gov.justice.services.core.accesscontrol.AccessControlViolationException;
 import uk.gov.justice.services.core.enveloper.Enveloper;
 import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.notification.persistence.EventProjection;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionCache;
 import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
@@ -19,13 +36,21 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.json.JsonNumber;
 import javax.json.JsonObject;
-
-import org.json.JSONObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
 
 public class NotificationQueryView {
 
     public static final String METADATA = "_metadata";
+    public static final String PAGE_SIZE_PROPERTY_NAME = "pageSize";
+    public static final String AFTER_PROPERTY_NAME = "after";
+    public static final String SINCE_LAST_POLL_PROPERTY_NAME = "sinceLastPoll";
+    public static final String WAIT_SECONDS_PROPERTY_NAME = "waitSeconds";
+    public static final String NEXT_CURSOR = "nextCursor";
+
     @Inject
     private FilterService filterService;
 
@@ -38,65 +63,259 @@ public class NotificationQueryView {
     @Inject
     private ExpiredSubscriptionsListConverter expiredSubscriptionsListConverter;
 
+    @Inject
+    private EventQueryConfig eventQueryConfig;
+
     @Inject
     private Enveloper enveloper;
 
     @Inject
     private SubscriptionRepository subscriptionRepository;
 
+    @Inject
+    private SubscriptionCache subscriptionCache;
+
+    @Inject
+    private SubscriptionEventWaiters subscriptionEventWaiters;
+
     public JsonEnvelope findEvents(final JsonEnvelope query) {
 
-        final JsonObject payload = query.payloadAsJsonObject();
+        final EventPage matchingEvents = matchingEventsFor(query.payloadAsJsonObject(), EventProjection.EVENT);
 
-        final UUID subscriptionId = UUID.fromString(payload
-                .getString(SUBSCRIPTION_ID_PROPERTY_NAME));
+        return enveloper.withMetadataFrom(query, "notification.events").apply(withNextCursor(eventsPayloadFrom(matchingEvents.getEvents()), matchingEvents));
+    }
 
-        final Optional<String> optionalClientCorrelationId = payload.containsKey(CLIENT_CORRELATION_ID_PROPERTY_NAME)
-                ? Optional.of(payload.getString(CLIENT_CORRELATION_ID_PROPERTY_NAME))
-                : Optional.empty();
+    /**
+     * Returns the matching events with only their metadata, which is read from the column it is
+     * stored in at ingest without reading the event payloads.
+     */
+    public JsonEnvelope findEventsMetadata(final JsonEnvelope query) {
 
-        final Optional<JsonObject> jsonFilter = filterService.findJsonFilter(subscriptionId);
-        final List<EventCache> matchingEvents = jsonFilter.isPresent()
-                ? filteredEventService.findEventsBy(jsonFilter.get(), optionalClientCorrelationId)
-                : emptyList();
+        final EventPage matchingEvents = matchingEventsFor(query.payloadAsJsonObject(), EventProjection.METADATA);
 
-        return enveloper.withMetadataFrom(query, "notification.events").apply(eventsPayloadFrom(matchingEvents));
+        final List<EventCache> modifiedEvents = matchingEvents.getEvents().stream().map(EventMetadata::metadataOnly).collect(Collectors.toList());
+        final JsonObjectBuilder payloadBuilder = createObjectBuilder()
+                .add("events", eventsPayloadFrom(modifiedEvents).getJsonArray("events"));
+        matchingEvents.getNextCursor().ifPresent(nextCursor -> payloadBuilder.add(NEXT_CURSOR, nextCursor.toToken()));
+
+        return envelopeFrom(metadataFrom(query.metadata()).withName("notification.events"), payloadBuilder);
     }
 
-    public JsonEnvelope findEventsMetadata(final JsonEnvelope query) {
+    /**
+     * Returns the events of a subscription owned by the calling user. The owner is checked in the
+     * same statement that reads the events instead of through a separate lookup, so no events are
+     * read for a subscription the user does not own, and a request without a user is rejected
+     * before any query. The events are paged as those of {@link #findEvents(JsonEnvelope)}, with
+     * pages capped by the maximum page size even when no page size is asked for.
+     */
+    public JsonEnvelope findOwnedEvents(final JsonEnvelope query) {
 
         final JsonObject payload = query.payloadAsJsonObject();
+        final UUID subscriptionId = subscriptionIdFrom(payload);
+        final UUID ownerId = query.metadata().userId()
+                .flatMap(NotificationQueryView::uuidFrom)
+                .orElseThrow(() -> notOwnerOf(subscriptionId));
 
-        final UUID subscriptionId = UUID.fromString(payload
-                .getString(SUBSCRIPTION_ID_PROPERTY_NAME));
+        final EventPage ownedEvents = filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId,
+                clientCorrelationIdFrom(payload), afterCursorFrom(payload), limitFor(pageSizeFrom(payload)))
+                .orElseThrow(() -> notOwnerOf(subscriptionId));
+
+        filteredEventService.recordDelivered(ownedEvents.getEvents());
+
+        return enveloper.withMetadataFrom(query, "notification.events").apply(withNextCursor(eventsPayloadFrom(ownedEvents.getEvents()), ownedEvents));
+    }
+
+    private static AccessControlViolationException notOwnerOf(final UUID subscriptionId) {
+        return new AccessControlViolationException(format("User is not the owner of subscription '%s'", subscriptionId));
+    }
+
+    private static Optional<UUID> uuidFrom(final String userId) {
+        try {
+            return Optional.of(UUID.fromString(userId));
+        } catch (final IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private EventPage matchingEventsFor(final JsonObject payload, final EventProjection projection) {
+
+        final UUID subscriptionId = subscriptionIdFrom(payload);
+        final Optional<String> optionalClientCorrelationId = clientCorrelationIdFrom(payload);
+
+        final Optional<Integer> pageSize = pageSizeFrom(payload);
+        final Optional<PageCursor> after = afterCursorFrom(payload);
+        final boolean sinceLastPoll = sinceLastPollFrom(payload);
+        final Optional<Integer> waitSeconds = waitSecondsFrom(payload);
+
+        if (sinceLastPoll && optionalClientCorrelationId.isPresent()) {
+            throw new BadRequestException(format("%s cannot be combined with %s", SINCE_LAST_POLL_PROPERTY_NAME, CLIENT_CORRELATION_ID_PROPERTY_NAME));
+        }
+
+        if (waitSeconds.isPresent() && !sinceLastPoll) {
+            throw new BadRequestException(format("%s can only be used with %s", WAIT_SECONDS_PROPERTY_NAME, SINCE_LAST_POLL_PROPERTY_NAME));
+        }
+
+        if (sinceLastPoll && after.isPresent()) {
+            throw new BadRequestException(format("%s cannot be combined with %s, acknowledge the events with notification.acknowledge-events", SINCE_LAST_POLL_PROPERTY_NAME, AFTER_PROPERTY_NAME));
+        }
+
+        final Optional<FilterClause> filter = filterService.findCompiledFilter(subscriptionId);
+
+        if (!filter.isPresent()) {
+            return new EventPage(emptyList(), Optional.empty());
+        }
+
+        if (sinceLastPoll && waitSeconds.isPresent()) {
+            return awaitEventsSinceLastPoll(subscriptionId, filter.get(), limitFor(pageSize), waitSeconds.get(), projection);
+        }
+
+        if (sinceLastPoll) {
+            return filteredEventService.findEventsSinceLastPoll(subscriptionId, filter.get(), limitFor(pageSize), projection);
+        }
+
+        return filteredEventService.findEventPageBy(subscriptionId, filter.get(), optionalClientCorrelationId, after, limitFor(pageSize), projection);
+    }
+
+    /**
+     * Long-polls for the events added since the last poll: when there are none yet the request
+     * waits, without holding a database connection, until a matching event is stored or the wait
+     * times out, and then queries again. Events are only returned once they were stored longer ago
+     * than the since-last-poll lag, so after being woken, and before the first wait for events
+     * stored just before the poll, the request waits no longer than the lag before querying again.
+     * When the maximum number of requests are already waiting the request does not wait, and when
+     * its thread is interrupted it stops waiting and returns the empty page.
+     */
+    private EventPage awaitEventsSinceLastPoll(final UUID subscriptionId,
+                                               final FilterClause filter,
+                                               final int limit,
+                                               final int waitSeconds,
+                                               final EventProjection projection) {
+
+        final long deadline = currentTimeMillis() + SECONDS.toMillis(min(waitSeconds, eventQueryConfig.getMaxWaitSeconds()));
+
+        final long lagMillis = eventQueryConfig.getSinceLastPollLagMillis();
+
+        final Optional<SubscriptionEventWaiters.Waiter> registered = subscriptionEventWaiters.waiterFor(subscriptionId);
+        if (!registered.isPresent()) {
+            return filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, limit, projection);
+        }
+
+        try (final SubscriptionEventWaiters.Waiter waiter = registered.get()) {
+            boolean eventsWithinLag = true;
+            while (true) {
+                final EventPage eventPage = filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, limit, projection);
+                final long remainingMillis = deadline - currentTimeMillis();
+
+                if (!eventPage.getEvents().isEmpty() || remainingMillis <= 0) {
+                    return eventPage;
+                }
 
-        final Optional<String> optionalClientCorrelationId = payload.containsKey(CLIENT_CORRELATION_ID_PROPERTY_NAME)
+                eventsWithinLag = waiter.await(eventsWithinLag ? min(remainingMillis, lagMillis) : remainingMillis);
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return eventPage;
+                }
+            }
+        }
+    }
+
+    private UUID subscriptionIdFrom(final JsonObject payload) {
+        return UUID.fromString(payload.getString(SUBSCRIPTION_ID_PROPERTY_NAME));
+    }
+
+    private Optional<String> clientCorrelationIdFrom(final JsonObject payload) {
+        return payload.containsKey(CLIENT_CORRELATION_ID_PROPERTY_NAME)
                 ? Optional.of(payload.getString(CLIENT_CORRELATION_ID_PROPERTY_NAME))
                 : Optional.empty();
+    }
+
+    private int limitFor(final Optional<Integer> pageSize) {
+        return limitFor(pageSize, eventQueryConfig.getMaxPageSize());
+    }
+
+    private int limitFor(final Optional<Integer> pageSize, final int maxPageSize) {
+        return min(pageSize.orElse(maxPageSize), maxPageSize);
+    }
+
+    private boolean sinceLastPollFrom(final JsonObject payload) {
+        final JsonValue value = payload.get(SINCE_LAST_POLL_PROPERTY_NAME);
+
+        if (value == null) {
+            return false;
+        }
+
+        return value.getValueType() == TRUE
+                || value.getValueType() == STRING && parseBoolean(((JsonString) value).getString());
+    }
+
+    private Optional<Integer> pageSizeFrom(final JsonObject payload) {
+        final JsonValue value = payload.get(PAGE_SIZE_PROPERTY_NAME);
+
+        if (value == null || value.getValueType() == NULL) {
+            return Optional.empty();
+        }
 
-        final Optional<JsonObject> jsonFilter = filterService.findJsonFilter(subscriptionId);
-        final List<EventCache> matchingEvents = jsonFilter.isPresent()
-                ? filteredEventService.findEventsBy(jsonFilter.get(), optionalClientCorrelationId)
-                : emptyList();
+        final int pageSize;
+        try {
+            pageSize = value.getValueType() == NUMBER
+                    ? ((JsonNumber) value).intValueExact()
+                    : parseInt(((JsonString) value).getString());
+        } catch (final ArithmeticException | ClassCastException | NumberFormatException e) {
+            throw new BadRequestException(format("Invalid %s '%s'", PAGE_SIZE_PROPERTY_NAME, value));
+        }
+
+        if (pageSize < 1) {
+            throw new BadRequestException(format("Invalid %s '%s'", PAGE_SIZE_PROPERTY_NAME, value));
+        }
+
+        return Optional.of(pageSize);
+    }
+
+    private Optional<Integer> waitSecondsFrom(final JsonObject payload) {
+        final JsonValue value = payload.get(WAIT_SECONDS_PROPERTY_NAME);
+
+        if (value == null || value.getValueType() == NULL) {
+            return Optional.empty();
+        }
+
+        final int waitSeconds;
+        try {
+            waitSeconds = value.getValueType() == NUMBER
+                    ? ((JsonNumber) value).intValueExact()
+                    : parseInt(((JsonString) value).getString());
+        } catch (final ArithmeticException | ClassCastException | NumberFormatException e) {
+            throw new BadRequestException(format("Invalid %s '%s'", WAIT_SECONDS_PROPERTY_NAME, value));
+        }
+
+        if (waitSeconds < 0) {
+            throw new BadRequestException(format("Invalid %s '%s'", WAIT_SECONDS_PROPERTY_NAME, value));
+        }
+
+        return Optional.of(waitSeconds);
+    }
 
-        final List<EventCache> modifiedEvents = matchingEvents.stream().map(this::filterMetadata).collect(Collectors.toList());
-        return envelopeFrom(metadataFrom(query.metadata()).withName("notification.events"),
-                createObjectBuilder()
-                        .add("events", eventsPayloadFrom(modifiedEvents).getJsonArray("events"))
-        );
+    private Optional<PageCursor> afterCursorFrom(final JsonObject payload) {
+        if (!payload.containsKey(AFTER_PROPERTY_NAME)) {
+            return Optional.empty();
+        }
+
+        final String token = payload.getString(AFTER_PROPERTY_NAME);
+        try {
+            return Optional.of(PageCursor.fromToken(token));
+        } catch (final IllegalArgumentException e) {
+            throw new BadRequestException(format("Invalid %s cursor '%s'", AFTER_PROPERTY_NAME, token));
+        }
     }
 
-    private EventCache filterMetadata(final EventCache eventCache) {
-        final String eventJson = eventCache.getEventJson();
-        final JSONObject eventJsonObject = new JSONObject(eventJson);
-        JSONObject metadata = new JSONObject();
-        if (eventJsonObject.has(METADATA)) {
-            metadata = new JSONObject(eventJson).getJSONObject(METADATA);
+    private JsonObject withNextCursor(final JsonObject eventsPayload, final EventPage eventPage) {
+        if (!eventPage.getNextCursor().isPresent()) {
+            return eventsPayload;
         }
-        final JSONObject jsonWithMetaDataOnly = new JSONObject();
-        jsonWithMetaDataOnly.put(METADATA,metadata);
-        return new EventCache(eventCache.getId(),eventCache.getUserId(),eventCache.getSessionId(),eventCache.getClientCorrelationId(),eventCache.getStreamId(),jsonWithMetaDataOnly.toString(),eventCache.getCreated(),eventCache.getName());
 
+        return createObjectBuilder()
+                .add("events", eventsPayload.getJsonArray("events"))
+                .add(NEXT_CURSOR, eventPage.getNextCursor().get().toToken())
+                .build();
     }
 
     public JsonEnvelope getSubscription(final JsonEnvelope query) {
@@ -105,16 +324,34 @@ public class NotificationQueryView {
                 .payloadAsJsonObject()
                 .getString(SUBSCRIPTION_ID_PROPERTY_NAME));
 
-        final Subscription subscription = subscriptionRepository.findBy(subscriptionId);
+        final Subscription subscription = subscriptionCache.findBy(subscriptionId);
 
         return enveloper.withMetadataFrom(query, "notification.subscription").apply(payloadFrom(subscription));
     }
 
+    /**
+     * Returns a page of the expired subscriptions, oldest modified first, with a nextCursor when
+     * more are expired after it. Pages are capped by their own maximum page size, even when no
+     * page size is asked for.
+     */
     public JsonEnvelope findExpiredSubscriptions(final JsonEnvelope query) {
 
-        final List<Subscription> subscriptions = subscriptionRepository.findExpiredSubscriptions();
+        final JsonObject payload = query.payloadAsJsonObject();
+        final int limit = limitFor(pageSizeFrom(payload), eventQueryConfig.getSubscriptionQueryMaxPageSize());
+
+        final List<Subscription> subscriptions = subscriptionRepository.findExpiredSubscriptions(afterCursorFrom(payload), limit + 1);
+
+        if (subscriptions.size() <= limit) {
+            return enveloper.withMetadataFrom(query, "notification.expired.subscription").apply(expiredSubscriptionsPayloadFrom(subscriptions));
+        }
+
+        final List<Subscription> page = subscriptions.subList(0, limit);
+        final Subscription last = page.get(limit - 1);
 
-        return enveloper.withMetadataFrom(query, "notification.expired.subscription").apply(expiredSubscriptionsPayloadFrom(subscriptions));
+        return enveloper.withMetadataFrom(query, "notification.expired.subscription").apply(createObjectBuilder()
+                .add(EXPIRED_SUBSCRIPTIONS, expiredSubscriptionsPayloadFrom(page).getJsonArray(EXPIRED_SUBSCRIPTIONS))
+                .add(NEXT_CURSOR, new PageCursor(last.getModified(), last.getId()).toToken())
+                .build());
     }
 
     private JsonObject payloadFrom(final Subscription subscription) {
@@ -0,0 +1,120 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.Long.parseLong;
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+import static javax.transaction.Transactional.TxType.REQUIRES_NEW;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import org.slf4j.Logger;
+
+/**
+ * Keeps the events recorded for each subscription in subscription_event in step with its
+ * filter, when eventQuerySubscriptionEventsEnabled is set. The events already in the event cache
+ * are recorded when a subscription is created or its filter is updated, and removed when it is
+ * unsubscribed, in a transaction of their own once the change has committed, while the events
+ * stored afterwards are recorded as they are ingested.
+ *
+ * Events are matched at ingest against the filters the registry of each node holds, and may be
+ * buffered before they are stored, so an event matched against the old filter of a subscription
+ * can be stored after its rebuild has read the event cache. The time of each rebuild is kept with
+ * the subscription, and the events stored from shortly before it are reconciled with the filter
+ * again once the configured delay has passed, which should be longer than events are buffered and
+ * than other nodes take to hear of the change. Events matched against the filter of a
+ * subscription after it was unsubscribed are never read, and are removed as they expire.
+ */
+@ApplicationScoped
+public class SubscriptionEventIndexer {
+
+    @Inject
+    SubscriptionRepository subscriptionRepository;
+
+    @Inject
+    SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Inject
+    CompiledFilterCache compiledFilterCache;
+
+    @Inject
+    EventQueryConfig eventQueryConfig;
+
+    @Inject
+    Clock clock;
+
+    @Inject
+    Logger logger;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "subscriptionEventReconcileDelayMillis", defaultValue = "10000")
+    String reconcileDelayMillis;
+
+    @Transactional(REQUIRES_NEW)
+    void onSubscriptionChanged(@Observes(during = AFTER_SUCCESS) final SubscriptionChanged subscriptionChanged) {
+        if (eventQueryConfig.isSubscriptionEventsEnabled() && !subscriptionChanged.isOnOtherNode()) {
+            index(subscriptionChanged.getSubscriptionId());
+        }
+    }
+
+    /**
+     * Reconciles the events of each subscription rebuilt at least the configured delay ago with
+     * its filter, from the events stored the delay before its rebuild, to allow for the clocks of
+     * the servers and of the database to differ. A subscription rebuilt again meanwhile is left
+     * for its new rebuild to be reconciled.
+     */
+    public void reconcile() {
+        final long delayMillis = parseLong(reconcileDelayMillis);
+        final ZonedDateTime due = clock.now().minus(delayMillis, MILLIS);
+
+        subscriptionEventJdbcRepository.findRebuiltBefore(due).forEach((subscriptionId, rebuilt) -> {
+            if (!subscriptionEventJdbcRepository.clearRebuilt(subscriptionId, rebuilt)) {
+                return;
+            }
+
+            final Subscription subscription = subscriptionRepository.findBy(subscriptionId);
+            if (subscription == null) {
+                return;
+            }
+
+            try {
+                final int events = subscriptionEventJdbcRepository.reconcile(subscriptionId,
+                        compiledFilterCache.compiledFilterOf(subscription), rebuilt.minus(delayMillis, MILLIS));
+                logger.debug("Reconciled {} events of subscription {} with its filter", events, subscriptionId);
+            } catch (final IllegalArgumentException e) {
+                subscriptionEventJdbcRepository.removeBySubscription(subscriptionId);
+            }
+        });
+    }
+
+    private void index(final UUID subscriptionId) {
+        final Subscription subscription = subscriptionRepository.findBy(subscriptionId);
+
+        if (subscription == null) {
+            subscriptionEventJdbcRepository.removeBySubscription(subscriptionId);
+            return;
+        }
+
+        try {
+            final int events = subscriptionEventJdbcRepository.rebuild(subscriptionId, compiledFilterCache.compiledFilterOf(subscription));
+            subscriptionEventJdbcRepository.markRebuilt(subscriptionId, clock.now());
+            logger.info("Recorded {} events of the event cache for subscription {}", events, subscriptionId);
+        } catch (final IllegalArgumentException e) {
+            logger.warn("Could not compile filter of subscription " + subscriptionId + ", no events recorded for it", e);
+            subscriptionEventJdbcRepository.removeBySubscription(subscriptionId);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.Long.parseLong;
+
+import uk.gov.justice.services.common.configuration.Value;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+/**
+ * Reconciles the events of rebuilt subscriptions with their filters at a fixed interval, when
+ * eventQuerySubscriptionEventsEnabled is set, see {@link SubscriptionEventIndexer#reconcile()}.
+ */
+@Singleton
+@Startup
+public class SubscriptionEventReconcileScheduler {
+
+    static final String TIMER_TIMEOUT_INFO = "SubscriptionEventReconcileScheduler timer triggered.";
+
+    @Inject
+    @Value(key = "subscriptionEventReconcileIntervalMillis", defaultValue = "5000")
+    String subscriptionEventReconcileIntervalMillis;
+
+    @Inject
+    SubscriptionEventIndexer subscriptionEventIndexer;
+
+    @Inject
+    EventQueryConfig eventQueryConfig;
+
+    @Resource
+    TimerService timerService;
+
+    @PostConstruct
+    public void init() {
+
+        timerService.getTimers()
+                .stream()
+                .filter(timer -> timer.getInfo().equals(TIMER_TIMEOUT_INFO) && timer.isPersistent())
+                .forEach(Timer::cancel);
+
+        if (eventQueryConfig.isSubscriptionEventsEnabled()) {
+            final long interval = parseLong(subscriptionEventReconcileIntervalMillis);
+            timerService.createIntervalTimer(interval, interval, new TimerConfig(TIMER_TIMEOUT_INFO, false));
+        }
+    }
+
+    @Timeout
+    public void reconcile() {
+        subscriptionEventIndexer.reconcile();
+    }
+}
@@ -0,0 +1,156 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.System.currentTimeMillis;
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Lets long-polling requests wait for new events of their subscription instead of querying the
+ * event cache repeatedly. Waiters are woken by the {@link EventCacheMatched} event fired once a
+ * public event matching the subscription has been stored on this node, and by the
+ * {@link ClusterNotification} received when one has been stored on another node.
+ *
+ * A signal is only held for a subscription while a request is waiting on it. Each waiting request
+ * holds a request thread, so no more than the configured number of requests wait at once.
+ */
+@ApplicationScoped
+public class SubscriptionEventWaiters {
+
+    private final Map<UUID, Signal> signals = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventQueryMaxWaiters", defaultValue = "200")
+    String maxWaiters;
+
+    public SubscriptionEventWaiters() {
+    }
+
+    /**
+     * Creates waiters that let the given number of requests wait at once, for use outside the
+     * container, where the settings are not injected.
+     */
+    public SubscriptionEventWaiters(final int maxWaiters) {
+        this.maxWaiters = String.valueOf(maxWaiters);
+    }
+
+    /**
+     * Registers a waiter for the subscription. It must be registered before the events are
+     * queried, so that an event stored while the query runs still wakes it, and closed once the
+     * request is done.
+     *
+     * @return the waiter, or empty if the maximum number of requests are already waiting
+     */
+    public Optional<Waiter> waiterFor(final UUID subscriptionId) {
+        if (waiting.incrementAndGet() > parseInt(maxWaiters)) {
+            waiting.decrementAndGet();
+            return Optional.empty();
+        }
+
+        final Signal signal = signals.compute(subscriptionId, (id, existing) -> {
+            final Signal registered = existing == null ? new Signal() : existing;
+            registered.waiters++;
+            return registered;
+        });
+
+        return Optional.of(new Waiter(subscriptionId, signal));
+    }
+
+    public void wake(final UUID subscriptionId) {
+        final Signal signal = signals.get(subscriptionId);
+
+        if (signal != null) {
+            signal.signal();
+        }
+    }
+
+    int waitingSubscriptions() {
+        return signals.size();
+    }
+
+    void onEventCacheMatched(@Observes(during = AFTER_SUCCESS) final EventCacheMatched eventCacheMatched) {
+        eventCacheMatched.getSubscriptionIds().forEach(this::wake);
+    }
+
+    void onClusterNotification(@Observes final ClusterNotification clusterNotification) {
+        clusterNotification.getMatchedSubscriptionIds().forEach(this::wake);
+    }
+
+    public class Waiter implements AutoCloseable {
+
+        private final UUID subscriptionId;
+        private final Signal signal;
+        private long seenVersion;
+
+        private Waiter(final UUID subscriptionId, final Signal signal) {
+            this.subscriptionId = subscriptionId;
+            this.signal = signal;
+            this.seenVersion = signal.version();
+        }
+
+        /**
+         * Waits until the subscription has been woken since this waiter was registered or last
+         * returned from waiting, or until the timeout passes.
+         *
+         * @return true if woken, false if the timeout passed or the thread was interrupted, in
+         * which case its interrupt flag is set again and the caller should stop waiting
+         */
+        public boolean await(final long timeoutMillis) {
+            final long seen = seenVersion;
+            seenVersion = signal.awaitVersionAfter(seen, timeoutMillis);
+            return seenVersion != seen;
+        }
+
+        @Override
+        public void close() {
+            signals.computeIfPresent(subscriptionId, (id, registered) -> --registered.waiters == 0 ? null : registered);
+            waiting.decrementAndGet();
+        }
+    }
+
+    private static class Signal {
+
+        private int waiters;
+        private long version;
+
+        private synchronized long version() {
+            return version;
+        }
+
+        private synchronized void signal() {
+            version++;
+            notifyAll();
+        }
+
+        private synchronized long awaitVersionAfter(final long seen, final long timeoutMillis) {
+            final long deadline = currentTimeMillis() + timeoutMillis;
+
+            try {
+                long remaining = timeoutMillis;
+                while (version == seen && remaining > 0) {
+                    wait(remaining);
+                    remaining = deadline - currentTimeMillis();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return version;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.time.ZoneOffset.UTC;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChangesMissed;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class CompiledFilterCacheTest {
+
+    private static final String FILTER_JSON_PATTERN =
+            "{\"type\": \"FIELD\", \"name\": \"USER_ID\", \"value\": \"%s\", \"operation\": \"EQUALS\"}";
+
+    private static final ZonedDateTime CREATED = ZonedDateTime.of(2024, 1, 1, 10, 0, 0, 0, UTC);
+
+    @Spy
+    private StringToJsonObjectConverter converter = new StringToJsonObjectConverter();
+
+    @Mock
+    private FilterMetrics filterMetrics;
+
+    @InjectMocks
+    private CompiledFilterCache compiledFilterCache;
+
+    @BeforeEach
+    public void setUp() {
+        compiledFilterCache.maxSize = "10000";
+    }
+
+    @Test
+    public void shouldCompileTheFilterOfASubscription() {
+        final UUID userId = randomUUID();
+        final Subscription subscription = subscriptionWith(randomUUID(), userId);
+
+        final FilterClause filterClause = compiledFilterCache.compiledFilterOf(subscription);
+
+        assertThat(filterClause, is(new FilterClause("user_id = ?", singletonList(userId))));
+    }
+
+    @Test
+    public void shouldReuseTheCompiledFilterWhileTheSubscriptionIsUnchanged() {
+        final Subscription subscription = subscriptionWith(randomUUID(), randomUUID());
+
+        final FilterClause first = compiledFilterCache.compiledFilterOf(subscription);
+        final FilterClause second = compiledFilterCache.compiledFilterOf(subscription);
+
+        assertThat(second, is(sameInstance(first)));
+        verify(converter, times(1)).convert(subscription.getFilter());
+        verify(filterMetrics, times(1)).recordCompilation(anyLong());
+    }
+
+    @Test
+    public void shouldCompileAgainWhenTheSubscriptionHasBeenModified() {
+        final UUID subscriptionId = randomUUID();
+        final Subscription original = subscriptionWith(subscriptionId, randomUUID());
+        final UUID updatedUserId = randomUUID();
+        final Subscription updated = subscriptionWith(subscriptionId, updatedUserId);
+        updated.setModified(CREATED.plusMinutes(5));
+
+        final FilterClause first = compiledFilterCache.compiledFilterOf(original);
+        final FilterClause second = compiledFilterCache.compiledFilterOf(updated);
+
+        assertThat(second, is(not(first)));
+        assertThat(second.getParameters(), is(singletonList(updatedUserId)));
+    }
+
+    @Test
+    public void shouldCompileAgainAfterTheSubscriptionChangedEvent() {
+        final UUID subscriptionId = randomUUID();
+        final Subscription subscription = subscriptionWith(subscriptionId, randomUUID());
+
+        final FilterClause first = compiledFilterCache.compiledFilterOf(subscription);
+        compiledFilterCache.onSubscriptionChanged(new SubscriptionChanged(subscriptionId));
+        final FilterClause second = compiledFilterCache.compiledFilterOf(subscription);
+
+        assertThat(second, is(not(sameInstance(first))));
+        verify(converter, times(2)).convert(subscription.getFilter());
+    }
+
+    @Test
+    public void shouldDropEveryFilterWhenSubscriptionChangesMayHaveBeenMissed() {
+        final Subscription subscription = subscriptionWith(randomUUID(), randomUUID());
+
+        compiledFilterCache.compiledFilterOf(subscription);
+        compiledFilterCache.onSubscriptionChangesMissed(new SubscriptionChangesMissed());
+
+        assertThat(compiledFilterCache.cachedFilterOf(subscription.getId()), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldReturnTheCachedFilterBySubscriptionIdOnlyOnceCompiled() {
+        final Subscription subscription = subscriptionWith(randomUUID(), randomUUID());
+
+        assertThat(compiledFilterCache.cachedFilterOf(subscription.getId()), is(Optional.empty()));
+
+        final FilterClause filterClause = compiledFilterCache.compiledFilterOf(subscription);
+
+        assertThat(compiledFilterCache.cachedFilterOf(subscription.getId()), is(Optional.of(filterClause)));
+    }
+
+    @Test
+    public void shouldEvictTheLeastRecentlyUsedFilterBeyondTheMaximumSize() {
+        compiledFilterCache.maxSize = "2";
+        final Subscription leastRecentlyUsed = subscriptionWith(randomUUID(), randomUUID());
+        final Subscription recentlyUsed = subscriptionWith(randomUUID(), randomUUID());
+        final Subscription added = subscriptionWith(randomUUID(), randomUUID());
+
+        compiledFilterCache.compiledFilterOf(recentlyUsed);
+        compiledFilterCache.compiledFilterOf(leastRecentlyUsed);
+        compiledFilterCache.compiledFilterOf(recentlyUsed);
+        compiledFilterCache.compiledFilterOf(added);
+
+        assertThat(compiledFilterCache.cachedFilterOf(leastRecentlyUsed.getId()), is(Optional.empty()));
+        assertThat(compiledFilterCache.cachedFilterOf(recentlyUsed.getId()).isPresent(), is(true));
+        assertThat(compiledFilterCache.cachedFilterOf(added.getId()).isPresent(), is(true));
+    }
+
+    private Subscription subscriptionWith(final UUID subscriptionId, final UUID userId) {
+        return new Subscription(subscriptionId, randomUUID(), String.format(FILTER_JSON_PATTERN, userId), CREATED);
+    }
+}
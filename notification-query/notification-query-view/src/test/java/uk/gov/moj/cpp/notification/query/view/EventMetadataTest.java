@@ -0,0 +1,42 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import org.junit.jupiter.api.Test;
+
+public class EventMetadataTest {
+
+    @Test
+    public void shouldWrapTheMetadataStoredInItsOwnColumn() {
+        final EventCache eventCache = eventCache(null, "{\"name\":\"public.event\",\"id\":\"1\"}");
+
+        final EventCache metadataOnly = EventMetadata.metadataOnly(eventCache);
+
+        assertThat(metadataOnly.getEventJson(), is("{\"_metadata\":{\"name\":\"public.event\",\"id\":\"1\"}}"));
+        assertThat(metadataOnly.getMetadataJson(), is(eventCache.getMetadataJson()));
+        assertThat(metadataOnly.getId(), is(eventCache.getId()));
+    }
+
+    @Test
+    public void shouldTakeTheMetadataFromTheEventJsonOfEventsStoredWithoutIt() {
+        final EventCache eventCache = eventCache("{\"_metadata\":{\"name\":\"public.event\"},\"payload\":\"value\"}", null);
+
+        assertThat(EventMetadata.metadataOnly(eventCache).getEventJson(), is("{\"_metadata\":{\"name\":\"public.event\"}}"));
+    }
+
+    @Test
+    public void shouldWrapEmptyMetadataForAnEventJsonWithoutMetadata() {
+        final EventCache eventCache = eventCache("{\"payload\":\"value\"}", null);
+
+        assertThat(EventMetadata.metadataOnly(eventCache).getEventJson(), is("{\"_metadata\":{}}"));
+    }
+
+    private EventCache eventCache(final String eventJson, final String metadataJson) {
+        return new EventCache(randomUUID(), randomUUID(), randomUUID(), null, randomUUID(), eventJson, new UtcClock().now(), "public.event", metadataJson);
+    }
+}
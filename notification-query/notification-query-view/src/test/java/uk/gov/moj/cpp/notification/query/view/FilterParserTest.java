@@ -1,7 +1,10 @@
 package uk.gov.moj.cpp.notification.query.view;
 
 import static org.hamcrest.CoreMatchers.is;
+import static java.util.Arrays.asList;
+import static java.util.UUID.randomUUID;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static uk.gov.moj.cpp.notification.common.FieldNames.NAME;
 import static uk.gov.moj.cpp.notification.common.FieldNames.STREAM_ID;
 import static uk.gov.moj.cpp.notification.common.FieldNames.USER_ID;
@@ -9,9 +12,13 @@ import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
 import static uk.gov.moj.cpp.notification.common.OperationType.EQUALS;
 
 import uk.gov.justice.services.messaging.JsonObjects;
+import uk.gov.moj.cpp.notification.common.Filter;
 import uk.gov.moj.cpp.notification.common.FilterType;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
 
 import uk.gov.justice.services.messaging.JsonObjects;
+import java.util.UUID;
+
 import javax.json.JsonObject;
 
 import org.junit.jupiter.api.Test;
@@ -25,27 +32,6 @@ public class FilterParserTest {
             .add("operation", EQUALS.name())
             .build();
 
-    private static final JsonObject STREAM_ID_FILTER_1 = JsonObjects.createObjectBuilder()
-            .add("type", FIELD.name())
-            .add("name", STREAM_ID.name())
-            .add("value", "streamValue_1")
-            .add("operation", EQUALS.name())
-            .build();
-
-    private static final JsonObject STREAM_ID_FILTER_2 = JsonObjects.createObjectBuilder()
-            .add("type", FIELD.name())
-            .add("name", STREAM_ID.name())
-            .add("value", "streamValue_2")
-            .add("operation", EQUALS.name())
-            .build();
-
-    private static final JsonObject STREAM_ID_FILTER_3 = JsonObjects.createObjectBuilder()
-            .add("type", FIELD.name())
-            .add("name", STREAM_ID.name())
-            .add("value", "streamValue_3")
-            .add("operation", EQUALS.name())
-            .build();
-
     private static final JsonObject NAME_FILTER = JsonObjects.createObjectBuilder()
             .add("type", FIELD.name())
             .add("name", NAME.name())
@@ -54,49 +40,25 @@ public class FilterParserTest {
             .build();
 
     @Test
-    public void shouldBuildFilterQueryForFieldTypeQuery() {
-        final String filterQuery = FilterParser.parse(USER_ID_FILTER);
-
-        assertThat(filterQuery, is("USER_ID = 'testUser'"));
-    }
-
-    @Test
-    public void shouldBuildFilterQueryForORFieldTypeQuery() {
-        final JsonObject filter = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.OR.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(USER_ID_FILTER)
-                        .add(STREAM_ID_FILTER_1)
-                        .build())
-                .build();
+    public void shouldCompileFieldFilterToBindParameter() {
+        final UUID userId = randomUUID();
 
-        final String filterQuery = FilterParser.parse(filter);
+        final FilterClause filterClause = FilterParser.compile(fieldFilter(USER_ID.name(), userId.toString()));
 
-        assertThat(filterQuery, is("(USER_ID = 'testUser' OR STREAM_ID = 'streamValue_1')"));
+        assertThat(filterClause.getSql(), is("user_id = ?"));
+        assertThat(filterClause.getParameters(), is(asList(userId)));
     }
 
     @Test
-    public void shouldBuildFilterQueryForANDFieldTypeQuery() {
-        final JsonObject filter = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.AND.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(USER_ID_FILTER)
-                        .add(STREAM_ID_FILTER_1)
-                        .build())
-                .build();
+    public void shouldCompileNestedFiltersToBindParametersInClauseOrder() {
+        final UUID userId = randomUUID();
+        final UUID streamId = randomUUID();
 
-        final String filterQuery = FilterParser.parse(filter);
-
-        assertThat(filterQuery, is("(USER_ID = 'testUser' AND STREAM_ID = 'streamValue_1')"));
-    }
-
-    @Test
-    public void shouldBuildFilterQueryForNestedAndFieldTypeQuery() {
         final JsonObject nestedFilter = JsonObjects.createObjectBuilder()
                 .add("type", FilterType.OR.name())
                 .add("value", JsonObjects.createArrayBuilder()
-                        .add(USER_ID_FILTER)
-                        .add(STREAM_ID_FILTER_1)
+                        .add(fieldFilter(USER_ID.name(), userId.toString()))
+                        .add(fieldFilter(STREAM_ID.name(), streamId.toString()))
                         .build())
                 .build();
 
@@ -108,72 +70,90 @@ public class FilterParserTest {
                         .build())
                 .build();
 
-        final String filterQuery = FilterParser.parse(filter);
+        final FilterClause filterClause = FilterParser.compile(filter);
 
-        assertThat(filterQuery, is("(NAME = 'eventName' AND (USER_ID = 'testUser' OR STREAM_ID = 'streamValue_1'))"));
+        assertThat(filterClause.getSql(), is("(name = ? AND (user_id = ? OR stream_id = ?))"));
+        assertThat(filterClause.getParameters(), is(asList("eventName", userId, streamId)));
     }
 
     @Test
-    public void shouldBuildFilterQueryForNestedAndFieldTypeQueryWithMoreThanTwoFiltersPerLevel() {
-        final JsonObject nestedFilter = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.OR.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(STREAM_ID_FILTER_1)
-                        .add(STREAM_ID_FILTER_2)
-                        .add(STREAM_ID_FILTER_3)
-                        .build())
-                .build();
+    public void shouldCompileAParsedTreeToBindParametersInClauseOrder() {
+        final UUID userId = randomUUID();
+        final UUID streamId = randomUUID();
+
+        final Filter filter = Filter.or(asList(
+                Filter.field(USER_ID.name(), userId.toString(), EQUALS),
+                Filter.and(asList(
+                        Filter.field(STREAM_ID.name(), streamId.toString(), EQUALS),
+                        Filter.field(NAME.name(), "public.event", EQUALS)))));
+
+        assertThat(FilterParser.compile(filter), is(new FilterClause("(user_id = ? OR (stream_id = ? AND name = ?))",
+                asList(userId, streamId, "public.event"))));
+    }
+
+    @Test
+    public void shouldCompileEveryFilterOfALevelJoinedByItsType() {
+        final UUID first = randomUUID();
+        final UUID second = randomUUID();
+        final UUID third = randomUUID();
 
         final JsonObject filter = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.AND.name())
+                .add("type", FilterType.OR.name())
                 .add("value", JsonObjects.createArrayBuilder()
-                        .add(NAME_FILTER)
-                        .add(USER_ID_FILTER)
-                        .add(nestedFilter)
+                        .add(fieldFilter(STREAM_ID.name(), first.toString()))
+                        .add(fieldFilter(STREAM_ID.name(), second.toString()))
+                        .add(fieldFilter(STREAM_ID.name(), third.toString()))
                         .build())
                 .build();
 
-        final String filterQuery = FilterParser.parse(filter);
+        final FilterClause filterClause = FilterParser.compile(filter);
 
-        assertThat(filterQuery, is("(NAME = 'eventName' AND USER_ID = 'testUser' AND (STREAM_ID = 'streamValue_1' OR STREAM_ID = 'streamValue_2' OR STREAM_ID = 'streamValue_3'))"));
+        assertThat(filterClause.getSql(), is("(stream_id = ? OR stream_id = ? OR stream_id = ?)"));
+        assertThat(filterClause.getParameters(), is(asList(first, second, third)));
     }
 
     @Test
-    public void shouldBuildFilterQueryForMultipleNestedLevels() {
-        final JsonObject nestedFilter_3 = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.OR.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(STREAM_ID_FILTER_3)
-                        .build())
-                .build();
+    public void shouldCompileFiltersWithTheSameShapeToTheSameSql() {
+        final FilterClause first = FilterParser.compile(fieldFilter(STREAM_ID.name(), randomUUID().toString()));
+        final FilterClause second = FilterParser.compile(fieldFilter(STREAM_ID.name(), randomUUID().toString()));
 
-        final JsonObject nestedFilter_2 = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.OR.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(STREAM_ID_FILTER_2)
-                        .add(nestedFilter_3)
-                        .build())
-                .build();
+        assertThat(first.getSql(), is(second.getSql()));
+    }
 
-        final JsonObject nestedFilter_1 = JsonObjects.createObjectBuilder()
-                .add("type", FilterType.OR.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(STREAM_ID_FILTER_1)
-                        .add(nestedFilter_2)
-                        .build())
-                .build();
+    @Test
+    public void shouldNotCompileValuesIntoTheSql() {
+        final FilterClause filterClause = FilterParser.compile(fieldFilter(NAME.name(), "x' OR '1'='1"));
 
-        final JsonObject filter = JsonObjects.createObjectBuilder()
+        assertThat(filterClause.getSql(), is("name = ?"));
+        assertThat(filterClause.getParameters(), is(asList("x' OR '1'='1")));
+    }
+
+    @Test
+    public void shouldRejectUnknownFieldNameWhenCompiling() {
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.compile(fieldFilter("CREATED; DROP TABLE event_cache", "value")));
+    }
+
+    @Test
+    public void shouldRejectIdFieldThatIsNotAUuidWhenCompiling() {
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.compile(USER_ID_FILTER));
+    }
+
+    @Test
+    public void shouldRejectAGroupWithoutFiltersWhenCompiling() {
+        final JsonObject emptyAnd = JsonObjects.createObjectBuilder()
                 .add("type", FilterType.AND.name())
-                .add("value", JsonObjects.createArrayBuilder()
-                        .add(NAME_FILTER)
-                        .add(USER_ID_FILTER)
-                        .add(nestedFilter_1)
-                        .build())
+                .add("value", JsonObjects.createArrayBuilder())
                 .build();
 
-        final String filterQuery = FilterParser.parse(filter);
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.compile(emptyAnd));
+    }
 
-        assertThat(filterQuery, is("(NAME = 'eventName' AND USER_ID = 'testUser' AND (STREAM_ID = 'streamValue_1' OR (STREAM_ID = 'streamValue_2' OR (STREAM_ID = 'streamValue_3'))))"));
+    private JsonObject fieldFilter(final String name, final String value) {
+        return JsonObjects.createObjectBuilder()
+                .add("type", FIELD.name())
+                .add("name", name)
+                .add("value", value)
+                .add("operation", EQUALS.name())
+                .build();
     }
-}
\ No newline at end of file
+}
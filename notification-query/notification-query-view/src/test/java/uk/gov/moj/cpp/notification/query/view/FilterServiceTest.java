@@ -4,27 +4,23 @@ import static java.time.ZonedDateTime.now;
 import static java.util.UUID.randomUUID;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
-import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
-import static uk.gov.moj.cpp.notification.common.OperationType.EQUALS;
 
-import uk.gov.justice.services.common.converter.StringToJsonObjectConverter;
-import uk.gov.justice.services.common.json.DefaultJsonParser;
-import uk.gov.justice.services.common.json.JsonParser;
-import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionCache;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
 import java.time.ZonedDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
-import javax.json.JsonObject;
-
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 
@@ -40,67 +36,44 @@ public class FilterServiceTest {
                     "}\n";
 
     @Mock
-    private SubscriptionRepository subscriptionRepository;
+    private SubscriptionCache subscriptionCache;
 
-    @Spy
-    private JsonParser jsonParser = new DefaultJsonParser();
+    @Mock
+    private CompiledFilterCache compiledFilterCache;
 
-    @Spy
-    private StringToJsonObjectConverter stringToJsonObjectConverter = new StringToJsonObjectConverter();
+    @Mock
+    private FilterMetrics filterMetrics;
 
     @InjectMocks
     private FilterService filterService;
 
     @Test
-    public void shouldExtractTheSubscriptionIdFromTheEnvelopeAndUseItToFindTheFilter() throws Exception {
+    public void shouldFindTheCompiledFilterOfTheSubscription() {
 
         final UUID subscriptionId = randomUUID();
-        final UUID userId = randomUUID();
-        final ZonedDateTime created = now();
-
-        final Subscription subscription = new Subscription(subscriptionId, userId, FILTER_JSON, created);
+        final Subscription subscription = new Subscription(subscriptionId, randomUUID(), FILTER_JSON, now());
+        final FilterClause filterClause = mock(FilterClause.class);
 
-        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
+        when(subscriptionCache.findBy(subscriptionId)).thenReturn(subscription);
+        when(compiledFilterCache.compiledFilterOf(subscription)).thenReturn(filterClause);
 
-        final Optional<Filter> filter = filterService.findFilter(subscriptionId);
+        final Optional<FilterClause> filter = filterService.findCompiledFilter(subscriptionId);
 
-        assertThat(filter.get().getName(), is("USER_ID"));
-        assertThat(filter.get().getValue(), is("d3690064-b74d-41b9-bcd2-1da279752a22"));
-        assertThat(filter.get().getType(), is(FIELD));
-        assertThat(filter.get().getOperation(), is(EQUALS));
+        assertThat(filter.get(), is(filterClause));
+        verify(filterMetrics).recordLookup(true);
     }
 
     @Test
-    public void shouldReturnEmptyIfNoSubscriptionFound() throws Exception {
+    public void shouldReturnEmptyCompiledFilterIfNoSubscriptionFound() {
 
         final UUID subscriptionId = randomUUID();
 
-        final Subscription subscription = null;
+        when(subscriptionCache.findBy(subscriptionId)).thenReturn(null);
 
-        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
-
-        final Optional<Filter> filter = filterService.findFilter(subscriptionId);
+        final Optional<FilterClause> filter = filterService.findCompiledFilter(subscriptionId);
 
         assertThat(filter.isPresent(), is(false));
+        verify(filterMetrics).recordLookup(false);
+        verifyNoInteractions(compiledFilterCache);
     }
-
-    @Test
-    public void shouldExtractTheSubscriptionIdFromTheEnvelopeAndUseItToFindTheJsonFilter() throws Exception {
-
-        final UUID subscriptionId = randomUUID();
-        final UUID userId = randomUUID();
-        final ZonedDateTime created = now();
-
-        final Subscription subscription = new Subscription(subscriptionId, userId, FILTER_JSON, created);
-
-        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
-
-        final Optional<JsonObject> filter = filterService.findJsonFilter(subscriptionId);
-
-        assertThat(filter.get().getString("name"), is("USER_ID"));
-        assertThat(filter.get().getString("value"), is("d3690064-b74d-41b9-bcd2-1da279752a22"));
-        assertThat(filter.get().getString("type"), is(FIELD.name()));
-        assertThat(filter.get().getString("operation"), is(EQUALS.name()));
-    }
-
 }
@@ -0,0 +1,108 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+
+import java.util.List;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class FilterShapeMetricsTest {
+
+    private static final String USER_ID_SHAPE = "user_id = ?";
+    private static final String STREAM_ID_AND_NAME_SHAPE = "(stream_id = ? AND name = ?)";
+
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private FilterShapeMetrics filterShapeMetrics;
+
+    @BeforeEach
+    public void setMaxShapes() {
+        filterShapeMetrics.maxShapes = "2";
+    }
+
+    @AfterEach
+    public void unregister() {
+        filterShapeMetrics.unregister();
+    }
+
+    @Test
+    public void shouldRecordFrequencyAndLatencyOfEachShapeMostFrequentFirst() {
+        filterShapeMetrics.record(filterOf(USER_ID_SHAPE), MILLISECONDS.toNanos(10), 1);
+        filterShapeMetrics.record(filterOf(STREAM_ID_AND_NAME_SHAPE), MILLISECONDS.toNanos(4), 100);
+        filterShapeMetrics.record(filterOf(STREAM_ID_AND_NAME_SHAPE), MILLISECONDS.toNanos(8), 20);
+
+        final List<FilterShape> filterShapes = filterShapeMetrics.getFilterShapes();
+
+        assertThat(filterShapes.size(), is(2));
+        assertThat(filterShapes.get(0).getShape(), is(STREAM_ID_AND_NAME_SHAPE));
+        assertThat(filterShapes.get(0).getCount(), is(2L));
+        assertThat(filterShapes.get(0).getTotalMillis(), is(12L));
+        assertThat(filterShapes.get(0).getMaxMillis(), is(8L));
+        assertThat(filterShapes.get(0).getMeanMillis(), is(6L));
+        assertThat(filterShapes.get(0).getTotalRows(), is(120L));
+        assertThat(filterShapes.get(0).getLatencyMillis().getCount(), is(2L));
+        assertThat(filterShapes.get(0).getLatencyMillis().getP99(), is(10L));
+        assertThat(filterShapes.get(1).getShape(), is(USER_ID_SHAPE));
+        assertThat(filterShapes.get(1).getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCountShapesBeyondTheMaximumTogether() {
+        filterShapeMetrics.record(filterOf(USER_ID_SHAPE), 0L, 0);
+        filterShapeMetrics.record(filterOf(STREAM_ID_AND_NAME_SHAPE), 0L, 0);
+        filterShapeMetrics.record(filterOf("name = ?"), 0L, 0);
+        filterShapeMetrics.record(filterOf("(user_id = ? OR stream_id = ?)"), 0L, 0);
+        filterShapeMetrics.record(filterOf(USER_ID_SHAPE), 0L, 0);
+
+        final List<FilterShape> filterShapes = filterShapeMetrics.getFilterShapes();
+
+        assertThat(filterShapes.size(), is(3));
+        assertThat(filterShapes.stream().filter(shape -> shape.getShape().equals(FilterShapeMetrics.OTHER_SHAPES)).findFirst().get().getCount(), is(2L));
+        assertThat(filterShapes.stream().filter(shape -> shape.getShape().equals(USER_ID_SHAPE)).findFirst().get().getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldForgetAllShapesWhenReset() {
+        filterShapeMetrics.record(filterOf(USER_ID_SHAPE), 0L, 0);
+
+        filterShapeMetrics.reset();
+
+        assertThat(filterShapeMetrics.getFilterShapes().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldPublishTheShapesOverJmx() throws Exception {
+        filterShapeMetrics.register();
+        filterShapeMetrics.record(filterOf(USER_ID_SHAPE), MILLISECONDS.toNanos(3), 1);
+
+        final CompositeData[] filterShapes = (CompositeData[]) getPlatformMBeanServer().getAttribute(new ObjectName(FilterShapeMetrics.OBJECT_NAME), "FilterShapes");
+
+        assertThat(filterShapes.length, is(1));
+        assertThat(filterShapes[0].get("shape"), is(USER_ID_SHAPE));
+        assertThat(filterShapes[0].get("count"), is(1L));
+    }
+
+    private FilterClause filterOf(final String shape) {
+        return new FilterClause(shape, singletonList(randomUUID()));
+    }
+}
@@ -1,24 +1,36 @@
 package uk.gov.moj.cpp.notification.query.view;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.UUID.randomUUID;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static uk.gov.moj.cpp.notification.common.FieldNames.USER_ID;
-import static uk.gov.moj.cpp.notification.common.FilterType.FIELD;
-import static uk.gov.moj.cpp.notification.common.OperationType.EQUALS;
+import static uk.gov.moj.cpp.notification.persistence.EventProjection.EVENT;
 
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.justice.services.common.util.UtcClock;
 import uk.gov.moj.cpp.notification.persistence.EventCacheJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.EventLatencyMetrics;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEvents;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionPositionJdbcRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
-
-import uk.gov.justice.services.messaging.JsonObjects;
-import javax.json.JsonObject;
+import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,46 +45,337 @@ public class FilteredEventServiceTest {
     @Mock
     private EventCacheJdbcRepository publicEventJdbcRepository;
 
+    @Mock
+    private SubscriptionPositionJdbcRepository subscriptionPositionJdbcRepository;
+
+    @Mock
+    private CompiledFilterCache compiledFilterCache;
+
+    @Mock
+    private FilterService filterService;
+
+    @Mock
+    private EventQueryConfig eventQueryConfig;
+
+    @Mock
+    private FilterShapeMetrics filterShapeMetrics;
+
+    @Mock
+    private EventQueryMetrics eventQueryMetrics;
+
+    @Mock
+    private EventLatencyMetrics eventLatencyMetrics;
+
+    @Mock
+    private Clock clock;
+
     @InjectMocks
     private FilteredEventService filteredEventService;
 
     @Test
-    public void shouldFindEventsByQueryFilterWithoutCorrelationId() {
-        final JsonObject filter = JsonObjects.createObjectBuilder()
-                .add("type", FIELD.name())
-                .add("name", USER_ID.name())
-                .add("value", "testUser")
-                .add("operation", EQUALS.name())
-                .build();
+    public void shouldFindAPageOfEventsByQueryFilterWithoutCorrelationId() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
 
         final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
 
         final Optional<String> optionalCorrelationId = Optional.empty();
-        when(publicEventJdbcRepository.queryByFilter("USER_ID = 'testUser'", optionalCorrelationId)).thenReturn(publicEvents);
+        when(publicEventJdbcRepository.queryByFilter(filter, optionalCorrelationId, Optional.empty(), 11, EVENT)).thenReturn(publicEvents);
 
-        final List<EventCache> events = filteredEventService.findEventsBy(filter, optionalCorrelationId);
+        final EventPage eventPage = filteredEventService.findEventPageBy(subscriptionId, filter, optionalCorrelationId, Optional.empty(), 10, EVENT);
 
-        verify(publicEventJdbcRepository).queryByFilter("USER_ID = 'testUser'", optionalCorrelationId);
-        assertThat(events, is(publicEvents));
+        verify(filterShapeMetrics).record(eq(filter), anyLong(), eq(1));
+        verify(eventQueryMetrics).recordPoll(eq(1), anyLong());
+        assertThat(eventPage.getEvents(), is(publicEvents));
     }
 
     @Test
-    public void shouldFindEventsByQueryFilterUsingClientCorrelationId() {
-        final JsonObject filter = JsonObjects.createObjectBuilder()
-                .add("type", FIELD.name())
-                .add("name", USER_ID.name())
-                .add("value", "testUser")
-                .add("operation", EQUALS.name())
-                .build();
+    public void shouldFindAPageOfEventsByQueryFilterUsingClientCorrelationId() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
 
         final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
 
         final Optional<String> optionalCorrelationId = Optional.of(randomUUID().toString());
-        when(publicEventJdbcRepository.queryByFilter("USER_ID = 'testUser'", optionalCorrelationId)).thenReturn(publicEvents);
+        when(publicEventJdbcRepository.queryByFilter(filter, optionalCorrelationId, Optional.empty(), 11, EVENT)).thenReturn(publicEvents);
+
+        final EventPage eventPage = filteredEventService.findEventPageBy(subscriptionId, filter, optionalCorrelationId, Optional.empty(), 10, EVENT);
+
+        assertThat(eventPage.getEvents(), is(publicEvents));
+    }
+
+    @Test
+    public void shouldReturnPageWithNextCursorWhenMoreEventsAreAvailable() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache first = eventCacheCreatedAt(now);
+        final EventCache second = eventCacheCreatedAt(now.minusSeconds(1));
+        final EventCache third = eventCacheCreatedAt(now.minusSeconds(2));
+
+        final Optional<String> optionalCorrelationId = Optional.empty();
+        final Optional<PageCursor> after = Optional.of(new PageCursor(now.plusSeconds(1), randomUUID()));
+        when(publicEventJdbcRepository.queryByFilter(filter, optionalCorrelationId, after, 3, EVENT)).thenReturn(asList(first, second, third));
+
+        final EventPage eventPage = filteredEventService.findEventPageBy(subscriptionId, filter, optionalCorrelationId, after, 2, EVENT);
+
+        assertThat(eventPage.getEvents(), is(asList(first, second)));
+        assertThat(eventPage.getNextCursor(), is(Optional.of(new PageCursor(second.getCreated(), second.getId()))));
+    }
+
+    @Test
+    public void shouldReturnLastPageWithoutNextCursor() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        final EventCache first = eventCacheCreatedAt(new UtcClock().now());
+
+        final Optional<String> optionalCorrelationId = Optional.of(randomUUID().toString());
+        when(publicEventJdbcRepository.queryByFilter(filter, optionalCorrelationId, Optional.empty(), 3, EVENT)).thenReturn(singletonList(first));
+
+        final EventPage eventPage = filteredEventService.findEventPageBy(subscriptionId, filter, optionalCorrelationId, Optional.empty(), 2, EVENT);
+
+        assertThat(eventPage.getEvents(), is(singletonList(first)));
+        assertThat(eventPage.getNextCursor(), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldRecordTheDeliveryOfTheEventsOfAPageButNotTheEventReadAhead() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache first = eventCacheStoredAt(now.minusSeconds(1));
+        final EventCache second = eventCacheStoredAt(now.minusSeconds(2));
+
+        when(clock.now()).thenReturn(now);
+        when(publicEventJdbcRepository.queryByFilter(filter, Optional.empty(), Optional.empty(), 2, EVENT)).thenReturn(asList(first, second));
+
+        filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), Optional.empty(), 1, EVENT);
+
+        verify(eventLatencyMetrics).recordDelivered(singletonList(first), now);
+    }
+
+    @Test
+    public void shouldReturnEventsStoredLongerAgoThanTheLagSinceTheAcknowledgedPositionWithoutAdvancingIt() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        final ZonedDateTime now = new UtcClock().now();
+        final Optional<PageCursor> lastPosition = Optional.of(new PageCursor(now.minusMinutes(1), randomUUID()));
+        final EventCache older = eventCacheStoredAt(now.minusSeconds(4));
+        final EventCache newer = eventCacheStoredAt(now.minusSeconds(3));
+
+        when(clock.now()).thenReturn(now);
+        when(eventQueryConfig.getSinceLastPollLagMillis()).thenReturn(2000L);
+        when(subscriptionPositionJdbcRepository.findPosition(subscriptionId)).thenReturn(lastPosition);
+        when(publicEventJdbcRepository.queryByFilterSince(filter, lastPosition, 2000L, 10, EVENT)).thenReturn(asList(older, newer));
+
+        final EventPage eventPage = filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 10, EVENT);
+
+        assertThat(eventPage.getEvents(), is(asList(older, newer)));
+        assertThat(eventPage.getNextCursor(), is(Optional.of(new PageCursor(newer.getStored(), newer.getId()))));
+        verify(subscriptionPositionJdbcRepository, never()).advancePosition(any(), any(), any());
+        verify(eventLatencyMetrics).recordDelivered(asList(older, newer), now);
+    }
+
+    @Test
+    public void shouldReturnNoCursorWhenNoEventsStoredSinceTheAcknowledgedPosition() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        when(eventQueryConfig.getSinceLastPollLagMillis()).thenReturn(2000L);
+        when(subscriptionPositionJdbcRepository.findPosition(subscriptionId)).thenReturn(Optional.empty());
+        when(publicEventJdbcRepository.queryByFilterSince(filter, Optional.empty(), 2000L, 10, EVENT)).thenReturn(emptyList());
+
+        final EventPage eventPage = filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 10, EVENT);
+
+        assertThat(eventPage.getEvents(), is(emptyList()));
+        assertThat(eventPage.getNextCursor(), is(Optional.empty()));
+        verify(eventLatencyMetrics, never()).recordDelivered(any(), any());
+    }
+
+    @Test
+    public void shouldFindEventsRecordedForTheSubscriptionWhenSubscriptionEventsAreEnabled() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final Optional<String> optionalCorrelationId = Optional.of(randomUUID().toString());
+
+        when(eventQueryConfig.isSubscriptionEventsEnabled()).thenReturn(true);
+        when(publicEventJdbcRepository.queryBySubscriptionEvents(subscriptionId, optionalCorrelationId, Optional.empty(), Optional.of(11), EVENT)).thenReturn(publicEvents);
+
+        final EventPage eventPage = filteredEventService.findEventPageBy(subscriptionId, filter, optionalCorrelationId, Optional.empty(), 10, EVENT);
+
+        assertThat(eventPage.getEvents(), is(publicEvents));
+        verify(publicEventJdbcRepository, never()).queryByFilter(any(FilterClause.class), any(), any(), anyInt(), any());
+        verify(filterShapeMetrics, never()).record(any(FilterClause.class), anyLong(), anyInt());
+        verify(eventQueryMetrics).recordPoll(eq(1), anyLong());
+    }
+
+    @Test
+    public void shouldPageThroughEventsRecordedForTheSubscriptionWhenSubscriptionEventsAreEnabled() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache first = eventCacheCreatedAt(now);
+        final EventCache second = eventCacheCreatedAt(now.minusSeconds(1));
+        final Optional<PageCursor> after = Optional.of(new PageCursor(now.plusSeconds(1), randomUUID()));
+
+        when(eventQueryConfig.isSubscriptionEventsEnabled()).thenReturn(true);
+        when(publicEventJdbcRepository.queryBySubscriptionEvents(subscriptionId, Optional.empty(), after, Optional.of(2), EVENT)).thenReturn(asList(first, second));
+
+        final EventPage eventPage = filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), after, 1, EVENT);
+
+        assertThat(eventPage.getEvents(), is(singletonList(first)));
+        assertThat(eventPage.getNextCursor(), is(Optional.of(new PageCursor(first.getCreated(), first.getId()))));
+    }
+
+    @Test
+    public void shouldReturnEventsRecordedForTheSubscriptionSinceLastPollWhenSubscriptionEventsAreEnabled() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache event = eventCacheStoredAt(now.minusSeconds(3));
+
+        when(clock.now()).thenReturn(now);
+        when(eventQueryConfig.getSinceLastPollLagMillis()).thenReturn(2000L);
+        when(eventQueryConfig.isSubscriptionEventsEnabled()).thenReturn(true);
+        when(subscriptionPositionJdbcRepository.findPosition(subscriptionId)).thenReturn(Optional.empty());
+        when(publicEventJdbcRepository.queryBySubscriptionEventsSince(subscriptionId, Optional.empty(), 2000L, 10, EVENT)).thenReturn(singletonList(event));
+
+        final EventPage eventPage = filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 10, EVENT);
+
+        assertThat(eventPage.getEvents(), is(singletonList(event)));
+        assertThat(eventPage.getNextCursor(), is(Optional.of(new PageCursor(event.getStored(), event.getId()))));
+    }
+
+    private EventCache eventCacheCreatedAt(final ZonedDateTime created) {
+        return new EventCache(randomUUID(), randomUUID(), randomUUID(), randomUUID().toString(), randomUUID(), "{}", created, "public.event");
+    }
+
+    private EventCache eventCacheStoredAt(final ZonedDateTime stored) {
+        final EventCache eventCache = eventCacheCreatedAt(stored.minusSeconds(1));
+        eventCache.setStored(stored);
+        return eventCache;
+    }
+
+    @Test
+    public void shouldFindOwnedEventsInOneQueryUsingTheCachedFilter() {
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+        final List<EventCache> events = singletonList(mock(EventCache.class));
+        final SubscriptionEvents subscriptionEvents = new SubscriptionEvents(mock(Subscription.class), events);
+
+        when(compiledFilterCache.cachedFilterOf(subscriptionId)).thenReturn(Optional.of(filter));
+        when(publicEventJdbcRepository.queryBySubscription(subscriptionId, ownerId, filter, Optional.empty(), Optional.empty(), 11)).thenReturn(Optional.of(subscriptionEvents));
+        when(compiledFilterCache.compiledFilterOf(subscriptionEvents.getSubscription())).thenReturn(filter);
+
+        final Optional<EventPage> result = filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId, Optional.empty(), Optional.empty(), 10);
+
+        assertThat(result.get().getEvents(), is(events));
+        assertThat(result.get().getNextCursor(), is(Optional.empty()));
+        verify(filterService, never()).findCompiledFilter(any(UUID.class));
+        verify(eventLatencyMetrics, never()).recordDelivered(any(), any());
+    }
+
+    @Test
+    public void shouldTrimTheOwnedEventsToThePageWithACursorWhenThereAreMore() {
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+        final EventCache first = eventCacheStoredAt(new UtcClock().now());
+        final EventCache lookahead = eventCacheStoredAt(new UtcClock().now());
+        final SubscriptionEvents subscriptionEvents = new SubscriptionEvents(mock(Subscription.class), asList(first, lookahead));
+
+        when(compiledFilterCache.cachedFilterOf(subscriptionId)).thenReturn(Optional.of(filter));
+        when(publicEventJdbcRepository.queryBySubscription(subscriptionId, ownerId, filter, Optional.empty(), Optional.empty(), 2)).thenReturn(Optional.of(subscriptionEvents));
+        when(compiledFilterCache.compiledFilterOf(subscriptionEvents.getSubscription())).thenReturn(filter);
+
+        final Optional<EventPage> result = filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId, Optional.empty(), Optional.empty(), 1);
+
+        assertThat(result.get().getEvents(), is(singletonList(first)));
+        assertThat(result.get().getNextCursor(), is(Optional.of(new PageCursor(first.getCreated(), first.getId()))));
+        verify(eventQueryMetrics).recordPoll(eq(1), anyLong());
+    }
+
+    @Test
+    public void shouldCompileTheFilterOnFirstUseOfASubscription() {
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+        final SubscriptionEvents subscriptionEvents = new SubscriptionEvents(mock(Subscription.class), emptyList());
+
+        when(compiledFilterCache.cachedFilterOf(subscriptionId)).thenReturn(Optional.empty());
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(Optional.of(filter));
+        when(publicEventJdbcRepository.queryBySubscription(subscriptionId, ownerId, filter, Optional.empty(), Optional.empty(), 11)).thenReturn(Optional.of(subscriptionEvents));
+        when(compiledFilterCache.compiledFilterOf(subscriptionEvents.getSubscription())).thenReturn(filter);
+
+        final Optional<EventPage> result = filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId, Optional.empty(), Optional.empty(), 10);
+
+        assertThat(result.get().getEvents(), is(emptyList()));
+    }
+
+    @Test
+    public void shouldQueryAgainWhenTheFilterWasUpdatedSinceItWasCached() {
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final Optional<String> clientCorrelationId = Optional.of(randomUUID().toString());
+        final FilterClause staleFilter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+        final FilterClause currentFilter = new FilterClause("stream_id = ?", singletonList(randomUUID()));
+        final SubscriptionEvents staleEvents = new SubscriptionEvents(mock(Subscription.class), singletonList(mock(EventCache.class)));
+        final SubscriptionEvents currentEvents = new SubscriptionEvents(staleEvents.getSubscription(), singletonList(mock(EventCache.class)));
+
+        when(compiledFilterCache.cachedFilterOf(subscriptionId)).thenReturn(Optional.of(staleFilter));
+        when(publicEventJdbcRepository.queryBySubscription(subscriptionId, ownerId, staleFilter, clientCorrelationId, Optional.empty(), 11)).thenReturn(Optional.of(staleEvents));
+        when(compiledFilterCache.compiledFilterOf(staleEvents.getSubscription())).thenReturn(currentFilter);
+        when(publicEventJdbcRepository.queryBySubscription(subscriptionId, ownerId, currentFilter, clientCorrelationId, Optional.empty(), 11)).thenReturn(Optional.of(currentEvents));
+
+        final Optional<EventPage> result = filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId, clientCorrelationId, Optional.empty(), 10);
+
+        assertThat(result.get().getEvents(), is(currentEvents.getEvents()));
+    }
+
+    @Test
+    public void shouldFindNoOwnedEventsForASubscriptionNotOwnedByTheUser() {
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        when(compiledFilterCache.cachedFilterOf(subscriptionId)).thenReturn(Optional.of(filter));
+        when(publicEventJdbcRepository.queryBySubscription(subscriptionId, userId, filter, Optional.empty(), Optional.empty(), 11)).thenReturn(Optional.empty());
+
+        final Optional<EventPage> result = filteredEventService.findOwnedEventPageBy(subscriptionId, userId, Optional.empty(), Optional.empty(), 10);
+
+        assertThat(result, is(Optional.empty()));
+        verify(eventQueryMetrics, never()).recordPoll(anyInt(), anyLong());
+    }
+
+    @Test
+    public void shouldFindNoOwnedEventsForUnknownSubscription() {
+        final UUID subscriptionId = randomUUID();
+
+        when(compiledFilterCache.cachedFilterOf(subscriptionId)).thenReturn(Optional.empty());
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(Optional.empty());
+
+        final Optional<EventPage> result = filteredEventService.findOwnedEventPageBy(subscriptionId, randomUUID(), Optional.empty(), Optional.empty(), 10);
+
+        assertThat(result, is(Optional.empty()));
+        verify(publicEventJdbcRepository, never()).queryBySubscription(any(UUID.class), any(UUID.class), any(FilterClause.class), any(), any(), anyInt());
+    }
+
+    @Test
+    public void shouldRecordTheEventsDelivered() {
+        final ZonedDateTime now = new UtcClock().now();
+        final List<EventCache> events = singletonList(eventCacheStoredAt(now.minusSeconds(1)));
+        when(clock.now()).thenReturn(now);
 
-        final List<EventCache> events = filteredEventService.findEventsBy(filter, optionalCorrelationId);
+        filteredEventService.recordDelivered(events);
 
-        verify(publicEventJdbcRepository).queryByFilter("USER_ID = 'testUser'", optionalCorrelationId);
-        assertThat(events, is(publicEvents));
+        verify(eventLatencyMetrics).recordDelivered(events, now);
     }
 }
@@ -1,5 +1,7 @@
 package uk.gov.moj.cpp.notification.query.view;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.Optional.of;
 import static java.util.UUID.randomUUID;
@@ -9,17 +11,30 @@ import static javax.json.JsonValue.NULL;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.empty;
 import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.justice.services.test.utils.core.enveloper.EnveloperFactory.createEnveloper;
 import static uk.gov.justice.services.test.utils.core.messaging.JsonEnvelopeBuilder.envelope;
 import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithDefaults;
+import static uk.gov.justice.services.test.utils.core.messaging.MetadataBuilderFactory.metadataWithRandomUUID;
+import static uk.gov.moj.cpp.notification.persistence.EventProjection.EVENT;
+import static uk.gov.moj.cpp.notification.persistence.EventProjection.METADATA;
 
+import uk.gov.justice.services.adapter.rest.exception.BadRequestException;
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.core.accesscontrol.AccessControlViolationException;
 import uk.gov.justice.services.core.enveloper.Enveloper;
 import uk.gov.justice.services.messaging.JsonEnvelope;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.PageCursor;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionCache;
 import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
@@ -34,6 +49,8 @@ import javax.json.JsonObject;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -62,9 +79,21 @@ public class NotificationQueryViewTest {
     @Mock
     FilterService filterService;
 
+    @Captor
+    ArgumentCaptor<List<EventCache>> eventsCaptor;
+
     @Mock
     SubscriptionRepository subscriptionRepository;
 
+    @Mock
+    SubscriptionCache subscriptionCache;
+
+    @Mock
+    EventQueryConfig eventQueryConfig;
+
+    @Spy
+    SubscriptionEventWaiters subscriptionEventWaiters = new SubscriptionEventWaiters(1);
+
     @InjectMocks
     private NotificationQueryView notificationQueryView;
 
@@ -86,11 +115,12 @@ public class NotificationQueryViewTest {
                         .build())
                 .build();
 
-        final JsonObject filter = mock(JsonObject.class);
+        final FilterClause filter = mock(FilterClause.class);
         final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
 
-        when(filterService.findJsonFilter(subscriptionId)).thenReturn(of(filter));
-        when(filteredEventService.findEventsBy(filter, Optional.empty())).thenReturn(publicEvents);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), Optional.empty(), 1000, EVENT)).thenReturn(new EventPage(publicEvents, Optional.empty()));
 
         when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
 
@@ -124,11 +154,12 @@ public class NotificationQueryViewTest {
                         .build())
                 .build();
 
-        final JsonObject filter = mock(JsonObject.class);
+        final FilterClause filter = mock(FilterClause.class);
         final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
 
-        when(filterService.findJsonFilter(subscriptionId)).thenReturn(of(filter));
-        when(filteredEventService.findEventsBy(filter, Optional.of(clientCorrelationId.toString()))).thenReturn(publicEvents);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.of(clientCorrelationId.toString()), Optional.empty(), 1000, EVENT)).thenReturn(new EventPage(publicEvents, Optional.empty()));
 
         when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
 
@@ -141,8 +172,342 @@ public class NotificationQueryViewTest {
         assertThat(payloadJsonArray.size(), is(1));
         assertThat(payloadJsonArray.getJsonObject(0).getString("newPayloadName"), is("newPayloadValue"));
 
-        verify(filterService).findJsonFilter(subscriptionId);
-        verify(filteredEventService).findEventsBy(filter, Optional.of(clientCorrelationId.toString()));
+        verify(filterService).findCompiledFilter(subscriptionId);
+        verify(filteredEventService).findEventPageBy(subscriptionId, filter, Optional.of(clientCorrelationId.toString()), Optional.empty(), 1000, EVENT);
+    }
+
+    @Test
+    public void shouldCapTheEventsAtTheMaximumPageSizeWhenNoPageIsAskedFor() {
+
+        final UUID subscriptionId = randomUUID();
+        final PageCursor nextCursor = new PageCursor(new UtcClock().now().minusMinutes(1), randomUUID());
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .build();
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), Optional.empty(), 1, EVENT))
+                .thenReturn(new EventPage(publicEvents, Optional.of(nextCursor)));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(createObjectBuilder().add("events", createArrayBuilder()).build());
+
+        final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+        assertThat(PageCursor.fromToken(payload.getString("nextCursor")), is(nextCursor));
+    }
+
+    @Test
+    public void shouldReturnRequestedPageOfEventsWithNextCursor() {
+
+        final UUID subscriptionId = randomUUID();
+        final PageCursor after = new PageCursor(new UtcClock().now(), randomUUID());
+        final PageCursor nextCursor = new PageCursor(new UtcClock().now().minusMinutes(1), randomUUID());
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(25, "pageSize")
+                .withPayloadOf(after.toToken(), "after")
+                .build();
+
+        final JsonObject responseJson = createObjectBuilder()
+                .add("events", createArrayBuilder()
+                        .add(createObjectBuilder()
+                                .add("newPayloadName", "newPayloadValue")
+                                .build())
+                        .build())
+                .build();
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), of(after), 25, EVENT)).thenReturn(new EventPage(publicEvents, of(nextCursor)));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+        assertThat(payload.getJsonArray("events").size(), is(1));
+        assertThat(payload.getString("nextCursor"), is(nextCursor.toToken()));
+    }
+
+    @Test
+    public void shouldCapPageSizeAtConfiguredMaximum() {
+
+        final UUID subscriptionId = randomUUID();
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf("5000", "pageSize")
+                .build();
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), Optional.empty(), 1000, EVENT)).thenReturn(new EventPage(publicEvents, Optional.empty()));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+        assertThat(payload.containsKey("nextCursor"), is(false));
+    }
+
+    @Test
+    public void shouldRejectInvalidAfterCursor() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf("not a cursor", "after")
+                .build();
+
+        assertThrows(BadRequestException.class, () -> notificationQueryView.findEvents(query));
+    }
+
+    @Test
+    public void shouldRejectPageSizeOfZero() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(0, "pageSize")
+                .build();
+
+        assertThrows(BadRequestException.class, () -> notificationQueryView.findEvents(query));
+    }
+
+    @Test
+    public void shouldReturnEventsSinceLastPollWhenRequested() {
+
+        final UUID subscriptionId = randomUUID();
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(true, "sinceLastPoll")
+                .build();
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT)).thenReturn(new EventPage(publicEvents, Optional.empty()));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+        assertThat(payload.containsKey("nextCursor"), is(false));
+        verify(filteredEventService).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+    }
+
+    @Test
+    public void shouldReturnEventsSinceLastPollWithoutWaitingWhenThereAreAny() {
+
+        final UUID subscriptionId = randomUUID();
+        final JsonEnvelope query = sinceLastPollQuery(subscriptionId, 30);
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(eventQueryConfig.getMaxWaitSeconds()).thenReturn(30);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT)).thenReturn(new EventPage(publicEvents, Optional.empty()));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        notificationQueryView.findEvents(query);
+
+        verify(filteredEventService, times(1)).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+        assertThat(subscriptionEventWaiters.waitingSubscriptions(), is(0));
+    }
+
+    @Test
+    public void shouldQueryAgainWhenWokenByANewEventWhileWaitingSinceLastPoll() {
+
+        final UUID subscriptionId = randomUUID();
+        final JsonEnvelope query = sinceLastPollQuery(subscriptionId, 30);
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(eventQueryConfig.getMaxWaitSeconds()).thenReturn(30);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT))
+                .thenAnswer(invocation -> {
+                    subscriptionEventWaiters.wake(subscriptionId);
+                    return new EventPage(emptyList(), Optional.empty());
+                })
+                .thenReturn(new EventPage(publicEvents, Optional.empty()));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        notificationQueryView.findEvents(query);
+
+        verify(filteredEventService, times(2)).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+        verify(eventCacheListConverter).convert(publicEvents);
+        assertThat(subscriptionEventWaiters.waitingSubscriptions(), is(0));
+    }
+
+    @Test
+    public void shouldQueryAgainAfterTheLagForEventsStoredJustBeforeWaitingSinceLastPoll() {
+
+        final UUID subscriptionId = randomUUID();
+        final JsonEnvelope query = sinceLastPollQuery(subscriptionId, 30);
+
+        final FilterClause filter = mock(FilterClause.class);
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(eventQueryConfig.getMaxWaitSeconds()).thenReturn(30);
+        when(eventQueryConfig.getSinceLastPollLagMillis()).thenReturn(10L);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT))
+                .thenReturn(new EventPage(emptyList(), Optional.empty()))
+                .thenReturn(new EventPage(publicEvents, Optional.empty()));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        notificationQueryView.findEvents(query);
+
+        verify(filteredEventService, times(2)).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+    }
+
+    @Test
+    public void shouldStopWaitingSinceLastPollAndReturnNoEventsWhenInterrupted() {
+
+        final UUID subscriptionId = randomUUID();
+        final JsonEnvelope query = sinceLastPollQuery(subscriptionId, 30);
+
+        final FilterClause filter = mock(FilterClause.class);
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(eventQueryConfig.getMaxWaitSeconds()).thenReturn(30);
+        when(eventQueryConfig.getSinceLastPollLagMillis()).thenReturn(10_000L);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT))
+                .thenAnswer(invocation -> {
+                    Thread.currentThread().interrupt();
+                    return new EventPage(emptyList(), Optional.empty());
+                });
+        when(eventCacheListConverter.convert(emptyList())).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+        assertThat(Thread.interrupted(), is(true));
+        assertThat(payload.getJsonArray("events").isEmpty(), is(true));
+        verify(filteredEventService, times(1)).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+        assertThat(subscriptionEventWaiters.waitingSubscriptions(), is(0));
+    }
+
+    @Test
+    public void shouldNotWaitSinceLastPollWhenTheMaximumNumberOfRequestsAreWaiting() {
+
+        final UUID subscriptionId = randomUUID();
+        final JsonEnvelope query = sinceLastPollQuery(subscriptionId, 30);
+
+        final FilterClause filter = mock(FilterClause.class);
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(eventQueryConfig.getMaxWaitSeconds()).thenReturn(30);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT)).thenReturn(new EventPage(emptyList(), Optional.empty()));
+        when(eventCacheListConverter.convert(emptyList())).thenReturn(responseJson);
+
+        try (final SubscriptionEventWaiters.Waiter otherRequest = subscriptionEventWaiters.waiterFor(randomUUID()).get()) {
+            final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+            assertThat(payload.getJsonArray("events").isEmpty(), is(true));
+        }
+
+        verify(filteredEventService, times(1)).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+    }
+
+    @Test
+    public void shouldRejectAnAfterCursorSinceLastPollWithoutWriting() {
+
+        final UUID subscriptionId = randomUUID();
+        final PageCursor acknowledged = new PageCursor(new UtcClock().now(), randomUUID());
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(true, "sinceLastPoll")
+                .withPayloadOf(acknowledged.toToken(), "after")
+                .build();
+
+        assertThrows(BadRequestException.class, () -> notificationQueryView.findEvents(query));
+
+        verifyNoInteractions(filteredEventService, filterService);
+    }
+
+    @Test
+    public void shouldReturnNoEventsWhenTheWaitSinceLastPollTimesOut() {
+
+        final UUID subscriptionId = randomUUID();
+        final JsonEnvelope query = sinceLastPollQuery(subscriptionId, 30);
+
+        final FilterClause filter = mock(FilterClause.class);
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(eventQueryConfig.getMaxWaitSeconds()).thenReturn(0);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(filteredEventService.findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT)).thenReturn(new EventPage(emptyList(), Optional.empty()));
+        when(eventCacheListConverter.convert(emptyList())).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findEvents(query).payloadAsJsonObject();
+
+        assertThat(payload.getJsonArray("events").isEmpty(), is(true));
+        verify(filteredEventService, times(1)).findEventsSinceLastPoll(subscriptionId, filter, 1000, EVENT);
+    }
+
+    @Test
+    public void shouldRejectWaitSecondsWithoutSinceLastPoll() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(30, "waitSeconds")
+                .build();
+
+        assertThrows(BadRequestException.class, () -> notificationQueryView.findEvents(query));
+    }
+
+    @Test
+    public void shouldRejectNegativeWaitSeconds() {
+
+        final JsonEnvelope query = sinceLastPollQuery(randomUUID(), -1);
+
+        assertThrows(BadRequestException.class, () -> notificationQueryView.findEvents(query));
+    }
+
+    @Test
+    public void shouldRejectSinceLastPollCombinedWithClientCorrelationId() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_CLIENT_CORRELATION_ID)
+                .withPayloadOf("true", "sinceLastPoll")
+                .build();
+
+        assertThrows(BadRequestException.class, () -> notificationQueryView.findEvents(query));
     }
 
     @Test
@@ -160,7 +525,7 @@ public class NotificationQueryViewTest {
                         .build())
                 .build();
 
-        when(filterService.findJsonFilter(subscriptionId)).thenReturn(Optional.empty());
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(Optional.empty());
         when(eventCacheListConverter.convert(any())).thenReturn(responseJson);
 
         final JsonEnvelope events = notificationQueryView.findEvents(query);
@@ -188,7 +553,7 @@ public class NotificationQueryViewTest {
                         .build())
                 .build();
 
-        final JsonObject filter = mock(JsonObject.class);
+        final FilterClause filter = mock(FilterClause.class);
         EventCache eventCache = mock(EventCache.class);
 
         JSONObject eventJson = new JSONObject();
@@ -200,8 +565,9 @@ public class NotificationQueryViewTest {
         when(eventCache.getEventJson()).thenReturn(eventJson.toString());
         final List<EventCache> publicEvents = singletonList(eventCache);
 
-        when(filterService.findJsonFilter(subscriptionId)).thenReturn(of(filter));
-        when(filteredEventService.findEventsBy(filter, Optional.empty())).thenReturn(publicEvents);
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), Optional.empty(), 1000, METADATA)).thenReturn(new EventPage(publicEvents, Optional.empty()));
 
         when(eventCacheListConverter.convert(any())).thenReturn(responseJson);
 
@@ -215,6 +581,34 @@ public class NotificationQueryViewTest {
         assertThat(payloadJsonArray.getJsonObject(0).getString("newPayloadName"), is("newPayloadValue"));
     }
 
+    @Test
+    public void shouldTakeTheEventsMetadataFromTheMetadataColumnWithoutTheEventJson() {
+
+        final UUID subscriptionId = randomUUID();
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .build();
+
+        final FilterClause filter = mock(FilterClause.class);
+        final String metadataJson = "{\"name\":\"public.event\"}";
+        final EventCache eventCache = new EventCache(randomUUID(), randomUUID(), randomUUID(), "clientCorrelationId", randomUUID(),
+                null, new UtcClock().now(), "public.event", metadataJson);
+
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(of(filter));
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findEventPageBy(subscriptionId, filter, Optional.empty(), Optional.empty(), 1000, METADATA)).thenReturn(new EventPage(singletonList(eventCache), Optional.empty()));
+        when(eventCacheListConverter.convert(any())).thenReturn(createObjectBuilder().add("events", createArrayBuilder()).build());
+
+        notificationQueryView.findEventsMetadata(query);
+
+        verify(eventCacheListConverter).convert(eventsCaptor.capture());
+
+        final EventCache metadataOnly = eventsCaptor.getValue().get(0);
+        assertThat(new JSONObject(metadataOnly.getEventJson()).getJSONObject("_metadata").getString("name"), is("public.event"));
+        assertThat(metadataOnly.getCreated(), is(eventCache.getCreated()));
+    }
 
     @Test
     public void shouldReturnConvertedEmptyListMetadataPayloadIfNoFiltersFound() {
@@ -231,7 +625,7 @@ public class NotificationQueryViewTest {
                         .build())
                 .build();
 
-        when(filterService.findJsonFilter(subscriptionId)).thenReturn(Optional.empty());
+        when(filterService.findCompiledFilter(subscriptionId)).thenReturn(Optional.empty());
         when(eventCacheListConverter.convert(any())).thenReturn(responseJson);
 
         final JsonEnvelope events = notificationQueryView.findEventsMetadata(query);
@@ -256,7 +650,7 @@ public class NotificationQueryViewTest {
 
         when(subscription.getId()).thenReturn(subscriptionId);
         when(subscription.getOwnerId()).thenReturn(userId);
-        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
+        when(subscriptionCache.findBy(subscriptionId)).thenReturn(subscription);
 
         final JsonEnvelope jsonEnvelope = notificationQueryView.getSubscription(query);
 
@@ -281,7 +675,7 @@ public class NotificationQueryViewTest {
                 .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
                 .build();
 
-        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(null);
+        when(subscriptionCache.findBy(subscriptionId)).thenReturn(null);
 
         final JsonEnvelope jsonEnvelope = notificationQueryView.getSubscription(query);
         assertThat(jsonEnvelope.payload(), is(NULL));
@@ -310,7 +704,8 @@ public class NotificationQueryViewTest {
         final List<Subscription> subscriptionsList = singletonList(mock(Subscription.class));
 
 
-        when(subscriptionRepository.findExpiredSubscriptions()).thenReturn(subscriptionsList);
+        when(eventQueryConfig.getSubscriptionQueryMaxPageSize()).thenReturn(1000);
+        when(subscriptionRepository.findExpiredSubscriptions(Optional.empty(), 1001)).thenReturn(subscriptionsList);
 
         when(expiredSubscriptionsListConverter.convert(subscriptionsList)).thenReturn(responseJson);
 
@@ -340,7 +735,8 @@ public class NotificationQueryViewTest {
 
         final List<Subscription> subscriptionsList = singletonList(mock(Subscription.class));
 
-        when(subscriptionRepository.findExpiredSubscriptions()).thenReturn(subscriptionsList);
+        when(eventQueryConfig.getSubscriptionQueryMaxPageSize()).thenReturn(1000);
+        when(subscriptionRepository.findExpiredSubscriptions(Optional.empty(), 1001)).thenReturn(subscriptionsList);
 
         when(expiredSubscriptionsListConverter.convert(subscriptionsList)).thenReturn(responseJson);
 
@@ -354,5 +750,165 @@ public class NotificationQueryViewTest {
 
     }
 
+    @Test
+    public void shouldReturnAPageOfExpiredSubscriptionsWithTheCursorOfTheLastOne() {
+
+        final PageCursor after = new PageCursor(new UtcClock().now().minusHours(10), randomUUID());
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(2, "pageSize")
+                .withPayloadOf(after.toToken(), "after")
+                .build();
+
+        final Subscription first = new Subscription(randomUUID(), randomUUID(), "{}", new UtcClock().now().minusHours(9));
+        final Subscription second = new Subscription(randomUUID(), randomUUID(), "{}", new UtcClock().now().minusHours(8));
+        final Subscription third = new Subscription(randomUUID(), randomUUID(), "{}", new UtcClock().now().minusHours(8));
+
+        final JsonObject responseJson = createObjectBuilder()
+                .add("expiredSubscriptions", createArrayBuilder()
+                        .add(createObjectBuilder().add("subscriptionId", first.getId().toString()))
+                        .add(createObjectBuilder().add("subscriptionId", second.getId().toString())))
+                .build();
+
+        when(eventQueryConfig.getSubscriptionQueryMaxPageSize()).thenReturn(1000);
+        when(subscriptionRepository.findExpiredSubscriptions(Optional.of(after), 3)).thenReturn(asList(first, second, third));
+        when(expiredSubscriptionsListConverter.convert(asList(first, second))).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findExpiredSubscriptions(query).payloadAsJsonObject();
+
+        assertThat(payload.getJsonArray("expiredSubscriptions"), is(responseJson.getJsonArray("expiredSubscriptions")));
+        assertThat(PageCursor.fromToken(payload.getString("nextCursor")), is(new PageCursor(second.getModified(), second.getId())));
+    }
+
+    @Test
+    public void shouldCapAPageOfExpiredSubscriptionsBySubscriptionQueryMaxPageSize() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(5000, "pageSize")
+                .build();
+
+        final Subscription first = new Subscription(randomUUID(), randomUUID(), "{}", new UtcClock().now().minusHours(9));
+        final Subscription second = new Subscription(randomUUID(), randomUUID(), "{}", new UtcClock().now().minusHours(8));
+
+        final JsonObject responseJson = createObjectBuilder()
+                .add("expiredSubscriptions", createArrayBuilder()
+                        .add(createObjectBuilder().add("subscriptionId", first.getId().toString())))
+                .build();
+
+        when(eventQueryConfig.getSubscriptionQueryMaxPageSize()).thenReturn(1);
+        when(subscriptionRepository.findExpiredSubscriptions(Optional.empty(), 2)).thenReturn(asList(first, second));
+        when(expiredSubscriptionsListConverter.convert(singletonList(first))).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findExpiredSubscriptions(query).payloadAsJsonObject();
+
+        assertThat(payload.getJsonArray("expiredSubscriptions").size(), is(1));
+        assertThat(PageCursor.fromToken(payload.getString("nextCursor")), is(new PageCursor(first.getModified(), first.getId())));
+        verify(eventQueryConfig, never()).getMaxPageSize();
+    }
+
+    @Test
+    public void shouldFindOwnedEventsForTheSubscriptionOwner() {
+
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults().withUserId(ownerId.toString()))
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .build();
+
+        final List<EventCache> publicEvents = singletonList(mock(EventCache.class));
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId, Optional.empty(), Optional.empty(), 1000))
+                .thenReturn(of(new EventPage(publicEvents, Optional.empty())));
+        when(eventCacheListConverter.convert(publicEvents)).thenReturn(responseJson);
+
+        final JsonEnvelope events = notificationQueryView.findOwnedEvents(query);
+
+        assertThat(events.metadata().name(), is("notification.events"));
+        assertThat(events.payloadAsJsonObject(), is(responseJson));
+        verify(filteredEventService).recordDelivered(publicEvents);
+    }
+
+    @Test
+    public void shouldReturnAPageOfOwnedEventsWithACursorWhenThereAreMore() {
+
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final PageCursor after = new PageCursor(new UtcClock().now(), randomUUID());
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults().withUserId(ownerId.toString()))
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(1, "pageSize")
+                .withPayloadOf(after.toToken(), "after")
+                .build();
+
+        final EventCache first = new EventCache(randomUUID(), randomUUID(), randomUUID(), null, randomUUID(), "{}", new UtcClock().now().minusSeconds(1), "public.event");
+        final PageCursor nextCursor = new PageCursor(first.getCreated(), first.getId());
+        final JsonObject responseJson = createObjectBuilder().add("events", createArrayBuilder().build()).build();
+
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findOwnedEventPageBy(subscriptionId, ownerId, Optional.empty(), Optional.of(after), 1))
+                .thenReturn(of(new EventPage(singletonList(first), Optional.of(nextCursor))));
+        when(eventCacheListConverter.convert(singletonList(first))).thenReturn(responseJson);
+
+        final JsonObject payload = notificationQueryView.findOwnedEvents(query).payloadAsJsonObject();
+
+        assertThat(PageCursor.fromToken(payload.getString("nextCursor")), is(nextCursor));
+    }
+
+    @Test
+    public void shouldRejectOwnedEventsOfASubscriptionTheUserDoesNotOwnWithoutRecordingThemDelivered() {
+
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults().withUserId(userId.toString()))
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .build();
 
+        when(eventQueryConfig.getMaxPageSize()).thenReturn(1000);
+        when(filteredEventService.findOwnedEventPageBy(subscriptionId, userId, Optional.empty(), Optional.empty(), 1000)).thenReturn(Optional.empty());
+
+        assertThrows(AccessControlViolationException.class, () -> notificationQueryView.findOwnedEvents(query));
+        verify(filteredEventService, never()).recordDelivered(any());
+    }
+
+    @Test
+    public void shouldRejectOwnedEventsWithoutAUserBeforeQueryingThem() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithRandomUUID("notification.get-owned-events"))
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .build();
+
+        assertThrows(AccessControlViolationException.class, () -> notificationQueryView.findOwnedEvents(query));
+        verifyNoInteractions(filteredEventService);
+    }
+
+    @Test
+    public void shouldRejectOwnedEventsForAUserIdThatIsNotAUuidBeforeQueryingThem() {
+
+        final JsonEnvelope query = envelope()
+                .with(metadataWithDefaults().withUserId("not-a-uuid"))
+                .withPayloadOf(randomUUID().toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .build();
+
+        assertThrows(AccessControlViolationException.class, () -> notificationQueryView.findOwnedEvents(query));
+        verifyNoInteractions(filteredEventService);
+    }
+
+    private JsonEnvelope sinceLastPollQuery(final UUID subscriptionId, final int waitSeconds) {
+        return envelope()
+                .with(metadataWithDefaults())
+                .withPayloadOf(subscriptionId.toString(), ATTRIBUTE_SUBSCRIPTION_ID)
+                .withPayloadOf(true, "sinceLastPoll")
+                .withPayloadOf(waitSeconds, "waitSeconds")
+                .build();
+    }
 }
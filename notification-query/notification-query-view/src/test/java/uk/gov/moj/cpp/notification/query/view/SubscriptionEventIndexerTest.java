@@ -0,0 +1,150 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.UUID.randomUUID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.FilterClause;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionChanged;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionEventJdbcRepository;
+import uk.gov.moj.cpp.notification.persistence.SubscriptionRepository;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionEventIndexerTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private SubscriptionEventJdbcRepository subscriptionEventJdbcRepository;
+
+    @Mock
+    private CompiledFilterCache compiledFilterCache;
+
+    @Mock
+    private EventQueryConfig eventQueryConfig;
+
+    @Mock
+    private Clock clock;
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private Subscription subscription;
+
+    @InjectMocks
+    private SubscriptionEventIndexer subscriptionEventIndexer;
+
+    private final ZonedDateTime rebuiltAt = new UtcClock().now();
+
+    @BeforeEach
+    public void setUp() {
+        subscriptionEventIndexer.reconcileDelayMillis = "10000";
+        lenient().when(eventQueryConfig.isSubscriptionEventsEnabled()).thenReturn(true);
+        lenient().when(clock.now()).thenReturn(rebuiltAt);
+    }
+
+    @Test
+    public void shouldRebuildTheEventsOfASubscriptionCreatedOrUpdated() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
+        when(compiledFilterCache.compiledFilterOf(subscription)).thenReturn(filter);
+
+        subscriptionEventIndexer.onSubscriptionChanged(new SubscriptionChanged(subscriptionId));
+
+        verify(subscriptionEventJdbcRepository).rebuild(subscriptionId, filter);
+        verify(subscriptionEventJdbcRepository).markRebuilt(subscriptionId, rebuiltAt);
+    }
+
+    @Test
+    public void shouldRemoveTheEventsOfASubscriptionUnsubscribed() {
+        final UUID subscriptionId = randomUUID();
+
+        subscriptionEventIndexer.onSubscriptionChanged(new SubscriptionChanged(subscriptionId));
+
+        verify(subscriptionEventJdbcRepository).removeBySubscription(subscriptionId);
+        verify(subscriptionEventJdbcRepository, never()).rebuild(any(UUID.class), any(FilterClause.class));
+    }
+
+    @Test
+    public void shouldRemoveTheEventsOfASubscriptionWhoseFilterCannotBeCompiled() {
+        final UUID subscriptionId = randomUUID();
+        final IllegalArgumentException invalidFilter = new IllegalArgumentException("Unknown field");
+
+        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
+        when(compiledFilterCache.compiledFilterOf(subscription)).thenThrow(invalidFilter);
+
+        subscriptionEventIndexer.onSubscriptionChanged(new SubscriptionChanged(subscriptionId));
+
+        verify(subscriptionEventJdbcRepository).removeBySubscription(subscriptionId);
+        verify(logger).warn("Could not compile filter of subscription " + subscriptionId + ", no events recorded for it", invalidFilter);
+    }
+
+    @Test
+    public void shouldReconcileTheEventsStoredSinceARebuildOnceTheDelayHasPassed() {
+        final UUID subscriptionId = randomUUID();
+        final FilterClause filter = new FilterClause("user_id = ?", singletonList(randomUUID()));
+
+        when(clock.now()).thenReturn(rebuiltAt.plusSeconds(11));
+        when(subscriptionEventJdbcRepository.findRebuiltBefore(rebuiltAt.plusSeconds(1))).thenReturn(singletonMap(subscriptionId, rebuiltAt));
+        when(subscriptionEventJdbcRepository.clearRebuilt(subscriptionId, rebuiltAt)).thenReturn(true);
+        when(subscriptionRepository.findBy(subscriptionId)).thenReturn(subscription);
+        when(compiledFilterCache.compiledFilterOf(subscription)).thenReturn(filter);
+
+        subscriptionEventIndexer.reconcile();
+
+        verify(subscriptionEventJdbcRepository).reconcile(subscriptionId, filter, rebuiltAt.minusSeconds(10));
+    }
+
+    @Test
+    public void shouldLeaveASubscriptionRebuiltAgainForItsNewRebuildToBeReconciled() {
+        final UUID subscriptionId = randomUUID();
+
+        when(subscriptionEventJdbcRepository.findRebuiltBefore(rebuiltAt.minusSeconds(10))).thenReturn(singletonMap(subscriptionId, rebuiltAt.minusSeconds(20)));
+        when(subscriptionEventJdbcRepository.clearRebuilt(subscriptionId, rebuiltAt.minusSeconds(20))).thenReturn(false);
+
+        subscriptionEventIndexer.reconcile();
+
+        verify(subscriptionEventJdbcRepository, never()).reconcile(any(UUID.class), any(FilterClause.class), any(ZonedDateTime.class));
+        verifyNoInteractions(subscriptionRepository, compiledFilterCache);
+    }
+
+    @Test
+    public void shouldNotRebuildWhenSubscriptionEventsAreDisabled() {
+        when(eventQueryConfig.isSubscriptionEventsEnabled()).thenReturn(false);
+
+        subscriptionEventIndexer.onSubscriptionChanged(new SubscriptionChanged(randomUUID()));
+
+        verifyNoInteractions(subscriptionRepository, subscriptionEventJdbcRepository, compiledFilterCache);
+    }
+
+    @Test
+    public void shouldLeaveSubscriptionsChangedOnOtherNodesToThoseNodes() {
+        subscriptionEventIndexer.onSubscriptionChanged(SubscriptionChanged.onOtherNode(randomUUID()));
+
+        verifyNoInteractions(subscriptionRepository, subscriptionEventJdbcRepository, compiledFilterCache);
+    }
+}
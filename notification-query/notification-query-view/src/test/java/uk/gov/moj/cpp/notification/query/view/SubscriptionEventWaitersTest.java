@@ -0,0 +1,122 @@
+package uk.gov.moj.cpp.notification.query.view;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+import uk.gov.moj.cpp.notification.persistence.ClusterNotification;
+import uk.gov.moj.cpp.notification.persistence.EventCacheMatched;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class SubscriptionEventWaitersTest {
+
+    private final SubscriptionEventWaiters subscriptionEventWaiters = new SubscriptionEventWaiters(2);
+
+    @Test
+    public void shouldTimeOutWhenNotWoken() {
+        try (final SubscriptionEventWaiters.Waiter waiter = subscriptionEventWaiters.waiterFor(randomUUID()).get()) {
+            assertThat(waiter.await(10), is(false));
+        }
+    }
+
+    @Test
+    public void shouldReturnStraightAwayWhenWokenBeforeWaiting() {
+        final UUID subscriptionId = randomUUID();
+
+        try (final SubscriptionEventWaiters.Waiter waiter = subscriptionEventWaiters.waiterFor(subscriptionId).get()) {
+            subscriptionEventWaiters.wake(subscriptionId);
+
+            assertThat(waiter.await(SECONDS.toMillis(10)), is(true));
+            assertThat(waiter.await(10), is(false));
+        }
+    }
+
+    @Test
+    public void shouldWakeWaitersOfTheSubscriptionsAMatchedEventWasStoredFor() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final CountDownLatch registered = new CountDownLatch(1);
+
+        final CompletableFuture<Boolean> woken = CompletableFuture.supplyAsync(() -> {
+            try (final SubscriptionEventWaiters.Waiter waiter = subscriptionEventWaiters.waiterFor(subscriptionId).get()) {
+                registered.countDown();
+                return waiter.await(SECONDS.toMillis(10));
+            }
+        });
+
+        registered.await();
+        subscriptionEventWaiters.onEventCacheMatched(new EventCacheMatched(mock(EventCache.class), singleton(subscriptionId)));
+
+        assertThat(woken.get(10, SECONDS), is(true));
+    }
+
+    @Test
+    public void shouldWakeWaitersOfTheSubscriptionsMatchedOnAnotherNode() {
+        final UUID subscriptionId = randomUUID();
+
+        try (final SubscriptionEventWaiters.Waiter waiter = subscriptionEventWaiters.waiterFor(subscriptionId).get()) {
+            subscriptionEventWaiters.onClusterNotification(
+                    new ClusterNotification("other-node", singleton(randomUUID()), singleton("public.event"), singleton(subscriptionId), emptySet()));
+
+            assertThat(waiter.await(SECONDS.toMillis(10)), is(true));
+        }
+    }
+
+    @Test
+    public void shouldNotWakeWaitersOfOtherSubscriptions() {
+        final UUID subscriptionId = randomUUID();
+
+        try (final SubscriptionEventWaiters.Waiter waiter = subscriptionEventWaiters.waiterFor(subscriptionId).get()) {
+            subscriptionEventWaiters.onEventCacheMatched(new EventCacheMatched(mock(EventCache.class), singleton(randomUUID())));
+
+            assertThat(waiter.await(10), is(false));
+        }
+    }
+
+    @Test
+    public void shouldOnlyHoldSignalsWhileRequestsAreWaiting() {
+        final UUID subscriptionId = randomUUID();
+
+        final SubscriptionEventWaiters.Waiter first = subscriptionEventWaiters.waiterFor(subscriptionId).get();
+        final SubscriptionEventWaiters.Waiter second = subscriptionEventWaiters.waiterFor(subscriptionId).get();
+
+        assertThat(subscriptionEventWaiters.waitingSubscriptions(), is(1));
+
+        first.close();
+        assertThat(subscriptionEventWaiters.waitingSubscriptions(), is(1));
+
+        second.close();
+        assertThat(subscriptionEventWaiters.waitingSubscriptions(), is(0));
+    }
+
+    @Test
+    public void shouldNotLetMoreThanTheMaximumNumberOfRequestsWait() {
+        final SubscriptionEventWaiters.Waiter first = subscriptionEventWaiters.waiterFor(randomUUID()).get();
+        final SubscriptionEventWaiters.Waiter second = subscriptionEventWaiters.waiterFor(randomUUID()).get();
+
+        assertThat(subscriptionEventWaiters.waiterFor(randomUUID()).isPresent(), is(false));
+
+        first.close();
+        assertThat(subscriptionEventWaiters.waiterFor(randomUUID()).isPresent(), is(true));
+        second.close();
+    }
+
+    @Test
+    public void shouldStopWaitingAndKeepTheInterruptWhenInterrupted() {
+        try (final SubscriptionEventWaiters.Waiter waiter = subscriptionEventWaiters.waiterFor(randomUUID()).get()) {
+            Thread.currentThread().interrupt();
+
+            assertThat(waiter.await(SECONDS.toMillis(10)), is(false));
+            assertThat(Thread.interrupted(), is(true));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Sizes batches of a repeated statement so that each one takes about the target time. The
+ * size is halved after a batch slower than the target and doubled after one faster than half
+ * of it, so that batches stay short enough not to hold locks for long while getting through a
+ * backlog in as few statements as possible.
+ */
+public class AdaptiveBatchSize {
+
+    private final int maxBatchSize;
+    private final long targetBatchMillis;
+
+    private int batchSize;
+
+    public AdaptiveBatchSize(final int initialBatchSize, final int maxBatchSize, final long targetBatchMillis) {
+        this.maxBatchSize = max(1, maxBatchSize);
+        this.targetBatchMillis = targetBatchMillis;
+        this.batchSize = min(max(1, initialBatchSize), this.maxBatchSize);
+    }
+
+    public int current() {
+        return batchSize;
+    }
+
+    public void adjust(final long batchMillis) {
+        if (batchMillis > targetBatchMillis) {
+            batchSize = max(1, batchSize / 2);
+        } else if (batchMillis < targetBatchMillis / 2) {
+            batchSize = min(maxBatchSize, batchSize * 2);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tells the other notification service nodes what has changed in the view store: the stream ids
+ * and names of the public events stored, the subscriptions they matched, and the subscriptions
+ * created, updated or removed. Sent on the Postgres NOTIFY channel {@link #CHANNEL} and fired as
+ * a CDI event on each node that receives it, other than the node that sent it.
+ *
+ * The payload is one line per value, each prefixed with its kind, and is split across several
+ * notifications when it would not fit into one.
+ */
+public class ClusterNotification {
+
+    public static final String CHANNEL = "notification_view_store";
+
+    /**
+     * Postgres limits a notification payload to under 8000 bytes.
+     */
+    public static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private static final String NODE = "node ";
+    private static final String STREAM = "stream ";
+    private static final String NAME = "name ";
+    private static final String MATCHED = "matched ";
+    private static final String CHANGED = "changed ";
+    private static final String LINE_SEPARATOR = "\n";
+
+    private final String nodeId;
+    private final Set<UUID> streamIds;
+    private final Set<String> eventNames;
+    private final Set<UUID> matchedSubscriptionIds;
+    private final Set<UUID> changedSubscriptionIds;
+
+    public ClusterNotification(final String nodeId,
+                               final Set<UUID> streamIds,
+                               final Set<String> eventNames,
+                               final Set<UUID> matchedSubscriptionIds,
+                               final Set<UUID> changedSubscriptionIds) {
+        this.nodeId = nodeId;
+        this.streamIds = unmodifiableSet(new LinkedHashSet<>(streamIds));
+        this.eventNames = unmodifiableSet(new LinkedHashSet<>(eventNames));
+        this.matchedSubscriptionIds = unmodifiableSet(new LinkedHashSet<>(matchedSubscriptionIds));
+        this.changedSubscriptionIds = unmodifiableSet(new LinkedHashSet<>(changedSubscriptionIds));
+    }
+
+    /**
+     * @return the notification of the public events stored in one batch
+     */
+    public static ClusterNotification eventsStored(final String nodeId, final List<EventCacheMatched> matchedEvents) {
+        final Set<UUID> streamIds = new LinkedHashSet<>();
+        final Set<String> eventNames = new LinkedHashSet<>();
+        final Set<UUID> matchedSubscriptionIds = new LinkedHashSet<>();
+
+        matchedEvents.forEach(matchedEvent -> {
+            streamIds.add(matchedEvent.getEventCache().getStreamId());
+            eventNames.add(matchedEvent.getEventCache().getName());
+            matchedSubscriptionIds.addAll(matchedEvent.getSubscriptionIds());
+        });
+
+        return new ClusterNotification(nodeId, streamIds, eventNames, matchedSubscriptionIds, emptySet());
+    }
+
+    public static ClusterNotification subscriptionChanged(final String nodeId, final UUID subscriptionId) {
+        return new ClusterNotification(nodeId, emptySet(), emptySet(), emptySet(), singleton(subscriptionId));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload is not that of a cluster notification
+     */
+    public static ClusterNotification fromPayload(final String payload) {
+        String nodeId = null;
+        final Set<UUID> streamIds = new LinkedHashSet<>();
+        final Set<String> eventNames = new LinkedHashSet<>();
+        final Set<UUID> matchedSubscriptionIds = new LinkedHashSet<>();
+        final Set<UUID> changedSubscriptionIds = new LinkedHashSet<>();
+
+        for (final String line : payload.split(LINE_SEPARATOR)) {
+            if (line.startsWith(NODE)) {
+                nodeId = line.substring(NODE.length());
+            } else if (line.startsWith(STREAM)) {
+                streamIds.add(UUID.fromString(line.substring(STREAM.length())));
+            } else if (line.startsWith(NAME)) {
+                eventNames.add(line.substring(NAME.length()));
+            } else if (line.startsWith(MATCHED)) {
+                matchedSubscriptionIds.add(UUID.fromString(line.substring(MATCHED.length())));
+            } else if (line.startsWith(CHANGED)) {
+                changedSubscriptionIds.add(UUID.fromString(line.substring(CHANGED.length())));
+            } else {
+                throw new IllegalArgumentException("Invalid cluster notification line '" + line + "'");
+            }
+        }
+
+        if (nodeId == null) {
+            throw new IllegalArgumentException("Cluster notification has no node");
+        }
+
+        return new ClusterNotification(nodeId, streamIds, eventNames, matchedSubscriptionIds, changedSubscriptionIds);
+    }
+
+    /**
+     * @return the payloads to send, each naming the node and no longer than maxBytes in UTF-8
+     */
+    public List<String> toPayloads(final int maxBytes) {
+        final List<String> lines = new ArrayList<>();
+        streamIds.forEach(streamId -> lines.add(STREAM + streamId));
+        eventNames.forEach(eventName -> lines.add(NAME + eventName));
+        matchedSubscriptionIds.forEach(subscriptionId -> lines.add(MATCHED + subscriptionId));
+        changedSubscriptionIds.forEach(subscriptionId -> lines.add(CHANGED + subscriptionId));
+
+        final String nodeLine = NODE + nodeId;
+        final List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeLine);
+        int payloadBytes = bytesOf(nodeLine);
+
+        for (final String line : lines) {
+            final int lineBytes = bytesOf(line) + 1;
+
+            if (payloadBytes + lineBytes > maxBytes) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(nodeLine);
+                payloadBytes = bytesOf(nodeLine);
+            }
+
+            payload.append(LINE_SEPARATOR).append(line);
+            payloadBytes += lineBytes;
+        }
+
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Set<UUID> getStreamIds() {
+        return streamIds;
+    }
+
+    public Set<String> getEventNames() {
+        return eventNames;
+    }
+
+    public Set<UUID> getMatchedSubscriptionIds() {
+        return matchedSubscriptionIds;
+    }
+
+    public Set<UUID> getChangedSubscriptionIds() {
+        return changedSubscriptionIds;
+    }
+
+    private static int bytesOf(final String value) {
+        return value.getBytes(UTF_8).length;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ClusterNotification that = (ClusterNotification) o;
+        return Objects.equals(nodeId, that.nodeId)
+                && Objects.equals(streamIds, that.streamIds)
+                && Objects.equals(eventNames, that.eventNames)
+                && Objects.equals(matchedSubscriptionIds, that.matchedSubscriptionIds)
+                && Objects.equals(changedSubscriptionIds, that.changedSubscriptionIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nodeId, streamIds, eventNames, matchedSubscriptionIds, changedSubscriptionIds);
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterNotification{" +
+                "nodeId='" + nodeId + '\'' +
+                ", streamIds=" + streamIds +
+                ", eventNames=" + eventNames +
+                ", matchedSubscriptionIds=" + matchedSubscriptionIds +
+                ", changedSubscriptionIds=" + changedSubscriptionIds +
+                '}';
+    }
+}
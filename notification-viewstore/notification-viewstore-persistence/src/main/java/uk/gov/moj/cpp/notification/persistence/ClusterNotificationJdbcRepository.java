@@ -0,0 +1,91 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static uk.gov.moj.cpp.notification.persistence.ClusterNotification.CHANNEL;
+import static uk.gov.moj.cpp.notification.persistence.ClusterNotification.MAX_PAYLOAD_BYTES;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapper;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+
+import java.sql.SQLException;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.postgresql.ds.PGSimpleDataSource;
+
+/**
+ * Sends and receives {@link ClusterNotification}s over Postgres LISTEN/NOTIFY on the view store,
+ * so that every notification service node learns of changes made by the others without polling.
+ */
+public class ClusterNotificationJdbcRepository {
+
+    private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+
+    @Inject
+    private ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider;
+
+    @Inject
+    private PreparedStatementWrapperFactory preparedStatementWrapperFactory;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "clusterNotificationListenerUrl", defaultValue = "")
+    String listenerUrl;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "clusterNotificationListenerUser", defaultValue = "")
+    String listenerUser;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "clusterNotificationListenerPassword", defaultValue = "")
+    String listenerPassword;
+
+    /**
+     * Sends the notification as part of the current transaction. Postgres only delivers it once
+     * the transaction commits, and not at all if it rolls back, so listeners never hear of changes
+     * they cannot yet read.
+     */
+    public void publish(final ClusterNotification clusterNotification) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+
+        for (final String payload : clusterNotification.toPayloads(MAX_PAYLOAD_BYTES)) {
+            try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, NOTIFY)) {
+                ps.setString(1, CHANNEL);
+                ps.setString(2, payload);
+                ps.executeQuery();
+            } catch (final SQLException e) {
+                throw new JdbcRepositoryException("Exception while publishing cluster notification", e);
+            }
+        }
+    }
+
+    /**
+     * Starts listening for cluster notifications on a connection of its own, opened with the
+     * clusterNotificationListenerUrl, User and Password settings and held until the listener is
+     * closed. The connection is taken neither from the pool of the view store data source nor
+     * enlisted in any transaction, as it is held for as long as the server runs.
+     */
+    public ClusterNotificationListener listen() {
+
+        if (listenerUrl == null || listenerUrl.isEmpty()) {
+            throw new JdbcRepositoryException("clusterNotificationListenerUrl must be set to listen for cluster notifications");
+        }
+
+        final PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setURL(listenerUrl);
+        dataSource.setUser(listenerUser);
+        dataSource.setPassword(listenerPassword);
+
+        try {
+            return new ClusterNotificationListener(dataSource.getConnection());
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while listening for cluster notifications", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static uk.gov.moj.cpp.notification.persistence.ClusterNotification.CHANNEL;
+
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Listens on the {@link ClusterNotification#CHANNEL} of the view store, holding the connection
+ * it was opened with until it is closed. Not thread safe.
+ */
+public class ClusterNotificationListener implements AutoCloseable {
+
+    private final Connection connection;
+    private final PGConnection pgConnection;
+
+    public ClusterNotificationListener(final Connection connection) throws SQLException {
+        this.connection = connection;
+        this.pgConnection = connection.unwrap(PGConnection.class);
+
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        } catch (final SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits up to timeoutMillis for notifications and returns those received. Payloads that are
+     * not cluster notifications are ignored.
+     *
+     * @throws JdbcRepositoryException if the connection has failed, after which the listener
+     *                                 should be closed and another opened
+     */
+    public List<ClusterNotification> poll(final int timeoutMillis) {
+
+        final PGNotification[] notifications;
+        try {
+            notifications = pgConnection.getNotifications(timeoutMillis);
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while receiving cluster notifications", e);
+        }
+
+        final List<ClusterNotification> clusterNotifications = new ArrayList<>();
+        if (notifications == null) {
+            return clusterNotifications;
+        }
+
+        for (final PGNotification notification : notifications) {
+            if (CHANNEL.equals(notification.getName())) {
+                clusterNotificationOf(notification.getParameter()).ifPresent(clusterNotifications::add);
+            }
+        }
+
+        return clusterNotifications;
+    }
+
+    private Optional<ClusterNotification> clusterNotificationOf(final String payload) {
+        try {
+            return Optional.of(ClusterNotification.fromPayload(payload));
+        } catch (final IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while closing cluster notification listener", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.management.DescriptorKey;
+
+/**
+ * Marks an attribute of a metrics MXBean as a counter, a total that only goes up while the server
+ * runs, rather than a value that can go up and down. The marking is carried in the descriptor of
+ * the attribute, so that it can be read by whatever reads the MBean.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface Counter {
+
+    String COUNTER_FIELD = "counter";
+    String COUNTER_ITEMS_FIELD = "counterItems";
+
+    /**
+     * @return the items that are counters of each composite of an attribute that is a list of
+     * composites, or none when the attribute is itself a counter
+     */
+    @DescriptorKey(COUNTER_ITEMS_FIELD)
+    String[] items() default {};
+
+    @DescriptorKey(COUNTER_FIELD)
+    boolean value() default true;
+}
@@ -1,20 +1,26 @@
 package uk.gov.moj.cpp.notification.persistence;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static uk.gov.justice.services.common.converter.ZonedDateTimes.fromSqlTimestamp;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+import static uk.gov.moj.cpp.notification.persistence.EventJsonFormat.DEFLATE;
+import static uk.gov.moj.cpp.notification.persistence.EventProjection.EVENT;
+import static uk.gov.moj.cpp.notification.persistence.EventProjection.METADATA;
 
-import uk.gov.justice.services.common.converter.ZonedDateTimes;
 import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
 import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapper;
 import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
 import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,14 +36,67 @@ public class EventCacheJdbcRepository {
     private static final String DELETE_WITH_LIMIT_EXPIRED_EVENT_CACHES =
             "DELETE FROM event_cache WHERE id IN ( " +
                     "SELECT id FROM event_cache " +
-                    "WHERE cast(created as timestamp) < cast(? as timestamp) LIMIT ?) ";
+                    "WHERE created < ? LIMIT ?) ";
 
-    private static final String CUSTOM_SELECT = "SELECT " +
-            "id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name " +
+    private static final String INSERT_EVENT_CACHE = "INSERT INTO event_cache (" +
+            "id, user_id, session_id, client_correlation_id, stream_id, event_json, created, name, event_json_compressed, metadata_json, stored" +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private static final String EVENT_COLUMNS = eventColumns("");
+    private static final String METADATA_COLUMNS = metadataColumns("");
+    private static final String SUBSCRIPTION_EVENT_COLUMNS = eventColumns("e.");
+    private static final String SUBSCRIPTION_EVENT_METADATA_COLUMNS = metadataColumns("e.");
+
+    private static final String CUSTOM_SELECT = "SELECT %s " +
             "FROM event_cache " +
             "WHERE %s %s" +
             "ORDER BY CREATED DESC";
 
+    private static final String PAGED_SELECT = "SELECT %s " +
+            "FROM event_cache " +
+            "WHERE (%s) %s%s" +
+            "ORDER BY created DESC, id DESC LIMIT ?";
+
+    private static final String SINCE_SELECT = "SELECT %s " +
+            "FROM event_cache " +
+            "WHERE (%s) and stored < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' %s" +
+            "ORDER BY stored ASC, id ASC LIMIT ?";
+
+    private static final String SUBSCRIPTION_SELECT = "SELECT " +
+            "s.owner_id AS subscription_owner_id, s.filter AS subscription_filter, " +
+            "s.created AS subscription_created, s.modified AS subscription_modified, " +
+            "e.id, e.user_id, e.session_id, e.client_correlation_id, e.stream_id, e.event_json, e.event_json_compressed, e.created, e.name, e.metadata_json, e.stored " +
+            "FROM subscription s " +
+            "LEFT JOIN (" +
+            "SELECT id, user_id, session_id, client_correlation_id, stream_id, event_json, event_json_compressed, created, name, metadata_json, stored " +
+            "FROM event_cache " +
+            "WHERE (%s) %s%s" +
+            "ORDER BY created DESC, id DESC LIMIT ?" +
+            ") e ON 1 = 1 " +
+            "WHERE s.id = ? and s.owner_id = ? " +
+            "ORDER BY e.created DESC, e.id DESC";
+
+    private static final String SUBSCRIPTION_EVENTS_SELECT = "SELECT %s " +
+            "FROM subscription_event se " +
+            "JOIN event_cache e ON e.id = se.event_id AND e.created = se.created " +
+            "WHERE se.subscription_id = ? %s%s" +
+            "ORDER BY se.created %s, se.event_id %s%s";
+
+    private static final String SUBSCRIPTION_EVENTS_SINCE_SELECT = "SELECT %s " +
+            "FROM subscription_event se " +
+            "JOIN event_cache e ON e.id = se.event_id AND e.created = se.created " +
+            "WHERE se.subscription_id = ? and e.stored < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' %s" +
+            "ORDER BY e.stored ASC, e.id ASC LIMIT ?";
+
+    private static final String CLIENT_CORRELATION_ID_CLAUSE = " and client_correlation_id = ? ";
+    private static final String AFTER_CURSOR_CLAUSE = " and (created < ? or (created = ? and id < ?)) ";
+    private static final String SINCE_CURSOR_CLAUSE = " and (stored > ? or (stored = ? and id > ?)) ";
+    private static final String SUBSCRIPTION_EVENTS_CLIENT_CORRELATION_ID_CLAUSE = " and e.client_correlation_id = ? ";
+    private static final String SUBSCRIPTION_EVENTS_AFTER_CURSOR_CLAUSE = " and (se.created < ? or (se.created = ? and se.event_id < ?)) ";
+    private static final String SUBSCRIPTION_EVENTS_SINCE_CURSOR_CLAUSE = " and (e.stored > ? or (e.stored = ? and e.id > ?)) ";
+    private static final String LIMIT_CLAUSE = " LIMIT ?";
+    private static final String DESC = "DESC";
+
     private final EventCacheJdbcRepositoryConfig eventCacheJdbcRepositoryConfig;
     private final ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider;
     private final PreparedStatementWrapperFactory preparedStatementWrapperFactory;
@@ -56,33 +115,103 @@ public class EventCacheJdbcRepository {
         this.logger = logger;
     }
 
-    public void removeExpiredEventCaches(final ZonedDateTime before) {
+    /**
+     * Deletes the events created before the given time in batches, sized by an
+     * {@link AdaptiveBatchSize} so that each delete takes about the configured target time.
+     */
+    public ExpiredEventCacheRemoval removeExpiredEventCaches(final ZonedDateTime before) {
         logger.trace("Removing expired Event Caches");
 
         final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(
+                eventCacheJdbcRepositoryConfig.getBatchSize(),
+                eventCacheJdbcRepositoryConfig.getMaxBatchSize(),
+                eventCacheJdbcRepositoryConfig.getTargetBatchMillis());
+        final long start = System.nanoTime();
+
+        long rowsDeleted = 0;
+        int batches = 0;
 
         try (final Connection connection = dataSource.getConnection();
              final PreparedStatement ps = connection.prepareStatement(DELETE_WITH_LIMIT_EXPIRED_EVENT_CACHES)) {
-            ps.setString(1, ZonedDateTimes.toString(before));
-            ps.setInt(2, eventCacheJdbcRepositoryConfig.getBatchSize());
-            while (ps.executeUpdate() != 0) {
-                logger.info("Removed expired Event Caches");
-            }
+            ps.setTimestamp(1, toSqlTimestamp(before));
+
+            int deleted;
+            do {
+                final int limit = batchSize.current();
+                ps.setInt(2, limit);
+
+                final long batchStart = System.nanoTime();
+                deleted = ps.executeUpdate();
+                final long batchMillis = NANOSECONDS.toMillis(System.nanoTime() - batchStart);
+
+                if (deleted > 0) {
+                    rowsDeleted += deleted;
+                    batches++;
+                    logger.debug("Removed {} expired Event Caches in {} ms", deleted, batchMillis);
+                }
+
+                batchSize.adjust(batchMillis);
+                if (deleted < limit) {
+                    break;
+                }
+            } while (deleted > 0);
         } catch (final SQLException e) {
             logger.info("Exception while removing EventCaches", e);
         }
 
-        logger.info("Removed expired Event Caches");
+        final ExpiredEventCacheRemoval removal = new ExpiredEventCacheRemoval(rowsDeleted, batches, Duration.ofNanos(System.nanoTime() - start));
+        logger.info("Removed {} expired Event Caches in {} batches in {} ms", rowsDeleted, batches, removal.getDuration().toMillis());
+
+        return removal;
     }
 
-    public List<EventCache> queryByFilter(final String filterClause, final Optional<String> clientCorrelationId) {
+    /**
+     * Inserts the events with a single JDBC batch, in the caller's transaction, storing their json
+     * in the configured {@link EventJsonFormat}.
+     */
+    public void insertBatch(final List<EventCache> eventCaches) {
 
         final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
-        final String clientCorrelationWhereClause = clientCorrelationId.isPresent() ? " and client_correlation_id = ? " : "";
-        final String query = format(CUSTOM_SELECT, filterClause, clientCorrelationWhereClause);
+
+        final boolean deflate = eventCacheJdbcRepositoryConfig.getEventJsonFormat() == DEFLATE;
+
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement ps = connection.prepareStatement(INSERT_EVENT_CACHE)) {
+            for (final EventCache eventCache : eventCaches) {
+                ps.setObject(1, eventCache.getId());
+                ps.setObject(2, eventCache.getUserId());
+                ps.setObject(3, eventCache.getSessionId());
+                ps.setString(4, eventCache.getClientCorrelationId());
+                ps.setObject(5, eventCache.getStreamId());
+                ps.setString(6, deflate ? null : eventCache.getEventJson());
+                ps.setTimestamp(7, toSqlTimestamp(eventCache.getCreated()));
+                ps.setString(8, eventCache.getName());
+                ps.setBytes(9, deflate ? EventJsonCodec.deflate(eventCache.getEventJson()) : null);
+                ps.setString(10, eventCache.getMetadataJson());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while inserting batch of %d event caches", eventCaches.size()), e);
+        }
+    }
+
+    public List<EventCache> queryByFilter(final FilterClause filterClause, final Optional<String> clientCorrelationId) {
+        return queryByFilter(filterClause, clientCorrelationId, EVENT);
+    }
+
+    public List<EventCache> queryByFilter(final FilterClause filterClause,
+                                          final Optional<String> clientCorrelationId,
+                                          final EventProjection projection) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String clientCorrelationWhereClause = clientCorrelationId.isPresent() ? CLIENT_CORRELATION_ID_CLAUSE : "";
+        final String query = format(CUSTOM_SELECT, columnsOf(projection), filterClause.getSql(), clientCorrelationWhereClause);
         try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            final int parameterIndex = bindFilterParameters(ps, filterClause);
             if (clientCorrelationId.isPresent()) {
-                ps.setString(1, clientCorrelationId.get());
+                ps.setString(parameterIndex, clientCorrelationId.get());
             }
             return extractResults(ps.executeQuery());
         } catch (SQLException e) {
@@ -90,6 +219,242 @@ public class EventCacheJdbcRepository {
         }
     }
 
+    /**
+     * Returns at most {@code limit} events matching the filter, newest first, starting strictly
+     * after the given cursor. Ordering on (created, id) keeps pages stable while new events are
+     * being added.
+     */
+    public List<EventCache> queryByFilter(final FilterClause filterClause,
+                                          final Optional<String> clientCorrelationId,
+                                          final Optional<PageCursor> after,
+                                          final int limit) {
+        return queryByFilter(filterClause, clientCorrelationId, after, limit, EVENT);
+    }
+
+    public List<EventCache> queryByFilter(final FilterClause filterClause,
+                                          final Optional<String> clientCorrelationId,
+                                          final Optional<PageCursor> after,
+                                          final int limit,
+                                          final EventProjection projection) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String clientCorrelationWhereClause = clientCorrelationId.isPresent() ? CLIENT_CORRELATION_ID_CLAUSE : "";
+        final String afterCursorWhereClause = after.isPresent() ? AFTER_CURSOR_CLAUSE : "";
+        final String query = format(PAGED_SELECT, columnsOf(projection), filterClause.getSql(), clientCorrelationWhereClause, afterCursorWhereClause);
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            int parameterIndex = bindFilterParameters(ps, filterClause);
+            if (clientCorrelationId.isPresent()) {
+                ps.setString(parameterIndex++, clientCorrelationId.get());
+            }
+            if (after.isPresent()) {
+                parameterIndex = bindCursor(ps, parameterIndex, after.get());
+            }
+            ps.setLong(parameterIndex, limit);
+            return extractResults(ps.executeQuery());
+        } catch (SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while returning page of filtered events {%s}", filterClause), e);
+        }
+    }
+
+    /**
+     * Returns at most {@code limit} events matching the filter that were stored after the given
+     * position, in the order they were stored, so that the last event returned is the position to
+     * acknowledge. Only events stored longer than {@code lagMillis} before the database time of
+     * the query are read: an event is given the database time its transaction started, so one
+     * committed after a poll can only have been stored within the longest transaction before it,
+     * and is not passed over by a position taken from events stored before then. Both times are
+     * taken from the database clock, so the lag is not shortened by the clock of the node polling.
+     */
+    public List<EventCache> queryByFilterSince(final FilterClause filterClause,
+                                               final Optional<PageCursor> since,
+                                               final long lagMillis,
+                                               final int limit) {
+        return queryByFilterSince(filterClause, since, lagMillis, limit, EVENT);
+    }
+
+    public List<EventCache> queryByFilterSince(final FilterClause filterClause,
+                                               final Optional<PageCursor> since,
+                                               final long lagMillis,
+                                               final int limit,
+                                               final EventProjection projection) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String sinceCursorWhereClause = since.isPresent() ? SINCE_CURSOR_CLAUSE : "";
+        final String query = format(SINCE_SELECT, columnsOf(projection), filterClause.getSql(), sinceCursorWhereClause);
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            int parameterIndex = bindFilterParameters(ps, filterClause);
+            ps.setLong(parameterIndex++, lagMillis);
+            if (since.isPresent()) {
+                parameterIndex = bindCursor(ps, parameterIndex, since.get());
+            }
+            ps.setLong(parameterIndex, limit);
+            return extractResults(ps.executeQuery());
+        } catch (SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while returning filtered events since last poll {%s}", filterClause), e);
+        }
+    }
+
+    /**
+     * Returns the events recorded for the subscription in subscription_event, newest first, read
+     * by a range scan of its primary key instead of by running the subscription's filter over
+     * the whole event cache. Returns at most {@code limit} events after the cursor when given.
+     */
+    public List<EventCache> queryBySubscriptionEvents(final UUID subscriptionId,
+                                                      final Optional<String> clientCorrelationId,
+                                                      final Optional<PageCursor> after,
+                                                      final Optional<Integer> limit) {
+        return queryBySubscriptionEvents(subscriptionId, clientCorrelationId, after, limit, EVENT);
+    }
+
+    public List<EventCache> queryBySubscriptionEvents(final UUID subscriptionId,
+                                                      final Optional<String> clientCorrelationId,
+                                                      final Optional<PageCursor> after,
+                                                      final Optional<Integer> limit,
+                                                      final EventProjection projection) {
+
+        final String query = format(SUBSCRIPTION_EVENTS_SELECT,
+                projection == METADATA ? SUBSCRIPTION_EVENT_METADATA_COLUMNS : SUBSCRIPTION_EVENT_COLUMNS,
+                clientCorrelationId.isPresent() ? SUBSCRIPTION_EVENTS_CLIENT_CORRELATION_ID_CLAUSE : "",
+                after.isPresent() ? SUBSCRIPTION_EVENTS_AFTER_CURSOR_CLAUSE : "",
+                DESC, DESC,
+                limit.isPresent() ? LIMIT_CLAUSE : "");
+
+        return querySubscriptionEvents(subscriptionId, query, clientCorrelationId, after, limit);
+    }
+
+    /**
+     * Returns at most {@code limit} events recorded for the subscription in subscription_event
+     * that were stored after the given position and longer than {@code lagMillis} ago, in the
+     * order they were stored, as {@link #queryByFilterSince(FilterClause, Optional, long, int)}.
+     */
+    public List<EventCache> queryBySubscriptionEventsSince(final UUID subscriptionId,
+                                                           final Optional<PageCursor> since,
+                                                           final long lagMillis,
+                                                           final int limit) {
+        return queryBySubscriptionEventsSince(subscriptionId, since, lagMillis, limit, EVENT);
+    }
+
+    public List<EventCache> queryBySubscriptionEventsSince(final UUID subscriptionId,
+                                                           final Optional<PageCursor> since,
+                                                           final long lagMillis,
+                                                           final int limit,
+                                                           final EventProjection projection) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String query = format(SUBSCRIPTION_EVENTS_SINCE_SELECT,
+                projection == METADATA ? SUBSCRIPTION_EVENT_METADATA_COLUMNS : SUBSCRIPTION_EVENT_COLUMNS,
+                since.isPresent() ? SUBSCRIPTION_EVENTS_SINCE_CURSOR_CLAUSE : "");
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            int parameterIndex = 1;
+            ps.setObject(parameterIndex++, subscriptionId);
+            ps.setLong(parameterIndex++, lagMillis);
+            if (since.isPresent()) {
+                parameterIndex = bindCursor(ps, parameterIndex, since.get());
+            }
+            ps.setLong(parameterIndex, limit);
+            return extractResults(ps.executeQuery());
+        } catch (SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while returning events recorded for subscription '%s' since last poll", subscriptionId), e);
+        }
+    }
+
+    /**
+     * Returns the subscription and the events matching the given filter in one statement, only
+     * when the subscription is owned by the given user, so the caller can check the filter version
+     * on the rows that come back rather than looking the subscription up first. The events are
+     * paged as {@link #queryByFilter(FilterClause, Optional, Optional, int)}: at most
+     * {@code limit}, newest first, starting strictly after the cursor when given. Empty if there
+     * is no such subscription owned by the user.
+     */
+    public Optional<SubscriptionEvents> queryBySubscription(final UUID subscriptionId,
+                                                            final UUID ownerId,
+                                                            final FilterClause filterClause,
+                                                            final Optional<String> clientCorrelationId,
+                                                            final Optional<PageCursor> after,
+                                                            final int limit) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String clientCorrelationWhereClause = clientCorrelationId.isPresent() ? CLIENT_CORRELATION_ID_CLAUSE : "";
+        final String afterCursorWhereClause = after.isPresent() ? AFTER_CURSOR_CLAUSE : "";
+        final String query = format(SUBSCRIPTION_SELECT, filterClause.getSql(), clientCorrelationWhereClause, afterCursorWhereClause);
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            int parameterIndex = bindFilterParameters(ps, filterClause);
+            if (clientCorrelationId.isPresent()) {
+                ps.setString(parameterIndex++, clientCorrelationId.get());
+            }
+            if (after.isPresent()) {
+                parameterIndex = bindCursor(ps, parameterIndex, after.get());
+            }
+            ps.setLong(parameterIndex++, limit);
+            ps.setObject(parameterIndex++, subscriptionId);
+            ps.setObject(parameterIndex, ownerId);
+            return extractSubscriptionEvents(subscriptionId, ps.executeQuery());
+        } catch (SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while returning events for subscription '%s' {%s}", subscriptionId, filterClause), e);
+        }
+    }
+
+    private List<EventCache> querySubscriptionEvents(final UUID subscriptionId,
+                                                     final String query,
+                                                     final Optional<String> clientCorrelationId,
+                                                     final Optional<PageCursor> cursor,
+                                                     final Optional<Integer> limit) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            int parameterIndex = 1;
+            ps.setObject(parameterIndex++, subscriptionId);
+            if (clientCorrelationId.isPresent()) {
+                ps.setString(parameterIndex++, clientCorrelationId.get());
+            }
+            if (cursor.isPresent()) {
+                parameterIndex = bindCursor(ps, parameterIndex, cursor.get());
+            }
+            if (limit.isPresent()) {
+                ps.setLong(parameterIndex, limit.get());
+            }
+            return extractResults(ps.executeQuery());
+        } catch (SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while returning events recorded for subscription '%s'", subscriptionId), e);
+        }
+    }
+
+    private static String columnsOf(final EventProjection projection) {
+        return projection == METADATA ? METADATA_COLUMNS : EVENT_COLUMNS;
+    }
+
+    private static String eventColumns(final String alias) {
+        return format("%1$sid, %1$suser_id, %1$ssession_id, %1$sclient_correlation_id, %1$sstream_id, " +
+                "%1$sevent_json, %1$sevent_json_compressed, %1$screated, %1$sname, %1$smetadata_json, %1$sstored", alias);
+    }
+
+    /**
+     * The event columns with the json only read for rows without metadata_json. Postgres only
+     * evaluates the CASE branch taken, so the payload of the other rows is never fetched.
+     */
+    private static String metadataColumns(final String alias) {
+        return format("%1$sid, %1$suser_id, %1$ssession_id, %1$sclient_correlation_id, %1$sstream_id, " +
+                "CASE WHEN %1$smetadata_json IS NULL THEN %1$sevent_json END AS event_json, " +
+                "CASE WHEN %1$smetadata_json IS NULL THEN %1$sevent_json_compressed END AS event_json_compressed, " +
+                "%1$screated, %1$sname, %1$smetadata_json, %1$sstored", alias);
+    }
+
+    private int bindFilterParameters(final PreparedStatementWrapper ps, final FilterClause filterClause) throws SQLException {
+        int parameterIndex = 1;
+        for (final Object parameter : filterClause.getParameters()) {
+            ps.setObject(parameterIndex++, parameter);
+        }
+        return parameterIndex;
+    }
+
+    private int bindCursor(final PreparedStatementWrapper ps, final int firstParameterIndex, final PageCursor cursor) throws SQLException {
+        final Timestamp position = toSqlTimestamp(cursor.getPosition());
+        ps.setTimestamp(firstParameterIndex, position);
+        ps.setTimestamp(firstParameterIndex + 1, position);
+        ps.setObject(firstParameterIndex + 2, cursor.getId());
+        return firstParameterIndex + 3;
+    }
+
     private List<EventCache> extractResults(final ResultSet resultSet) throws SQLException {
         final List<EventCache> events = new ArrayList<>();
 
@@ -100,6 +465,42 @@ public class EventCacheJdbcRepository {
         return events;
     }
 
+    private Optional<SubscriptionEvents> extractSubscriptionEvents(final UUID subscriptionId, final ResultSet resultSet) throws SQLException {
+        Subscription subscription = null;
+        final List<EventCache> events = new ArrayList<>();
+
+        while (resultSet.next()) {
+            if (subscription == null) {
+                subscription = subscriptionFrom(subscriptionId, resultSet);
+            }
+            if (resultSet.getObject("id") != null) {
+                events.add(entityFrom(resultSet));
+            }
+        }
+
+        if (subscription == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new SubscriptionEvents(subscription, events));
+    }
+
+    private Subscription subscriptionFrom(final UUID subscriptionId, final ResultSet resultSet) throws SQLException {
+        final Subscription subscription = new Subscription(
+                subscriptionId,
+                (UUID) resultSet.getObject("subscription_owner_id"),
+                resultSet.getString("subscription_filter"),
+                fromSqlTimestamp(resultSet.getTimestamp("subscription_created")));
+        subscription.setModified(fromSqlTimestamp(resultSet.getTimestamp("subscription_modified")));
+        return subscription;
+    }
+
+    private String eventJsonFrom(final ResultSet resultSet) throws SQLException {
+        final byte[] compressed = resultSet.getBytes("event_json_compressed");
+
+        return compressed == null ? resultSet.getString("event_json") : EventJsonCodec.inflate(compressed);
+    }
+
     private EventCache entityFrom(final ResultSet resultSet) throws SQLException {
         final UUID id = (UUID) resultSet.getObject("id");
         final UUID userId = (UUID) resultSet.getObject("user_id");
@@ -107,9 +508,11 @@ public class EventCacheJdbcRepository {
         final String correlationId = resultSet.getString("client_correlation_id");
         final String eventName = resultSet.getString("name");
         final UUID streamId = (UUID) resultSet.getObject("stream_id");
-        final String eventJson = resultSet.getString("event_json");
+        final String eventJson = eventJsonFrom(resultSet);
         final Timestamp created = resultSet.getTimestamp("created");
-        return new EventCache(
+        final String metadataJson = resultSet.getString("metadata_json");
+        final Timestamp stored = resultSet.getTimestamp("stored");
+        final EventCache eventCache = new EventCache(
                 id,
                 userId,
                 sessionId,
@@ -117,6 +520,11 @@ public class EventCacheJdbcRepository {
                 streamId,
                 eventJson,
                 fromSqlTimestamp(created),
-                eventName);
+                eventName,
+                metadataJson);
+        if (stored != null) {
+            eventCache.setStored(fromSqlTimestamp(stored));
+        }
+        return eventCache;
     }
 }
@@ -1,6 +1,7 @@
 package uk.gov.moj.cpp.notification.persistence;
 
 import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
 
 import uk.gov.justice.services.common.configuration.Value;
 
@@ -13,7 +14,34 @@ public class EventCacheJdbcRepositoryConfig {
     @Value(key = "batchSize", defaultValue = "100")
     private String batchSize;
 
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventCacheCleanerMaxBatchSize", defaultValue = "10000")
+    private String maxBatchSize;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventCacheCleanerTargetBatchMillis", defaultValue = "200")
+    private String targetBatchMillis;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventCacheEventJsonFormat", defaultValue = "TEXT")
+    private String eventJsonFormat;
+
     public int getBatchSize() {
         return parseInt(batchSize);
     }
+
+    public int getMaxBatchSize() {
+        return parseInt(maxBatchSize);
+    }
+
+    public long getTargetBatchMillis() {
+        return parseLong(targetBatchMillis);
+    }
+
+    public EventJsonFormat getEventJsonFormat() {
+        return EventJsonFormat.valueOf(eventJsonFormat);
+    }
 }
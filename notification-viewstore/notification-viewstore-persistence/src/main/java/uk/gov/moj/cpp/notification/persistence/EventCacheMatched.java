@@ -0,0 +1,47 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.util.Collections.unmodifiableSet;
+
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * CDI event fired once a public event has been stored in the event cache, with the
+ * subscriptions whose filters it matched when it was received. When the event is stored in the
+ * transaction of the event processor, observers that need to read it should observe after
+ * the transaction has succeeded. The time the event was created, when its envelope gives one, is
+ * carried for the {@link EventLatencyMetrics}.
+ */
+public class EventCacheMatched {
+
+    private final EventCache eventCache;
+    private final Set<UUID> subscriptionIds;
+    private final Optional<ZonedDateTime> publishedAt;
+
+    public EventCacheMatched(final EventCache eventCache, final Set<UUID> subscriptionIds) {
+        this(eventCache, subscriptionIds, Optional.empty());
+    }
+
+    public EventCacheMatched(final EventCache eventCache, final Set<UUID> subscriptionIds, final Optional<ZonedDateTime> publishedAt) {
+        this.eventCache = eventCache;
+        this.subscriptionIds = unmodifiableSet(new HashSet<>(subscriptionIds));
+        this.publishedAt = publishedAt;
+    }
+
+    public EventCache getEventCache() {
+        return eventCache;
+    }
+
+    public Set<UUID> getSubscriptionIds() {
+        return subscriptionIds;
+    }
+
+    public Optional<ZonedDateTime> getPublishedAt() {
+        return publishedAt;
+    }
+}
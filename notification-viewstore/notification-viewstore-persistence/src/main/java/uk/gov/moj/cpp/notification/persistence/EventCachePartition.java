@@ -0,0 +1,89 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.time.ZoneOffset.UTC;
+import static java.time.temporal.ChronoUnit.HOURS;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An hourly partition of the event_cache table, holding the events created from the start of
+ * the hour (inclusive) to the start of the next hour (exclusive), in UTC.
+ */
+public class EventCachePartition {
+
+    static final String PARTITION_NAME_PREFIX = "event_cache_p";
+
+    private static final DateTimeFormatter PARTITION_NAME_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(UTC);
+
+    private final ZonedDateTime start;
+
+    private EventCachePartition(final ZonedDateTime start) {
+        this.start = start;
+    }
+
+    /**
+     * @return the partition that holds events created at the given time
+     */
+    public static EventCachePartition partitionOf(final ZonedDateTime created) {
+        return new EventCachePartition(created.withZoneSameInstant(UTC).truncatedTo(HOURS));
+    }
+
+    /**
+     * @return the partition with the given table name, or empty if the table is not an hourly
+     * partition, such as the default partition
+     */
+    public static Optional<EventCachePartition> partitionNamed(final String name) {
+        if (!name.startsWith(PARTITION_NAME_PREFIX)) {
+            return Optional.empty();
+        }
+
+        try {
+            final String suffix = name.substring(PARTITION_NAME_PREFIX.length());
+            return Optional.of(new EventCachePartition(ZonedDateTime.parse(suffix, PARTITION_NAME_SUFFIX)));
+        } catch (final DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String getName() {
+        return PARTITION_NAME_PREFIX + PARTITION_NAME_SUFFIX.format(start);
+    }
+
+    public ZonedDateTime getStart() {
+        return start;
+    }
+
+    public ZonedDateTime getEnd() {
+        return start.plusHours(1);
+    }
+
+    public EventCachePartition next() {
+        return new EventCachePartition(getEnd());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final EventCachePartition that = (EventCachePartition) o;
+        return Objects.equals(start, that.start);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
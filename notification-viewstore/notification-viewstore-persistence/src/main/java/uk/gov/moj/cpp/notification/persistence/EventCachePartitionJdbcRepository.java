@@ -0,0 +1,123 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.String.format;
+import static java.time.ZoneOffset.UTC;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapper;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Creates and drops the hourly partitions of the event_cache table, which is range partitioned
+ * by created on Postgres when the view store is migrated with eventCachePartitioning=true.
+ * Dropping a partition expires all of its events at once, however many there are.
+ */
+public class EventCachePartitionJdbcRepository {
+
+    private static final String SELECT_PARTITION_NAMES =
+            "SELECT child.relname FROM pg_inherits " +
+                    "JOIN pg_class parent ON parent.oid = pg_inherits.inhparent " +
+                    "JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+                    "WHERE parent.relname = 'event_cache'";
+
+    private static final String CREATE_PARTITION = "DO $$ BEGIN " +
+            "IF to_regclass('%1$s') IS NULL THEN " +
+            "CREATE TABLE %1$s (LIKE event_cache INCLUDING DEFAULTS); " +
+            "WITH moved AS (DELETE FROM event_cache_default WHERE created >= '%2$s' AND created < '%3$s' RETURNING *) " +
+            "INSERT INTO %1$s SELECT * FROM moved; " +
+            "ALTER TABLE event_cache ATTACH PARTITION %1$s FOR VALUES FROM ('%2$s') TO ('%3$s'); " +
+            "END IF; " +
+            "END $$";
+
+    private static final String DROP_PARTITION = "DROP TABLE IF EXISTS %s";
+
+    private static final String DELETE_EXPIRED_FROM_DEFAULT_PARTITION =
+            "DELETE FROM event_cache_default WHERE created < ?";
+
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss'+00'").withZone(UTC);
+
+    @Inject
+    private ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider;
+
+    @Inject
+    private PreparedStatementWrapperFactory preparedStatementWrapperFactory;
+
+    /**
+     * @return the hourly partitions of event_cache, leaving out the default partition
+     */
+    public List<EventCachePartition> findPartitions() {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, SELECT_PARTITION_NAMES)) {
+            final ResultSet resultSet = ps.executeQuery();
+
+            final List<EventCachePartition> partitions = new ArrayList<>();
+            while (resultSet.next()) {
+                EventCachePartition.partitionNamed(resultSet.getString(1)).ifPresent(partitions::add);
+            }
+
+            return partitions;
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while finding event cache partitions", e);
+        }
+    }
+
+    /**
+     * Creates the partition unless it exists. Events of its hour that were stored in the default
+     * partition, because the partition did not exist when they were inserted, are moved into it,
+     * as Postgres will not create a partition for rows the default partition holds. The partition
+     * is created, filled and attached in a single statement, so the events are never missing.
+     */
+    public void createPartition(final EventCachePartition partition) {
+        execute(format(CREATE_PARTITION,
+                partition.getName(),
+                PARTITION_BOUND.format(partition.getStart()),
+                PARTITION_BOUND.format(partition.getEnd())));
+    }
+
+    public void dropPartition(final EventCachePartition partition) {
+        execute(format(DROP_PARTITION, partition.getName()));
+    }
+
+    /**
+     * Deletes the expired events that were stored in the default partition, because no hourly
+     * partition existed for them when they were inserted.
+     *
+     * @return the number of events deleted
+     */
+    public int removeExpiredFromDefaultPartition(final ZonedDateTime before) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, DELETE_EXPIRED_FROM_DEFAULT_PARTITION)) {
+            ps.setTimestamp(1, toSqlTimestamp(before));
+            return ps.executeUpdate();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while removing expired events from the default event cache partition", e);
+        }
+    }
+
+    private void execute(final String ddl) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final Connection connection = dataSource.getConnection();
+             final Statement statement = connection.createStatement()) {
+            statement.execute(ddl);
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while executing '%s'", ddl), e);
+        }
+    }
+}
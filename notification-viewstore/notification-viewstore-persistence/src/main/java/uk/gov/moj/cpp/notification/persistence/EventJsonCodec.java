@@ -0,0 +1,67 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.zip.Deflater.BEST_SPEED;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflates event json for the event_json_compressed column, as raw deflate data without a zlib
+ * header or checksum. Compresses at the fastest level, as events are written once on the ingest
+ * path and expire within hours.
+ */
+public final class EventJsonCodec {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private EventJsonCodec() {
+    }
+
+    public static byte[] deflate(final String eventJson) {
+        final byte[] input = eventJson.getBytes(UTF_8);
+        final Deflater deflater = new Deflater(BEST_SPEED, true);
+
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 16);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is not raw deflate data
+     */
+    public static String inflate(final byte[] compressed) {
+        final Inflater inflater = new Inflater(true);
+
+        try {
+            inflater.setInput(compressed);
+
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 4);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                final int inflated = inflater.inflate(buffer);
+                output.write(buffer, 0, inflated);
+                if (inflated == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed event json");
+                }
+            }
+            return new String(output.toByteArray(), UTF_8);
+        } catch (final DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed event json", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+/**
+ * How the {@link EventCacheJdbcRepository} stores the json of new events, set with the
+ * eventCacheEventJsonFormat property. Events already stored are read back in whichever format
+ * they were stored in, so the format can be changed at any time.
+ */
+public enum EventJsonFormat {
+
+    /**
+     * Stores the json as text in the event_json column.
+     */
+    TEXT,
+
+    /**
+     * Stores the json deflated with {@link EventJsonCodec} in the event_json_compressed column.
+     * Postgres only compresses values of over 2kB when it toasts them, so most envelopes are
+     * stored uncompressed as text, while deflated they take a fraction of the space on disk and
+     * of the bytes sent to the query view.
+     */
+    DEFLATE
+}
@@ -0,0 +1,170 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.max;
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.synchronizedSet;
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Records how long public events take to reach subscribers, by event name: from when the event
+ * was created, as given by its envelope, to when it was stored in the event cache, and from then
+ * to when it was first delivered to a subscription by any query of its events.
+ *
+ * An event counts as stored once the {@link EventCacheMatched} event fired for it is observed
+ * after the transaction that stored it has succeeded, so events the event cache writer could not
+ * store are not recorded. Delivery is timed from the database time the event was stored, and
+ * each event is only recorded the first time it is delivered by this server. The ids of the
+ * events delivered are remembered up to the configured number, beyond which the first delivered
+ * are forgotten and would be recorded again if delivered again.
+ *
+ * Latencies are taken from the clocks of different services, so a negative latency is recorded
+ * as zero. Once the configured number of event names has been seen, any further names are
+ * recorded together under {@value #OTHER_NAMES}.
+ */
+@ApplicationScoped
+public class EventLatencyMetrics implements EventLatencyMetricsMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=EventLatency";
+    static final String OTHER_NAMES = "other";
+    static final String DEFAULT_MAX_DELIVERED_EVENTS = "100000";
+
+    private static final Logger LOGGER = getLogger(EventLatencyMetrics.class);
+
+    private final Map<String, Histogram> publishedToStoredMillis = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> storedToDeliveredMillis = new ConcurrentHashMap<>();
+    private final Set<UUID> deliveredEventIds = synchronizedSet(newSetFromMap(new DeliveredEventIds()));
+
+    @Inject
+    Clock clock;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventLatencyMetricsMaxNames", defaultValue = "500")
+    String maxNames;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "eventLatencyMetricsMaxDeliveredEvents", defaultValue = DEFAULT_MAX_DELIVERED_EVENTS)
+    String maxDeliveredEvents;
+
+    public EventLatencyMetrics() {
+    }
+
+    /**
+     * Creates metrics that record the given number of event names before recording the rest
+     * together, for use outside the container, where the settings are not injected.
+     */
+    public EventLatencyMetrics(final int maxNames) {
+        this.maxNames = String.valueOf(maxNames);
+        this.maxDeliveredEvents = DEFAULT_MAX_DELIVERED_EVENTS;
+        this.clock = new UtcClock();
+    }
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, LOGGER);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, LOGGER);
+    }
+
+    void onEventCacheMatched(@Observes(during = AFTER_SUCCESS) final EventCacheMatched eventCacheMatched) {
+        eventCacheMatched.getPublishedAt().ifPresent(publishedAt ->
+                recordStored(eventCacheMatched.getEventCache(), publishedAt, clock.now()));
+    }
+
+    /**
+     * @param eventCache  the event stored
+     * @param publishedAt the time the event was created
+     * @param storedAt    the time the transaction that stored it succeeded
+     */
+    public void recordStored(final EventCache eventCache, final ZonedDateTime publishedAt, final ZonedDateTime storedAt) {
+        histogramOf(publishedToStoredMillis, eventCache.getName()).record(millisBetween(publishedAt, storedAt));
+    }
+
+    /**
+     * Records the events delivered for the first time. Events already delivered, and events read
+     * without the time they were stored, are left out.
+     *
+     * @param events      the events delivered to a subscription, as read from the event cache
+     * @param deliveredAt the time they were delivered
+     */
+    public void recordDelivered(final List<EventCache> events, final ZonedDateTime deliveredAt) {
+        for (final EventCache event : events) {
+            if (event.getStored() != null && deliveredEventIds.add(event.getId())) {
+                histogramOf(storedToDeliveredMillis, event.getName()).record(millisBetween(event.getStored(), deliveredAt));
+            }
+        }
+    }
+
+    private Histogram histogramOf(final Map<String, Histogram> histograms, final String name) {
+        final Histogram histogram = histograms.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+
+        final String recorded = name != null && histograms.size() < parseInt(maxNames) ? name : OTHER_NAMES;
+        return histograms.computeIfAbsent(recorded, key -> Histogram.latency());
+    }
+
+    private static long millisBetween(final ZonedDateTime from, final ZonedDateTime to) {
+        return max(0L, MILLIS.between(from, to));
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getPublishedToStoredMillisByName() {
+        return snapshotsOf(publishedToStoredMillis);
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getStoredToDeliveredMillisByName() {
+        return snapshotsOf(storedToDeliveredMillis);
+    }
+
+    private static Map<String, HistogramSnapshot> snapshotsOf(final Map<String, Histogram> histograms) {
+        final Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+        histograms.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * The ids of the events delivered, in the order they were first delivered, so that the eldest
+     * are forgotten beyond the maximum.
+     */
+    private class DeliveredEventIds extends LinkedHashMap<UUID, Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<UUID, Boolean> eldest) {
+            return size() > parseInt(maxDeliveredEvents);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import java.util.Map;
+
+/**
+ * How long public events take to reach subscribers, published over JMX as
+ * {@value EventLatencyMetrics#OBJECT_NAME}. Counts are totals since the server started.
+ */
+public interface EventLatencyMetricsMXBean {
+
+    /**
+     * @return the milliseconds from the creation of each event stored to its storing, by event name
+     */
+    Map<String, HistogramSnapshot> getPublishedToStoredMillisByName();
+
+    /**
+     * @return the milliseconds from the storing of each event to its first delivery, by event name
+     */
+    Map<String, HistogramSnapshot> getStoredToDeliveredMillisByName();
+}
@@ -0,0 +1,19 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+/**
+ * The columns of event_cache read for each event returned by a query.
+ */
+public enum EventProjection {
+
+    /**
+     * The whole event, with its json.
+     */
+    EVENT,
+
+    /**
+     * The event with only its metadata, read from the metadata_json column so that the payload
+     * is not read at all. The json is only read for events stored before metadata_json was
+     * added, which have no metadata of their own.
+     */
+    METADATA
+}
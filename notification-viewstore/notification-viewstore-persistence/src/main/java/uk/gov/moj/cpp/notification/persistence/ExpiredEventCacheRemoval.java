@@ -0,0 +1,32 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import java.time.Duration;
+
+/**
+ * What one run of {@link EventCacheJdbcRepository#removeExpiredEventCaches} did.
+ */
+public class ExpiredEventCacheRemoval {
+
+    private final long rowsDeleted;
+    private final int batches;
+    private final Duration duration;
+
+    public ExpiredEventCacheRemoval(final long rowsDeleted, final int batches, final Duration duration) {
+        this.rowsDeleted = rowsDeleted;
+        this.batches = batches;
+        this.duration = duration;
+    }
+
+    public long getRowsDeleted() {
+        return rowsDeleted;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+}
@@ -0,0 +1,53 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A SQL 'WHERE' clause over the event_cache table with '?' placeholders, and the values to bind
+ * to them in order. Filters of the same shape share the same clause text, so the database can
+ * reuse the statement and its plan.
+ */
+public class FilterClause {
+
+    private final String sql;
+    private final List<Object> parameters;
+
+    public FilterClause(final String sql, final List<?> parameters) {
+        this.sql = sql;
+        this.parameters = unmodifiableList(new ArrayList<Object>(parameters));
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final FilterClause that = (FilterClause) o;
+        return Objects.equals(sql, that.sql) && Objects.equals(parameters, that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sql, parameters);
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + parameters;
+    }
+}
@@ -0,0 +1,63 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts recorded values into fixed buckets, for the metrics published over JMX. Recording only
+ * adds to striped counters, so it can be called on every event and every query without threads
+ * contending, and a {@link #snapshot()} can be taken while values are being recorded.
+ */
+public class Histogram {
+
+    private static final long[] LATENCY_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000};
+    private static final long[] SIZE_BOUNDS = {0, 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 100000, 1000000};
+
+    private final long[] upperBounds;
+    private final LongAdder[] bucketCounts;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param upperBounds the inclusive upper bound of each bucket, ascending; larger values are
+     *                    counted in a last, unbounded bucket
+     */
+    public Histogram(final long... upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        this.bucketCounts = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return a histogram of durations, with buckets from 1 to 300,000 in the unit recorded
+     */
+    public static Histogram latency() {
+        return new Histogram(LATENCY_BOUNDS);
+    }
+
+    /**
+     * @return a histogram of numbers of rows or events, with buckets from 0 to 1,000,000
+     */
+    public static Histogram size() {
+        return new Histogram(SIZE_BOUNDS);
+    }
+
+    public void record(final long value) {
+        int bucket = 0;
+        while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+            bucket++;
+        }
+
+        bucketCounts[bucket].increment();
+        sum.add(value);
+    }
+
+    public HistogramSnapshot snapshot() {
+        final long[] counts = new long[bucketCounts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts[i].sum();
+        }
+
+        return new HistogramSnapshot(upperBounds.clone(), counts, sum.sum());
+    }
+}
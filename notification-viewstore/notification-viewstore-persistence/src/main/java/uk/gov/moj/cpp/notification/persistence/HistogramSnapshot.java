@@ -0,0 +1,78 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The values recorded by a {@link Histogram} at one point in time. {@code bucketCounts} has one
+ * count more than {@code upperBounds}, the last being of the values above the largest bound.
+ * Percentiles are given as the upper bound of the bucket they fall in, or -1 when they fall above
+ * the largest bound.
+ */
+public class HistogramSnapshot {
+
+    private final long[] upperBounds;
+    private final long[] bucketCounts;
+    private final long sum;
+
+    @ConstructorProperties({"upperBounds", "bucketCounts", "sum"})
+    public HistogramSnapshot(final long[] upperBounds, final long[] bucketCounts, final long sum) {
+        this.upperBounds = upperBounds;
+        this.bucketCounts = bucketCounts;
+        this.sum = sum;
+    }
+
+    public long[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (final long bucketCount : bucketCounts) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    public long getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public long getP50() {
+        return percentile(0.5);
+    }
+
+    public long getP95() {
+        return percentile(0.95);
+    }
+
+    public long getP99() {
+        return percentile(0.99);
+    }
+
+    private long percentile(final double fraction) {
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return upperBounds[i];
+            }
+        }
+
+        return -1;
+    }
+}
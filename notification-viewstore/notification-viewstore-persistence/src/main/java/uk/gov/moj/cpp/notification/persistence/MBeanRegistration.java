@@ -0,0 +1,48 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+
+/**
+ * Registers the metrics of the notification context with the platform MBean server. Metrics are
+ * not worth failing a deployment for, so a name that cannot be registered is logged and skipped.
+ */
+public final class MBeanRegistration {
+
+    private MBeanRegistration() {
+    }
+
+    /**
+     * Registers the MBean under the name, replacing any MBean left registered under it, as by an
+     * earlier deployment of the application that was not shut down cleanly.
+     */
+    public static void register(final Object mBean, final String objectName, final Logger logger) {
+        try {
+            final MBeanServer mBeanServer = getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(objectName);
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+            mBeanServer.registerMBean(mBean, name);
+        } catch (final JMException e) {
+            logger.warn("Could not register MBean " + objectName, e);
+        }
+    }
+
+    public static void unregister(final String objectName, final Logger logger) {
+        try {
+            final MBeanServer mBeanServer = getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(objectName);
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+        } catch (final JMException e) {
+            logger.warn("Could not unregister MBean " + objectName, e);
+        }
+    }
+}
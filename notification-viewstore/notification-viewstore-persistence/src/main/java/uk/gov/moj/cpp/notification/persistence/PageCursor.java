@@ -0,0 +1,85 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Keyset position of a row ordered by (timestamp, id). Serialised to an opaque token so that
+ * clients can pass it back as the 'after' parameter of the next page request.
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final ZonedDateTime position;
+    private final UUID id;
+
+    public PageCursor(final ZonedDateTime position, final UUID id) {
+        this.position = position;
+        this.id = id;
+    }
+
+    public static PageCursor fromToken(final String token) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(token), UTF_8);
+            final int separatorIndex = decoded.indexOf(SEPARATOR);
+
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException(format("Invalid page cursor '%s'", token));
+            }
+
+            final Instant instant = Instant.parse(decoded.substring(0, separatorIndex));
+            final UUID id = UUID.fromString(decoded.substring(separatorIndex + 1));
+
+            return new PageCursor(instant.atZone(UTC), id);
+        } catch (final DateTimeParseException e) {
+            throw new IllegalArgumentException(format("Invalid page cursor '%s'", token), e);
+        }
+    }
+
+    public String toToken() {
+        final String value = position.toInstant().toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+    }
+
+    public ZonedDateTime getPosition() {
+        return position;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final PageCursor that = (PageCursor) o;
+        return position.toInstant().equals(that.position.toInstant()) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(position.toInstant(), id);
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" +
+                "position=" + position +
+                ", id=" + id +
+                '}';
+    }
+}
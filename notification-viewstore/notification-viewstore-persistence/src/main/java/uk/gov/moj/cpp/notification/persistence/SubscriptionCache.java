@@ -0,0 +1,196 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static javax.enterprise.event.TransactionPhase.AFTER_COMPLETION;
+
+import uk.gov.justice.services.common.configuration.Value;
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Caches the subscriptions read by every query of their events, so that polling a subscription
+ * does not read the subscription table each time.
+ *
+ * A subscription is dropped once a change to it has been committed, on this node or on another
+ * (see {@link SubscriptionChanged}), and a subscription read while it was being changed is not
+ * cached. Every subscription is dropped when changes on other nodes may have been missed (see
+ * {@link SubscriptionChangesMissed}). Entries also expire after a time to live, and the least
+ * recently used are evicted beyond the maximum size.
+ *
+ * Changes made on other nodes are only seen before the time to live has passed when the nodes
+ * send each other cluster notifications (clusterNotificationsEnabled). Without them, a
+ * subscription changed on another node is served as it was for up to the time to live, which is
+ * why it defaults to a short one.
+ *
+ * The subscriptions returned are detached copies shared between callers, so they must not be
+ * changed; use the {@link SubscriptionRepository} to update them.
+ */
+@ApplicationScoped
+public class SubscriptionCache implements SubscriptionCacheMXBean {
+
+    static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=SubscriptionCache";
+
+    @Inject
+    SubscriptionRepository subscriptionRepository;
+
+    @Inject
+    Clock clock;
+
+    @Inject
+    Logger logger;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "subscriptionCacheMaxSize", defaultValue = "10000")
+    String maxSize;
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    @Inject
+    @Value(key = "subscriptionCacheTtlSeconds", defaultValue = "30")
+    String ttlSeconds;
+
+    private final Map<UUID, CachedSubscription> subscriptions = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long invalidations;
+
+    @PostConstruct
+    public void register() {
+        MBeanRegistration.register(this, OBJECT_NAME, logger);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    /**
+     * @return the subscription, or null if there is no such subscription
+     */
+    public Subscription findBy(final UUID subscriptionId) {
+
+        final Instant now = clock.now().toInstant();
+        final long invalidationsBeforeRead;
+
+        synchronized (this) {
+            final CachedSubscription cached = subscriptions.get(subscriptionId);
+
+            if (cached != null && now.isBefore(cached.expires)) {
+                hits.incrementAndGet();
+                return cached.subscription;
+            }
+            if (cached != null) {
+                subscriptions.remove(subscriptionId);
+            }
+            invalidationsBeforeRead = invalidations;
+        }
+
+        misses.incrementAndGet();
+        final Subscription subscription = subscriptionRepository.findBy(subscriptionId);
+
+        if (subscription == null) {
+            return null;
+        }
+
+        final Subscription copy = copyOf(subscription);
+
+        synchronized (this) {
+            if (invalidations == invalidationsBeforeRead) {
+                subscriptions.put(subscriptionId, new CachedSubscription(copy, now.plusSeconds(parseLong(ttlSeconds))));
+                evictLeastRecentlyUsed();
+            }
+        }
+
+        return copy;
+    }
+
+    public synchronized void invalidate(final UUID subscriptionId) {
+        subscriptions.remove(subscriptionId);
+        invalidations++;
+    }
+
+    void onSubscriptionChanged(@Observes(during = AFTER_COMPLETION) final SubscriptionChanged subscriptionChanged) {
+        invalidate(subscriptionChanged.getSubscriptionId());
+    }
+
+    void onSubscriptionChangesMissed(@Observes final SubscriptionChangesMissed subscriptionChangesMissed) {
+        clear();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        subscriptions.clear();
+        invalidations++;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        final int max = parseInt(maxSize);
+        final Iterator<UUID> leastRecentlyUsed = subscriptions.keySet().iterator();
+
+        while (subscriptions.size() > max) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static Subscription copyOf(final Subscription subscription) {
+        final Subscription copy = new Subscription(subscription.getId(), subscription.getOwnerId(), subscription.getFilter(), subscription.getCreated());
+        copy.setModified(subscription.getModified());
+        return copy;
+    }
+
+    private static class CachedSubscription {
+
+        private final Subscription subscription;
+        private final Instant expires;
+
+        private CachedSubscription(final Subscription subscription, final Instant expires) {
+            this.subscription = subscription;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+/**
+ * Effectiveness of the subscription cache, published over JMX as
+ * {@value SubscriptionCache#OBJECT_NAME}. Counts are totals since the server started.
+ */
+public interface SubscriptionCacheMXBean {
+
+    @Counter
+    long getHits();
+
+    @Counter
+    long getMisses();
+
+    /**
+     * @return the subscriptions dropped as the least recently used to keep within the maximum size
+     */
+    @Counter
+    long getEvictions();
+
+    /**
+     * @return the subscriptions dropped because they changed
+     */
+    @Counter
+    long getInvalidations();
+
+    int getSize();
+
+    void clear();
+}
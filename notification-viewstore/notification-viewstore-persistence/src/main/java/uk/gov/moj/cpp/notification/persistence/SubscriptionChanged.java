@@ -0,0 +1,38 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import java.util.UUID;
+
+/**
+ * CDI event fired once a subscription has been created, updated or removed in the view store, so
+ * that anything cached for it can be dropped. It is fired again on the other nodes of the cluster
+ * when they receive the {@link ClusterNotification} of the change.
+ */
+public class SubscriptionChanged {
+
+    private final UUID subscriptionId;
+    private final boolean onOtherNode;
+
+    public SubscriptionChanged(final UUID subscriptionId) {
+        this(subscriptionId, false);
+    }
+
+    private SubscriptionChanged(final UUID subscriptionId, final boolean onOtherNode) {
+        this.subscriptionId = subscriptionId;
+        this.onOtherNode = onOtherNode;
+    }
+
+    /**
+     * @return the event of a subscription changed by another node of the cluster
+     */
+    public static SubscriptionChanged onOtherNode(final UUID subscriptionId) {
+        return new SubscriptionChanged(subscriptionId, true);
+    }
+
+    public UUID getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public boolean isOnOtherNode() {
+        return onOtherNode;
+    }
+}
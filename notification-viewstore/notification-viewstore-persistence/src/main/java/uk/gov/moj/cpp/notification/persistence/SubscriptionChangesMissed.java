@@ -0,0 +1,9 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+/**
+ * CDI event fired when changes to subscriptions on other nodes of the cluster may have been
+ * missed, as the cluster notifications sent while this node was not listening are lost, so that
+ * everything cached for any subscription is dropped.
+ */
+public class SubscriptionChangesMissed {
+}
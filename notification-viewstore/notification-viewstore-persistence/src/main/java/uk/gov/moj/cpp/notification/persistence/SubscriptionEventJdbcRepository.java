@@ -0,0 +1,270 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.String.format;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.fromSqlTimestamp;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapper;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Maintains the subscription_event table, which records the events of the event cache matched
+ * by each subscription. The rows of an event are inserted with the event itself, and the rows of
+ * a subscription are rebuilt from the event cache whenever its filter changes. The time of the
+ * last rebuild is kept in the events_rebuilt column of the subscription until it has been
+ * reconciled.
+ */
+public class SubscriptionEventJdbcRepository {
+
+    private static final String INSERT_SUBSCRIPTION_EVENT =
+            "INSERT INTO subscription_event (subscription_id, created, event_id) VALUES (?, ?, ?)";
+
+    private static final String DELETE_SUBSCRIPTION_EVENTS =
+            "DELETE FROM subscription_event WHERE subscription_id = ?";
+
+    private static final String INSERT_MATCHING_SUBSCRIPTION_EVENTS =
+            "INSERT INTO subscription_event (subscription_id, created, event_id) " +
+                    "SELECT CAST(? AS UUID), e.created, e.id FROM event_cache e " +
+                    "WHERE (%s) " +
+                    "AND NOT EXISTS (SELECT 1 FROM subscription_event se " +
+                    "WHERE se.subscription_id = ? AND se.created = e.created AND se.event_id = e.id)";
+
+    private static final String INSERT_MATCHING_SUBSCRIPTION_EVENTS_STORED_SINCE =
+            INSERT_MATCHING_SUBSCRIPTION_EVENTS + " AND e.stored >= ?";
+
+    private static final String DELETE_UNMATCHED_SUBSCRIPTION_EVENTS_STORED_SINCE =
+            "DELETE FROM subscription_event se " +
+                    "WHERE se.subscription_id = ? " +
+                    "AND EXISTS (SELECT 1 FROM event_cache e " +
+                    "WHERE e.id = se.event_id AND e.created = se.created AND e.stored >= ? AND NOT (%s))";
+
+    private static final String UPDATE_EVENTS_REBUILT =
+            "UPDATE subscription SET events_rebuilt = ? WHERE id = ?";
+
+    private static final String SELECT_EVENTS_REBUILT_BEFORE =
+            "SELECT id, events_rebuilt FROM subscription WHERE events_rebuilt < ?";
+
+    private static final String CLEAR_EVENTS_REBUILT =
+            "UPDATE subscription SET events_rebuilt = NULL WHERE id = ? AND events_rebuilt = ?";
+
+    private static final String DELETE_OLDEST_EXPIRED_SUBSCRIPTION_EVENTS =
+            "DELETE FROM subscription_event WHERE created < ? AND created <= (" +
+                    "SELECT MAX(created) FROM (" +
+                    "SELECT created FROM subscription_event WHERE created < ? ORDER BY created LIMIT ?) oldest)";
+
+    static final int REMOVE_EXPIRED_BATCH_SIZE = 10000;
+
+    @Inject
+    private ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider;
+
+    @Inject
+    private PreparedStatementWrapperFactory preparedStatementWrapperFactory;
+
+    /**
+     * Records the subscriptions matched by each event with a single JDBC batch, in the caller's
+     * transaction.
+     */
+    public void insert(final List<EventCacheMatched> matchedEvents) {
+
+        if (matchedEvents.stream().allMatch(matchedEvent -> matchedEvent.getSubscriptionIds().isEmpty())) {
+            return;
+        }
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement ps = connection.prepareStatement(INSERT_SUBSCRIPTION_EVENT)) {
+            for (final EventCacheMatched matchedEvent : matchedEvents) {
+                final EventCache eventCache = matchedEvent.getEventCache();
+                final Timestamp created = toSqlTimestamp(eventCache.getCreated());
+
+                for (final UUID subscriptionId : matchedEvent.getSubscriptionIds()) {
+                    ps.setObject(1, subscriptionId);
+                    ps.setTimestamp(2, created);
+                    ps.setObject(3, eventCache.getId());
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while inserting subscription events of %d event caches", matchedEvents.size()), e);
+        }
+    }
+
+    /**
+     * Replaces the events recorded for the subscription with the events of the event cache that
+     * match its filter.
+     *
+     * @return the number of events now recorded for the subscription
+     */
+    public int rebuild(final UUID subscriptionId, final FilterClause filterClause) {
+
+        removeBySubscription(subscriptionId);
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String query = format(INSERT_MATCHING_SUBSCRIPTION_EVENTS, filterClause.getSql());
+
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, query)) {
+            int parameterIndex = 1;
+            ps.setObject(parameterIndex++, subscriptionId);
+            for (final Object parameter : filterClause.getParameters()) {
+                ps.setObject(parameterIndex++, parameter);
+            }
+            ps.setObject(parameterIndex, subscriptionId);
+            return ps.executeUpdate();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while rebuilding events of subscription '%s' {%s}", subscriptionId, filterClause), e);
+        }
+    }
+
+    /**
+     * Brings the events recorded for the subscription that were stored since the given time into
+     * line with its filter, recording those that match and removing those that do not. This
+     * corrects the events that were matched at ingest against the filters the subscription had
+     * before its last rebuild, but were stored after the rebuild read the event cache.
+     *
+     * @return the number of events recorded or removed
+     */
+    public int reconcile(final UUID subscriptionId, final FilterClause filterClause, final ZonedDateTime storedSince) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        final String insert = format(INSERT_MATCHING_SUBSCRIPTION_EVENTS_STORED_SINCE, filterClause.getSql());
+        final String delete = format(DELETE_UNMATCHED_SUBSCRIPTION_EVENTS_STORED_SINCE, filterClause.getSql());
+
+        try (final PreparedStatementWrapper insertPs = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, insert);
+             final PreparedStatementWrapper deletePs = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, delete)) {
+            int parameterIndex = 1;
+            insertPs.setObject(parameterIndex++, subscriptionId);
+            for (final Object parameter : filterClause.getParameters()) {
+                insertPs.setObject(parameterIndex++, parameter);
+            }
+            insertPs.setObject(parameterIndex++, subscriptionId);
+            insertPs.setTimestamp(parameterIndex, toSqlTimestamp(storedSince));
+
+            parameterIndex = 1;
+            deletePs.setObject(parameterIndex++, subscriptionId);
+            deletePs.setTimestamp(parameterIndex++, toSqlTimestamp(storedSince));
+            for (final Object parameter : filterClause.getParameters()) {
+                deletePs.setObject(parameterIndex++, parameter);
+            }
+
+            return insertPs.executeUpdate() + deletePs.executeUpdate();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while reconciling events of subscription '%s' {%s}", subscriptionId, filterClause), e);
+        }
+    }
+
+    /**
+     * Records when the events of the subscription were rebuilt, so that they are reconciled once
+     * the events stored around the rebuild are known, even by another node or after a restart.
+     */
+    public void markRebuilt(final UUID subscriptionId, final ZonedDateTime rebuiltAt) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, UPDATE_EVENTS_REBUILT)) {
+            ps.setTimestamp(1, toSqlTimestamp(rebuiltAt));
+            ps.setObject(2, subscriptionId);
+            ps.executeUpdate();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while marking events of subscription '%s' rebuilt", subscriptionId), e);
+        }
+    }
+
+    /**
+     * @return the time each subscription rebuilt before the given time and not yet reconciled
+     * was rebuilt, by subscription id
+     */
+    public Map<UUID, ZonedDateTime> findRebuiltBefore(final ZonedDateTime before) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, SELECT_EVENTS_REBUILT_BEFORE)) {
+            ps.setTimestamp(1, toSqlTimestamp(before));
+            final ResultSet resultSet = ps.executeQuery();
+
+            final Map<UUID, ZonedDateTime> rebuilt = new HashMap<>();
+            while (resultSet.next()) {
+                rebuilt.put((UUID) resultSet.getObject("id"), fromSqlTimestamp(resultSet.getTimestamp("events_rebuilt")));
+            }
+            return rebuilt;
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while finding rebuilt subscriptions", e);
+        }
+    }
+
+    /**
+     * Clears the rebuild of the subscription once reconciled, unless it has been rebuilt again
+     * since the given time.
+     *
+     * @return whether the rebuild was cleared, false if it had been rebuilt again or already
+     * cleared by another node
+     */
+    public boolean clearRebuilt(final UUID subscriptionId, final ZonedDateTime rebuiltAt) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, CLEAR_EVENTS_REBUILT)) {
+            ps.setObject(1, subscriptionId);
+            ps.setTimestamp(2, toSqlTimestamp(rebuiltAt));
+            return ps.executeUpdate() > 0;
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while clearing rebuild of subscription '%s'", subscriptionId), e);
+        }
+    }
+
+    public void removeBySubscription(final UUID subscriptionId) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, DELETE_SUBSCRIPTION_EVENTS)) {
+            ps.setObject(1, subscriptionId);
+            ps.executeUpdate();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while removing events of subscription '%s'", subscriptionId), e);
+        }
+    }
+
+    /**
+     * Removes the rows of events created before the given time, oldest first, in batches of
+     * about {@value #REMOVE_EXPIRED_BATCH_SIZE} rows, so that outside a transaction no delete
+     * holds its locks for long. A batch runs over its size by the other rows of events created at
+     * the same time as its last.
+     *
+     * @return the number of rows removed for events created before the given time
+     */
+    public int removeExpired(final ZonedDateTime before) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement ps = connection.prepareStatement(DELETE_OLDEST_EXPIRED_SUBSCRIPTION_EVENTS)) {
+            ps.setTimestamp(1, toSqlTimestamp(before));
+            ps.setTimestamp(2, toSqlTimestamp(before));
+            ps.setInt(3, REMOVE_EXPIRED_BATCH_SIZE);
+
+            int rowsDeleted = 0;
+            int deleted;
+            do {
+                deleted = ps.executeUpdate();
+                rowsDeleted += deleted;
+            } while (deleted >= REMOVE_EXPIRED_BATCH_SIZE);
+
+            return rowsDeleted;
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException("Exception while removing expired subscription events", e);
+        }
+    }
+}
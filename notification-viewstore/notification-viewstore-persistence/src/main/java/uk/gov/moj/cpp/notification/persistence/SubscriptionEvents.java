@@ -0,0 +1,34 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.util.Collections.unmodifiableList;
+
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.util.List;
+
+/**
+ * A subscription together with the events matching its filter, as read in a single statement.
+ */
+public class SubscriptionEvents {
+
+    private final Subscription subscription;
+    private final List<EventCache> events;
+
+    public SubscriptionEvents(final Subscription subscription, final List<EventCache> events) {
+        this.subscription = subscription;
+        this.events = unmodifiableList(events);
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    public List<EventCache> getEvents() {
+        return events;
+    }
+
+    public boolean isOwnedBy(final String userId) {
+        return subscription.getOwnerId().toString().equals(userId);
+    }
+}
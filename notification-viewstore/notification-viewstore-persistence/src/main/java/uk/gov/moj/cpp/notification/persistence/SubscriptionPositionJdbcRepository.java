@@ -0,0 +1,83 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.String.format;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.fromSqlTimestamp;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+
+import uk.gov.justice.services.jdbc.persistence.JdbcRepositoryException;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapper;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Stores the position, by the time each event was stored and its id, up to which a subscription
+ * polling with sinceLastPoll has acknowledged the events delivered to it, so that a poll can ask
+ * only for the events stored since.
+ */
+public class SubscriptionPositionJdbcRepository {
+
+    private static final String SELECT_POSITION =
+            "SELECT last_stored, last_event_id FROM subscription_position WHERE subscription_id = ?";
+
+    private static final String ADVANCE_POSITION =
+            "INSERT INTO subscription_position AS p (subscription_id, last_stored, last_event_id, modified) " +
+                    "SELECT id, CAST(? AS TIMESTAMP WITH TIME ZONE), ?, CAST(? AS TIMESTAMP WITH TIME ZONE) FROM subscription WHERE id = ? " +
+                    "ON CONFLICT (subscription_id) DO UPDATE " +
+                    "SET last_stored = EXCLUDED.last_stored, last_event_id = EXCLUDED.last_event_id, modified = EXCLUDED.modified " +
+                    "WHERE p.last_stored < EXCLUDED.last_stored " +
+                    "OR (p.last_stored = EXCLUDED.last_stored AND p.last_event_id < EXCLUDED.last_event_id)";
+
+    @Inject
+    private ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider;
+
+    @Inject
+    private PreparedStatementWrapperFactory preparedStatementWrapperFactory;
+
+    public Optional<PageCursor> findPosition(final UUID subscriptionId) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, SELECT_POSITION)) {
+            ps.setObject(1, subscriptionId);
+            final ResultSet resultSet = ps.executeQuery();
+
+            if (resultSet.next()) {
+                return Optional.of(new PageCursor(
+                        fromSqlTimestamp(resultSet.getTimestamp("last_stored")),
+                        (UUID) resultSet.getObject("last_event_id")));
+            }
+
+            return Optional.empty();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while finding position of subscription '%s'", subscriptionId), e);
+        }
+    }
+
+    /**
+     * Moves the position of the subscription forward in a single statement. A position older than
+     * the stored one is ignored, so concurrent acknowledgements can never move the high-water mark
+     * backwards, and the first ones for a subscription cannot both insert it. Nothing is stored
+     * for a subscription that does not exist.
+     */
+    public void advancePosition(final UUID subscriptionId, final PageCursor position, final ZonedDateTime modified) {
+
+        final DataSource dataSource = viewStoreJdbcDataSourceProvider.getDataSource();
+        try (final PreparedStatementWrapper ps = preparedStatementWrapperFactory.preparedStatementWrapperOf(dataSource, ADVANCE_POSITION)) {
+            ps.setTimestamp(1, toSqlTimestamp(position.getPosition()));
+            ps.setObject(2, position.getId());
+            ps.setTimestamp(3, toSqlTimestamp(modified));
+            ps.setObject(4, subscriptionId);
+            ps.executeUpdate();
+        } catch (final SQLException e) {
+            throw new JdbcRepositoryException(format("Exception while advancing position of subscription '%s'", subscriptionId), e);
+        }
+    }
+}
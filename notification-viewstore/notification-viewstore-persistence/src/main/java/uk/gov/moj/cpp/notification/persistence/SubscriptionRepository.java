@@ -9,11 +9,14 @@ import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
 import org.apache.deltaspike.data.api.AbstractEntityRepository;
+import org.apache.deltaspike.data.api.MaxResults;
+import org.apache.deltaspike.data.api.Query;
 import org.apache.deltaspike.data.api.Repository;
 import org.apache.deltaspike.data.api.criteria.CriteriaSupport;
 
@@ -27,10 +30,31 @@ public abstract class SubscriptionRepository extends AbstractEntityRepository<Su
 
     public abstract List<Subscription> findByModifiedLessThan(final ZonedDateTime expiredTime);
 
-    public List<Subscription> findExpiredSubscriptions() {
-        final ZonedDateTime subscriptionExpired =  now(UTC).minusSeconds(parseInt(subscriptionExpiryDurationSeconds));
+    @Query("SELECT s FROM Subscription s WHERE s.modified < ?1 ORDER BY s.modified, s.id")
+    public abstract List<Subscription> findPageByModifiedLessThan(final ZonedDateTime expiredTime, @MaxResults final int limit);
 
-        return findByModifiedLessThan(subscriptionExpired);
+    @Query("SELECT s FROM Subscription s WHERE s.modified < ?1 " +
+            "AND (s.modified > ?2 OR (s.modified = ?2 AND s.id > ?3)) " +
+            "ORDER BY s.modified, s.id")
+    public abstract List<Subscription> findPageByModifiedLessThanAfter(final ZonedDateTime expiredTime,
+                                                                       final ZonedDateTime afterModified,
+                                                                       final UUID afterId,
+                                                                       @MaxResults final int limit);
+
+    /**
+     * Returns a page of the expired subscriptions in (modified, id) order, read through the index
+     * on those columns, starting after the cursor of the last subscription of the previous page.
+     */
+    public List<Subscription> findExpiredSubscriptions(final Optional<PageCursor> after, final int limit) {
+        if (after.isPresent()) {
+            return findPageByModifiedLessThanAfter(expiredTime(), after.get().getPosition(), after.get().getId(), limit);
+        }
+
+        return findPageByModifiedLessThan(expiredTime(), limit);
+    }
+
+    private ZonedDateTime expiredTime() {
+        return now(UTC).minusSeconds(parseInt(subscriptionExpiryDurationSeconds));
     }
 
     public void removeByPrimaryKey(final UUID subscriptionId) {
@@ -37,6 +37,12 @@ public class EventCache {
     @Column(name = "name")
     private String name;
 
+    @Column(name = "metadata_json")
+    private String metadataJson;
+
+    @Column(name = "stored", insertable = false, updatable = false)
+    private ZonedDateTime stored;
+
     public EventCache() {
     }
 
@@ -59,6 +65,20 @@ public class EventCache {
         this.name = name;
     }
 
+    public EventCache(
+            final UUID id,
+            final UUID userId,
+            final UUID sessionId,
+            final String clientCorrelationId,
+            final UUID streamId,
+            final String eventJson,
+            final ZonedDateTime created,
+            final String name,
+            final String metadataJson) {
+        this(id, userId, sessionId, clientCorrelationId, streamId, eventJson, created, name);
+        this.metadataJson = metadataJson;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -91,6 +111,26 @@ public class EventCache {
         return name;
     }
 
+    /**
+     * @return the _metadata object of the event json, or null for events stored before it was
+     * kept in its own column
+     */
+    public String getMetadataJson() {
+        return metadataJson;
+    }
+
+    /**
+     * @return the database time of the transaction that stored the event, or null for an event
+     * not read from the event cache or stored before it was recorded
+     */
+    public ZonedDateTime getStored() {
+        return stored;
+    }
+
+    public void setStored(final ZonedDateTime stored) {
+        this.stored = stored;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
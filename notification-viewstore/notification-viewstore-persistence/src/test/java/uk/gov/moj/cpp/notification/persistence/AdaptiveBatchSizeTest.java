@@ -0,0 +1,47 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class AdaptiveBatchSizeTest {
+
+    private static final long TARGET_BATCH_MILLIS = 200L;
+
+    @Test
+    public void shouldDoubleTheBatchSizeAfterAFastBatchUpToTheMaximum() throws Exception {
+        final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 300, TARGET_BATCH_MILLIS);
+
+        batchSize.adjust(20L);
+        assertThat(batchSize.current(), is(200));
+
+        batchSize.adjust(20L);
+        assertThat(batchSize.current(), is(300));
+    }
+
+    @Test
+    public void shouldHalveTheBatchSizeAfterASlowBatchDownToOne() throws Exception {
+        final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(3, 300, TARGET_BATCH_MILLIS);
+
+        batchSize.adjust(500L);
+        assertThat(batchSize.current(), is(1));
+
+        batchSize.adjust(500L);
+        assertThat(batchSize.current(), is(1));
+    }
+
+    @Test
+    public void shouldKeepTheBatchSizeWhenCloseToTheTarget() throws Exception {
+        final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 300, TARGET_BATCH_MILLIS);
+
+        batchSize.adjust(150L);
+
+        assertThat(batchSize.current(), is(100));
+    }
+
+    @Test
+    public void shouldNotStartAboveTheMaximum() throws Exception {
+        assertThat(new AdaptiveBatchSize(1000, 300, TARGET_BATCH_MILLIS).current(), is(300));
+    }
+}
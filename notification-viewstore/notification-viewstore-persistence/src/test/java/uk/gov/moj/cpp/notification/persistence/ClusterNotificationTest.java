@@ -0,0 +1,85 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static uk.gov.moj.cpp.notification.persistence.ClusterNotification.MAX_PAYLOAD_BYTES;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class ClusterNotificationTest {
+
+    @Test
+    public void shouldCollectTheStreamsNamesAndSubscriptionsOfTheEventsStored() throws Exception {
+        final UUID streamId = randomUUID();
+        final UUID firstSubscriptionId = randomUUID();
+        final UUID secondSubscriptionId = randomUUID();
+
+        final ClusterNotification clusterNotification = ClusterNotification.eventsStored("node", asList(
+                new EventCacheMatched(eventCache(streamId, "public.first"), singleton(firstSubscriptionId)),
+                new EventCacheMatched(eventCache(streamId, "public.second"), singleton(secondSubscriptionId))));
+
+        assertThat(clusterNotification.getNodeId(), is("node"));
+        assertThat(clusterNotification.getStreamIds(), is(singleton(streamId)));
+        assertThat(clusterNotification.getEventNames(), is(new HashSet<>(asList("public.first", "public.second"))));
+        assertThat(clusterNotification.getMatchedSubscriptionIds(), is(new HashSet<>(asList(firstSubscriptionId, secondSubscriptionId))));
+        assertThat(clusterNotification.getChangedSubscriptionIds().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReadTheNotificationBackFromItsPayload() throws Exception {
+        final ClusterNotification clusterNotification = new ClusterNotification("node",
+                singleton(randomUUID()), singleton("public.event"), singleton(randomUUID()), singleton(randomUUID()));
+
+        final List<String> payloads = clusterNotification.toPayloads(MAX_PAYLOAD_BYTES);
+
+        assertThat(payloads.size(), is(1));
+        assertThat(ClusterNotification.fromPayload(payloads.get(0)), is(clusterNotification));
+    }
+
+    @Test
+    public void shouldSplitPayloadsThatDoNotFitIntoOneNotification() throws Exception {
+        final Set<UUID> subscriptionIds = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            subscriptionIds.add(randomUUID());
+        }
+        final ClusterNotification clusterNotification = new ClusterNotification("node", emptySet(), emptySet(), subscriptionIds, emptySet());
+
+        final List<String> payloads = clusterNotification.toPayloads(MAX_PAYLOAD_BYTES);
+
+        assertThat(payloads.size(), is(greaterThan(1)));
+
+        final Set<UUID> received = new HashSet<>();
+        for (final String payload : payloads) {
+            assertThat(payload.getBytes(UTF_8).length, is(lessThanOrEqualTo(MAX_PAYLOAD_BYTES)));
+
+            final ClusterNotification part = ClusterNotification.fromPayload(payload);
+            assertThat(part.getNodeId(), is("node"));
+            received.addAll(part.getMatchedSubscriptionIds());
+        }
+        assertThat(received, is(subscriptionIds));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPayloadsNotSentByANode() throws Exception {
+        ClusterNotification.fromPayload("something else");
+    }
+
+    private EventCache eventCache(final UUID streamId, final String name) {
+        return new EventCache(randomUUID(), randomUUID(), randomUUID(), "correlationId", streamId, "{}", new UtcClock().now(), name);
+    }
+}
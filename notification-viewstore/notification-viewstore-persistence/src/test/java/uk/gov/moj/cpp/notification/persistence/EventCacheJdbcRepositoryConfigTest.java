@@ -24,4 +24,22 @@ public class EventCacheJdbcRepositoryConfigTest {
 
         assertThat(eventCacheJdbcRepositoryConfig.getBatchSize(), is(23));
     }
+
+    @Test
+    public void shouldGetTheAdaptiveBatchSizeLimits() throws Exception {
+
+        setField(eventCacheJdbcRepositoryConfig, "maxBatchSize", "5000");
+        setField(eventCacheJdbcRepositoryConfig, "targetBatchMillis", "250");
+
+        assertThat(eventCacheJdbcRepositoryConfig.getMaxBatchSize(), is(5000));
+        assertThat(eventCacheJdbcRepositoryConfig.getTargetBatchMillis(), is(250L));
+    }
+
+    @Test
+    public void shouldGetTheEventJsonFormat() throws Exception {
+
+        setField(eventCacheJdbcRepositoryConfig, "eventJsonFormat", "DEFLATE");
+
+        assertThat(eventCacheJdbcRepositoryConfig.getEventJsonFormat(), is(EventJsonFormat.DEFLATE));
+    }
 }
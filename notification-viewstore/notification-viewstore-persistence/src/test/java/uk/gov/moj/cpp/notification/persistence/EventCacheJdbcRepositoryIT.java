@@ -1,7 +1,11 @@
 package uk.gov.moj.cpp.notification.persistence;
 
 import static java.time.temporal.ChronoUnit.HOURS;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.exparity.hamcrest.date.ZonedDateTimeMatchers.within;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -9,9 +13,11 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 import static org.hamcrest.core.Every.everyItem;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.slf4j.LoggerFactory.getLogger;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
 import static uk.gov.justice.services.test.utils.core.random.RandomGenerator.STRING;
 
 import uk.gov.justice.services.common.util.UtcClock;
@@ -20,8 +26,12 @@ import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
 import uk.gov.justice.services.test.utils.core.random.RandomGenerator;
 import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -42,17 +52,20 @@ public class EventCacheJdbcRepositoryIT {
     private static final int ONE = 1;
     private static final long ONE_HOUR_IN_SECONDS = 3600L;
 
+    private static final String INSERT_SUBSCRIPTION = "INSERT INTO subscription (id, filter, owner_id, created, modified) VALUES (?, ?, ?, ?, ?)";
+
     private static final String LIQUIBASE_VIEW_STORE_CHANGELOG_XML = "liquibase/notification-view-store-db-changelog.xml";
 
     private final DataSource viewStoreDataSource = anInMemoryDataSource();
     private final EventCacheJdbcDataInserter eventCacheJdbcDataInserter = new EventCacheJdbcDataInserter(viewStoreDataSource);
 
+    private final EventCacheJdbcRepositoryConfig eventCacheJdbcRepositoryConfig = mock(EventCacheJdbcRepositoryConfig.class);
+
     private EventCacheJdbcRepository jdbcRepository;
 
     @Before
     public void initializeDependencies() throws Exception {
 
-        final EventCacheJdbcRepositoryConfig eventCacheJdbcRepositoryConfig = mock(EventCacheJdbcRepositoryConfig.class);
         final ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider = mock(ViewStoreJdbcDataSourceProvider.class);
 
 
@@ -64,6 +77,8 @@ public class EventCacheJdbcRepositoryIT {
         );
 
         when(eventCacheJdbcRepositoryConfig.getBatchSize()).thenReturn(10);
+        when(eventCacheJdbcRepositoryConfig.getMaxBatchSize()).thenReturn(100);
+        when(eventCacheJdbcRepositoryConfig.getTargetBatchMillis()).thenReturn(1000L);
         when(viewStoreJdbcDataSourceProvider.getDataSource()).thenReturn(viewStoreDataSource);
     }
 
@@ -84,13 +99,80 @@ public class EventCacheJdbcRepositoryIT {
         eventCacheJdbcDataInserter.insertEventCaches(generateEventCaches(expiredEventCachesCount, true));
         eventCacheJdbcDataInserter.insertEventCaches(generateEventCaches(unexpiredEventCachesCount, false));
 
-        jdbcRepository.removeExpiredEventCaches(beforeDateTime);
+        final ExpiredEventCacheRemoval removal = jdbcRepository.removeExpiredEventCaches(beforeDateTime);
 
         final List<EventCache> eventCaches = eventCacheJdbcDataInserter.findAllEventCaches();
         assertThat(eventCaches, hasSize(unexpiredEventCachesCount));
+        assertThat(removal.getRowsDeleted(), is((long) expiredEventCachesCount));
         assertThat(eventCaches, everyItem(hasProperty("created", is(within(1L, HOURS, currentDateTime)))));
     }
 
+    @Test
+    public void shouldInsertEventCachesInABatch() throws Exception {
+        final List<EventCache> eventCaches = generateEventCaches(25, false);
+
+        jdbcRepository.insertBatch(eventCaches);
+
+        final List<EventCache> storedEventCaches = eventCacheJdbcDataInserter.findAllEventCaches();
+        assertThat(storedEventCaches, hasSize(25));
+        assertThat(storedEventCaches.stream().map(EventCache::getId).collect(toSet()),
+                is(eventCaches.stream().map(EventCache::getId).collect(toSet())));
+    }
+
+    @Test
+    public void shouldStoreEventJsonDeflatedAndReadBackEventsStoredInEitherFormat() throws Exception {
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache storedAsText = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(),
+                "{\"_metadata\":{\"name\":\"public.event\"},\"text\":true}", now.minusSeconds(1), "public.event");
+        final EventCache storedDeflated = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(),
+                "{\"_metadata\":{\"name\":\"public.event\"},\"text\":false}", now, "public.event");
+
+        when(eventCacheJdbcRepositoryConfig.getEventJsonFormat()).thenReturn(EventJsonFormat.TEXT);
+        jdbcRepository.insertBatch(singletonList(storedAsText));
+        when(eventCacheJdbcRepositoryConfig.getEventJsonFormat()).thenReturn(EventJsonFormat.DEFLATE);
+        jdbcRepository.insertBatch(singletonList(storedDeflated));
+
+        try (final Connection connection = viewStoreDataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement("SELECT event_json, event_json_compressed FROM event_cache WHERE id = ?")) {
+            preparedStatement.setObject(1, storedDeflated.getId());
+            try (final ResultSet resultSet = preparedStatement.executeQuery()) {
+                resultSet.next();
+                assertThat(resultSet.getString("event_json"), is(nullValue()));
+                assertThat(EventJsonCodec.inflate(resultSet.getBytes("event_json_compressed")), is(storedDeflated.getEventJson()));
+            }
+        }
+
+        final List<EventCache> events = jdbcRepository.queryByFilter(new FilterClause("user_id = ?", singletonList(userId)), Optional.empty());
+
+        assertThat(events.stream().map(EventCache::getEventJson).collect(toList()), is(asList(storedDeflated.getEventJson(), storedAsText.getEventJson())));
+    }
+
+    @Test
+    public void shouldReadOnlyTheMetadataOfEventsStoredWithItWhenProjectingMetadata() throws Exception {
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache storedWithMetadata = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(),
+                "{\"_metadata\":{\"name\":\"public.event\"},\"payload\":1}", now, "public.event", "{\"name\":\"public.event\"}");
+        final EventCache storedWithoutMetadata = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(),
+                "{\"_metadata\":{\"name\":\"public.event\"},\"payload\":2}", now.minusSeconds(1), "public.event");
+
+        jdbcRepository.insertBatch(asList(storedWithMetadata, storedWithoutMetadata));
+
+        final FilterClause filterClause = new FilterClause("user_id = ?", singletonList(userId));
+        final List<EventCache> metadataOnly = jdbcRepository.queryByFilter(filterClause, Optional.empty(), Optional.empty(), 10, EventProjection.METADATA);
+        final List<EventCache> events = jdbcRepository.queryByFilter(filterClause, Optional.empty(), Optional.empty(), 10, EventProjection.EVENT);
+
+        assertThat(metadataOnly.size(), is(2));
+        assertThat(metadataOnly.get(0).getMetadataJson(), is(storedWithMetadata.getMetadataJson()));
+        assertThat(metadataOnly.get(0).getEventJson(), is(nullValue()));
+        assertThat(metadataOnly.get(1).getMetadataJson(), is(nullValue()));
+        assertThat(metadataOnly.get(1).getEventJson(), is(storedWithoutMetadata.getEventJson()));
+
+        assertThat(events.get(0).getEventJson(), is(storedWithMetadata.getEventJson()));
+        assertThat(events.get(0).getMetadataJson(), is(storedWithMetadata.getMetadataJson()));
+    }
+
     @Test
     public void shouldGetEventsByUserIdFilter() throws Exception {
         final UUID streamId = randomUUID();
@@ -112,12 +194,12 @@ public class EventCacheJdbcRepositoryIT {
 
         eventCacheJdbcDataInserter.insertEventCaches(eventCache);
 
-        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter("USER_ID = '" + userId + "'", Optional.empty());
+        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter(new FilterClause("user_id = ?", singletonList(userId)), Optional.empty());
 
         assertThat(allMatchingEvents, is(notNullValue()));
         assertThat(allMatchingEvents.size(), is(2));
 
-        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter("USER_ID = '" + userId + "'", Optional.of(knownClientCorrelationId.toString()));
+        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter(new FilterClause("user_id = ?", singletonList(userId)), Optional.of(knownClientCorrelationId.toString()));
 
         assertThat(matchingEventsForCorrelationId, is(notNullValue()));
         assertThat(matchingEventsForCorrelationId.size(), is(1));
@@ -145,12 +227,12 @@ public class EventCacheJdbcRepositoryIT {
 
         eventCacheJdbcDataInserter.insertEventCaches(eventCache);
 
-        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter("STREAM_ID = '" + streamId + "'", Optional.empty());
+        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter(new FilterClause("stream_id = ?", singletonList(streamId)), Optional.empty());
 
         assertThat(allMatchingEvents, is(notNullValue()));
         assertThat(allMatchingEvents.size(), is(2));
 
-        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter("STREAM_ID = '" + streamId + "'", Optional.of(knownClientCorrelationId.toString()));
+        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter(new FilterClause("stream_id = ?", singletonList(streamId)), Optional.of(knownClientCorrelationId.toString()));
 
         assertThat(matchingEventsForCorrelationId, is(notNullValue()));
         assertThat(matchingEventsForCorrelationId.size(), is(1));
@@ -178,12 +260,12 @@ public class EventCacheJdbcRepositoryIT {
 
         eventCacheJdbcDataInserter.insertEventCaches(eventCache);
 
-        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter("NAME = '" + eventName + "'", Optional.empty());
+        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter(new FilterClause("name = ?", singletonList(eventName)), Optional.empty());
 
         assertThat(allMatchingEvents, is(notNullValue()));
         assertThat(allMatchingEvents.size(), is(2));
 
-        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter("NAME = '" + eventName + "'", Optional.of(knownClientCorrelationId.toString()));
+        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter(new FilterClause("name = ?", singletonList(eventName)), Optional.of(knownClientCorrelationId.toString()));
 
         assertThat(matchingEventsForCorrelationId, is(notNullValue()));
         assertThat(matchingEventsForCorrelationId.size(), is(1));
@@ -191,6 +273,203 @@ public class EventCacheJdbcRepositoryIT {
     }
 
 
+    @Test
+    public void shouldGetEventsByParameterisedFilterClause() throws Exception {
+        final UUID streamId = randomUUID();
+        final UUID userId = randomUUID();
+        final String eventName = "public.events.test-notification";
+
+        final UUID knownClientCorrelationId = randomUUID();
+        final EventCache eventForUser = new EventCache(randomUUID(), userId, randomUUID(),
+                knownClientCorrelationId.toString(), randomUUID(),
+                "", new UtcClock().now(), eventName);
+        final EventCache eventForStream = new EventCache(randomUUID(), randomUUID(), randomUUID(),
+                STRING.next(), streamId,
+                "", new UtcClock().now(), eventName);
+        final EventCache eventForNeither = new EventCache(randomUUID(), randomUUID(), randomUUID(),
+                STRING.next(), randomUUID(),
+                "", new UtcClock().now(), eventName);
+
+        eventCacheJdbcDataInserter.insertEventCaches(asList(eventForUser, eventForStream, eventForNeither));
+
+        final FilterClause filterClause = new FilterClause("(user_id = ? OR stream_id = ?)", asList(userId, streamId));
+
+        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter(filterClause, Optional.empty());
+
+        assertThat(allMatchingEvents.stream().map(EventCache::getId).collect(toSet()), is(new HashSet<>(asList(eventForUser.getId(), eventForStream.getId()))));
+
+        final List<EventCache> matchingEventsForCorrelationId = jdbcRepository.queryByFilter(filterClause, Optional.of(knownClientCorrelationId.toString()));
+
+        assertThat(matchingEventsForCorrelationId.size(), is(1));
+        assertThat(matchingEventsForCorrelationId.get(0).getId(), is(eventForUser.getId()));
+    }
+
+    @Test
+    public void shouldPageThroughEventsNewestFirstUsingCursor() throws Exception {
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final String eventName = "public.events.test-notification";
+
+        final List<EventCache> eventCaches = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            eventCaches.add(new EventCache(randomUUID(), userId, randomUUID(),
+                    STRING.next(), randomUUID(),
+                    "", now.minusSeconds(i), eventName));
+        }
+        final ZonedDateTime sharedCreated = now.minusSeconds(10);
+        eventCaches.add(new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", sharedCreated, eventName));
+        eventCaches.add(new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", sharedCreated, eventName));
+
+        eventCacheJdbcDataInserter.insertEventCaches(eventCaches);
+
+        final FilterClause filterClause = new FilterClause("user_id = ?", singletonList(userId));
+        final List<EventCache> allMatchingEvents = jdbcRepository.queryByFilter(filterClause, Optional.empty());
+
+        final List<UUID> pagedIds = new ArrayList<>();
+        Optional<PageCursor> after = Optional.empty();
+        List<EventCache> page;
+        do {
+            page = jdbcRepository.queryByFilter(filterClause, Optional.empty(), after, 3);
+            assertThat(page.size() <= 3, is(true));
+            page.forEach(eventCache -> pagedIds.add(eventCache.getId()));
+            if (!page.isEmpty()) {
+                final EventCache last = page.get(page.size() - 1);
+                after = Optional.of(new PageCursor(last.getCreated(), last.getId()));
+            }
+        } while (page.size() == 3);
+
+        assertThat(pagedIds, hasSize(7));
+        assertThat(new HashSet<>(pagedIds), hasSize(7));
+        assertThat(pagedIds.subList(0, 5), is(eventCaches.subList(0, 5).stream().map(EventCache::getId).collect(toList())));
+        assertThat(new HashSet<>(pagedIds), is(allMatchingEvents.stream().map(EventCache::getId).collect(toSet())));
+    }
+
+    @Test
+    public void shouldGetSubscriptionAndMatchingEventsInOneQuery() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final String eventName = "public.events.test-notification";
+
+        final EventCache newer = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", now, eventName);
+        final EventCache older = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", now.minusSeconds(1), eventName);
+        final EventCache otherUser = new EventCache(randomUUID(), randomUUID(), randomUUID(), STRING.next(), randomUUID(), "", now, eventName);
+
+        eventCacheJdbcDataInserter.insertEventCaches(asList(older, otherUser, newer));
+        insertSubscription(subscriptionId, ownerId, "{\"type\":\"FIELD\"}", now.minusHours(1));
+
+        final Optional<SubscriptionEvents> subscriptionEvents = jdbcRepository.queryBySubscription(
+                subscriptionId,
+                ownerId,
+                new FilterClause("user_id = ?", singletonList(userId)),
+                Optional.empty(),
+                Optional.empty(),
+                10);
+
+        assertThat(subscriptionEvents.isPresent(), is(true));
+        assertThat(subscriptionEvents.get().isOwnedBy(ownerId.toString()), is(true));
+        assertThat(subscriptionEvents.get().getSubscription().getFilter(), is("{\"type\":\"FIELD\"}"));
+        assertThat(subscriptionEvents.get().getSubscription().getModified().toInstant(), is(now.minusHours(1).toInstant()));
+        assertThat(subscriptionEvents.get().getEvents().stream().map(EventCache::getId).collect(toList()), is(asList(newer.getId(), older.getId())));
+    }
+
+    @Test
+    public void shouldGetAPageOfTheSubscriptionEventsAfterTheCursor() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final String eventName = "public.events.test-notification";
+
+        final EventCache newest = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", now, eventName);
+        final EventCache newer = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", now.minusSeconds(1), eventName);
+        final EventCache older = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", now.minusSeconds(2), eventName);
+        final EventCache oldest = new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", now.minusSeconds(3), eventName);
+
+        eventCacheJdbcDataInserter.insertEventCaches(asList(oldest, older, newer, newest));
+        final UUID ownerId = randomUUID();
+        insertSubscription(subscriptionId, ownerId, "{}", now);
+
+        final Optional<SubscriptionEvents> subscriptionEvents = jdbcRepository.queryBySubscription(
+                subscriptionId,
+                ownerId,
+                new FilterClause("user_id = ?", singletonList(userId)),
+                Optional.empty(),
+                Optional.of(new PageCursor(newest.getCreated(), newest.getId())),
+                2);
+
+        assertThat(subscriptionEvents.isPresent(), is(true));
+        assertThat(subscriptionEvents.get().getEvents().stream().map(EventCache::getId).collect(toList()), is(asList(newer.getId(), older.getId())));
+    }
+
+    @Test
+    public void shouldGetSubscriptionWithNoEventsWhenNothingMatchesTheFilter() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID ownerId = randomUUID();
+
+        insertSubscription(subscriptionId, ownerId, "{}", new UtcClock().now());
+
+        final Optional<SubscriptionEvents> subscriptionEvents = jdbcRepository.queryBySubscription(
+                subscriptionId,
+                ownerId,
+                new FilterClause("user_id = ?", singletonList(randomUUID())),
+                Optional.of(STRING.next()),
+                Optional.empty(),
+                10);
+
+        assertThat(subscriptionEvents.isPresent(), is(true));
+        assertThat(subscriptionEvents.get().getSubscription().getOwnerId(), is(ownerId));
+        assertThat(subscriptionEvents.get().getEvents(), hasSize(0));
+    }
+
+    @Test
+    public void shouldGetNothingForUnknownSubscription() throws Exception {
+        final UUID userId = randomUUID();
+        eventCacheJdbcDataInserter.insertEventCaches(singletonList(
+                new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", new UtcClock().now(), STRING.next())));
+
+        final Optional<SubscriptionEvents> subscriptionEvents = jdbcRepository.queryBySubscription(
+                randomUUID(),
+                randomUUID(),
+                new FilterClause("user_id = ?", singletonList(userId)),
+                Optional.empty(),
+                Optional.empty(),
+                10);
+
+        assertThat(subscriptionEvents.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldGetNothingForASubscriptionOwnedBySomeoneElse() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        eventCacheJdbcDataInserter.insertEventCaches(singletonList(
+                new EventCache(randomUUID(), userId, randomUUID(), STRING.next(), randomUUID(), "", new UtcClock().now(), STRING.next())));
+        insertSubscription(subscriptionId, randomUUID(), "{}", new UtcClock().now());
+
+        final Optional<SubscriptionEvents> subscriptionEvents = jdbcRepository.queryBySubscription(
+                subscriptionId,
+                randomUUID(),
+                new FilterClause("user_id = ?", singletonList(userId)),
+                Optional.empty(),
+                Optional.empty(),
+                10);
+
+        assertThat(subscriptionEvents.isPresent(), is(false));
+    }
+
+    private void insertSubscription(final UUID subscriptionId, final UUID ownerId, final String filter, final ZonedDateTime modified) throws Exception {
+        try (final Connection connection = viewStoreDataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SUBSCRIPTION)) {
+            preparedStatement.setObject(1, subscriptionId);
+            preparedStatement.setString(2, filter);
+            preparedStatement.setObject(3, ownerId);
+            preparedStatement.setTimestamp(4, toSqlTimestamp(modified));
+            preparedStatement.setTimestamp(5, toSqlTimestamp(modified));
+            preparedStatement.executeUpdate();
+        }
+    }
+
     private List<EventCache> generateEventCaches(final int count, final boolean expiredEvent) {
 
         final ZonedDateTime zonedDateTime;
@@ -0,0 +1,39 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.time.ZoneOffset.UTC;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class EventCachePartitionTest {
+
+    @Test
+    public void shouldHoldTheEventsCreatedInTheHourInUtc() throws Exception {
+        final ZonedDateTime created = ZonedDateTime.of(2026, 10, 18, 13, 45, 10, 0, ZoneId.of("Europe/London"));
+
+        final EventCachePartition partition = EventCachePartition.partitionOf(created);
+
+        assertThat(partition.getName(), is("event_cache_p2026101812"));
+        assertThat(partition.getStart(), is(ZonedDateTime.of(2026, 10, 18, 12, 0, 0, 0, UTC)));
+        assertThat(partition.getEnd(), is(ZonedDateTime.of(2026, 10, 18, 13, 0, 0, 0, UTC)));
+    }
+
+    @Test
+    public void shouldFindThePartitionFromItsName() throws Exception {
+        final EventCachePartition partition = EventCachePartition.partitionOf(ZonedDateTime.of(2026, 12, 31, 23, 5, 0, 0, UTC));
+
+        assertThat(EventCachePartition.partitionNamed(partition.getName()), is(Optional.of(partition)));
+        assertThat(partition.next().getName(), is("event_cache_p2027010100"));
+    }
+
+    @Test
+    public void shouldNotFindAPartitionForOtherTables() throws Exception {
+        assertThat(EventCachePartition.partitionNamed("event_cache_default"), is(Optional.empty()));
+        assertThat(EventCachePartition.partitionNamed("event_cache_pnot-an-hour"), is(Optional.empty()));
+    }
+}
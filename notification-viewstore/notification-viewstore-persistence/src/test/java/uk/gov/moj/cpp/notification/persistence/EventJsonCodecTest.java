@@ -0,0 +1,42 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.util.Arrays.copyOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class EventJsonCodecTest {
+
+    private static final String EVENT_JSON = "{\"_metadata\":{\"id\":\"8d6a3f1e-2c1b-4c9e-9f0e-7a3b2c1d0e9f\"," +
+            "\"name\":\"public.listing.hearing-changes-saved\"},\"courtCentreName\":\"Lavender Hill Magistrates' Court\"," +
+            "\"defendants\":[{\"name\":\"Gwën\"},{\"name\":\"Gwën\"},{\"name\":\"Gwën\"}]}";
+
+    @Test
+    public void shouldInflateWhatWasDeflated() {
+        assertThat(EventJsonCodec.inflate(EventJsonCodec.deflate(EVENT_JSON)), is(EVENT_JSON));
+    }
+
+    @Test
+    public void shouldDeflateRepetitiveJsonToFewerBytes() {
+        assertThat(EventJsonCodec.deflate(EVENT_JSON).length, is(lessThan(EVENT_JSON.length())));
+    }
+
+    @Test
+    public void shouldInflateEmptyJson() {
+        assertThat(EventJsonCodec.inflate(EventJsonCodec.deflate("")), is(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTruncatedData() {
+        final byte[] deflated = EventJsonCodec.deflate(EVENT_JSON);
+
+        EventJsonCodec.inflate(copyOf(deflated, deflated.length / 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDataThatIsNotDeflated() {
+        EventJsonCodec.inflate(new byte[]{(byte) 0xff, 1, 2, 3});
+    }
+}
@@ -0,0 +1,170 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.moj.cpp.notification.persistence.EventLatencyMetrics.OTHER_NAMES;
+
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventLatencyMetricsTest {
+
+    private final ZonedDateTime now = new UtcClock().now();
+
+    private final Clock clock = mock(Clock.class);
+
+    private final EventLatencyMetrics eventLatencyMetrics = new EventLatencyMetrics();
+
+    @Before
+    public void setUp() {
+        eventLatencyMetrics.maxNames = "2";
+        eventLatencyMetrics.maxDeliveredEvents = "3";
+        eventLatencyMetrics.clock = clock;
+    }
+
+    @After
+    public void unregister() {
+        eventLatencyMetrics.unregister();
+    }
+
+    @Test
+    public void shouldRecordTheTimeFromCreationToStoringByEventName() throws Exception {
+        eventLatencyMetrics.recordStored(eventCache("public.hearing.updated"), now.minusNanos(40_000_000), now);
+        eventLatencyMetrics.recordStored(eventCache("public.hearing.updated"), now.minusSeconds(2), now);
+
+        final HistogramSnapshot publishedToStored = eventLatencyMetrics.getPublishedToStoredMillisByName().get("public.hearing.updated");
+
+        assertThat(publishedToStored.getCount(), is(2L));
+        assertThat(publishedToStored.getSum(), is(2040L));
+    }
+
+    @Test
+    public void shouldRecordAnEventAsStoredWhenItsMatchedEventIsObservedAfterItsTransaction() throws Exception {
+        when(clock.now()).thenReturn(now);
+
+        eventLatencyMetrics.onEventCacheMatched(new EventCacheMatched(eventCache("public.hearing.updated"), emptySet(), Optional.of(now.minusSeconds(1))));
+
+        final HistogramSnapshot publishedToStored = eventLatencyMetrics.getPublishedToStoredMillisByName().get("public.hearing.updated");
+
+        assertThat(publishedToStored.getCount(), is(1L));
+        assertThat(publishedToStored.getSum(), is(1000L));
+    }
+
+    @Test
+    public void shouldNotRecordEventsCreatedAtAnUnknownTime() throws Exception {
+        eventLatencyMetrics.onEventCacheMatched(new EventCacheMatched(eventCache("public.hearing.updated"), emptySet()));
+
+        assertThat(eventLatencyMetrics.getPublishedToStoredMillisByName().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRecordTheTimeFromStoringToDeliveryOfEachEventByEventName() throws Exception {
+        eventLatencyMetrics.recordDelivered(asList(
+                eventCacheStoredAt("public.hearing.updated", now.minusSeconds(1)),
+                eventCacheStoredAt("public.case.created", now.minusSeconds(3)),
+                eventCacheStoredAt("public.hearing.updated", now.minusSeconds(5))), now);
+
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().get("public.hearing.updated").getSum(), is(6000L));
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().get("public.case.created").getSum(), is(3000L));
+    }
+
+    @Test
+    public void shouldOnlyRecordTheFirstDeliveryOfAnEvent() throws Exception {
+        final EventCache event = eventCacheStoredAt("public.hearing.updated", now.minusSeconds(1));
+
+        eventLatencyMetrics.recordDelivered(singletonList(event), now);
+        eventLatencyMetrics.recordDelivered(singletonList(event), now.plusSeconds(10));
+
+        final HistogramSnapshot storedToDelivered = eventLatencyMetrics.getStoredToDeliveredMillisByName().get("public.hearing.updated");
+
+        assertThat(storedToDelivered.getCount(), is(1L));
+        assertThat(storedToDelivered.getSum(), is(1000L));
+    }
+
+    @Test
+    public void shouldForgetTheFirstEventsDeliveredBeyondTheMaximum() throws Exception {
+        final EventCache first = eventCacheStoredAt("public.hearing.updated", now);
+
+        eventLatencyMetrics.recordDelivered(asList(
+                first,
+                eventCacheStoredAt("public.hearing.updated", now),
+                eventCacheStoredAt("public.hearing.updated", now),
+                eventCacheStoredAt("public.hearing.updated", now)), now);
+        eventLatencyMetrics.recordDelivered(singletonList(first), now);
+
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().get("public.hearing.updated").getCount(), is(5L));
+    }
+
+    @Test
+    public void shouldNotRecordTheDeliveryOfEventsStoredAtAnUnknownTime() throws Exception {
+        eventLatencyMetrics.recordDelivered(singletonList(eventCache("public.hearing.updated")), now);
+
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRecordNegativeLatenciesBetweenTheClocksOfDifferentServicesAsZero() throws Exception {
+        eventLatencyMetrics.recordStored(eventCache("public.hearing.updated"), now.plusSeconds(1), now);
+
+        final HistogramSnapshot publishedToStored = eventLatencyMetrics.getPublishedToStoredMillisByName().get("public.hearing.updated");
+
+        assertThat(publishedToStored.getCount(), is(1L));
+        assertThat(publishedToStored.getSum(), is(0L));
+    }
+
+    @Test
+    public void shouldRecordEventNamesBeyondTheMaximumTogether() throws Exception {
+        eventLatencyMetrics.maxDeliveredEvents = "10";
+
+        eventLatencyMetrics.recordDelivered(asList(
+                eventCacheStoredAt("public.hearing.updated", now),
+                eventCacheStoredAt("public.case.created", now),
+                eventCacheStoredAt("public.defendant.added", now),
+                eventCacheStoredAt("public.offence.added", now),
+                eventCacheStoredAt("public.hearing.updated", now)), now);
+
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().keySet(), is(new TreeSet<>(asList("public.case.created", "public.hearing.updated", OTHER_NAMES))));
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().get("public.hearing.updated").getCount(), is(2L));
+        assertThat(eventLatencyMetrics.getStoredToDeliveredMillisByName().get(OTHER_NAMES).getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldPublishTheHistogramsOverJmx() throws Exception {
+        eventLatencyMetrics.register();
+        eventLatencyMetrics.recordDelivered(singletonList(eventCacheStoredAt("public.hearing.updated", now.minusSeconds(1))), now);
+
+        final ObjectName objectName = new ObjectName(EventLatencyMetrics.OBJECT_NAME);
+
+        assertThat(getPlatformMBeanServer().isRegistered(objectName), is(true));
+        assertThat(getPlatformMBeanServer().getAttribute(objectName, "StoredToDeliveredMillisByName"), is(notNullValue()));
+    }
+
+    private EventCache eventCache(final String name) {
+        return new EventCache(randomUUID(), randomUUID(), randomUUID(), null, randomUUID(), "{}", now, name);
+    }
+
+    private EventCache eventCacheStoredAt(final String name, final ZonedDateTime stored) {
+        final EventCache eventCache = eventCache(name);
+        eventCache.setStored(stored);
+        return eventCache;
+    }
+}
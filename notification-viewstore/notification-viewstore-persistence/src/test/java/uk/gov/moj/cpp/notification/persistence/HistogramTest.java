@@ -0,0 +1,63 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void shouldCountEachValueInTheFirstBucketItFitsOrAboveTheLargestBound() throws Exception {
+        final Histogram histogram = new Histogram(10L, 100L);
+
+        histogram.record(0L);
+        histogram.record(10L);
+        histogram.record(11L);
+        histogram.record(1000L);
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getUpperBounds(), is(new long[]{10L, 100L}));
+        assertThat(snapshot.getBucketCounts(), is(new long[]{2L, 1L, 1L}));
+        assertThat(snapshot.getCount(), is(4L));
+        assertThat(snapshot.getSum(), is(1021L));
+        assertThat(snapshot.getMean(), is(255L));
+    }
+
+    @Test
+    public void shouldGivePercentilesAsTheUpperBoundOfTheirBucket() throws Exception {
+        final Histogram histogram = new Histogram(10L, 100L);
+
+        for (int i = 0; i < 97; i++) {
+            histogram.record(5L);
+        }
+        histogram.record(50L);
+        histogram.record(50L);
+        histogram.record(500L);
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getP50(), is(10L));
+        assertThat(snapshot.getP95(), is(10L));
+        assertThat(snapshot.getP99(), is(100L));
+    }
+
+    @Test
+    public void shouldGivePercentilesAboveTheLargestBoundAsMinusOne() throws Exception {
+        final Histogram histogram = new Histogram(10L);
+
+        histogram.record(11L);
+
+        assertThat(histogram.snapshot().getP50(), is(-1L));
+    }
+
+    @Test
+    public void shouldGiveZeroesWhenNothingHasBeenRecorded() throws Exception {
+        final HistogramSnapshot snapshot = Histogram.latency().snapshot();
+
+        assertThat(snapshot.getCount(), is(0L));
+        assertThat(snapshot.getMean(), is(0L));
+        assertThat(snapshot.getP99(), is(0L));
+    }
+}
@@ -0,0 +1,72 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+public class MBeanRegistrationTest {
+
+    private static final String OBJECT_NAME = "uk.gov.moj.cpp.notification:type=MBeanRegistrationTest";
+
+    private final Logger logger = mock(Logger.class);
+
+    @After
+    public void unregister() {
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+    }
+
+    @Test
+    public void shouldReplaceAnMBeanLeftRegisteredUnderTheName() throws Exception {
+        MBeanRegistration.register(new TestMetrics(1), OBJECT_NAME, logger);
+        MBeanRegistration.register(new TestMetrics(2), OBJECT_NAME, logger);
+
+        assertThat(getPlatformMBeanServer().getAttribute(new ObjectName(OBJECT_NAME), "Value"), is(2));
+        verify(logger, never()).warn(anyString(), any(JMException.class));
+    }
+
+    @Test
+    public void shouldUnregisterTheMBean() throws Exception {
+        MBeanRegistration.register(new TestMetrics(1), OBJECT_NAME, logger);
+        MBeanRegistration.unregister(OBJECT_NAME, logger);
+
+        assertThat(getPlatformMBeanServer().isRegistered(new ObjectName(OBJECT_NAME)), is(false));
+    }
+
+    @Test
+    public void shouldWarnRatherThanFailWhenTheMBeanCannotBeRegistered() {
+        MBeanRegistration.register(new Object(), OBJECT_NAME, logger);
+
+        verify(logger).warn(anyString(), any(JMException.class));
+    }
+
+    public interface TestMetricsMXBean {
+
+        int getValue();
+    }
+
+    public static class TestMetrics implements TestMetricsMXBean {
+
+        private final int value;
+
+        public TestMetrics(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.time.ZoneOffset.UTC;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class PageCursorTest {
+
+    @Test
+    public void shouldRoundTripThroughToken() throws Exception {
+        final ZonedDateTime position = ZonedDateTime.of(2026, 10, 18, 10, 15, 30, 123456000, UTC);
+        final UUID id = randomUUID();
+
+        final PageCursor pageCursor = PageCursor.fromToken(new PageCursor(position, id).toToken());
+
+        assertThat(pageCursor.getPosition().toInstant(), is(position.toInstant()));
+        assertThat(pageCursor.getId(), is(id));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTokenThatIsNotBase64() throws Exception {
+        PageCursor.fromToken("not a cursor!");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTokenWithoutSeparator() throws Exception {
+        PageCursor.fromToken("bm90LWEtY3Vyc29y");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTokenWithInvalidPosition() throws Exception {
+        PageCursor.fromToken("eWVzdGVyZGF5fGI0NGZhOWJiLWRjMzYtNDM3NS04M2E5LWZmMWJjNGNkNDM3NA");
+    }
+}
@@ -0,0 +1,147 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import uk.gov.justice.services.common.util.Clock;
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SubscriptionCacheTest {
+
+    private final ZonedDateTime now = new UtcClock().now();
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private Clock clock;
+
+    @InjectMocks
+    private SubscriptionCache subscriptionCache;
+
+    @Before
+    public void setUp() {
+        subscriptionCache.maxSize = "2";
+        subscriptionCache.ttlSeconds = "60";
+        when(clock.now()).thenReturn(now);
+    }
+
+    @Test
+    public void shouldReadEachSubscriptionOnceWhileItIsCached() {
+        final Subscription subscription = subscription();
+        when(subscriptionRepository.findBy(subscription.getId())).thenReturn(subscription);
+
+        final Subscription first = subscriptionCache.findBy(subscription.getId());
+        final Subscription second = subscriptionCache.findBy(subscription.getId());
+
+        assertThat(first.getFilter(), is(subscription.getFilter()));
+        assertThat(second, is(first));
+        verify(subscriptionRepository, times(1)).findBy(subscription.getId());
+        assertThat(subscriptionCache.getMisses(), is(1L));
+        assertThat(subscriptionCache.getHits(), is(1L));
+    }
+
+    @Test
+    public void shouldReadTheSubscriptionAgainOnceItHasExpired() {
+        final Subscription subscription = subscription();
+        when(subscriptionRepository.findBy(subscription.getId())).thenReturn(subscription);
+
+        subscriptionCache.findBy(subscription.getId());
+        when(clock.now()).thenReturn(now.plusSeconds(60));
+        subscriptionCache.findBy(subscription.getId());
+
+        verify(subscriptionRepository, times(2)).findBy(subscription.getId());
+        assertThat(subscriptionCache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void shouldReadTheSubscriptionAgainOnceItHasChanged() {
+        final Subscription subscription = subscription();
+        when(subscriptionRepository.findBy(subscription.getId())).thenReturn(subscription);
+
+        subscriptionCache.findBy(subscription.getId());
+        subscriptionCache.onSubscriptionChanged(SubscriptionChanged.onOtherNode(subscription.getId()));
+        subscriptionCache.findBy(subscription.getId());
+
+        verify(subscriptionRepository, times(2)).findBy(subscription.getId());
+        assertThat(subscriptionCache.getInvalidations(), is(1L));
+    }
+
+    @Test
+    public void shouldReadEverySubscriptionAgainOnceChangesMayHaveBeenMissed() {
+        final Subscription subscription = subscription();
+        when(subscriptionRepository.findBy(subscription.getId())).thenReturn(subscription);
+
+        subscriptionCache.findBy(subscription.getId());
+        subscriptionCache.onSubscriptionChangesMissed(new SubscriptionChangesMissed());
+        subscriptionCache.findBy(subscription.getId());
+
+        verify(subscriptionRepository, times(2)).findBy(subscription.getId());
+    }
+
+    @Test
+    public void shouldNotCacheASubscriptionReadWhileItWasChanging() {
+        final Subscription subscription = subscription();
+        when(subscriptionRepository.findBy(subscription.getId())).thenAnswer(invocation -> {
+            subscriptionCache.invalidate(subscription.getId());
+            return subscription;
+        });
+
+        assertThat(subscriptionCache.findBy(subscription.getId()).getId(), is(subscription.getId()));
+        assertThat(subscriptionCache.getSize(), is(0));
+    }
+
+    @Test
+    public void shouldEvictTheLeastRecentlyUsedSubscriptionBeyondTheMaximumSize() {
+        final Subscription first = subscription();
+        final Subscription second = subscription();
+        final Subscription third = subscription();
+        when(subscriptionRepository.findBy(first.getId())).thenReturn(first);
+        when(subscriptionRepository.findBy(second.getId())).thenReturn(second);
+        when(subscriptionRepository.findBy(third.getId())).thenReturn(third);
+
+        subscriptionCache.findBy(first.getId());
+        subscriptionCache.findBy(second.getId());
+        subscriptionCache.findBy(first.getId());
+        subscriptionCache.findBy(third.getId());
+        subscriptionCache.findBy(first.getId());
+        subscriptionCache.findBy(second.getId());
+
+        verify(subscriptionRepository, times(1)).findBy(first.getId());
+        verify(subscriptionRepository, times(2)).findBy(second.getId());
+        assertThat(subscriptionCache.getSize(), is(2));
+        assertThat(subscriptionCache.getEvictions(), is(2L));
+    }
+
+    @Test
+    public void shouldNotCacheSubscriptionsThatDoNotExist() {
+        final UUID subscriptionId = randomUUID();
+
+        assertThat(subscriptionCache.findBy(subscriptionId), is(nullValue()));
+        assertThat(subscriptionCache.findBy(subscriptionId), is(nullValue()));
+
+        verify(subscriptionRepository, times(2)).findBy(subscriptionId);
+        assertThat(subscriptionCache.getSize(), is(0));
+    }
+
+    private Subscription subscription() {
+        return new Subscription(randomUUID(), randomUUID(), "{\"name\":\"public.event\"}", now);
+    }
+}
@@ -0,0 +1,263 @@
+package uk.gov.moj.cpp.notification.persistence;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.slf4j.LoggerFactory.getLogger;
+import static uk.gov.justice.services.common.converter.ZonedDateTimes.toSqlTimestamp;
+import static uk.gov.justice.services.test.utils.core.reflection.ReflectionUtil.setField;
+
+import uk.gov.justice.services.common.util.UtcClock;
+import uk.gov.justice.services.jdbc.persistence.PreparedStatementWrapperFactory;
+import uk.gov.justice.services.jdbc.persistence.ViewStoreJdbcDataSourceProvider;
+import uk.gov.moj.cpp.notification.persistence.entity.EventCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubscriptionEventJdbcRepositoryIT {
+
+    private static final String LIQUIBASE_VIEW_STORE_CHANGELOG_XML = "liquibase/notification-view-store-db-changelog.xml";
+    private static final String COUNT_SUBSCRIPTION_EVENTS = "SELECT COUNT(*) FROM subscription_event WHERE subscription_id = ?";
+    private static final String UPDATE_STORED = "UPDATE event_cache SET stored = ? WHERE id = ?";
+    private static final String INSERT_SUBSCRIPTION =
+            "INSERT INTO subscription(id, owner_id, filter, created, modified) VALUES (?, ?, ?, ?, ?)";
+
+    private final DataSource viewStoreDataSource = anInMemoryDataSource();
+
+    private final SubscriptionEventJdbcRepository subscriptionEventJdbcRepository = new SubscriptionEventJdbcRepository();
+
+    private EventCacheJdbcRepository eventCacheJdbcRepository;
+
+    @Before
+    public void initializeDependencies() throws Exception {
+        final ViewStoreJdbcDataSourceProvider viewStoreJdbcDataSourceProvider = mock(ViewStoreJdbcDataSourceProvider.class);
+        when(viewStoreJdbcDataSourceProvider.getDataSource()).thenReturn(viewStoreDataSource);
+
+        setField(subscriptionEventJdbcRepository, "viewStoreJdbcDataSourceProvider", viewStoreJdbcDataSourceProvider);
+        setField(subscriptionEventJdbcRepository, "preparedStatementWrapperFactory", new PreparedStatementWrapperFactory());
+
+        eventCacheJdbcRepository = new EventCacheJdbcRepository(
+                mock(EventCacheJdbcRepositoryConfig.class),
+                viewStoreJdbcDataSourceProvider,
+                new PreparedStatementWrapperFactory(),
+                getLogger(EventCacheJdbcRepository.class));
+    }
+
+    @Before
+    public void initDatabase() throws Exception {
+        final Liquibase liquibase = new Liquibase(LIQUIBASE_VIEW_STORE_CHANGELOG_XML,
+                new ClassLoaderResourceAccessor(), new JdbcConnection(viewStoreDataSource.getConnection()));
+        liquibase.dropAll();
+        liquibase.update("");
+    }
+
+    @Test
+    public void shouldReadTheEventsRecordedForASubscriptionNewestFirst() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache older = eventCacheCreatedAt(now.minusMinutes(2));
+        final EventCache newer = eventCacheCreatedAt(now.minusMinutes(1));
+        final EventCache unmatched = eventCacheCreatedAt(now);
+
+        eventCacheJdbcRepository.insertBatch(asList(older, newer, unmatched));
+        subscriptionEventJdbcRepository.insert(asList(
+                new EventCacheMatched(older, singleton(subscriptionId)),
+                new EventCacheMatched(newer, singleton(subscriptionId)),
+                new EventCacheMatched(unmatched, singleton(randomUUID()))));
+
+        final List<EventCache> events = eventCacheJdbcRepository.queryBySubscriptionEvents(subscriptionId, Optional.empty(), Optional.empty(), Optional.empty());
+
+        assertThat(idsOf(events), is(asList(newer.getId(), older.getId())));
+    }
+
+    @Test
+    public void shouldPageThroughTheEventsRecordedForASubscription() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache first = eventCacheCreatedAt(now.minusMinutes(3));
+        final EventCache second = eventCacheCreatedAt(now.minusMinutes(2));
+        final EventCache third = eventCacheCreatedAt(now.minusMinutes(1));
+
+        eventCacheJdbcRepository.insertBatch(asList(first, second, third));
+        subscriptionEventJdbcRepository.insert(asList(
+                new EventCacheMatched(first, singleton(subscriptionId)),
+                new EventCacheMatched(second, singleton(subscriptionId)),
+                new EventCacheMatched(third, singleton(subscriptionId))));
+
+        final List<EventCache> page = eventCacheJdbcRepository.queryBySubscriptionEvents(subscriptionId, Optional.empty(),
+                Optional.of(new PageCursor(third.getCreated(), third.getId())), Optional.of(1));
+
+        assertThat(idsOf(page), is(singletonList(second.getId())));
+    }
+
+    @Test
+    public void shouldRebuildTheEventsOfASubscriptionFromItsFilter() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        final EventCache previouslyMatched = eventCacheCreatedAt(new UtcClock().now().minusMinutes(1));
+        final EventCache forUser = new EventCache(randomUUID(), userId, randomUUID(), "correlationId", randomUUID(), "{}", new UtcClock().now(), "public.event");
+
+        eventCacheJdbcRepository.insertBatch(asList(previouslyMatched, forUser));
+        subscriptionEventJdbcRepository.insert(singletonList(new EventCacheMatched(previouslyMatched, singleton(subscriptionId))));
+
+        final int recorded = subscriptionEventJdbcRepository.rebuild(subscriptionId, new FilterClause("user_id = ?", singletonList(userId)));
+
+        assertThat(recorded, is(1));
+        assertThat(idsOf(eventCacheJdbcRepository.queryBySubscriptionEvents(subscriptionId, Optional.empty(), Optional.empty(), Optional.empty())),
+                is(singletonList(forUser.getId())));
+    }
+
+    @Test
+    public void shouldReconcileTheEventsOfASubscriptionStoredSinceItsRebuild() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID userId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        final EventCache storedBefore = new EventCache(randomUUID(), userId, randomUUID(), "correlationId", randomUUID(), "{}", now.minusMinutes(3), "public.event");
+        final EventCache missed = new EventCache(randomUUID(), userId, randomUUID(), "correlationId", randomUUID(), "{}", now.minusMinutes(2), "public.event");
+        final EventCache matchedByOldFilter = eventCacheCreatedAt(now.minusMinutes(1));
+
+        eventCacheJdbcRepository.insertBatch(asList(storedBefore, missed, matchedByOldFilter));
+        subscriptionEventJdbcRepository.insert(singletonList(new EventCacheMatched(matchedByOldFilter, singleton(subscriptionId))));
+        updateStored(storedBefore, now.minusMinutes(1));
+        updateStored(missed, now);
+        updateStored(matchedByOldFilter, now);
+
+        final int reconciled = subscriptionEventJdbcRepository.reconcile(subscriptionId, new FilterClause("user_id = ?", singletonList(userId)), now.minusSeconds(10));
+
+        assertThat(reconciled, is(2));
+        assertThat(idsOf(eventCacheJdbcRepository.queryBySubscriptionEvents(subscriptionId, Optional.empty(), Optional.empty(), Optional.empty())),
+                is(singletonList(missed.getId())));
+    }
+
+    @Test
+    public void shouldRemoveTheEventsOfASubscription() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID otherSubscriptionId = randomUUID();
+        final EventCache eventCache = eventCacheCreatedAt(new UtcClock().now());
+
+        subscriptionEventJdbcRepository.insert(singletonList(new EventCacheMatched(eventCache, new HashSet<>(asList(subscriptionId, otherSubscriptionId)))));
+
+        subscriptionEventJdbcRepository.removeBySubscription(subscriptionId);
+
+        assertThat(countFor(subscriptionId), is(0));
+        assertThat(countFor(otherSubscriptionId), is(1));
+    }
+
+    @Test
+    public void shouldRemoveTheRowsOfExpiredEvents() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+
+        subscriptionEventJdbcRepository.insert(asList(
+                new EventCacheMatched(eventCacheCreatedAt(now.minusHours(2)), singleton(subscriptionId)),
+                new EventCacheMatched(eventCacheCreatedAt(now), singleton(subscriptionId))));
+
+        assertThat(subscriptionEventJdbcRepository.removeExpired(now.minusHours(1)), is(1));
+        assertThat(countFor(subscriptionId), is(1));
+    }
+
+    @Test
+    public void shouldFindTheSubscriptionsRebuiltBeforeATimeUntilTheirRebuildIsCleared() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final UUID rebuiltLaterId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        insertSubscription(subscriptionId);
+        insertSubscription(rebuiltLaterId);
+
+        subscriptionEventJdbcRepository.markRebuilt(subscriptionId, now.minusSeconds(20));
+        subscriptionEventJdbcRepository.markRebuilt(rebuiltLaterId, now);
+
+        final Map<UUID, ZonedDateTime> rebuilt = subscriptionEventJdbcRepository.findRebuiltBefore(now.minusSeconds(10));
+
+        assertThat(rebuilt.keySet(), is(singleton(subscriptionId)));
+        assertThat(subscriptionEventJdbcRepository.clearRebuilt(subscriptionId, rebuilt.get(subscriptionId)), is(true));
+        assertThat(subscriptionEventJdbcRepository.findRebuiltBefore(now.minusSeconds(10)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotClearARebuildMadeAgainSinceItWasFound() throws Exception {
+        final UUID subscriptionId = randomUUID();
+        final ZonedDateTime now = new UtcClock().now();
+        insertSubscription(subscriptionId);
+
+        subscriptionEventJdbcRepository.markRebuilt(subscriptionId, now.minusSeconds(20));
+        final ZonedDateTime found = subscriptionEventJdbcRepository.findRebuiltBefore(now).get(subscriptionId);
+        subscriptionEventJdbcRepository.markRebuilt(subscriptionId, now.minusSeconds(5));
+
+        assertThat(subscriptionEventJdbcRepository.clearRebuilt(subscriptionId, found), is(false));
+        assertThat(subscriptionEventJdbcRepository.findRebuiltBefore(now).keySet(), is(singleton(subscriptionId)));
+    }
+
+    private void insertSubscription(final UUID subscriptionId) throws Exception {
+        try (final Connection connection = viewStoreDataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SUBSCRIPTION)) {
+            preparedStatement.setObject(1, subscriptionId);
+            preparedStatement.setObject(2, randomUUID());
+            preparedStatement.setString(3, "{}");
+            preparedStatement.setTimestamp(4, toSqlTimestamp(new UtcClock().now()));
+            preparedStatement.setTimestamp(5, toSqlTimestamp(new UtcClock().now()));
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private int countFor(final UUID subscriptionId) throws Exception {
+        try (final Connection connection = viewStoreDataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement(COUNT_SUBSCRIPTION_EVENTS)) {
+            preparedStatement.setObject(1, subscriptionId);
+            try (final ResultSet resultSet = preparedStatement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private void updateStored(final EventCache eventCache, final ZonedDateTime stored) throws Exception {
+        try (final Connection connection = viewStoreDataSource.getConnection();
+             final PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_STORED)) {
+            preparedStatement.setTimestamp(1, toSqlTimestamp(stored));
+            preparedStatement.setObject(2, eventCache.getId());
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private List<UUID> idsOf(final List<EventCache> events) {
+        return events.stream().map(EventCache::getId).collect(toList());
+    }
+
+    private EventCache eventCacheCreatedAt(final ZonedDateTime created) {
+        return new EventCache(randomUUID(), randomUUID(), randomUUID(), "correlationId", randomUUID(), "{}", created, "public.event");
+    }
+
+    private static DataSource anInMemoryDataSource() {
+
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:test;MV_STORE=FALSE;MVCC=FALSE");
+        dataSource.setUser("sa");
+        dataSource.setPassword("sa");
+
+        return dataSource;
+    }
+}
@@ -1,7 +1,9 @@
 package uk.gov.moj.cpp.notification.persistence;
 
 import static java.time.ZonedDateTime.now;
+import static java.util.Comparator.comparing;
 import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -13,6 +15,7 @@ import uk.gov.justice.services.test.utils.persistence.BaseTransactionalTest;
 import uk.gov.moj.cpp.notification.persistence.entity.Subscription;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -83,4 +86,35 @@ public class SubscriptionRepositoryTest extends BaseTransactionalJunit4Test {
         assertThat(subscriptionRepository.findBy(SUBSCRIPTION_A_UUID), is(nullValue()));
         assertThat(subscriptionRepository.findBy(SUBSCRIPTION_B_UUID), is(notNullValue()));
     }
+
+    @Test
+    public void shouldPageSubscriptionsModifiedBeforeATimeInModifiedAndIdOrder() throws Exception {
+
+        final ZonedDateTime expiredTime = now();
+        final List<Subscription> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Subscription subscription = new Subscription(randomUUID(), OWNER_ID_A, SUBSCRIPTION_A_FILTERS, expiredTime.minusMinutes(5 - i / 2));
+            subscriptionRepository.save(subscription);
+            expired.add(subscription);
+        }
+        subscriptionRepository.save(new Subscription(randomUUID(), OWNER_ID_B, SUBSCRIPTION_B_FILTERS, expiredTime.plusMinutes(1)));
+
+        expired.sort(comparing((Subscription subscription) -> subscription.getModified().toInstant()).thenComparing(Subscription::getId));
+
+        final List<Subscription> firstPage = subscriptionRepository.findPageByModifiedLessThan(expiredTime, 2);
+        final Subscription lastOfFirstPage = firstPage.get(1);
+        final List<Subscription> secondPage = subscriptionRepository.findPageByModifiedLessThanAfter(
+                expiredTime, lastOfFirstPage.getModified(), lastOfFirstPage.getId(), 2);
+        final Subscription lastOfSecondPage = secondPage.get(1);
+        final List<Subscription> lastPage = subscriptionRepository.findPageByModifiedLessThanAfter(
+                expiredTime, lastOfSecondPage.getModified(), lastOfSecondPage.getId(), 2);
+
+        assertThat(idsOf(firstPage), is(idsOf(expired.subList(0, 2))));
+        assertThat(idsOf(secondPage), is(idsOf(expired.subList(2, 4))));
+        assertThat(idsOf(lastPage), is(idsOf(expired.subList(4, 5))));
+    }
+
+    private List<UUID> idsOf(final List<Subscription> subscriptions) {
+        return subscriptions.stream().map(Subscription::getId).collect(toList());
+    }
 }